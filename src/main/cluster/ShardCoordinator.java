@@ -0,0 +1,464 @@
+package cluster;
+
+import model.Course;
+import model.Grade;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.JsonReader;
+import persistence.Journal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Represents the coordinator of a grade book sharded across ShardWorker processes on this machine. Students are
+// partitioned by a hash of their ID, so a student, its enrollments and its grades live on exactly one shard, and
+// requests about one student go to that shard alone. Courses are added to every shard, each of which holds the
+// part of the roster that belongs to it. Course summaries are gathered from every shard and merged: counts, means
+// and sums of squared differences combine exactly into the average and standard deviation, and each shard sends
+// how often each grade occurs, which merges into the exact median and letter grade distribution.
+// Each shard has one connection, used by one request at a time; a summary sends its request to every shard before
+// reading any answer, so the shards work on it in parallel.
+public class ShardCoordinator implements AutoCloseable {
+
+    private final List<Shard> shards;
+
+    // EFFECTS: constructs a coordinator of the workers already listening on the given loopback ports; a student's
+    //          shard depends on the order of ports, which must be the same every time. Throws IOException if a
+    //          worker cannot be reached.
+    public ShardCoordinator(List<Integer> ports) throws IOException {
+        this(ports, Collections.nCopies(ports.size(), null));
+    }
+
+    private ShardCoordinator(List<Integer> ports, List<Process> processes) throws IOException {
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("A sharded grade book needs at least one shard");
+        }
+        this.shards = new ArrayList<>(ports.size());
+        try {
+            for (int i = 0; i < ports.size(); i++) {
+                shards.add(new Shard(i, ports.get(i), processes.get(i)));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // EFFECTS: starts count worker processes on this machine, with the classpath of this JVM, and returns a
+    //          coordinator of them that stops them when closed. Throws IOException if a worker fails to start.
+    public static ShardCoordinator launch(int count) throws IOException {
+        if (count < 1) {
+            throw new IllegalArgumentException("A sharded grade book needs at least one shard");
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>(count);
+        List<Integer> ports = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ShardWorker.class.getName(), "0", ShardWorker.EXIT_WITH_PARENT)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                processes.add(process);
+            }
+            for (Process process : processes) {
+                ports.add(readPort(process));
+            }
+        } catch (IOException e) {
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        }
+        return new ShardCoordinator(ports, processes);
+    }
+
+    // EFFECTS: starts as many workers as the first argument says, loads the grade book saved in the file given
+    //          as the second argument, or in the GUI's file, into them, and prints the summary of every course
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String file = args.length > 1 ? args[1] : "gradeTracker.json";
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(file).replay();
+        try (ShardCoordinator coordinator = launch(count)) {
+            coordinator.load(data.first, data.second);
+            System.out.println("Loaded " + coordinator.studentCount() + " students from " + file + " into "
+                    + count + " shards");
+            for (Course course : data.second) {
+                CourseSummary summary = coordinator.getCourseSummary(course.getCourseID());
+                System.out.println(course.getCourseName() + " (ID: " + course.getCourseID() + "): " + summary);
+            }
+        }
+    }
+
+    // EFFECTS: returns the port process printed once it was ready; throws IOException if it exited first
+    private static int readPort(Process process) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith(ShardWorker.READY)) {
+                return Integer.parseInt(line.substring(ShardWorker.READY.length()).trim());
+            }
+        }
+        throw new IOException("Shard worker exited before it was ready");
+    }
+
+    // EFFECTS: returns the number of shards
+    public int shardCount() {
+        return shards.size();
+    }
+
+    // EFFECTS: returns the index of the shard that holds the student with studentID
+    public int shardOf(int studentID) {
+        int hash = studentID * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds course, without its roster, to every shard
+    public void addCourse(Course course) throws IOException {
+        JSONObject details = course.toJson();
+        details.remove("enrolledStudentsID");
+        details.remove("studentGrades");
+        gather(new JSONObject().put("op", "addCourse").put("course", details));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds student, without its courses, to its shard and returns true, or returns false if its shard
+    //          already has a student with its ID
+    public boolean addStudent(Student student) throws IOException {
+        return (Boolean) send(shardOf(student.getStudentID()), new JSONObject().put("op", "addStudent")
+                .put("studentID", student.getStudentID()).put("name", student.getName()));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enrolls the student in the course and returns true; returns false if either does not exist or the
+    //          student is already enrolled
+    public boolean enroll(int studentID, int courseID) throws IOException {
+        return (Boolean) send(shardOf(studentID), pair("enroll", studentID, courseID));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the student from the course, with its grade, and returns true; returns false if it was not
+    //          enrolled
+    public boolean drop(int studentID, int courseID) throws IOException {
+        return (Boolean) send(shardOf(studentID), pair("drop", studentID, courseID));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the grade of the student in the course and returns true; returns false if it is not enrolled
+    public boolean setGrade(int studentID, int courseID, double grade) throws IOException {
+        return (Boolean) send(shardOf(studentID), pair("setGrade", studentID, courseID).put("grade", grade));
+    }
+
+    // EFFECTS: returns the grade of the student in the course, or null if it has none
+    public Double getGrade(int studentID, int courseID) throws IOException {
+        Object grade = send(shardOf(studentID), pair("getGrade", studentID, courseID));
+        return grade == JSONObject.NULL ? null : ((Number) grade).doubleValue();
+    }
+
+    // EFFECTS: returns a copy of the student with studentID and the IDs of its courses, or null if there is none
+    public Student getStudent(int studentID) throws IOException {
+        Object json = send(shardOf(studentID), new JSONObject().put("op", "getStudent").put("studentID", studentID));
+        if (json == JSONObject.NULL) {
+            return null;
+        }
+        JSONObject student = (JSONObject) json;
+        Student copy = new Student(student.getString("name"), student.getInt("studentID"));
+        JSONArray courses = student.getJSONArray("enrolledCourses");
+        for (int i = 0; i < courses.length(); i++) {
+            copy.getEnrolledCourses().add(courses.getInt(i));
+        }
+        return copy;
+    }
+
+    // EFFECTS: returns the number of students across all shards
+    public int studentCount() throws IOException {
+        int count = 0;
+        for (Object counts : gather(new JSONObject().put("op", "counts"))) {
+            count += ((JSONObject) counts).getInt("students");
+        }
+        return count;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds courses to every shard and each of students to its shard, then enrolls and grades each student
+    //          of each course's roster, sending each shard only its own part, in a single request per shard
+    public void load(List<Student> students, List<Course> courses) throws IOException {
+        List<JSONObject> requests = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            requests.add(new JSONObject().put("op", "load").put("students", new JSONArray())
+                    .put("courses", new JSONArray()));
+        }
+        for (Student student : students) {
+            requests.get(shardOf(student.getStudentID())).getJSONArray("students").put(new JSONObject()
+                    .put("studentID", student.getStudentID()).put("name", student.getName()));
+        }
+        for (Course course : courses) {
+            List<JSONObject> parts = new ArrayList<>(shards.size());
+            for (JSONObject request : requests) {
+                JSONObject part = course.toJson().put("enrolledStudentsID", new JSONArray())
+                        .put("studentGrades", new JSONArray());
+                request.getJSONArray("courses").put(part);
+                parts.add(part);
+            }
+            List<Integer> roster = course.getEnrolledStudentsID();
+            List<Double> grades = course.getStudentGrades();
+            for (int i = 0; i < roster.size(); i++) {
+                JSONObject part = parts.get(shardOf(roster.get(i)));
+                part.getJSONArray("enrolledStudentsID").put(roster.get(i));
+                if (i < grades.size()) {
+                    part.getJSONArray("studentGrades").put(grades.get(i));
+                }
+            }
+        }
+        gather(requests);
+    }
+
+    // EFFECTS: returns the summary of the course gathered from every shard, or null if there is no such course
+    public CourseSummary getCourseSummary(int courseID) throws IOException {
+        List<Object> parts = gather(new JSONObject().put("op", "courseStats").put("courseID", courseID));
+        if (parts.contains(JSONObject.NULL)) {
+            return null;
+        }
+        long count = 0;
+        double mean = 0;
+        double squares = 0;
+        TreeMap<Double, Long> histogram = new TreeMap<>();
+        for (Object part : parts) {
+            JSONObject stats = (JSONObject) part;
+            long partCount = stats.getLong("count");
+            if (partCount == 0) {
+                continue;
+            }
+            // combine the means and squared differences of two groups exactly (Chan et al.)
+            double partMean = stats.getDouble("mean");
+            double delta = partMean - mean;
+            long total = count + partCount;
+            mean += delta * partCount / total;
+            squares += stats.getDouble("squares") + delta * delta * count * partCount / total;
+            count = total;
+            JSONArray grades = stats.getJSONArray("grades");
+            for (int i = 0; i < grades.length(); i++) {
+                JSONArray entry = grades.getJSONArray(i);
+                histogram.merge(entry.getDouble(0), entry.getLong(1), Long::sum);
+            }
+        }
+        return new CourseSummary(count, count == 0 ? 0 : mean, median(histogram, count),
+                count == 0 ? 0 : Math.sqrt(squares / (count - 1)), distribution(histogram));
+    }
+
+    // EFFECTS: returns the median of the count grades in histogram, as Course computes it, or 0 if there are none
+    private static double median(TreeMap<Double, Long> histogram, long count) {
+        if (count == 0) {
+            return 0;
+        }
+        long lower = (count - 1) / 2;
+        long upper = count / 2;
+        Double lowerGrade = null;
+        long seen = 0;
+        for (Map.Entry<Double, Long> entry : histogram.entrySet()) {
+            seen += entry.getValue();
+            if (lowerGrade == null && seen > lower) {
+                lowerGrade = entry.getKey();
+            }
+            if (seen > upper) {
+                return (lowerGrade + entry.getKey()) / 2.0;
+            }
+        }
+        throw new IllegalStateException("histogram holds fewer than " + count + " grades");
+    }
+
+    // EFFECTS: returns how many grades in histogram have each letter grade, from the highest grade down
+    private static Map<String, Long> distribution(TreeMap<Double, Long> histogram) {
+        Grade grade = new Grade();
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        histogram.descendingMap().forEach((value, count) ->
+                distribution.merge(grade.percentageToLetterGrade(value), count, Long::sum));
+        return distribution;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: asks every shard to shut down, stops the workers this coordinator started, and closes connections
+    @Override
+    public void close() throws IOException {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private static JSONObject pair(String op, int studentID, int courseID) {
+        return new JSONObject().put("op", op).put("studentID", studentID).put("courseID", courseID);
+    }
+
+    // EFFECTS: sends request to the shard at index and returns its result
+    private Object send(int index, JSONObject request) throws IOException {
+        Shard shard = shards.get(index);
+        synchronized (shard) {
+            shard.write(request);
+            return shard.read();
+        }
+    }
+
+    // EFFECTS: sends request to every shard and returns their results in shard order
+    private List<Object> gather(JSONObject request) throws IOException {
+        return gather(Collections.nCopies(shards.size(), request));
+    }
+
+    // EFFECTS: sends each shard its request, then reads every result, so the shards work at the same time; returns
+    //          the results in shard order. Shards are locked in order, so concurrent gathers cannot deadlock. If a
+    //          shard fails, the results of the other shards are still read before the failure is thrown, so that
+    //          each connection's next reply answers its next request.
+    private List<Object> gather(List<JSONObject> requests) throws IOException {
+        return gather(requests, 0);
+    }
+
+    private List<Object> gather(List<JSONObject> requests, int from) throws IOException {
+        if (from == shards.size()) {
+            return new ArrayList<>(shards.size());
+        }
+        Shard shard = shards.get(from);
+        synchronized (shard) {
+            shard.write(requests.get(from));
+            List<Object> results;
+            try {
+                results = gather(requests, from + 1);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    shard.read();
+                } catch (IOException | RuntimeException unread) {
+                    e.addSuppressed(unread);
+                }
+                throw e;
+            }
+            results.add(0, shard.read());
+            return results;
+        }
+    }
+
+    // The connection to one worker, and the worker's process if this coordinator started it
+    private static final class Shard {
+        private final int index;
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+        private final Process process;
+
+        Shard(int index, int port, Process process) throws IOException {
+            this.index = index;
+            this.process = process;
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void write(JSONObject request) throws IOException {
+            out.write(request.toString());
+            out.write('\n');
+            out.flush();
+        }
+
+        // EFFECTS: returns the result of the oldest request not yet read; throws IOException if it failed
+        Object read() throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Shard " + index + " closed its connection");
+            }
+            JSONObject response = new JSONObject(line);
+            if (response.has("error")) {
+                throw new IOException("Shard " + index + ": " + response.getString("error"));
+            }
+            return response.get("result");
+        }
+
+        synchronized void close() {
+            try {
+                if (process == null || process.isAlive()) {
+                    write(new JSONObject().put("op", "shutdown"));
+                    read();
+                }
+            } catch (IOException e) {
+                // the worker is already gone
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing more to release
+            }
+            if (process != null) {
+                try {
+                    process.getOutputStream().close();
+                    if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (IOException e) {
+                    process.destroyForcibly();
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Represents the summary of a course over every shard: how many grades it has, their average, median and
+    // standard deviation, as Course computes them, and how many of them have each letter grade
+    public static final class CourseSummary {
+        private final long count;
+        private final double average;
+        private final double median;
+        private final double standardDeviation;
+        private final Map<String, Long> distribution;
+
+        CourseSummary(long count, double average, double median, double standardDeviation,
+                      Map<String, Long> distribution) {
+            this.count = count;
+            this.average = average;
+            this.median = median;
+            this.standardDeviation = standardDeviation;
+            this.distribution = Collections.unmodifiableMap(distribution);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+
+        public double getMedian() {
+            return median;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        // EFFECTS: returns how many grades have each letter grade, from the highest letter grade down
+        public Map<String, Long> getDistribution() {
+            return distribution;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d grades, average %.2f, median %.2f, standard deviation %.2f, %s",
+                    count, average, median, standardDeviation, distribution);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package cluster;
+
+import model.Course;
+import model.GradeBook;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Represents one shard of a sharded grade book: a process that holds, in a GradeBook, every course but only the
+// students whose IDs hash to this shard, with their enrollments and grades. A course on a shard therefore has the
+// part of its roster that belongs to the shard. The worker answers a ShardCoordinator over a loopback socket; each
+// request and each response is a JSON object on one line. Requests name an operation in "op"; responses hold the
+// answer in "result", or the reason a request failed in "error". Each connection is served by its own thread.
+//
+// Run a worker with: java cluster.ShardWorker [port] [--exit-with-parent]
+// It prints READY followed by the port it listens on, which is any free port if none or 0 is given. With
+// --exit-with-parent it also exits once its standard input is closed, so workers started by a coordinator do not
+// outlive it.
+public class ShardWorker {
+
+    static final String READY = "SHARD-WORKER-LISTENING ";
+    static final String EXIT_WITH_PARENT = "--exit-with-parent";
+
+    private final GradeBook book;
+    private final ServerSocket server;
+
+    // EFFECTS: constructs a worker with an empty grade book listening on the given loopback port, or on any free
+    //          port if port is 0; throws IOException if the port cannot be bound
+    public ShardWorker(int port) throws IOException {
+        this.book = new GradeBook();
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    // EFFECTS: starts a worker on the port given as the first argument, or any free port, prints READY and its
+    //          port, and serves until a coordinator shuts it down
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 && !args[0].equals(EXIT_WITH_PARENT) ? Integer.parseInt(args[0]) : 0;
+        ShardWorker worker = new ShardWorker(port);
+        if (List.of(args).contains(EXIT_WITH_PARENT)) {
+            Thread watcher = new Thread(ShardWorker::exitWhenInputCloses, "shard-parent-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        System.out.println(READY + worker.getPort());
+        System.out.flush();
+        worker.serve();
+    }
+
+    // EFFECTS: returns the port the worker listens on
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // EFFECTS: accepts connections and serves each on its own thread, until the worker is shut down
+    public void serve() throws IOException {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketException e) {
+                return; // shut down
+            }
+            Thread thread = new Thread(() -> handle(socket), "shard-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops accepting connections
+    public void shutdown() throws IOException {
+        server.close();
+    }
+
+    // EFFECTS: answers the requests on socket, one line each, until it is closed
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JSONObject request = new JSONObject(line);
+                JSONObject response;
+                try {
+                    response = new JSONObject().put("result", answer(request));
+                } catch (RuntimeException e) {
+                    response = new JSONObject().put("error", String.valueOf(e.getMessage()));
+                }
+                out.write(response.toString());
+                out.write('\n');
+                out.flush();
+                if (request.optString("op").equals("shutdown")) {
+                    shutdown();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // the coordinator went away; nothing left to answer
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: carries out request and returns its result, or JSONObject.NULL if it has none
+    private Object answer(JSONObject request) {
+        String op = request.getString("op");
+        switch (op) {
+            case "addCourse":
+                return book.addCourse(course(request.getJSONObject("course")));
+            case "addStudent":
+                return book.addStudent(new Student(request.getString("name"), request.getInt("studentID")));
+            case "enroll":
+                return book.enroll(request.getInt("studentID"), request.getInt("courseID"));
+            case "drop":
+                return book.drop(request.getInt("studentID"), request.getInt("courseID"));
+            case "setGrade":
+                return book.setGrade(request.getInt("studentID"), request.getInt("courseID"),
+                        request.getDouble("grade"));
+            case "getGrade":
+                Double grade = book.getGrade(request.getInt("studentID"), request.getInt("courseID"));
+                return grade == null ? JSONObject.NULL : grade;
+            case "getStudent":
+                Student student = book.snapshot().getStudent(request.getInt("studentID"));
+                return student == null ? JSONObject.NULL : student.toJson();
+            case "load":
+                return load(request);
+            case "counts":
+                return new JSONObject().put("students", book.studentCount()).put("courses", book.courseCount());
+            case "courseStats":
+                return courseStats(request.getInt("courseID"));
+            case "shutdown":
+                return JSONObject.NULL;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + op);
+        }
+    }
+
+    // EFFECTS: returns a course with the details in json, and no roster
+    private static Course course(JSONObject json) {
+        return new Course(json.getString("courseName"), json.getString("courseCode"),
+                json.getString("courseDescription"), json.getInt("courseID"), json.getInt("credits"),
+                json.getDouble("percentageGrade"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the courses and students of request, then enrolls and grades the students of each course's
+    //          roster part in it, all at once; returns how many enrollments were made
+    private int load(JSONObject request) {
+        JSONArray courses = request.getJSONArray("courses");
+        for (int i = 0; i < courses.length(); i++) {
+            book.addCourse(course(courses.getJSONObject(i)));
+        }
+        JSONArray students = request.getJSONArray("students");
+        for (int i = 0; i < students.length(); i++) {
+            JSONObject student = students.getJSONObject(i);
+            book.addStudent(new Student(student.getString("name"), student.getInt("studentID")));
+        }
+        int enrolled = 0;
+        for (int i = 0; i < courses.length(); i++) {
+            JSONObject course = courses.getJSONObject(i);
+            JSONArray roster = course.getJSONArray("enrolledStudentsID");
+            JSONArray grades = course.getJSONArray("studentGrades");
+            int[] studentIDs = new int[roster.length()];
+            for (int j = 0; j < studentIDs.length; j++) {
+                studentIDs[j] = roster.getInt(j);
+            }
+            double[] studentGrades = new double[Math.min(grades.length(), studentIDs.length)];
+            for (int j = 0; j < studentGrades.length; j++) {
+                studentGrades[j] = grades.getDouble(j);
+            }
+            enrolled += book.enrollAll(course.getInt("courseID"), studentIDs, studentGrades);
+        }
+        return enrolled;
+    }
+
+    // EFFECTS: returns the mergeable statistics of this shard's part of a course: how many grades it has, their
+    //          mean, the sum of their squared differences from the mean, and how many times each grade occurs, as
+    //          [grade, count] pairs in increasing order of grade; returns JSONObject.NULL if there is no such course
+    private Object courseStats(int courseID) {
+        Course course = book.snapshot().getCourse(courseID);
+        if (course == null) {
+            return JSONObject.NULL;
+        }
+        List<Double> grades = course.getStudentGrades();
+        double sum = 0;
+        Map<Double, Integer> counts = new TreeMap<>();
+        for (double grade : grades) {
+            sum += grade;
+            counts.merge(grade, 1, Integer::sum);
+        }
+        double mean = grades.isEmpty() ? 0 : sum / grades.size();
+        double squares = 0;
+        for (double grade : grades) {
+            squares += (grade - mean) * (grade - mean);
+        }
+        JSONArray histogram = new JSONArray();
+        counts.forEach((grade, count) -> histogram.put(new JSONArray().put(grade).put(count)));
+        return new JSONObject().put("count", grades.size()).put("mean", mean).put("squares", squares)
+                .put("grades", histogram);
+    }
+
+    // EFFECTS: waits until standard input is closed, then exits
+    private static void exitWhenInputCloses() {
+        try {
+            while (System.in.read() != -1) {
+                // ignore anything sent
+            }
+        } catch (IOException e) {
+            // treat a broken input like a closed one
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,107 @@
+package model;
+
+import java.util.Objects;
+
+
+/**
+ * Represents one change to the students and courses, as published by the
+ * ChangeFeed: what kind of change it was and the IDs of the student and
+ * course it was about. A change says what changed, not what it changed to;
+ * a subscriber reads the current state of what changed when it gets it.
+ */
+public final class Change {
+
+    /** the kinds of change */
+    public enum Kind {
+        /** a student was added */
+        STUDENT_ADDED,
+        /** a student was removed */
+        STUDENT_REMOVED,
+        /** a student's name or ID changed */
+        STUDENT_CHANGED,
+        /** a course was added */
+        COURSE_ADDED,
+        /** a course was removed */
+        COURSE_REMOVED,
+        /** a course's details or ID changed */
+        COURSE_CHANGED,
+        /** a student was enrolled in a course */
+        ENROLLED,
+        /** a student was removed from a course */
+        DROPPED,
+        /** a student's grade in a course changed */
+        GRADE_CHANGED,
+        /** too much changed to list; everything must be read again */
+        RESET;
+
+        /**
+         * @return true if a change of this kind adds, removes or renames a
+         *         student or course, rather than changing an enrollment
+         */
+        public boolean isStructural() {
+            return this != ENROLLED && this != DROPPED && this != GRADE_CHANGED;
+        }
+    }
+
+    private static final Change RESET = new Change(Kind.RESET, 0, 0);
+
+    private final Kind kind;
+    private final int studentID;
+    private final int courseID;
+
+    /**
+     * Creates a change.
+     * @param kind  what changed
+     * @param studentID  the ID of the student it is about, or 0
+     * @param courseID  the ID of the course it is about, or 0
+     */
+    public Change(Kind kind, int studentID, int courseID) {
+        this.kind = kind;
+        this.studentID = studentID;
+        this.courseID = courseID;
+    }
+
+    /**
+     * @return the change that tells a subscriber to read everything again
+     */
+    public static Change reset() {
+        return RESET;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the ID of the student this change is about, or 0 if none
+     */
+    public int getStudentID() {
+        return studentID;
+    }
+
+    /**
+     * @return the ID of the course this change is about, or 0 if none
+     */
+    public int getCourseID() {
+        return courseID;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Change)) {
+            return false;
+        }
+        Change change = (Change) other;
+        return kind == change.kind && studentID == change.studentID && courseID == change.courseID;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, studentID, courseID);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "(student " + studentID + ", course " + courseID + ")";
+    }
+}
@@ -0,0 +1,270 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Represents a feed of the changes made to students and courses, so that
+ * the user interface, autosave and exporters can react to what changed
+ * instead of reading everything again after each edit.
+ * We use the Singleton Design Pattern, as for the EventLog, so that the
+ * model can publish changes without being given the feed.
+ * Subscribers receive changes in batches. Each subscriber has its own
+ * bounded buffer of pending changes, in which a change replaces an earlier
+ * one about the same thing: grading a student ten times leaves one
+ * GRADE_CHANGED, and enrolling then dropping leaves one DROPPED. While a
+ * subscriber has not asked for a batch, or is still handling the last one,
+ * its changes keep coalescing, so a burst of changes reaches it as a few
+ * batches however many there were. If a buffer fills up it is replaced by
+ * a single RESET, which tells the subscriber to read everything again.
+ * Publishing costs a single check while there are no subscribers.
+ */
+public class ChangeFeed implements Flow.Publisher<List<Change>> {
+
+    /** the number of pending changes a subscriber keeps unless configured otherwise */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** the only ChangeFeed in the system (Singleton Design Pattern) */
+    private static final ChangeFeed theFeed = new ChangeFeed();
+
+    private final List<CoalescingSubscription> subscriptions;
+
+    /**
+     * Prevent external construction.
+     * (Singleton Design Pattern).
+     */
+    private ChangeFeed() {
+        subscriptions = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Gets instance of ChangeFeed - creates it
+     * if it doesn't already exist.
+     * (Singleton Design Pattern)
+     * @return  instance of ChangeFeed
+     */
+    public static ChangeFeed getInstance() {
+        return theFeed;
+    }
+
+    /**
+     * Subscribes subscriber to this feed, delivering its batches on the
+     * common pool and keeping up to DEFAULT_CAPACITY pending changes.
+     * @param subscriber  the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Change>> subscriber) {
+        subscribe(subscriber, ForkJoinPool.commonPool(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Subscribes subscriber to this feed. Its batches are delivered by
+     * executor, one at a time; with an executor that runs tasks on the Swing
+     * event thread, the subscriber may update the user interface directly.
+     * @param subscriber  the subscriber
+     * @param executor  runs the delivery of each batch
+     * @param capacity  the number of pending changes kept before they are
+     *                  replaced by a RESET
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public void subscribe(Flow.Subscriber<? super List<Change>> subscriber, Executor executor, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        CoalescingSubscription subscription = new CoalescingSubscription(subscriber, executor, capacity);
+        subscriber.onSubscribe(subscription);
+        synchronized (subscription) {
+            if (!subscription.cancelled) {
+                subscriptions.add(subscription);
+            }
+        }
+    }
+
+    /**
+     * @return true if anyone is subscribed, so that changes are worth
+     *         describing
+     */
+    public boolean isActive() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Publishes a change to every subscriber. Creates nothing if there are
+     * no subscribers.
+     * @param kind  what changed
+     * @param studentID  the ID of the student it is about, or 0
+     * @param courseID  the ID of the course it is about, or 0
+     */
+    public void publish(Change.Kind kind, int studentID, int courseID) {
+        if (!subscriptions.isEmpty()) {
+            publish(new Change(kind, studentID, courseID));
+        }
+    }
+
+    /**
+     * Publishes a change to every subscriber.
+     * @param change  the change
+     */
+    public void publish(Change change) {
+        for (CoalescingSubscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    /**
+     * Identifies what a change is about, so that a later change about the
+     * same thing replaces it: a grade, an enrollment, a student or a course.
+     */
+    private static final class Key {
+        private final int group;
+        private final int studentID;
+        private final int courseID;
+
+        Key(Change change) {
+            this.studentID = change.getStudentID();
+            this.courseID = change.getCourseID();
+            switch (change.getKind()) {
+                case GRADE_CHANGED:
+                    group = 0;
+                    break;
+                case ENROLLED:
+                case DROPPED:
+                    group = 1;
+                    break;
+                case STUDENT_ADDED:
+                case STUDENT_REMOVED:
+                case STUDENT_CHANGED:
+                    group = 2;
+                    break;
+                case COURSE_ADDED:
+                case COURSE_REMOVED:
+                case COURSE_CHANGED:
+                    group = 3;
+                    break;
+                default:
+                    group = 4;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return group == key.group && studentID == key.studentID && courseID == key.courseID;
+        }
+
+        @Override
+        public int hashCode() {
+            return (group * 31 + studentID) * 31 + courseID;
+        }
+    }
+
+    /**
+     * A subscription that coalesces the changes pending for its subscriber
+     * and delivers them as one batch per request, one batch at a time.
+     */
+    private final class CoalescingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super List<Change>> subscriber;
+        private final Executor executor;
+        private final int capacity;
+        private final Map<Key, Change> pending;
+        private long demand;
+        private boolean delivering;
+        private boolean cancelled;
+        private boolean reset;
+
+        CoalescingSubscription(Flow.Subscriber<? super List<Change>> subscriber, Executor executor, int capacity) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.capacity = capacity;
+            this.pending = new LinkedHashMap<>();
+        }
+
+        // adds change to the pending changes, replacing any about the same thing, or collapses them all to a RESET
+        // once there are more than capacity
+        synchronized void offer(Change change) {
+            if (cancelled || reset) {
+                return;
+            }
+            pending.put(new Key(change), change);
+            if (pending.size() > capacity || change.getKind() == Change.Kind.RESET) {
+                pending.clear();
+                pending.put(new Key(Change.reset()), Change.reset());
+                reset = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                cancel();
+                executor.execute(() -> subscriber.onError(
+                        new IllegalArgumentException("the number requested must be positive: " + n)));
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            schedule();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            pending.clear();
+            subscriptions.remove(this);
+        }
+
+        // starts delivering the pending changes if the subscriber has asked for them and is not handling a batch
+        private void schedule() {
+            if (!delivering && demand > 0 && !pending.isEmpty()) {
+                delivering = true;
+                executor.execute(this::deliver);
+            }
+        }
+
+        // hands the pending changes to the subscriber as one batch
+        private void deliver() {
+            List<Change> batch;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                reset = false;
+                demand--;
+            }
+            try {
+                subscriber.onNext(batch);
+            } catch (RuntimeException e) {
+                cancel();
+                throw e;
+            }
+            synchronized (this) {
+                delivering = false;
+                if (!cancelled) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -5,9 +5,14 @@ import org.json.JSONObject;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 
 /*
@@ -22,10 +27,14 @@ public class Course {
     private int credits;
     private LocalDate startDate;
     private LocalDate endDate;
-    private List<Integer> enrolledStudentsID;
-    private List<Double> studentGrades;
+    private PersistentVector<Integer> enrolledStudentsID;
+    private PersistentVector<Double> studentGrades;
+    private final Map<Integer, Integer> positions; // student ID -> first index in the roster
+    private int indexedChanges; // the roster's changes() when positions was last made to match it
     private double percentageGrade;
     private Grade grade;
+    private boolean dirty;
+    private volatile long version;
 
 
     // Effects : Constructs a Course with name, code, description, courseId, credits, and percentageGrade.
@@ -36,9 +45,74 @@ public class Course {
         this.courseID = courseID;
         this.credits = credits;
         this.percentageGrade = percentageGrade;
-        this.studentGrades = new ArrayList<>();
-        this.enrolledStudentsID = new ArrayList<>();
+        this.studentGrades = new PersistentVector<>();
+        this.enrolledStudentsID = new PersistentVector<>();
+        this.positions = new HashMap<>();
         this.grade = new Grade();
+        this.dirty = true;
+    }
+
+    // Modifies: this
+    // Effects: returns a copy of this course with its own roster and grade lists, so later changes to either
+    //          course do not affect the other. The lists share their structure until then, so copying takes
+    //          constant time. No event is logged.
+    public Course copy() {
+        return copyWith(enrolledStudentsID.copy(), studentGrades.copy());
+    }
+
+    // Modifies: this
+    // Effects: returns a copy of this course whose roster and grade lists cannot be changed, for readers that share
+    //          it, such as a GradeBook.Snapshot; methods that change those lists throw UnsupportedOperationException.
+    //          Takes constant time, like copy. No event is logged.
+    Course frozenCopy() {
+        return copyWith(enrolledStudentsID.frozenCopy(), studentGrades.frozenCopy());
+    }
+
+    // Effects: returns a copy of this course with the given roster and grade lists
+    private Course copyWith(PersistentVector<Integer> roster, PersistentVector<Double> grades) {
+        Course copy = new Course(courseName, courseCode, courseDescription, courseID, credits, percentageGrade);
+        copy.startDate = startDate;
+        copy.endDate = endDate;
+        copy.enrolledStudentsID = roster;
+        copy.studentGrades = grades;
+        copy.indexedChanges = -1; // the copy indexes its roster when it first changes it
+        copy.dirty = dirty;
+        copy.version = version;
+        return copy;
+    }
+
+    // Effects: returns true if this course changed since it was last saved or loaded, or was never saved.
+    //          Changes made directly to the lists returned by the getters are not tracked.
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // Modifies: this
+    // Effects: records that this course matches its saved copy.
+    public void markClean() {
+        dirty = false;
+    }
+
+    // Effects: returns the version of this course, which starts at 0 and goes up by one with every change made
+    //          through its methods. It is not saved, so a loaded course starts again at 0. Reading it takes no lock.
+    public long getVersion() {
+        return version;
+    }
+
+    // Effects: throws VersionConflictException if this course is no longer at version expected, that is, if it
+    //          changed since a caller read that version; does nothing otherwise.
+    public void checkVersion(long expected) {
+        long actual = version;
+        if (actual != expected) {
+            throw new VersionConflictException("Course", courseID, expected, actual);
+        }
+    }
+
+    // Modifies: this
+    // Effects: records that this course changed: it is dirty and its version is one higher
+    private void changed() {
+        dirty = true;
+        version++;
     }
 
     // Getters
@@ -96,36 +170,50 @@ public class Course {
 
     public void setCourseCode(String courseCode) {
         this.courseCode = courseCode;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     public void setCourseName(String courseName) {
         this.courseName = courseName;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     public void setCourseDescription(String courseDescription) {
         this.courseDescription = courseDescription;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     public void setCourseID(int courseID) {
         this.courseID = courseID;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     public void setCredits(int credits) {
         this.credits = credits;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     public void setPercentageGrade(double percentageGrade) {
         this.percentageGrade = percentageGrade;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.COURSE_CHANGED, 0, courseID);
     }
 
     // Effects: returns the starting date of the course.
     public void setStartDate(LocalDate getStartDate) {
         this.startDate = getStartDate;
+        changed();
     }
 
     // Effects: returns the ending date of the course.
     public void setEndDate(LocalDate getEndDate) {
         this.endDate = getEndDate;
+        changed();
     }
 
 
@@ -139,10 +227,11 @@ public class Course {
     // Modifies: this
     // Effects: enrolls student into the course if not already in the list
     public void enrollStudent(Student student) {
-        if (!enrolledStudentsID.contains(student.getStudentID())) {
-            enrolledStudentsID.add(student.getStudentID());
-            EventLog.getInstance().logEvent(new Event("Student Name: " + student.getName()
-                    + "\n" + "Enrolled in course: " + this.courseName));
+        if (!positions().containsKey(student.getStudentID())) {
+            append(student.getStudentID());
+            changed();
+            EventLog.getInstance().log(EventType.STUDENT_ENROLLED, student, this);
+            ChangeFeed.getInstance().publish(Change.Kind.ENROLLED, student.getStudentID(), courseID);
         }
     }
 
@@ -154,8 +243,9 @@ public class Course {
         for (int i = 0; i < enrolledStudentsID.size(); i++) {
             if (Objects.equals(enrolledStudentsID.get(i), studentIdToRemove)) {
                 enrolledStudentsID.remove(studentIdToRemove);
-                EventLog.getInstance().logEvent(new Event("Student Name: " + student.getName()
-                        + "\n" + "Removed from course: " + this.courseName));
+                changed();
+                EventLog.getInstance().log(EventType.STUDENT_REMOVED, student, this);
+                ChangeFeed.getInstance().publish(Change.Kind.DROPPED, studentIdToRemove, courseID);
             }
         }
     }
@@ -167,8 +257,164 @@ public class Course {
         for (int i = 0; i < enrolledStudentsID.size(); i++) {
             if (Objects.equals(enrolledStudentsID.get(i), studentIdToUpdate)) {
                 this.studentGrades.add(i, grade);
-                EventLog.getInstance().logEvent(new Event("Added grade for student: " + student.getName()
-                        + "\n" + "For course: " + this.courseName));
+                changed();
+                EventLog.getInstance().log(EventType.GRADE_ADDED, student, this);
+                ChangeFeed.getInstance().publish(Change.Kind.GRADE_CHANGED, studentIdToUpdate, courseID);
+            }
+        }
+    }
+
+    // Requires: students and grades have the same size
+    // Modifies: this
+    // Effects: enrolls each student not already in the list and sets its grade to the grade at the same index,
+    //          replacing any grade it already has; students without a grade before it in the list get 0.0.
+    //          Logs a single event for the whole batch.
+    public void enrollWithGrades(List<Student> students, List<Double> grades) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        for (int i = 0; i < students.size(); i++) {
+            int studentID = students.get(i).getStudentID();
+            Integer position = positions().get(studentID);
+            if (position == null) {
+                position = append(studentID);
+                feed.publish(Change.Kind.ENROLLED, studentID, courseID);
+            }
+            while (studentGrades.size() <= position) {
+                studentGrades.add(0.0);
+            }
+            studentGrades.set(position, grades.get(i));
+            feed.publish(Change.Kind.GRADE_CHANGED, studentID, courseID);
+        }
+        if (!students.isEmpty()) {
+            changed();
+            EventLog.getInstance().log(EventType.GRADES_ADDED, this, students.size());
+        }
+    }
+
+    // Modifies: this
+    // Effects: enrolls each of students not already in the list, once, in the order given, and returns how many
+    //          were enrolled. Logs a single event for the whole batch.
+    public int enrollStudents(Collection<Student> students) {
+        List<Integer> added = new ArrayList<>();
+        for (Student student : students) {
+            if (!positions().containsKey(student.getStudentID())) {
+                append(student.getStudentID());
+                added.add(student.getStudentID());
+            }
+        }
+        if (!added.isEmpty()) {
+            changed();
+            EventLog.getInstance().log(EventType.STUDENTS_ENROLLED, this, added.size());
+            publishAll(Change.Kind.ENROLLED, added);
+        }
+        return added.size();
+    }
+
+    // Requires: studentIDs and grades have the same length
+    // Modifies: this
+    // Effects: sets the grade of each enrolled student in studentIDs to the grade at the same index, replacing any
+    //          grade it already has; students without a grade before it in the list get 0.0. IDs of students not
+    //          enrolled are ignored. Returns how many grades were set and logs a single event for the batch.
+    public int setGrades(int[] studentIDs, double[] grades) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        Map<Integer, Integer> positions = positions();
+        int set = 0;
+        for (int i = 0; i < studentIDs.length; i++) {
+            Integer position = positions.get(studentIDs[i]);
+            if (position != null) {
+                while (studentGrades.size() <= position) {
+                    studentGrades.add(0.0);
+                }
+                studentGrades.set(position, grades[i]);
+                set++;
+                feed.publish(Change.Kind.GRADE_CHANGED, studentIDs[i], courseID);
+            }
+        }
+        if (set > 0) {
+            changed();
+            EventLog.getInstance().log(EventType.GRADES_ADDED, this, set);
+        }
+        return set;
+    }
+
+    // Modifies: this
+    // Effects: removes each of students from the list, together with its grade, and returns how many were
+    //          removed. Logs a single event for the whole batch.
+    public int removeStudents(Collection<Student> students) {
+        Set<Integer> removing = new HashSet<>();
+        for (Student student : students) {
+            removing.add(student.getStudentID());
+        }
+        List<Integer> keptIDs = new ArrayList<>(enrolledStudentsID.size());
+        List<Double> keptGrades = new ArrayList<>(studentGrades.size());
+        List<Integer> removedIDs = new ArrayList<>();
+        for (int i = 0; i < enrolledStudentsID.size(); i++) {
+            if (!removing.contains(enrolledStudentsID.get(i))) {
+                keptIDs.add(enrolledStudentsID.get(i));
+                if (i < studentGrades.size()) {
+                    keptGrades.add(studentGrades.get(i));
+                }
+            } else {
+                removedIDs.add(enrolledStudentsID.get(i));
+            }
+        }
+        // grades past the end of the roster are kept as they are
+        for (int i = enrolledStudentsID.size(); i < studentGrades.size(); i++) {
+            keptGrades.add(studentGrades.get(i));
+        }
+        int removed = removedIDs.size();
+        if (removed > 0) {
+            enrolledStudentsID.clear();
+            enrolledStudentsID.addAll(keptIDs);
+            studentGrades.clear();
+            studentGrades.addAll(keptGrades);
+            changed();
+            EventLog.getInstance().log(EventType.STUDENTS_REMOVED, this, removed);
+            publishAll(Change.Kind.DROPPED, removedIDs);
+        }
+        return removed;
+    }
+
+    // Modifies: this
+    // Effects: returns the index of the list by student ID, first indexing the list again if it was changed since
+    //          it was last indexed, by a bulk change or through getEnrolledStudentsID
+    private Map<Integer, Integer> positions() {
+        if (indexedChanges != enrolledStudentsID.changes()) {
+            positions.clear();
+            for (int i = 0; i < enrolledStudentsID.size(); i++) {
+                positions.putIfAbsent(enrolledStudentsID.get(i), i);
+            }
+            indexedChanges = enrolledStudentsID.changes();
+        }
+        return positions;
+    }
+
+    // Modifies: this
+    // Effects: adds studentID at the end of the list, keeping the index up to date, and returns its position
+    private int append(int studentID) {
+        Map<Integer, Integer> positions = positions();
+        int position = enrolledStudentsID.size();
+        enrolledStudentsID.add(studentID);
+        positions.putIfAbsent(studentID, position);
+        indexedChanges = enrolledStudentsID.changes();
+        return position;
+    }
+
+    // Effects: returns the first position of studentID in the list, or -1 if it is not in it; uses the index if it
+    //          is up to date and scans the list otherwise, without changing the index, so any number of readers may
+    //          call it at once
+    private int positionOf(int studentID) {
+        if (indexedChanges == enrolledStudentsID.changes()) {
+            return positions.getOrDefault(studentID, -1);
+        }
+        return enrolledStudentsID.indexOf(studentID);
+    }
+
+    // Effects: publishes a change of kind about each of studentIDs in this course, if anyone is subscribed
+    private void publishAll(Change.Kind kind, Collection<Integer> studentIDs) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        if (feed.isActive()) {
+            for (int studentID : studentIDs) {
+                feed.publish(kind, studentID, courseID);
             }
         }
     }
@@ -180,14 +426,21 @@ public class Course {
         for (int i = 0; i < enrolledStudentsID.size(); i++) {
             if (Objects.equals(enrolledStudentsID.get(i), studentIdToUpdate)) {
                 studentGrades.add(i,0.0);
-                EventLog.getInstance().logEvent(new Event("Removed grade for student: " + student.getName()
-                        + "\n" + "For course: " + this.courseName));
+                changed();
+                EventLog.getInstance().log(EventType.GRADE_REMOVED, student, this);
+                ChangeFeed.getInstance().publish(Change.Kind.GRADE_CHANGED, studentIdToUpdate, courseID);
             }
         }
     }
 
+    // Effects: returns true if the student with the given ID is in the list.
+    public boolean isEnrolled(int studentID) {
+        return positionOf(studentID) != -1;
+    }
+
+    // Effects: returns the grade of student, or null if it is not in the list or has no grade.
     public Double getGrade(Student student) {
-        int index = enrolledStudentsID.indexOf(student.getStudentID());
+        int index = positionOf(student.getStudentID());
         if (index != -1 && index < studentGrades.size()) {
             return studentGrades.get(index);
         } else {
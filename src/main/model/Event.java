@@ -1,16 +1,24 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
 
 
 /**
  * Represents an alarm system event.
+ * An event records its type, the IDs and names of the student and course it
+ * is about and the time it was logged in epoch milliseconds; its description
+ * is built from those only when it is first asked for.
  */
 public class Event {
 
     private static final int HASH_CONSTANT = 13;
-    private Date dateLogged;
+    private final EventType type;
+    private long timeLogged; // raised by the EventLog if an event logged before it is later
+    private final int studentId;
+    private final String studentName;
+    private final int courseId;
+    private final String courseName;
+    private final int count;
     private String description;
 
     /**
@@ -19,16 +27,156 @@ public class Event {
      * @param description  a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(EventType.MESSAGE, System.currentTimeMillis(), 0, null, 0, null, 0);
         this.description = description;
     }
 
+    /**
+     * Creates an event of the given type logged at timeLogged.
+     */
+    private Event(EventType type, long timeLogged, int studentId, String studentName, int courseId,
+                  String courseName, int count) {
+        this.timeLogged = timeLogged;
+        this.type = type;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.count = count;
+    }
+
+    /**
+     * Sets the time this event was logged. Called by the EventLog when the
+     * event was created before an event logged ahead of it, before any other
+     * thread can read it in the log, so that the log stays in time order.
+     * @param timeLogged  when it was logged, in milliseconds since the epoch
+     */
+    void setTimeLogged(long timeLogged) {
+        this.timeLogged = timeLogged;
+    }
+
+    /**
+     * Creates an event about a student and a course.
+     * @param type  what happened
+     * @param student  the student it happened to
+     * @param course  the course it happened in
+     * @return  the event
+     */
+    public static Event of(EventType type, Student student, Course course) {
+        return new Event(type, System.currentTimeMillis(), student.getStudentID(), student.getName(),
+                course.getCourseID(), course.getCourseName(), 0);
+    }
+
+    /**
+     * Creates an event about a student.
+     * @param type  what happened
+     * @param student  the student it happened to
+     * @return  the event
+     */
+    public static Event of(EventType type, Student student) {
+        return new Event(type, System.currentTimeMillis(), student.getStudentID(), student.getName(), 0, null, 0);
+    }
+
+    /**
+     * Creates an event about a number of changes to a student.
+     * @param type  what happened
+     * @param student  the student it happened to
+     * @param count  how many times it happened
+     * @return  the event
+     */
+    public static Event of(EventType type, Student student, int count) {
+        return new Event(type, System.currentTimeMillis(), student.getStudentID(), student.getName(), 0, null,
+                count);
+    }
+
+    /**
+     * Creates an event about a number of changes to a course.
+     * @param type  what happened
+     * @param course  the course it happened in
+     * @param count  how many times it happened
+     * @return  the event
+     */
+    public static Event of(EventType type, Course course, int count) {
+        return new Event(type, System.currentTimeMillis(), 0, null, course.getCourseID(), course.getCourseName(),
+                count);
+    }
+
+    /**
+     * Recreates an event that was logged earlier, e.g. when reading it back from disk.
+     * @param type  what happened
+     * @param timeMillis  when it was logged, in milliseconds since the epoch
+     * @param studentId  the ID of the student it is about, or 0
+     * @param studentName  the name of the student it is about, or null
+     * @param courseId  the ID of the course it is about, or 0
+     * @param courseName  the name of the course it is about, or null
+     * @param count  how many changes it stands for, or 0
+     * @param message  the free text of a MESSAGE event, or null
+     * @return  the event
+     */
+    public static Event restore(EventType type, long timeMillis, int studentId, String studentName, int courseId,
+                                String courseName, int count, String message) {
+        Event event = new Event(type, timeMillis, studentId, studentName, courseId, courseName, count);
+        event.description = message;
+        return event;
+    }
+
+    /**
+     * Gets the type of this event.
+     * @return  the type of the event
+     */
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the time this event was logged.
+     * @return  the time of the event in milliseconds since the epoch
+     */
+    public long getTimeMillis() {
+        return timeLogged;
+    }
+
     /**
      * Gets the date of this event (includes time).
      * @return  the date of the event
      */
     public Date getDate() {
-        return dateLogged;
+        return new Date(timeLogged);
+    }
+
+    /**
+     * @return  the ID of the student this event is about, or 0 if none
+     */
+    public int getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * @return  the name the student had when this event was logged, or null if none
+     */
+    public String getStudentName() {
+        return studentName;
+    }
+
+    /**
+     * @return  the ID of the course this event is about, or 0 if none
+     */
+    public int getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * @return  the name the course had when this event was logged, or null if none
+     */
+    public String getCourseName() {
+        return courseName;
+    }
+
+    /**
+     * @return  how many changes this event stands for, or 0 if it is a single change
+     */
+    public int getCount() {
+        return count;
     }
 
     /**
@@ -36,9 +184,19 @@ public class Event {
      * @return  the description of the event
      */
     public String getDescription() {
+        if (description == null) {
+            description = type.describe(this);
+        }
         return description;
     }
 
+    /**
+     * @return  the free text of a MESSAGE event, or null for other types
+     */
+    public String getMessage() {
+        return type == EventType.MESSAGE ? description : null;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null) {
@@ -51,17 +209,18 @@ public class Event {
 
         Event otherEvent = (Event) other;
 
-        return (this.dateLogged.equals(otherEvent.dateLogged)
-                && this.description.equals(otherEvent.description));
+        return (this.timeLogged == otherEvent.timeLogged
+                && this.type == otherEvent.type
+                && this.getDescription().equals(otherEvent.getDescription()));
     }
 
     @Override
     public int hashCode() {
-        return (HASH_CONSTANT * dateLogged.hashCode() + description.hashCode());
+        return (HASH_CONSTANT * Long.hashCode(timeLogged) + getDescription().hashCode());
     }
 
     @Override
     public String toString() {
-        return dateLogged.toString() + "\n" + description;
+        return getDate().toString() + "\n" + getDescription();
     }
 }
@@ -1,8 +1,17 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
@@ -10,52 +19,813 @@ import java.util.Iterator;
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ * The log keeps at most a fixed number of events in a ring buffer, so it
+ * uses the same memory however long the application runs. Any thread may
+ * log events: logging claims a sequence number with an atomic increment
+ * and publishes the event into its slot, without locks, in constant time.
+ * Iterating gives a snapshot of the events published when it started.
+ * The log can also be queried a page at a time: events are kept in the
+ * order they were logged, so a time range is found by binary search, and
+ * the sequence numbers of the events about each student and each course
+ * are kept in posting lists, so their events are found without a scan.
+ * The posting lists are brought up to date by queries, from the events
+ * logged since the previous query, so logging never touches them.
+ * Each type of event can be turned off or sampled; the log() methods check
+ * this before creating the event, so a type that is off costs nothing but
+ * the check. A measurement mode records how long logging takes, and how
+ * much it allocates, for each type.
  */
 public class EventLog implements Iterable<Event> {
 
+    /** what happens to an event logged when the log is full */
+    public enum OverflowPolicy {
+        /** the new event replaces the oldest one */
+        OVERWRITE_OLDEST,
+        /** the new event is dropped */
+        DROP_NEWEST
+    }
+
+    /** the number of events kept unless configured otherwise */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** the sampling of a type that is turned off */
+    public static final int OFF = 0;
+
+    /** the sampling of a type whose every event is logged */
+    public static final int ALL = 1;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_COUNTED = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+
     /** the only EventLog in the system (Singleton Design Pattern) */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    private static final EventLog theLog = new EventLog();
+
+    private final AtomicLong nextSequence;
+    private final AtomicLong lastMillis; // the latest time an event was logged at
+    private final AtomicLong dropped;
+    private final Object indexLock;
+    private final Map<Integer, Postings> studentPostings; // guarded by indexLock
+    private final Map<Integer, Postings> coursePostings; // guarded by indexLock
+    private long indexedSequence; // guarded by indexLock: every event before it is in the posting lists
+    private long prunedSequence; // guarded by indexLock: the posting lists hold nothing before it
+    private final AtomicIntegerArray sampling;
+    private final AtomicLongArray seen;
+    private final AtomicLongArray measuredEvents;
+    private final AtomicLongArray measuredSkipped;
+    private final AtomicLongArray measuredNanos;
+    private final AtomicLongArray measuredBytes;
+    private volatile boolean measuring;
+    private volatile Ring ring;
+    private volatile long firstSequence;
+    private volatile OverflowPolicy policy;
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<Event>();
+        nextSequence = new AtomicLong();
+        lastMillis = new AtomicLong(Long.MIN_VALUE);
+        dropped = new AtomicLong();
+        indexLock = new Object();
+        studentPostings = new HashMap<>();
+        coursePostings = new HashMap<>();
+        int types = EventType.values().length;
+        sampling = new AtomicIntegerArray(types);
+        for (int i = 0; i < types; i++) {
+            sampling.set(i, ALL);
+        }
+        seen = new AtomicLongArray(types);
+        measuredEvents = new AtomicLongArray(types);
+        measuredSkipped = new AtomicLongArray(types);
+        measuredNanos = new AtomicLongArray(types);
+        measuredBytes = new AtomicLongArray(types);
+        ring = new Ring(DEFAULT_CAPACITY);
+        policy = OverflowPolicy.OVERWRITE_OLDEST;
     }
 
     /**
-     * Gets instance of EventLog - creates it
-     * if it doesn't already exist.
+     * Gets instance of EventLog.
      * (Singleton Design Pattern)
      * @return  instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
         return theLog;
     }
 
     /**
-     * Adds an event to the event log.
+     * Sets how many events the log keeps and what happens when it is full.
+     * The most recent events logged so far are kept, up to the new capacity.
+     * Events logged by other threads while the capacity changes may be lost.
+     * @param capacity the number of events to keep; must be positive
+     * @param policy what to do with events logged when the log is full
+     */
+    public synchronized void configure(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Event log capacity must be positive: " + capacity);
+        }
+        List<Slot> kept = slots();
+        Ring resized = new Ring(capacity);
+        for (Slot slot : kept.subList(Math.max(0, kept.size() - capacity), kept.size())) {
+            resized.slots.set(resized.index(slot.sequence), slot);
+        }
+        if (kept.size() > capacity) {
+            firstSequence = kept.get(kept.size() - capacity).sequence;
+        }
+        this.policy = policy;
+        this.ring = resized;
+    }
+
+    /**
+     * @return the number of events the log keeps
+     */
+    public int getCapacity() {
+        return ring.capacity;
+    }
+
+    /**
+     * @return what happens to events logged when the log is full
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return how many events were dropped because the log was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Sets which events of a type are logged.
+     * @param type the type of event
+     * @param oneIn OFF to log none of them, ALL to log every one, or n to
+     *              log one in every n of them; must not be negative
+     */
+    public void setSampling(EventType type, int oneIn) {
+        if (oneIn < 0) {
+            throw new IllegalArgumentException("Sampling must not be negative: " + oneIn);
+        }
+        sampling.set(type.ordinal(), oneIn);
+    }
+
+    /**
+     * @param type the type of event
+     * @return OFF if events of the type are not logged, ALL if every one is,
+     *         or n if one in every n is
+     */
+    public int getSampling(EventType type) {
+        return sampling.get(type.ordinal());
+    }
+
+    /**
+     * Turns the logging of a type of event on or off.
+     * @param type the type of event
+     * @param enabled true to log every event of the type, false to log none
+     */
+    public void setEnabled(EventType type, boolean enabled) {
+        setSampling(type, enabled ? ALL : OFF);
+    }
+
+    /**
+     * @param type the type of event
+     * @return true if some events of the type are logged
+     */
+    public boolean isEnabled(EventType type) {
+        return sampling.get(type.ordinal()) != OFF;
+    }
+
+    /**
+     * Turns the measurement of logging on or off. Turning it on starts the
+     * measurement afresh.
+     * @param measuring true to measure the cost of logging each type of event
+     */
+    public void setMeasuring(boolean measuring) {
+        if (measuring) {
+            for (int i = 0; i < measuredEvents.length(); i++) {
+                measuredEvents.set(i, 0);
+                measuredSkipped.set(i, 0);
+                measuredNanos.set(i, 0);
+                measuredBytes.set(i, 0);
+            }
+        }
+        this.measuring = measuring;
+    }
+
+    /**
+     * @return true if the cost of logging is being measured
+     */
+    public boolean isMeasuring() {
+        return measuring;
+    }
+
+    /**
+     * @return what logging each type of event has cost since measurement was
+     *         last turned on, for the types that were logged or skipped
+     */
+    public List<Cost> getCosts() {
+        List<Cost> costs = new ArrayList<>();
+        for (EventType type : EventType.values()) {
+            int i = type.ordinal();
+            if (measuredEvents.get(i) + measuredSkipped.get(i) > 0) {
+                costs.add(new Cost(type, measuredEvents.get(i), measuredSkipped.get(i), measuredNanos.get(i),
+                        measuredBytes.get(i)));
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Logs an event about a student and a course, unless events of its type
+     * are off or sampled out, in which case the event is never created.
+     * @param type what happened
+     * @param student the student it happened to
+     * @param course the course it happened in
+     */
+    public void log(EventType type, Student student, Course course) {
+        if (measuring) {
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            boolean logged = sample(type) && publish(Event.of(type, student, course));
+            measure(type, nanos, bytes, logged);
+        } else if (sample(type)) {
+            publish(Event.of(type, student, course));
+        }
+    }
+
+    /**
+     * Logs an event about a student, unless events of its type are off or
+     * sampled out, in which case the event is never created.
+     * @param type what happened
+     * @param student the student it happened to
+     */
+    public void log(EventType type, Student student) {
+        if (measuring) {
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            boolean logged = sample(type) && publish(Event.of(type, student));
+            measure(type, nanos, bytes, logged);
+        } else if (sample(type)) {
+            publish(Event.of(type, student));
+        }
+    }
+
+    /**
+     * Logs an event about a number of changes to a student, unless events of
+     * its type are off or sampled out, in which case it is never created.
+     * @param type what happened
+     * @param student the student it happened to
+     * @param count how many times it happened
+     */
+    public void log(EventType type, Student student, int count) {
+        if (measuring) {
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            boolean logged = sample(type) && publish(Event.of(type, student, count));
+            measure(type, nanos, bytes, logged);
+        } else if (sample(type)) {
+            publish(Event.of(type, student, count));
+        }
+    }
+
+    /**
+     * Logs an event about a number of changes to a course, unless events of
+     * its type are off or sampled out, in which case it is never created.
+     * @param type what happened
+     * @param course the course it happened in
+     * @param count how many times it happened
+     */
+    public void log(EventType type, Course course, int count) {
+        if (measuring) {
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            boolean logged = sample(type) && publish(Event.of(type, course, count));
+            measure(type, nanos, bytes, logged);
+        } else if (sample(type)) {
+            publish(Event.of(type, course, count));
+        }
+    }
+
+    /**
+     * Adds an event to the event log, unless events of its type are off or
+     * sampled out. When the log is full, the oldest event is overwritten or
+     * the new one is dropped, depending on the policy.
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        if (measuring) {
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            boolean logged = sample(e.getType()) && publish(e);
+            measure(e.getType(), nanos, bytes, logged);
+        } else if (sample(e.getType())) {
+            publish(e);
+        }
+    }
+
+    /**
+     * @return true if the next event of a type is to be logged
+     */
+    private boolean sample(EventType type) {
+        int oneIn = sampling.get(type.ordinal());
+        return oneIn == ALL || (oneIn != OFF && seen.getAndIncrement(type.ordinal()) % oneIn == 0);
+    }
+
+    /**
+     * Adds the time and memory taken since startNanos and startBytes to the
+     * cost of logging a type of event.
+     */
+    private void measure(EventType type, long startNanos, long startBytes, boolean logged) {
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes() - startBytes;
+        int i = type.ordinal();
+        (logged ? measuredEvents : measuredSkipped).incrementAndGet(i);
+        measuredNanos.addAndGet(i, nanos);
+        measuredBytes.addAndGet(i, Math.max(0, bytes));
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or 0 if the
+     *         JVM does not count them
+     */
+    private static long allocatedBytes() {
+        return ALLOCATION_COUNTED
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    /**
+     * Adds an event to the ring. The event keeps its time unless an event
+     * logged before it has a later one, in which case it takes that time
+     * instead: the latest time is raised before each attempt to claim a
+     * sequence number, so an event that gets a later number never has an
+     * earlier time, as firstLoggedAfter requires, even if the event was
+     * created before another thread's or the clock went backwards.
+     * @return false if the log was full and the event was dropped
+     */
+    private boolean publish(Event e) {
+        Ring current = ring;
+        boolean dropNewest = policy == OverflowPolicy.DROP_NEWEST;
+        long sequence;
+        long millis;
+        do {
+            sequence = nextSequence.get();
+            if (dropNewest && sequence - firstSequence >= current.capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            millis = atLeastLatest(e.getTimeMillis());
+        } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+        if (millis != e.getTimeMillis()) {
+            e.setTimeLogged(millis);
+        }
+        Slot slot = new Slot(sequence, e);
+        int index = current.index(sequence);
+        Slot old;
+        do {
+            old = current.slots.get(index);
+            if (old != null && old.sequence > sequence) {
+                return true; // a later event already took the slot while this one was being written
+            }
+        } while (!current.slots.compareAndSet(index, old, slot));
+        return true;
+    }
+
+    /**
+     * Raises the latest time an event was logged at to millis, if it is
+     * earlier.
+     * @return millis, or the latest time if that is later
+     */
+    private long atLeastLatest(long millis) {
+        long last = lastMillis.get();
+        while (millis > last) {
+            if (lastMillis.compareAndSet(last, millis)) {
+                return millis;
+            }
+            last = lastMillis.get();
+        }
+        return last;
+    }
+
+    /**
+     * Adds the events published since the last call to the posting lists of
+     * their students and courses, in order, stopping at the first event
+     * claimed but not yet published. Once the log has moved on by its
+     * capacity, drops the sequence numbers of events that are no longer in
+     * it from every posting list. Called with indexLock held.
+     * @return the sequence number of the first event not indexed
+     */
+    private long catchUp(Ring current, long end) {
+        long oldest = Math.max(0, end - current.capacity);
+        long sequence = Math.max(indexedSequence, oldest);
+        while (sequence < end) {
+            Slot slot = current.slots.get(current.index(sequence));
+            if (slot == null || slot.sequence < sequence) {
+                break; // still being written
+            }
+            if (slot.sequence == sequence) {
+                Event e = slot.event;
+                if (e.getStudentId() != 0) {
+                    studentPostings.computeIfAbsent(e.getStudentId(), id -> new Postings()).add(sequence);
+                }
+                if (e.getCourseId() != 0) {
+                    coursePostings.computeIfAbsent(e.getCourseId(), id -> new Postings()).add(sequence);
+                }
+            }
+            sequence++;
+        }
+        indexedSequence = sequence;
+        if (oldest - prunedSequence >= current.capacity) {
+            prune(studentPostings, oldest);
+            prune(coursePostings, oldest);
+            prunedSequence = oldest;
+        }
+        return sequence;
+    }
+
+    private static void prune(Map<Integer, Postings> postings, long oldest) {
+        postings.values().removeIf(list -> list.trimBefore(oldest));
+    }
+
+    /**
+     * Finds a page of the events that match a query, oldest first. Events
+     * about a student or a course are read from its posting list, and a time
+     * range is found by binary search, so the cost depends on the size of
+     * the page and of the matching list, and on the number of events logged
+     * since the last query, rather than on the size of the log. Queries run
+     * one at a time.
+     * @param query the conditions the events must meet
+     * @param cursor 0 for the first page, or the cursor of the previous page
+     * @param limit the most events to return; must be positive
+     * @return the page of events
+     */
+    public Page query(EventQuery query, long cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        synchronized (indexLock) {
+            return queryIndexed(query, cursor, limit);
+        }
+    }
+
+    /**
+     * Does the work of query() with indexLock held. Events past the last one
+     * indexed, if one was still being written, are matched by a scan.
+     */
+    private Page queryIndexed(EventQuery query, long cursor, int limit) {
+        Ring current = ring;
+        long end = nextSequence.get();
+        long start = Math.max(Math.max(cursor, firstSequence), end - current.capacity);
+        long indexed = catchUp(current, end);
+        if (query.getFromMillis() != Long.MIN_VALUE) {
+            start = firstLoggedAfter(current, start, end, query.getFromMillis() - 1);
+        }
+        if (query.getToMillis() != Long.MAX_VALUE) {
+            end = firstLoggedAfter(current, start, end, query.getToMillis());
+        }
+        Postings postings = null;
+        if (query.getStudentId() != null) {
+            postings = studentPostings.get(query.getStudentId());
+        } else if (query.getCourseId() != null) {
+            postings = coursePostings.get(query.getCourseId());
+        }
+        boolean indexedQuery = query.getStudentId() != null || query.getCourseId() != null;
+        if (postings == null && indexedQuery) {
+            postings = new Postings(); // nothing indexed yet, but events past the index may match
+        }
+
+        List<Event> events = new ArrayList<>(Math.min(limit, 256));
+        long sequence = start;
+        long[] chunk = postings == null ? null : new long[Math.min(limit + 1, 256)];
+        while (sequence < end) {
+            int count = 1;
+            if (chunk != null && sequence < indexed) {
+                count = postings.copyFrom(sequence, chunk);
+                if (count == 0) {
+                    sequence = Math.max(sequence, indexed);
+                    continue;
+                }
+            } else if (chunk != null) {
+                chunk = null; // past the index: scan the rest
+            }
+            for (int i = 0; i < count; i++) {
+                long candidate = chunk == null ? sequence : chunk[i];
+                if (candidate >= end) {
+                    return new Page(events, end, false);
+                }
+                Slot slot = current.slots.get(current.index(candidate));
+                if (slot != null && slot.sequence == candidate && query.matches(slot.event)) {
+                    if (events.size() == limit) {
+                        return new Page(events, candidate, true);
+                    }
+                    events.add(slot.event);
+                }
+                sequence = candidate + 1;
+            }
+        }
+        return new Page(events, end, false);
+    }
+
+    /**
+     * @return the first sequence number in [lo, hi) whose event was logged
+     *         after millis, or hi if there is none; an event not yet
+     *         published counts as logged before it
+     */
+    private static long firstLoggedAfter(Ring current, long lo, long hi, long millis) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            Slot slot = current.slots.get(current.index(mid));
+            if (slot != null && slot.sequence == mid && slot.event.getTimeMillis() > millis) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the sequence number the next event logged will get
+     */
+    public long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Copies events in the order they were logged, starting at a sequence
+     * number, for a reader that keeps its own position in the log, such as
+     * a sink writing the log to disk. Unlike iteration, this ignores clear().
+     * Events overwritten before they could be read are skipped. Reading stops
+     * at an event that was claimed but not yet published, unless asked to
+     * skip it (for a slot whose writer lost its event to a configure()).
+     * @param fromSequence the sequence number to start at
+     * @param out where to add the events
+     * @param max the most events to add
+     * @param skipUnpublished whether to skip events not yet published
+     * @return the sequence number to continue from
+     */
+    public long drain(long fromSequence, List<Event> out, int max, boolean skipUnpublished) {
+        return drain(fromSequence, out, null, max, skipUnpublished);
+    }
+
+    /**
+     * Copies events as drain(fromSequence, out, max, skipUnpublished) does,
+     * and also the sequence number of each, so that a reader can tell how
+     * far it got if it stops partway through the events copied.
+     * @param fromSequence the sequence number to start at
+     * @param out where to add the events
+     * @param sequences where to put the sequence number of each event added,
+     *                  in the same order, or null; must hold at least max
+     * @param max the most events to add
+     * @param skipUnpublished whether to skip events not yet published
+     * @return the sequence number to continue from
+     */
+    public long drain(long fromSequence, List<Event> out, long[] sequences, int max, boolean skipUnpublished) {
+        Ring current = ring;
+        long end = nextSequence.get();
+        long sequence = Math.max(fromSequence, end - current.capacity);
+        int added = 0;
+        while (sequence < end && added < max) {
+            Slot slot = current.slots.get(current.index(sequence));
+            if (slot != null && slot.sequence == sequence) {
+                out.add(slot.event);
+                if (sequences != null) {
+                    sequences[added] = sequence;
+                }
+                added++;
+            } else if ((slot == null || slot.sequence < sequence) && !skipUnpublished) {
+                break;
+            }
+            sequence++;
+        }
+        return sequence;
     }
 
     /**
      * Clears the event log and logs the event.
      */
     public void clear() {
-        events.clear();
-        logEvent(new Event("Event log cleared."));
+        firstSequence = nextSequence.get();
+        publish(new Event("Event log cleared."));
+    }
+
+    /**
+     * @return the events in the log, oldest first, as of now
+     */
+    public List<Event> snapshot() {
+        List<Event> events = new ArrayList<>();
+        for (Slot slot : slots()) {
+            events.add(slot.event);
+        }
+        return Collections.unmodifiableList(events);
     }
 
+    /**
+     * Iterates over a snapshot of the log, so events logged
+     * meanwhile do not affect the iteration.
+     */
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        return snapshot().iterator();
+    }
+
+    /**
+     * @return the published slots from the first kept sequence number up to
+     *         the last claimed one; slots still being written, or already
+     *         overwritten by a later event, are skipped
+     */
+    private List<Slot> slots() {
+        Ring current = ring;
+        long end = nextSequence.get();
+        long start = Math.max(firstSequence, end - current.capacity);
+        List<Slot> found = new ArrayList<>((int) Math.max(0, end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Slot slot = current.slots.get(current.index(sequence));
+            if (slot != null && slot.sequence == sequence) {
+                found.add(slot);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * What logging one type of event has cost while it was measured.
+     */
+    public static final class Cost {
+        private final EventType type;
+        private final long logged;
+        private final long skipped;
+        private final long nanos;
+        private final long bytes;
+
+        private Cost(EventType type, long logged, long skipped, long nanos, long bytes) {
+            this.type = type;
+            this.logged = logged;
+            this.skipped = skipped;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        /**
+         * @return how many events of the type were logged
+         */
+        public long getLogged() {
+            return logged;
+        }
+
+        /**
+         * @return how many events of the type were turned off, sampled out or dropped
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return the time spent logging or skipping the events, in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the memory allocated logging the events, in bytes, or 0 if
+         *         the JVM does not count it
+         */
+        public long getAllocatedBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            long calls = Math.max(1, logged + skipped);
+            return String.format("%s: %d logged, %d skipped, %.1f us total (%d ns each), %d bytes (%d each)",
+                    type, logged, skipped, nanos / 1000.0, nanos / calls, bytes, bytes / calls);
+        }
+    }
+
+    /**
+     * A page of query results.
+     */
+    public static final class Page {
+        private final List<Event> events;
+        private final long nextCursor;
+        private final boolean hasMore;
+
+        private Page(List<Event> events, long nextCursor, boolean hasMore) {
+            this.events = Collections.unmodifiableList(events);
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * @return the events on this page, oldest first
+         */
+        public List<Event> getEvents() {
+            return events;
+        }
+
+        /**
+         * @return the cursor to pass to query() for the next page
+         */
+        public long getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * @return true if more events matched than fit on this page
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * The sequence numbers of the events about one student or course, in
+     * order. Guarded by indexLock.
+     */
+    private static final class Postings {
+        private long[] sequences = new long[4];
+        private int head;
+        private int tail;
+
+        void add(long sequence) {
+            if (tail == sequences.length) {
+                long[] grown = head > sequences.length / 2 ? sequences : new long[sequences.length * 2];
+                System.arraycopy(sequences, head, grown, 0, tail - head);
+                sequences = grown;
+                tail -= head;
+                head = 0;
+            }
+            sequences[tail++] = sequence;
+        }
+
+        /**
+         * Drops the sequence numbers below oldest.
+         * @return true if the list is now empty
+         */
+        boolean trimBefore(long oldest) {
+            while (head < tail && sequences[head] < oldest) {
+                head++;
+            }
+            return head == tail;
+        }
+
+        /**
+         * Copies the sequence numbers from a given one on into out.
+         * @return how many were copied
+         */
+        int copyFrom(long sequence, long[] out) {
+            int lo = head;
+            int hi = tail;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sequences[mid] < sequence) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int count = Math.min(out.length, tail - lo);
+            System.arraycopy(sequences, lo, out, 0, count);
+            return count;
+        }
+    }
+
+    /**
+     * A fixed number of slots, reused in turn.
+     */
+    private static final class Ring {
+        final int capacity;
+        final AtomicReferenceArray<Slot> slots;
+
+        Ring(int capacity) {
+            this.capacity = capacity;
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        int index(long sequence) {
+            return (int) (sequence % capacity);
+        }
+    }
+
+    /**
+     * An event and the sequence number it was logged under; the number tells
+     * a reader whether the slot still holds the event it is looking for.
+     */
+    private static final class Slot {
+        final long sequence;
+        final Event event;
+
+        Slot(long sequence, Event event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
     }
 }
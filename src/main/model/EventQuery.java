@@ -0,0 +1,95 @@
+package model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Represents a question about the event log: which events were logged in a
+ * time range, of some types, about a student or a course. Every condition
+ * is optional; a new query matches every event.
+ */
+public class EventQuery {
+
+    private long fromMillis = Long.MIN_VALUE;
+    private long toMillis = Long.MAX_VALUE;
+    private Set<EventType> types;
+    private Integer studentId;
+    private Integer courseId;
+
+    /**
+     * Restricts the query to events logged in a time range.
+     * @param fromMillis  the earliest time, inclusive, in milliseconds since the epoch
+     * @param toMillis  the latest time, inclusive, in milliseconds since the epoch
+     * @return  this query
+     */
+    public EventQuery between(long fromMillis, long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        return this;
+    }
+
+    /**
+     * Restricts the query to events of some types.
+     * @param first  a type to match
+     * @param rest  other types to match
+     * @return  this query
+     */
+    public EventQuery ofTypes(EventType first, EventType... rest) {
+        this.types = EnumSet.of(first, rest);
+        return this;
+    }
+
+    /**
+     * Restricts the query to events about a student.
+     * @param studentId  the ID of the student
+     * @return  this query
+     */
+    public EventQuery forStudent(int studentId) {
+        this.studentId = studentId;
+        return this;
+    }
+
+    /**
+     * Restricts the query to events about a course.
+     * @param courseId  the ID of the course
+     * @return  this query
+     */
+    public EventQuery forCourse(int courseId) {
+        this.courseId = courseId;
+        return this;
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    /**
+     * @return  the ID of the student events must be about, or null for any
+     */
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * @return  the ID of the course events must be about, or null for any
+     */
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * @param e  an event
+     * @return  true if e meets every condition of this query
+     */
+    public boolean matches(Event e) {
+        return e.getTimeMillis() >= fromMillis && e.getTimeMillis() <= toMillis
+                && (types == null || types.contains(e.getType()))
+                && (studentId == null || e.getStudentId() == studentId)
+                && (courseId == null || e.getCourseId() == courseId);
+    }
+}
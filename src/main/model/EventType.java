@@ -0,0 +1,128 @@
+package model;
+
+/**
+ * Represents the kinds of events that can be logged. Each kind knows how
+ * to describe an event of its kind, so the text of an event is only built
+ * when the log is viewed.
+ */
+public enum EventType {
+
+    /** an event described by free text */
+    MESSAGE {
+        @Override
+        String describe(Event e) {
+            return e.getMessage();
+        }
+    },
+
+    /** a course was added to a student's courses */
+    COURSE_ADDED {
+        @Override
+        String describe(Event e) {
+            return "Added Course Name:" + e.getCourseName() + "\n" + "Student Name: " + e.getStudentName();
+        }
+    },
+
+    /** a course was dropped from a student's courses */
+    COURSE_DROPPED {
+        @Override
+        String describe(Event e) {
+            return "Dropped Course Name: " + e.getCourseName() + "\n" + "Student Name: " + e.getStudentName();
+        }
+    },
+
+    /** a student was enrolled in a course */
+    STUDENT_ENROLLED {
+        @Override
+        String describe(Event e) {
+            return "Student Name: " + e.getStudentName() + "\n" + "Enrolled in course: " + e.getCourseName();
+        }
+    },
+
+    /** a student was removed from a course */
+    STUDENT_REMOVED {
+        @Override
+        String describe(Event e) {
+            return "Student Name: " + e.getStudentName() + "\n" + "Removed from course: " + e.getCourseName();
+        }
+    },
+
+    /** a student's grade in a course was added */
+    GRADE_ADDED {
+        @Override
+        String describe(Event e) {
+            return "Added grade for student: " + e.getStudentName() + "\n" + "For course: " + e.getCourseName();
+        }
+    },
+
+    /** a student's grade in a course was removed */
+    GRADE_REMOVED {
+        @Override
+        String describe(Event e) {
+            return "Removed grade for student: " + e.getStudentName() + "\n" + "For course: " + e.getCourseName();
+        }
+    },
+
+    /** a batch of grades was added to a course */
+    GRADES_ADDED {
+        @Override
+        String describe(Event e) {
+            return "Added " + e.getCount() + " grades" + "\n" + "For course: " + e.getCourseName();
+        }
+    },
+
+    /** a student's GPA was calculated */
+    GPA_CALCULATED {
+        @Override
+        String describe(Event e) {
+            return "Calculated GPA for Student: " + e.getStudentName();
+        }
+    },
+
+    /** a report was generated for a student */
+    REPORT_GENERATED {
+        @Override
+        String describe(Event e) {
+            return "Generated report for Student: " + e.getStudentName() + " (ID: " + e.getStudentId() + ")";
+        }
+    },
+
+    /** a batch of students was enrolled in a course */
+    STUDENTS_ENROLLED {
+        @Override
+        String describe(Event e) {
+            return "Enrolled " + e.getCount() + " students" + "\n" + "In course: " + e.getCourseName();
+        }
+    },
+
+    /** a batch of students was removed from a course */
+    STUDENTS_REMOVED {
+        @Override
+        String describe(Event e) {
+            return "Removed " + e.getCount() + " students" + "\n" + "From course: " + e.getCourseName();
+        }
+    },
+
+    /** a batch of courses was added to a student's courses */
+    COURSES_ADDED {
+        @Override
+        String describe(Event e) {
+            return "Added " + e.getCount() + " courses" + "\n" + "Student Name: " + e.getStudentName();
+        }
+    },
+
+    /** a batch of courses was dropped from a student's courses */
+    COURSES_DROPPED {
+        @Override
+        String describe(Event e) {
+            return "Dropped " + e.getCount() + " courses" + "\n" + "Student Name: " + e.getStudentName();
+        }
+    };
+
+    /**
+     * Builds the description of an event of this kind.
+     * @param e  an event of this kind
+     * @return  the text describing e
+     */
+    abstract String describe(Event e);
+}
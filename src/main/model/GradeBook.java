@@ -0,0 +1,568 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+
+/*
+ * Represents the students and courses of a grade book that many threads may read and change at once. Every course
+ * and every student has its own lock, so threads working on different courses never wait for each other. Reads of
+ * a live course first try an optimistic read and only take its read lock if a writer got in the way. A change that
+ * touches a student and a course locks the course
+ * first, then the student, so two changes cannot wait for each other forever.
+ * Every change also publishes a frozen copy of what it changed into a Snapshot made of persistent maps, which share
+ * all their unchanged structure with the previous snapshot. snapshot() returns the latest one in constant time, so
+ * long readers such as saves and reports can read a consistent grade book without locks, and never hold up writers.
+ * Every course and student has a version that goes up with each change and can be read without locks, from it or
+ * from a snapshot; an update given the version its caller read fails with VersionConflictException, rather than
+ * silently overwriting, if someone else changed the record since.
+ * Additions and removals are published to the ChangeFeed, as the students and courses publish their own changes.
+ * The students and courses handed to the grade book belong to it: they must only be read or changed through it.
+ */
+public class GradeBook {
+
+    private final Map<Integer, Locked<Student>> students;
+    private final Map<Integer, Locked<Course>> courses;
+    private final AtomicReference<Snapshot> latest;
+
+    // Effects: constructs an empty grade book.
+    public GradeBook() {
+        this.students = new ConcurrentHashMap<>();
+        this.courses = new ConcurrentHashMap<>();
+        this.latest = new AtomicReference<>(new Snapshot(PersistentMap.empty(), PersistentMap.empty()));
+    }
+
+    // Effects: constructs a grade book of the given students and courses; of several with the same ID, the first
+    //          is kept.
+    public GradeBook(List<Student> students, List<Course> courses) {
+        this();
+        students.forEach(this::addStudent);
+        courses.forEach(this::addCourse);
+    }
+
+    // Modifies: this
+    // Effects: adds student and returns true, or returns false if there is already a student with its ID.
+    public boolean addStudent(Student student) {
+        Locked<Student> locked = new Locked<>(student);
+        long stamp = locked.lock.writeLock(); // held until published, so later changes are published after it
+        try {
+            if (students.putIfAbsent(student.getStudentID(), locked) != null) {
+                return false;
+            }
+            publish(null, student);
+            ChangeFeed.getInstance().publish(Change.Kind.STUDENT_ADDED, student.getStudentID(), 0);
+            return true;
+        } finally {
+            locked.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: adds course and returns true, or returns false if there is already a course with its ID.
+    public boolean addCourse(Course course) {
+        Locked<Course> locked = new Locked<>(course);
+        long stamp = locked.lock.writeLock();
+        try {
+            if (courses.putIfAbsent(course.getCourseID(), locked) != null) {
+                return false;
+            }
+            publish(course, null);
+            ChangeFeed.getInstance().publish(Change.Kind.COURSE_ADDED, 0, course.getCourseID());
+            return true;
+        } finally {
+            locked.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Effects: returns the grade book as it was after the latest change, in constant time.
+    public Snapshot snapshot() {
+        return latest.get();
+    }
+
+    // Effects: returns the number of students.
+    public int studentCount() {
+        return students.size();
+    }
+
+    // Effects: returns the number of courses.
+    public int courseCount() {
+        return courses.size();
+    }
+
+    // Modifies: this
+    // Effects: enrolls the student in the course, and the course in the student's courses, and returns true; returns
+    //          false if either does not exist or the student is already enrolled.
+    public boolean enroll(int studentID, int courseID) {
+        Locked<Course> course = courses.get(courseID);
+        Locked<Student> student = students.get(studentID);
+        if (course == null || student == null) {
+            return false;
+        }
+        long courseStamp = course.lock.writeLock();
+        try {
+            long studentStamp = student.lock.writeLock();
+            try {
+                if (course.removed || student.removed || course.value.isEnrolled(studentID)) {
+                    return false;
+                }
+                course.value.enrollStudent(student.value);
+                student.value.addCourse(course.value);
+                publish(course.value, student.value);
+                return true;
+            } finally {
+                student.lock.unlockWrite(studentStamp);
+            }
+        } finally {
+            course.lock.unlockWrite(courseStamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: removes the student from the course, with its grade, and the course from the student's courses, and
+    //          returns true; returns false if either does not exist or is being removed, or the student is not
+    //          enrolled.
+    public boolean drop(int studentID, int courseID) {
+        Locked<Course> course = courses.get(courseID);
+        Locked<Student> student = students.get(studentID);
+        if (course == null || student == null) {
+            return false;
+        }
+        long courseStamp = course.lock.writeLock();
+        try {
+            long studentStamp = student.lock.writeLock();
+            try {
+                if (course.removed || student.removed) {
+                    return false; // the removal takes the student out of the course itself
+                }
+                boolean removed = course.value.removeStudents(Collections.singletonList(student.value)) > 0;
+                student.value.dropCourse(course.value);
+                if (removed) {
+                    publish(course.value, student.value);
+                }
+                return removed;
+            } finally {
+                student.lock.unlockWrite(studentStamp);
+            }
+        } finally {
+            course.lock.unlockWrite(courseStamp);
+        }
+    }
+
+    // Requires: grades is no longer than studentIDs
+    // Modifies: this
+    // Effects: enrolls the students with the given IDs in the course, in order, and the course in their courses,
+    //          giving the first grades.length of them the grade at the same index, as Course.enrollWithGrades does;
+    //          IDs of students that do not exist are skipped. Returns how many students were enrolled that were not
+    //          already, or 0 if the course does not exist. Locks and publishes the course once for the whole roster,
+    //          so loading a roster takes time proportional to its size; the students are locked in order of ID, so
+    //          two bulk enrollments cannot wait for each other.
+    public int enrollAll(int courseID, int[] studentIDs, double[] grades) {
+        Locked<Course> course = courses.get(courseID);
+        if (course == null) {
+            return 0;
+        }
+        long courseStamp = course.lock.writeLock();
+        try {
+            if (course.removed) {
+                return 0;
+            }
+            Map<Integer, Locked<Student>> joining = new TreeMap<>();
+            for (int studentID : studentIDs) {
+                Locked<Student> student = students.get(studentID);
+                if (student != null) {
+                    joining.put(studentID, student);
+                }
+            }
+            List<Locked<Student>> held = new ArrayList<>(joining.size());
+            long[] stamps = new long[joining.size()];
+            try {
+                for (Locked<Student> student : joining.values()) {
+                    stamps[held.size()] = student.lock.writeLock();
+                    held.add(student);
+                }
+                return enrollLocked(course.value, joining, studentIDs, grades);
+            } finally {
+                for (int i = 0; i < held.size(); i++) {
+                    held.get(i).lock.unlockWrite(stamps[i]);
+                }
+            }
+        } finally {
+            course.lock.unlockWrite(courseStamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: does the work of enrollAll once course and every student in joining are locked, publishing them all
+    //          at once
+    private int enrollLocked(Course course, Map<Integer, Locked<Student>> joining, int[] studentIDs,
+                             double[] grades) {
+        List<Student> graded = new ArrayList<>();
+        List<Double> gradeList = new ArrayList<>();
+        List<Student> ungraded = new ArrayList<>();
+        for (int i = 0; i < studentIDs.length; i++) {
+            Locked<Student> student = joining.get(studentIDs[i]);
+            if (student == null || student.removed) {
+                continue;
+            }
+            if (i < grades.length) {
+                graded.add(student.value);
+                gradeList.add(grades[i]);
+            } else {
+                ungraded.add(student.value);
+            }
+        }
+        int before = course.getEnrolledStudentsID().size();
+        course.enrollWithGrades(graded, gradeList);
+        course.enrollStudents(ungraded);
+        List<Student> linked = new ArrayList<>(joining.size());
+        for (Locked<Student> student : joining.values()) {
+            if (!student.removed) {
+                student.value.addCourses(Collections.singletonList(course));
+                linked.add(student.value.frozenCopy());
+            }
+        }
+        Course frozenCourse = course.frozenCopy();
+        latest.updateAndGet(snapshot -> snapshot.with(frozenCourse, linked));
+        return course.getEnrolledStudentsID().size() - before;
+    }
+
+    // Modifies: this
+    // Effects: sets the grade of the student in the course and returns true, or returns false if the course does not
+    //          exist or the student is not enrolled in it.
+    public boolean setGrade(int studentID, int courseID, double grade) {
+        return setGrades(courseID, new int[]{studentID}, new double[]{grade}) == 1;
+    }
+
+    // Requires: studentIDs and grades have the same length
+    // Modifies: this
+    // Effects: sets the grades of the enrolled students in the course, as Course.setGrades does, and returns how many
+    //          were set; returns 0 if the course does not exist.
+    public int setGrades(int courseID, int[] studentIDs, double[] grades) {
+        Integer set = updateCourse(courseID, course -> course.setGrades(studentIDs, grades));
+        return set == null ? 0 : set;
+    }
+
+    // Effects: returns the grade of the student in the course, or null if there is none.
+    public Double getGrade(int studentID, int courseID) {
+        Locked<Course> course = courses.get(courseID);
+        Locked<Student> student = students.get(studentID);
+        if (course == null || student == null) {
+            return null;
+        }
+        return readCourse(courseID, c -> c.getGrade(student.value));
+    }
+
+    // Effects: returns the average, median and standard deviation of the grades in the course as of the latest
+    //          snapshot, or null if the course does not exist. Takes no lock.
+    public CourseStats getStats(int courseID) {
+        Course course = snapshot().getCourse(courseID);
+        if (course == null) {
+            return null;
+        }
+        return new CourseStats(course.getStudentGrades().size(), course.calculateAverageGrade(),
+                course.calculateMedianGrade(), course.calculateStandardDeviation());
+    }
+
+    // Effects: returns reader applied to the course, or null if the course does not exist. reader must not change
+    //          the course and must not keep it; it may be called twice, the first time on a course that a writer is
+    //          changing, in which case whatever it returns or throws is discarded.
+    public <T> T readCourse(int courseID, Function<Course, T> reader) {
+        Locked<Course> course = courses.get(courseID);
+        if (course == null) {
+            return null;
+        }
+        long stamp = course.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.apply(course.value);
+                if (course.lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // a writer changed the course while it was being read; read it again under the lock
+            }
+        }
+        stamp = course.lock.readLock();
+        try {
+            return reader.apply(course.value);
+        } finally {
+            course.lock.unlockRead(stamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: returns writer applied to the course while no other thread reads or changes it, or null if the course
+    //          does not exist. writer must not keep the course or change any student.
+    public <T> T updateCourse(int courseID, Function<Course, T> writer) {
+        Locked<Course> course = courses.get(courseID);
+        if (course == null) {
+            return null;
+        }
+        long stamp = course.lock.writeLock();
+        try {
+            if (course.removed) {
+                return null;
+            }
+            T result = writer.apply(course.value);
+            publish(course.value, null);
+            return result;
+        } finally {
+            course.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: as updateCourse, but only if the course is still at expectedVersion, as read from a snapshot or the
+    //          course itself; throws VersionConflictException without changing anything if it is not. A stale
+    //          version is detected before taking the lock, so a writer only waits for another writer of the same
+    //          course when both could succeed. writer must not change the course's ID.
+    public <T> T updateCourse(int courseID, long expectedVersion, Function<Course, T> writer) {
+        Locked<Course> course = courses.get(courseID);
+        if (course == null) {
+            return null;
+        }
+        course.value.checkVersion(expectedVersion);
+        return updateCourse(courseID, c -> {
+            c.checkVersion(expectedVersion);
+            return writer.apply(c);
+        });
+    }
+
+    // Effects: returns reader applied to the student, or null if the student does not exist; reader must not change
+    //          the student and must not keep it.
+    public <T> T readStudent(int studentID, Function<Student, T> reader) {
+        Locked<Student> student = students.get(studentID);
+        if (student == null) {
+            return null;
+        }
+        long stamp = student.lock.readLock();
+        try {
+            return reader.apply(student.value);
+        } finally {
+            student.lock.unlockRead(stamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: returns writer applied to the student while no other thread reads or changes it, or null if the
+    //          student does not exist, provided the student is still at expectedVersion; throws
+    //          VersionConflictException without changing anything if it is not. A stale version is detected before
+    //          taking the lock. writer must not keep the student, change its ID or change any course.
+    public <T> T updateStudent(int studentID, long expectedVersion, Function<Student, T> writer) {
+        Locked<Student> student = students.get(studentID);
+        if (student == null) {
+            return null;
+        }
+        student.value.checkVersion(expectedVersion);
+        long stamp = student.lock.writeLock();
+        try {
+            if (student.removed) {
+                return null;
+            }
+            student.value.checkVersion(expectedVersion);
+            T result = writer.apply(student.value);
+            publish(null, student.value);
+            return result;
+        } finally {
+            student.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Modifies: this
+    // Effects: removes the student, and removes it from each of its courses, and returns true; returns false if
+    //          there is no such student.
+    public boolean removeStudent(int studentID) {
+        Locked<Student> student = students.remove(studentID);
+        if (student == null) {
+            return false;
+        }
+        List<Integer> courseIDs;
+        long stamp = student.lock.writeLock();
+        try {
+            student.removed = true;
+            courseIDs = new ArrayList<>(student.value.getEnrolledCourses());
+            latest.updateAndGet(snapshot -> snapshot.withoutStudent(studentID));
+            ChangeFeed.getInstance().publish(Change.Kind.STUDENT_REMOVED, studentID, 0);
+        } finally {
+            student.lock.unlockWrite(stamp);
+        }
+        for (int courseID : courseIDs) {
+            updateCourse(courseID, course -> course.removeStudents(Collections.singletonList(student.value)));
+        }
+        return true;
+    }
+
+    // Modifies: this
+    // Effects: removes the course, and removes it from the courses of each of its students, and returns true;
+    //          returns false if there is no such course.
+    public boolean removeCourse(int courseID) {
+        Locked<Course> course = courses.remove(courseID);
+        if (course == null) {
+            return false;
+        }
+        List<Integer> studentIDs;
+        long stamp = course.lock.writeLock();
+        try {
+            course.removed = true;
+            studentIDs = new ArrayList<>(course.value.getEnrolledStudentsID());
+            latest.updateAndGet(snapshot -> snapshot.withoutCourse(courseID));
+            ChangeFeed.getInstance().publish(Change.Kind.COURSE_REMOVED, 0, courseID);
+        } finally {
+            course.lock.unlockWrite(stamp);
+        }
+        for (int studentID : studentIDs) {
+            Locked<Student> student = students.get(studentID);
+            if (student != null) {
+                long studentStamp = student.lock.writeLock();
+                try {
+                    student.value.dropCourse(course.value);
+                    if (!student.removed) {
+                        publish(null, student.value);
+                    }
+                } finally {
+                    student.lock.unlockWrite(studentStamp);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Effects: returns copies of the students in the latest snapshot, in order of ID, which may be changed freely.
+    public List<Student> copyStudents() {
+        List<Student> copies = new ArrayList<>(studentCount());
+        snapshot().getStudents().forEach(student -> copies.add(student.copy()));
+        return copies;
+    }
+
+    // Effects: returns copies of the courses in the latest snapshot, in order of ID, which may be changed freely.
+    public List<Course> copyCourses() {
+        List<Course> copies = new ArrayList<>(courseCount());
+        snapshot().getCourses().forEach(course -> copies.add(course.copy()));
+        return copies;
+    }
+
+    // Modifies: this
+    // Effects: publishes a new snapshot with frozen copies of course and student, either of which may be null;
+    //          called while holding their locks, so the copies of each are published in the order they were made
+    private void publish(Course course, Student student) {
+        Course frozenCourse = course == null ? null : course.frozenCopy();
+        Student frozenStudent = student == null ? null : student.frozenCopy();
+        latest.updateAndGet(snapshot -> snapshot.with(frozenCourse, frozenStudent));
+    }
+
+    // Represents the students and courses of a grade book at one moment. A snapshot never changes, and the students
+    // and courses in it cannot be changed, so any number of threads may read it without locks for as long as they
+    // like.
+    public static final class Snapshot {
+        private final PersistentMap<Integer, Student> students;
+        private final PersistentMap<Integer, Course> courses;
+
+        private Snapshot(PersistentMap<Integer, Student> students, PersistentMap<Integer, Course> courses) {
+            this.students = students;
+            this.courses = courses;
+        }
+
+        // Effects: returns the student with the given ID, or null if there is none.
+        public Student getStudent(int studentID) {
+            return students.get(studentID);
+        }
+
+        // Effects: returns the course with the given ID, or null if there is none.
+        public Course getCourse(int courseID) {
+            return courses.get(courseID);
+        }
+
+        public int studentCount() {
+            return students.size();
+        }
+
+        public int courseCount() {
+            return courses.size();
+        }
+
+        // Effects: returns the students in order of ID; the students must not be changed.
+        public List<Student> getStudents() {
+            List<Student> list = students.values();
+            list.sort(Comparator.comparingInt(Student::getStudentID));
+            return list;
+        }
+
+        // Effects: returns the courses in order of ID; the courses must not be changed.
+        public List<Course> getCourses() {
+            List<Course> list = courses.values();
+            list.sort(Comparator.comparingInt(Course::getCourseID));
+            return list;
+        }
+
+        private Snapshot with(Course course, Student student) {
+            return new Snapshot(student == null ? students : students.put(student.getStudentID(), student),
+                    course == null ? courses : courses.put(course.getCourseID(), course));
+        }
+
+        private Snapshot with(Course course, List<Student> changed) {
+            PersistentMap<Integer, Student> withStudents = students;
+            for (Student student : changed) {
+                withStudents = withStudents.put(student.getStudentID(), student);
+            }
+            return new Snapshot(withStudents, courses.put(course.getCourseID(), course));
+        }
+
+        private Snapshot withoutStudent(int studentID) {
+            return new Snapshot(students.remove(studentID), courses);
+        }
+
+        private Snapshot withoutCourse(int courseID) {
+            return new Snapshot(students, courses.remove(courseID));
+        }
+    }
+
+    // Represents the grade statistics of a course at one moment
+    public static final class CourseStats {
+        private final int count;
+        private final double average;
+        private final double median;
+        private final double standardDeviation;
+
+        CourseStats(int count, double average, double median, double standardDeviation) {
+            this.count = count;
+            this.average = average;
+            this.median = median;
+            this.standardDeviation = standardDeviation;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+
+        public double getMedian() {
+            return median;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+    }
+
+    // A student or course with the lock that guards it
+    private static final class Locked<T> {
+        final T value;
+        final StampedLock lock = new StampedLock();
+        boolean removed; // guarded by lock
+
+        Locked(T value) {
+            this.value = value;
+        }
+    }
+}
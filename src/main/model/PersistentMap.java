@@ -0,0 +1,332 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+
+/*
+ * Represents an immutable map from keys to values: put and remove return a new map and leave this one as it was.
+ * The map is a hash array mapped trie of up to 32 children per node, so a new map shares every node with the old
+ * one except those on the path to the changed key, and put, remove and get take time proportional to the depth of
+ * the trie, which is at most 7. Keys must have consistent equals and hashCode and must not be null.
+ */
+public final class PersistentMap<K, V> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new BitmapNode(0, new Object[0]), 0);
+    private static final Object NOT_FOUND = new Object();
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final BitmapNode root;
+    private final int size;
+
+    private PersistentMap(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // Effects: returns the empty map.
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    // Effects: returns the number of keys in this map.
+    public int size() {
+        return size;
+    }
+
+    // Effects: returns true if this map has no keys.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Effects: returns the value of key, or null if key is not in this map.
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Object value = root.get(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    // Effects: returns true if key is in this map.
+    public boolean containsKey(K key) {
+        return root.get(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    // Effects: returns a map with the keys of this map and key, in which key has value; returns this map if key
+    //          already has value.
+    public PersistentMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        BitmapNode newRoot = (BitmapNode) root.put(key, hash(key), value, 0, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    // Effects: returns a map with the keys of this map except key; returns this map if key is not in it.
+    public PersistentMap<K, V> remove(K key) {
+        Object newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        } else if (newRoot == null) {
+            return empty();
+        } else if (newRoot instanceof Entry) {
+            Entry entry = (Entry) newRoot;
+            return new PersistentMap<>(new BitmapNode(bit(entry.hash, 0), new Object[]{entry}), size - 1);
+        }
+        return new PersistentMap<>((BitmapNode) newRoot, size - 1);
+    }
+
+    // Effects: calls action with each key and its value, in no particular order.
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((key, value) -> action.accept((K) key, (V) value));
+    }
+
+    // Effects: returns the values in this map, in no particular order.
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    // Effects: returns a node at shift holding both entries, whose keys differ
+    private static Object merge(Entry first, Entry second, int shift) {
+        if (first.hash == second.hash) {
+            return new CollisionNode(first.hash, new Entry[]{first, second});
+        }
+        int firstBit = bit(first.hash, shift);
+        int secondBit = bit(second.hash, shift);
+        if (firstBit == secondBit) {
+            return new BitmapNode(firstBit, new Object[]{merge(first, second, shift + BITS)});
+        }
+        // compared unsigned, as the bit for the last child is the sign bit
+        Object[] children = Integer.compareUnsigned(firstBit, secondBit) < 0 ? new Object[]{first, second}
+                : new Object[]{second, first};
+        return new BitmapNode(firstBit | secondBit, children);
+    }
+
+    // A key, its hash and its value
+    private static final class Entry {
+        final Object key;
+        final int hash;
+        final Object value;
+
+        Entry(Object key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    // A node of the trie
+    private abstract static class Node {
+        // Effects: returns the value of key, or NOT_FOUND
+        abstract Object get(Object key, int hash, int shift);
+
+        // Effects: returns this node with key set to value, or this node if it already has it; sets added[0] if
+        //          key was not in the node
+        abstract Node put(Object key, int hash, Object value, int shift, boolean[] added);
+
+        // Effects: returns this node without key: this node if key is not in it, null if the node is now empty, or
+        //          the only entry left in it, for the parent to hold instead
+        abstract Object remove(Object key, int hash, int shift);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    // A node with a child, which is an entry or a node, for each bit set in its bitmap
+    private static final class BitmapNode extends Node {
+        final int bitmap;
+        final Object[] children;
+
+        BitmapNode(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            Object child = children[index(bit)];
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                return entry.hash == hash && entry.key.equals(key) ? entry.value : NOT_FOUND;
+            }
+            return ((Node) child).get(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Object key, int hash, Object value, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] grown = new Object[children.length + 1];
+                System.arraycopy(children, 0, grown, 0, index);
+                grown[index] = new Entry(key, hash, value);
+                System.arraycopy(children, index, grown, index + 1, children.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, grown);
+            }
+            Object child = children[index];
+            Object replacement;
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                if (entry.hash == hash && entry.key.equals(key)) {
+                    if (entry.value == value) {
+                        return this;
+                    }
+                    replacement = new Entry(key, hash, value);
+                } else {
+                    added[0] = true;
+                    replacement = merge(entry, new Entry(key, hash, value), shift + BITS);
+                }
+            } else {
+                replacement = ((Node) child).put(key, hash, value, shift + BITS, added);
+                if (replacement == child) {
+                    return this;
+                }
+            }
+            return with(index, replacement);
+        }
+
+        @Override
+        Object remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object child = children[index];
+            Object replacement;
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                if (entry.hash != hash || !entry.key.equals(key)) {
+                    return this;
+                }
+                replacement = null;
+            } else {
+                replacement = ((Node) child).remove(key, hash, shift + BITS);
+                if (replacement == child) {
+                    return this;
+                }
+            }
+            if (replacement != null) {
+                return with(index, replacement);
+            }
+            if (children.length == 1) {
+                return null;
+            }
+            if (children.length == 2 && shift > 0 && children[1 - index] instanceof Entry) {
+                return children[1 - index];
+            }
+            Object[] shrunk = new Object[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (Object child : children) {
+                if (child instanceof Entry) {
+                    action.accept(((Entry) child).key, ((Entry) child).value);
+                } else {
+                    ((Node) child).forEach(action);
+                }
+            }
+        }
+
+        private BitmapNode with(int index, Object child) {
+            Object[] copy = children.clone();
+            copy[index] = child;
+            return new BitmapNode(bitmap, copy);
+        }
+    }
+
+    // A node of entries whose keys have the same hash
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Entry[] entries;
+
+        CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int i = hash == this.hash ? find(key) : -1;
+            return i < 0 ? NOT_FOUND : entries[i].value;
+        }
+
+        @Override
+        Node put(Object key, int hash, Object value, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                // only reachable above the bottom of the trie: move this node one level down
+                BitmapNode parent = new BitmapNode(bit(this.hash, shift), new Object[]{this});
+                return parent.put(key, hash, value, shift, added);
+            }
+            int i = find(key);
+            if (i >= 0) {
+                if (entries[i].value == value) {
+                    return this;
+                }
+                Entry[] copy = entries.clone();
+                copy[i] = new Entry(key, hash, value);
+                return new CollisionNode(hash, copy);
+            }
+            Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+            grown[entries.length] = new Entry(key, hash, value);
+            added[0] = true;
+            return new CollisionNode(hash, grown);
+        }
+
+        @Override
+        Object remove(Object key, int hash, int shift) {
+            int i = hash == this.hash ? find(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (entries.length == 2) {
+                return entries[1 - i];
+            }
+            Entry[] shrunk = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, shrunk, 0, i);
+            System.arraycopy(entries, i + 1, shrunk, i, entries.length - i - 1);
+            return new CollisionNode(hash, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (Entry entry : entries) {
+                action.accept(entry.key, entry.value);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+
+/*
+ * Represents a list stored as a trie of up to 32 children per node, like PersistentMap, so that copying it takes
+ * constant time: a copy shares every node with the list it was copied from. Each list owns the nodes it created
+ * since it was last copied and changes them in place; a node it shares is copied, with the path to it, the first
+ * time the list changes it. get, set and add at the end therefore take time proportional to the depth of the trie,
+ * which is at most 7, while adding or removing anywhere else rebuilds the list, as shifting an ArrayList would.
+ * Frozen copies cannot be changed, so any number of threads may read one without locks; a list that is not frozen
+ * must be guarded like an ArrayList.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private Node root;
+    private int size;
+    private int shift;
+    private Object owner; // owner of the nodes this list may change in place, or null if it is frozen
+    private int changes;
+
+    // Effects: constructs an empty list.
+    public PersistentVector() {
+        this.owner = new Object();
+        this.root = new Node(owner);
+    }
+
+    // Effects: constructs a list of the elements of source, in its order.
+    public PersistentVector(Collection<? extends E> source) {
+        this();
+        addAll(source);
+    }
+
+    private PersistentVector(Node root, int size, int shift, Object owner) {
+        this.root = root;
+        this.size = size;
+        this.shift = shift;
+        this.owner = owner;
+    }
+
+    // Modifies: this
+    // Effects: returns a copy of this list that can be changed without affecting this one, in constant time.
+    public PersistentVector<E> copy() {
+        share();
+        return new PersistentVector<>(root, size, shift, new Object());
+    }
+
+    // Modifies: this
+    // Effects: returns a copy of this list, in constant time, whose methods that would change it throw
+    //          UnsupportedOperationException.
+    public PersistentVector<E> frozenCopy() {
+        share();
+        return new PersistentVector<>(root, size, shift, null);
+    }
+
+    // Effects: returns how many times this list was changed, by any method, since it was constructed or copied.
+    int changes() {
+        return changes;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        return (E) leafFor(index).slots[index & MASK];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index, size);
+        checkMutable();
+        Node leaf = editablePath(index);
+        E old = (E) leaf.slots[index & MASK];
+        leaf.slots[index & MASK] = element;
+        changes++;
+        return old;
+    }
+
+    @Override
+    public boolean add(E element) {
+        checkMutable();
+        if (size == 1 << (shift + BITS)) {
+            Node grown = new Node(owner);
+            grown.slots[0] = root;
+            root = grown;
+            shift += BITS;
+        }
+        editablePath(size).slots[size & MASK] = element;
+        size++;
+        modCount++;
+        changes++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size + 1);
+        checkMutable();
+        if (index == size) {
+            add(element);
+            return;
+        }
+        Object[] elements = toArray();
+        reset();
+        for (int i = 0; i < elements.length; i++) {
+            if (i == index) {
+                append(element);
+            }
+            append(elements[i]);
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size);
+        checkMutable();
+        E old = get(index);
+        if (index == size - 1) {
+            editablePath(index).slots[index & MASK] = null;
+            size--;
+            modCount++;
+            changes++;
+        } else {
+            removeRange(index, index + 1);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        reset();
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        checkMutable();
+        Object[] elements = toArray();
+        reset();
+        for (int i = 0; i < elements.length; i++) {
+            if (i < fromIndex || i >= toIndex) {
+                append(elements[i]);
+            }
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] elements = new Object[size];
+        for (int start = 0; start < size; start += WIDTH) {
+            System.arraycopy(leafFor(start).slots, 0, elements, start, Math.min(WIDTH, size - start));
+        }
+        return elements;
+    }
+
+    // Modifies: this
+    // Effects: makes every node shared, so this list copies a node before changing it
+    private void share() {
+        if (owner != null) {
+            owner = new Object();
+        }
+    }
+
+    // Modifies: this
+    // Effects: makes this list empty, owning a new root
+    private void reset() {
+        root = new Node(owner);
+        size = 0;
+        shift = 0;
+        modCount++;
+        changes++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void append(Object element) {
+        add((E) element);
+    }
+
+    // Effects: returns the leaf that holds index
+    private Node leafFor(int index) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.slots[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    // Modifies: this
+    // Effects: returns the leaf that holds index, after copying each node on the path to it that this list does not
+    //          own, and creating any that are missing
+    private Node editablePath(int index) {
+        root = editable(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int slot = (index >>> level) & MASK;
+            Node child = (Node) node.slots[slot];
+            child = child == null ? new Node(owner) : editable(child);
+            node.slots[slot] = child;
+            node = child;
+        }
+        return node;
+    }
+
+    // Effects: returns node if this list owns it, or else a copy of it that this list owns
+    private Node editable(Node node) {
+        if (node.owner == owner) {
+            return node;
+        }
+        Node copy = new Node(owner);
+        System.arraycopy(node.slots, 0, copy.slots, 0, WIDTH);
+        return copy;
+    }
+
+    private void checkMutable() {
+        if (owner == null) {
+            throw new UnsupportedOperationException("frozen list");
+        }
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    // A node of the trie: its slots hold elements in a leaf, and child nodes otherwise
+    private static final class Node {
+        final Object owner;
+        final Object[] slots = new Object[WIDTH];
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -4,27 +4,100 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class Student {
 
     private String name;
     private int studentID;
     private final List<Integer> enrolledCourses;
+    private boolean dirty;
+    private volatile long version;
 
     // Represents a student having a name, id, and listOfCourses
     public Student(String name, int id) {
         this.name = name; // student name
         this.studentID = id; // student Id
         this.enrolledCourses = new ArrayList<>(); // list of enrolled courses
+        this.dirty = true;
+    }
+
+    // Effects: constructs a student whose list of enrolled courses is enrolledCourses
+    private Student(String name, int id, List<Integer> enrolledCourses, boolean dirty) {
+        this.name = name;
+        this.studentID = id;
+        this.enrolledCourses = enrolledCourses;
+        this.dirty = dirty;
+    }
+
+    // Effects: returns a copy of this student with its own list of enrolled courses. No event is logged.
+    public Student copy() {
+        Student copy = new Student(name, studentID);
+        copy.enrolledCourses.addAll(enrolledCourses);
+        copy.dirty = dirty;
+        copy.version = version;
+        return copy;
+    }
+
+    // Effects: returns a copy of this student whose list of enrolled courses cannot be changed, for readers that share
+    //          it, such as a GradeBook.Snapshot; methods that change the list throw UnsupportedOperationException.
+    //          No event is logged.
+    Student frozenCopy() {
+        Student copy = new Student(name, studentID, Collections.unmodifiableList(new ArrayList<>(enrolledCourses)),
+                dirty);
+        copy.version = version;
+        return copy;
+    }
+
+    // Effects: returns true if this student changed since it was last saved or loaded, or was never saved.
+    //          Changes made directly to the list returned by getEnrolledCourses are not tracked.
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // Modifies: this
+    // Effects: records that this student matches its saved copy.
+    public void markClean() {
+        dirty = false;
+    }
+
+    // Effects: returns the version of this student, which starts at 0 and goes up by one with every change made
+    //          through its methods. It is not saved, so a loaded student starts again at 0. Reading it takes no lock.
+    public long getVersion() {
+        return version;
+    }
+
+    // Effects: throws VersionConflictException if this student is no longer at version expected, that is, if it
+    //          changed since a caller read that version; does nothing otherwise.
+    public void checkVersion(long expected) {
+        long actual = version;
+        if (actual != expected) {
+            throw new VersionConflictException("Student", studentID, expected, actual);
+        }
+    }
+
+    // Modifies: this
+    // Effects: records that this student changed: it is dirty and its version is one higher
+    private void changed() {
+        dirty = true;
+        version++;
     }
 
     public void setName(String name) {
         this.name = name;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.STUDENT_CHANGED, studentID, 0);
     }
     public void setStudentID(int studentID) {
         this.studentID = studentID;
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.STUDENT_CHANGED, studentID, 0);
     }
 
     public String getName() {
@@ -44,8 +117,9 @@ public class Student {
     //Effects: Enrolls the student in a given course.
     public void addCourse(Course course) {
         enrolledCourses.add(course.getCourseID());
-        EventLog.getInstance().logEvent(new Event("Added Course Name:" + course.getCourseName()
-                + "\n" + "Student Name: " + this.name));
+        changed();
+        EventLog.getInstance().log(EventType.COURSE_ADDED, this, course);
+        ChangeFeed.getInstance().publish(Change.Kind.ENROLLED, studentID, course.getCourseID());
     }
 
     // Modifies: this
@@ -55,15 +129,74 @@ public class Student {
         for (int i = 0; i < enrolledCourses.size(); i++) {
             if (Objects.equals(enrolledCourses.get(i), courseToRemove)) {
                 enrolledCourses.remove(i);
-                EventLog.getInstance().logEvent(new Event("Dropped Course Name: " + course.getCourseName()
-                        + "\n" + "Student Name: " + this.name));
+                changed();
+                EventLog.getInstance().log(EventType.COURSE_DROPPED, this, course);
+                ChangeFeed.getInstance().publish(Change.Kind.DROPPED, studentID, courseToRemove);
                 break;
             }
         }
     }
 
+    // Modifies: this
+    // Effects: enrolls the student in each of courses it is not already enrolled in, once, in the order given,
+    //          and returns how many were added. Logs a single event for the whole batch.
+    public int addCourses(Collection<Course> courses) {
+        Set<Integer> enrolled = new HashSet<>(enrolledCourses);
+        List<Integer> added = new ArrayList<>();
+        for (Course course : courses) {
+            if (enrolled.add(course.getCourseID())) {
+                added.add(course.getCourseID());
+            }
+        }
+        if (!added.isEmpty()) {
+            enrolledCourses.addAll(added);
+            changed();
+            EventLog.getInstance().log(EventType.COURSES_ADDED, this, added.size());
+            publishAll(Change.Kind.ENROLLED, added);
+        }
+        return added.size();
+    }
+
+    // Modifies: this
+    // Effects: removes each of courses from the list and returns how many were removed. Logs a single event for
+    //          the whole batch.
+    public int dropCourses(Collection<Course> courses) {
+        Set<Integer> dropping = new HashSet<>();
+        for (Course course : courses) {
+            dropping.add(course.getCourseID());
+        }
+        int before = enrolledCourses.size();
+        Set<Integer> removed = new LinkedHashSet<>();
+        enrolledCourses.removeIf(courseID -> {
+            if (!dropping.contains(courseID)) {
+                return false;
+            }
+            removed.add(courseID); // only the courses the student was in were dropped
+            return true;
+        });
+        int dropped = before - enrolledCourses.size();
+        if (dropped > 0) {
+            changed();
+            EventLog.getInstance().log(EventType.COURSES_DROPPED, this, dropped);
+            publishAll(Change.Kind.DROPPED, removed);
+        }
+        return dropped;
+    }
+
+    // Effects: publishes a change of kind about this student in each of courseIDs, if anyone is subscribed
+    private void publishAll(Change.Kind kind, Collection<Integer> courseIDs) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        if (feed.isActive()) {
+            for (int courseID : courseIDs) {
+                feed.publish(kind, studentID, courseID);
+            }
+        }
+    }
+
     public void clearCourses() {
         enrolledCourses.clear();
+        changed();
+        ChangeFeed.getInstance().publish(Change.Kind.STUDENT_CHANGED, studentID, 0);
     }
 
 
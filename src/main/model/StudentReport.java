@@ -0,0 +1,99 @@
+package model;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Represents the generator of student reports: each enrolled course with its letter grade, and the cumulative GPA.
+// Courses are looked up by ID through an index built once, and each course's grades are indexed by student ID the
+// first time a report needs them, so writing the reports of every student reads each roster once rather than once
+// per student. No event is logged per report, so one generator can be used from several threads at once as long
+// as the students and courses are not changed meanwhile.
+public class StudentReport {
+
+    private final Map<Integer, Course> coursesById;
+    private final ConcurrentMap<Integer, CourseGrades> gradesById;
+    private final Grade grade;
+
+    // Effects: constructs a report generator for students enrolled in the given courses
+    public StudentReport(List<Course> courses) {
+        this.coursesById = new HashMap<>();
+        for (Course course : courses) {
+            coursesById.putIfAbsent(course.getCourseID(), course);
+        }
+        this.gradesById = new ConcurrentHashMap<>();
+        this.grade = new Grade();
+    }
+
+    // Effects: returns the report of student
+    public String generate(Student student) {
+        StringBuilder report = new StringBuilder();
+        try {
+            write(student, report);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a StringBuilder does not throw
+        }
+        return report.toString();
+    }
+
+    // Modifies: out
+    // Effects: appends the report of student to out; throws IOException if out cannot be written
+    public void write(Student student, Appendable out) throws IOException {
+        out.append("Report for Student ID: ").append(String.valueOf(student.getStudentID())).append("\n");
+        out.append("Name: ").append(student.getName()).append("\n\n");
+        out.append("Courses Enrolled:\n");
+
+        for (Integer courseId : student.getEnrolledCourses()) {
+            Course course = coursesById.get(courseId);
+            if (course == null) {
+                continue;
+            }
+            Double courseGrade = grades(course).byStudent.get(student.getStudentID());
+            out.append(course.getCourseName()).append(" (").append(course.getCourseCode()).append(") - Grade: ")
+                    .append(courseGrade != null ? grade.percentageToLetterGrade(courseGrade) : "Not available")
+                    .append("\n");
+        }
+
+        out.append("\nCumulative GPA: ").append(String.format("%.2f", gpa(student))).append("\n");
+    }
+
+    // Effects: returns the cumulative GPA of student over the courses it is enrolled in, as Grade.calculateGPA
+    //          finds it
+    public double gpa(Student student) {
+        double totalPoints = 0.0;
+        int totalCredits = 0;
+        for (Integer courseId : student.getEnrolledCourses()) {
+            Course course = coursesById.get(courseId);
+            if (course == null) {
+                continue;
+            }
+            totalPoints += grades(course).gradePoints * course.getCredits(); // as Grade.calculateGPA sums them
+            totalCredits += course.getCredits();
+        }
+        return totalPoints / totalCredits;
+    }
+
+    // Effects: returns the indexed grades of course, indexing them the first time they are needed
+    private CourseGrades grades(Course course) {
+        return gradesById.computeIfAbsent(course.getCourseID(), id -> new CourseGrades(course));
+    }
+
+    // The grades of a course by student ID, as Course.getGrade finds them, and its grade points
+    private static final class CourseGrades {
+        final Map<Integer, Double> byStudent;
+        final double gradePoints;
+
+        CourseGrades(Course course) {
+            List<Integer> roster = course.getEnrolledStudentsID();
+            List<Double> grades = course.getStudentGrades();
+            byStudent = new HashMap<>();
+            for (int i = 0; i < Math.min(roster.size(), grades.size()); i++) {
+                byStudent.putIfAbsent(roster.get(i), grades.get(i));
+            }
+            gradePoints = course.percentageToGradePoints(grades);
+        }
+    }
+}
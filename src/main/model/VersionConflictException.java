@@ -0,0 +1,43 @@
+package model;
+
+
+/**
+ * Thrown when a change to a course or student expected it to be at one
+ * version, but someone else changed it first. Nothing was changed; the
+ * caller should read the record again and decide whether to redo its edit.
+ */
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int recordID;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    /**
+     * Creates an exception for a change that expected a record to be at
+     * expectedVersion but found it at actualVersion.
+     * @param kind  what the record is, such as "Course"
+     * @param recordID  the ID of the record
+     * @param expectedVersion  the version the change expected
+     * @param actualVersion  the version the record was at
+     */
+    public VersionConflictException(String kind, int recordID, long expectedVersion, long actualVersion) {
+        super(kind + " " + recordID + " was changed by someone else: expected version " + expectedVersion
+                + " but it is at version " + actualVersion);
+        this.recordID = recordID;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getRecordID() {
+        return recordID;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,128 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Represents a background autosave service. Edits only mark the data dirty; a burst of edits is coalesced into a
+// single write that happens one interval after the first of them. At that point a snapshot is requested from the
+// owner, and written on a background thread as a full JSON snapshot via a temporary file and an atomic rename.
+public class AutoSaver {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 30_000;
+
+    // Receives progress notifications; called on the autosave thread
+    public interface Listener {
+        // EFFECTS: called before a snapshot starts being written to destination
+        void saveStarted(String destination);
+
+        // EFFECTS: called after a snapshot was written to destination at timeMillis
+        void saveFinished(String destination, long timeMillis);
+
+        // EFFECTS: called when writing a snapshot to destination failed
+        void saveFailed(String destination, IOException e);
+    }
+
+    // A consistent point-in-time copy of the data, and where and how to write it
+    public static class Snapshot {
+        public final List<Student> students;
+        public final List<Course> courses;
+        public final String destination;
+        public final long journalSeq;
+
+        public Snapshot(List<Student> students, List<Course> courses, String destination, long journalSeq) {
+            this.students = students;
+            this.courses = courses;
+            this.destination = destination;
+            this.journalSeq = journalSeq;
+        }
+    }
+
+    private final Supplier<Snapshot> snapshotSource;
+    private final Listener listener;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicBoolean scheduled;
+    private volatile long intervalMillis;
+
+    // EFFECTS: constructs an autosaver that writes at most once per intervalMillis. snapshotSource is called on
+    //          the autosave thread and must return a copy that is safe to read from it, or null to skip the save.
+    public AutoSaver(long intervalMillis, Supplier<Snapshot> snapshotSource, Listener listener) {
+        this.snapshotSource = snapshotSource;
+        this.listener = listener;
+        this.intervalMillis = intervalMillis;
+        this.scheduled = new AtomicBoolean();
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    // EFFECTS: returns the delay between the first unsaved edit and the write that saves it
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    // REQUIRES: intervalMillis > 0
+    // MODIFIES: this
+    // EFFECTS: sets the delay used for writes scheduled from now on
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: schedules a save one interval from now, unless one is already scheduled
+    public void markDirty() {
+        if (!executor.isShutdown() && scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::saveNow, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // EFFECTS: waits for a save in progress to finish; returns at once if there is none or the autosaver is shut down
+    public void awaitIdle() throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (RejectedExecutionException e) {
+            // shut down: shutdown already waited for the save in progress
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // an empty task does not fail
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops any scheduled save and waits for a save in progress to finish
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes a snapshot and writes it; edits made from here on schedule another save
+    private void saveNow() {
+        scheduled.set(false);
+        Snapshot snapshot = snapshotSource.get();
+        if (snapshot == null) {
+            return;
+        }
+        listener.saveStarted(snapshot.destination);
+        try {
+            JsonWriter.writeSnapshot(snapshot.destination, snapshot.students, snapshot.courses, snapshot.journalSeq);
+            listener.saveFinished(snapshot.destination, System.currentTimeMillis());
+        } catch (IOException e) {
+            listener.saveFailed(snapshot.destination, e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a B+tree in a PageFile that maps int keys to byte array values. Each node is one page. Leaves hold
+// the keys in order with their values, and are linked so that all entries can be visited in key order; values
+// larger than a quarter of a page are kept in a chain of overflow pages and the leaf holds where it starts.
+// A lookup reads one page per level of the tree, plus the overflow pages of a large value.
+// Removing entries does not merge underfull leaves; they are filled again by later inserts.
+class BPlusTree {
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_HEADER = 7;
+    private static final int ENTRY_HEADER = 8;
+    private static final int OVERFLOW_POINTER = 4;
+
+    // Receives the entries of the tree in key order
+    interface Visitor {
+        // EFFECTS: called with each key and its value
+        void visit(int key, byte[] value) throws IOException;
+    }
+
+    private final PageFile file;
+    private final int slot;
+    private final int inlineLimit;
+    private final int maxKeys;
+
+    // REQUIRES: 0 <= slot < PageFile.ROOTS
+    // MODIFIES: file
+    // EFFECTS: opens the tree whose root is stored in the given root slot of file, creating an empty tree if the
+    //          slot holds none
+    BPlusTree(PageFile file, int slot) throws IOException {
+        this.file = file;
+        this.slot = slot;
+        this.inlineLimit = file.getPageSize() / 4;
+        this.maxKeys = (file.getPageSize() - NODE_HEADER) / 8;
+        if (file.getRoot(slot) == 0) {
+            int root = file.allocate();
+            writeNode(root, new Node(true));
+            file.setRoot(slot, root);
+        }
+    }
+
+    // EFFECTS: returns the value stored under key, or null if there is none
+    byte[] get(int key) throws IOException {
+        Node node = readNode(file.getRoot(slot));
+        while (!node.leaf) {
+            node = readNode(node.children.get(childIndex(node, key)));
+        }
+        int i = search(node.keys, key);
+        return i < 0 ? null : value(node.entries.get(i));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stores value under key and returns true if it replaced a value already stored under key
+    boolean put(int key, byte[] value) throws IOException {
+        Entry entry = new Entry(value.length > inlineLimit ? null : value, value.length,
+                value.length > inlineLimit ? file.writeChain(value) : 0);
+        int root = file.getRoot(slot);
+        Insert result = insert(root, key, entry);
+        if (result.splitPage != 0) {
+            Node newRoot = new Node(false);
+            newRoot.keys.add(result.splitKey);
+            newRoot.children.add(root);
+            newRoot.children.add(result.splitPage);
+            int page = file.allocate();
+            writeNode(page, newRoot);
+            file.setRoot(slot, page);
+        }
+        return result.replaced;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the value stored under key and returns true, or returns false if there is none
+    boolean remove(int key) throws IOException {
+        int page = file.getRoot(slot);
+        Node node = readNode(page);
+        while (!node.leaf) {
+            page = node.children.get(childIndex(node, key));
+            node = readNode(page);
+        }
+        int i = search(node.keys, key);
+        if (i < 0) {
+            return false;
+        }
+        node.keys.remove(i);
+        release(node.entries.remove(i));
+        writeNode(page, node);
+        return true;
+    }
+
+    // EFFECTS: calls visitor with every entry in key order, reading one leaf at a time
+    void forEach(Visitor visitor) throws IOException {
+        Node node = readNode(file.getRoot(slot));
+        while (!node.leaf) {
+            node = readNode(node.children.get(0));
+        }
+        while (true) {
+            for (int i = 0; i < node.keys.size(); i++) {
+                visitor.visit(node.keys.get(i), value(node.entries.get(i)));
+            }
+            if (node.next == 0) {
+                return;
+            }
+            node = readNode(node.next);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: inserts entry under key in the subtree rooted at page, splitting nodes that no longer fit
+    private Insert insert(int page, int key, Entry entry) throws IOException {
+        Node node = readNode(page);
+        Insert result = new Insert();
+        if (node.leaf) {
+            int i = search(node.keys, key);
+            if (i >= 0) {
+                release(node.entries.set(i, entry));
+                result.replaced = true;
+            } else {
+                node.keys.add(-i - 1, key);
+                node.entries.add(-i - 1, entry);
+            }
+        } else {
+            int child = childIndex(node, key);
+            Insert below = insert(node.children.get(child), key, entry);
+            result.replaced = below.replaced;
+            if (below.splitPage == 0) {
+                return result;
+            }
+            node.keys.add(child, below.splitKey);
+            node.children.add(child + 1, below.splitPage);
+        }
+        if (fits(node)) {
+            writeNode(page, node);
+        } else {
+            split(page, node, result);
+        }
+        return result;
+    }
+
+    // MODIFIES: this, result
+    // EFFECTS: moves the upper half of node, which is too large for a page, to a new page and records the new
+    //          page and its first key in result
+    private void split(int page, Node node, Insert result) throws IOException {
+        Node right = new Node(node.leaf);
+        int rightPage = file.allocate();
+        if (node.leaf) {
+            int half = leafSize(node) / 2;
+            int at = 0;
+            for (int size = NODE_HEADER; at < node.keys.size() - 1 && size < half; at++) {
+                size += entrySize(node.entries.get(at));
+            }
+            at = Math.max(at, 1);
+            moveTail(node.keys, right.keys, at);
+            moveTail(node.entries, right.entries, at);
+            right.next = node.next;
+            node.next = rightPage;
+            result.splitKey = right.keys.get(0);
+        } else {
+            int mid = node.keys.size() / 2;
+            result.splitKey = node.keys.get(mid);
+            moveTail(node.keys, right.keys, mid + 1);
+            moveTail(node.children, right.children, mid + 1);
+            node.keys.remove(mid);
+        }
+        writeNode(rightPage, right);
+        writeNode(page, node);
+        result.splitPage = rightPage;
+    }
+
+    // MODIFIES: from, to
+    // EFFECTS: moves the elements of from at index at and beyond to the end of to
+    private static <T> void moveTail(List<T> from, List<T> to, int at) {
+        List<T> tail = from.subList(at, from.size());
+        to.addAll(tail);
+        tail.clear();
+    }
+
+    // EFFECTS: returns the index of the child of internal node whose subtree holds key
+    private static int childIndex(Node node, int key) {
+        int i = search(node.keys, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    // EFFECTS: returns the index of key in keys, or (-(insertion point) - 1) if it is not there
+    private static int search(List<Integer> keys, int key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = keys.get(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // EFFECTS: returns the value held by entry, reading it from its overflow pages if it is not inline
+    private byte[] value(Entry entry) throws IOException {
+        return entry.inline != null ? entry.inline : file.readChain(entry.overflow, entry.length);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: frees the overflow pages of entry, if it has any
+    private void release(Entry entry) throws IOException {
+        if (entry.inline == null) {
+            file.freeChain(entry.overflow);
+        }
+    }
+
+    // EFFECTS: returns true if node can be written to one page
+    private boolean fits(Node node) {
+        return node.leaf ? leafSize(node) <= file.getPageSize() : node.keys.size() <= maxKeys;
+    }
+
+    // EFFECTS: returns how many bytes leaf takes in a page
+    private static int leafSize(Node leaf) {
+        int size = NODE_HEADER;
+        for (Entry entry : leaf.entries) {
+            size += entrySize(entry);
+        }
+        return size;
+    }
+
+    // EFFECTS: returns how many bytes entry takes in a leaf
+    private static int entrySize(Entry entry) {
+        return ENTRY_HEADER + (entry.inline != null ? entry.length : OVERFLOW_POINTER);
+    }
+
+    // EFFECTS: returns the node stored in page. A leaf entry is its key and its length, followed by the value, or
+    //          for an overflowed value by its first page with the length stored as -(length) - 1.
+    private Node readNode(int page) throws IOException {
+        ByteBuffer contents = file.read(page);
+        Node node = new Node(contents.get() == LEAF);
+        int count = contents.getShort() & 0xFFFF;
+        int first = contents.getInt();
+        if (node.leaf) {
+            node.next = first;
+            for (int i = 0; i < count; i++) {
+                node.keys.add(contents.getInt());
+                int length = contents.getInt();
+                if (length >= 0) {
+                    byte[] inline = new byte[length];
+                    contents.get(inline);
+                    node.entries.add(new Entry(inline, length, 0));
+                } else {
+                    node.entries.add(new Entry(null, -length - 1, contents.getInt()));
+                }
+            }
+        } else {
+            node.children.add(first);
+            for (int i = 0; i < count; i++) {
+                node.keys.add(contents.getInt());
+                node.children.add(contents.getInt());
+            }
+        }
+        return node;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes node to page
+    private void writeNode(int page, Node node) throws IOException {
+        ByteBuffer contents = ByteBuffer.allocate(file.getPageSize());
+        contents.put(node.leaf ? LEAF : INTERNAL);
+        contents.putShort((short) node.keys.size());
+        contents.putInt(node.leaf ? node.next : node.children.get(0));
+        for (int i = 0; i < node.keys.size(); i++) {
+            contents.putInt(node.keys.get(i));
+            if (!node.leaf) {
+                contents.putInt(node.children.get(i + 1));
+            } else if (node.entries.get(i).inline != null) {
+                Entry entry = node.entries.get(i);
+                contents.putInt(entry.length).put(entry.inline);
+            } else {
+                Entry entry = node.entries.get(i);
+                contents.putInt(-entry.length - 1).putInt(entry.overflow);
+            }
+        }
+        file.write(page, contents);
+    }
+
+    // A node as read from its page
+    private static class Node {
+        final boolean leaf;
+        final List<Integer> keys = new ArrayList<>();
+        final List<Entry> entries = new ArrayList<>();
+        final List<Integer> children = new ArrayList<>();
+        int next;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    // A value in a leaf: held inline, or in the overflow chain starting at page overflow
+    private static class Entry {
+        final byte[] inline;
+        final int length;
+        final int overflow;
+
+        Entry(byte[] inline, int length, int overflow) {
+            this.inline = inline;
+            this.length = length;
+            this.overflow = overflow;
+        }
+    }
+
+    // The outcome of inserting into a subtree: whether a value was replaced, and the new right sibling and its
+    // first key if the subtree's root was split
+    private static class Insert {
+        boolean replaced;
+        int splitKey;
+        int splitPage;
+    }
+}
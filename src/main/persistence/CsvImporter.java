@@ -0,0 +1,365 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Represents an importer of rosters and grades from CSV files with one row per grade:
+//     studentID,studentName,course,grade
+// where course is a course ID or a course code, and a header row is optional. Rows naming a student that does
+// not exist yet create it. The file is read in chunks of rows; each chunk is split into fields and validated
+// against the courses on a pool of threads, while the chunks before it are applied to the model in file order,
+// a chunk at a time. Only a few chunks are held in memory at once, however large the file is. Rows that cannot be
+// applied are written with their line number and the reason to a rejects file. Quoted fields may contain commas
+// and doubled quotes, but not line breaks.
+public class CsvImporter {
+
+    public static final int DEFAULT_CHUNK_ROWS = 10_000;
+    public static final String REJECTS_SUFFIX = ".rejected.csv";
+
+    private static final int FIELDS = 4;
+
+    // Counts of what an import did
+    public static class Result {
+        public final int imported;
+        public final int rejected;
+        public final int createdStudents;
+
+        public Result(int imported, int rejected, int createdStudents) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.createdStudents = createdStudents;
+        }
+    }
+
+    private final List<Student> students;
+    private final Map<Integer, Course> coursesById;
+    private final Map<String, Course> coursesByCode;
+    private final ExecutorService pool;
+    private final int chunkRows;
+    private final int maxInFlight;
+
+    // EFFECTS: constructs an importer into students and courses that validates on a pool with one thread per
+    //          processor
+    public CsvImporter(List<Student> students, List<Course> courses) {
+        this(students, courses, null, DEFAULT_CHUNK_ROWS);
+    }
+
+    // REQUIRES: chunkRows > 0
+    // EFFECTS: constructs an importer into students and courses that reads chunks of chunkRows rows and validates
+    //          them on pool, or on a pool with one thread per processor if pool is null
+    public CsvImporter(List<Student> students, List<Course> courses, ExecutorService pool, int chunkRows) {
+        this.students = students;
+        this.coursesById = new HashMap<>();
+        this.coursesByCode = new HashMap<>();
+        for (Course course : courses) {
+            coursesById.putIfAbsent(course.getCourseID(), course);
+            coursesByCode.putIfAbsent(course.getCourseCode().toLowerCase(), course);
+        }
+        this.pool = pool;
+        this.chunkRows = chunkRows;
+        this.maxInFlight = Runtime.getRuntime().availableProcessors() + 1;
+    }
+
+    // MODIFIES: students, courses
+    // EFFECTS: imports every row of the CSV file source and writes the rows that were rejected to rejectsPath,
+    //          replacing any rejects file left by an earlier import; no rejects file is left if every row was
+    //          imported. Throws IOException if source cannot be read or the rejects cannot be written.
+    public Result importFile(String source, String rejectsPath) throws IOException {
+        ExecutorService executor = pool != null ? pool
+                : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Path rejectsFile = Paths.get(rejectsPath);
+        Files.deleteIfExists(rejectsFile);
+        Applier applier = new Applier(rejectsFile);
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            Deque<Future<List<Row>>> inFlight = new ArrayDeque<>();
+            int lineNumber = 0;
+            List<String> lines = new ArrayList<>(chunkRows);
+            int firstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == chunkRows) {
+                    submit(executor, inFlight, lines, firstLine, applier);
+                    lines = new ArrayList<>(chunkRows);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            submit(executor, inFlight, lines, firstLine, applier);
+            while (!inFlight.isEmpty()) {
+                applier.apply(await(inFlight.poll()));
+            }
+        } finally {
+            applier.close();
+            if (pool == null) {
+                executor.shutdown();
+            }
+        }
+        EventLog.getInstance().logEvent(new Event("Imported " + applier.imported + " grades from: " + source
+                + " (" + applier.rejected + " rejected)"));
+        return new Result(applier.imported, applier.rejected, applier.created);
+    }
+
+    // MODIFIES: inFlight, applier
+    // EFFECTS: queues lines, which start at line firstLine, for validation; if too many chunks are queued,
+    //          first applies the oldest of them
+    private void submit(ExecutorService executor, Deque<Future<List<Row>>> inFlight, List<String> lines,
+                        int firstLine, Applier applier) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        while (inFlight.size() >= maxInFlight) {
+            applier.apply(await(inFlight.poll()));
+        }
+        inFlight.add(executor.submit(() -> validate(lines, firstLine)));
+    }
+
+    // EFFECTS: returns the rows of a validated chunk
+    private static List<Row> await(Future<List<Row>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to validate rows", e.getCause());
+        }
+    }
+
+    // EFFECTS: splits lines into fields and checks every field that does not depend on the students; reads only
+    //          the course indexes, which do not change during an import
+    private List<Row> validate(List<String> lines, int firstLine) {
+        List<Row> rows = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            Row row = new Row(firstLine + i, lines.get(i));
+            rows.add(row);
+            List<String> fields = split(row.text);
+            if (fields == null) {
+                row.reason = "unterminated quoted field";
+            } else if (fields.size() != FIELDS) {
+                row.reason = "expected " + FIELDS + " fields but found " + fields.size();
+            } else {
+                check(row, fields);
+            }
+        }
+        return rows;
+    }
+
+    // MODIFIES: row
+    // EFFECTS: fills in row from fields, or sets the reason it is rejected
+    private void check(Row row, List<String> fields) {
+        try {
+            row.studentId = Integer.parseInt(fields.get(0).trim());
+        } catch (NumberFormatException e) {
+            row.reason = "invalid student ID";
+            return;
+        }
+        row.studentName = fields.get(1).trim();
+        row.course = findCourse(fields.get(2).trim());
+        if (row.course == null) {
+            row.reason = "unknown course " + fields.get(2).trim();
+            return;
+        }
+        try {
+            row.grade = Double.parseDouble(fields.get(3).trim());
+        } catch (NumberFormatException e) {
+            row.reason = "invalid grade";
+            return;
+        }
+        if (!(row.grade >= 0 && row.grade <= row.course.getPercentageGrade())) {
+            row.reason = "grade out of range";
+        }
+    }
+
+    // EFFECTS: returns the course with the given ID or code, or null if there is none
+    private Course findCourse(String field) {
+        try {
+            Course course = coursesById.get(Integer.parseInt(field));
+            if (course != null) {
+                return course;
+            }
+        } catch (NumberFormatException e) {
+            // not an ID, so it can only be a code
+        }
+        return coursesByCode.get(field.toLowerCase());
+    }
+
+    // EFFECTS: returns true if line is a header row rather than data, that is if it does not start with a number
+    private static boolean isHeader(String line) {
+        List<String> fields = split(line);
+        if (fields == null || fields.isEmpty()) {
+            return false;
+        }
+        try {
+            Integer.parseInt(fields.get(0).trim());
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    // EFFECTS: returns the fields of a CSV line, or null if a quoted field is not closed
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(FIELDS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // EFFECTS: returns text quoted as a CSV field
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    // A line of the file and what was found in it
+    private static class Row {
+        final int line;
+        final String text;
+        int studentId;
+        String studentName;
+        Course course;
+        double grade;
+        String reason;
+
+        Row(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    // Applies validated chunks to the model in file order, and writes rejected rows
+    private class Applier {
+        private final Path rejectsFile;
+        private final Map<Integer, Student> studentsById;
+        private BufferedWriter rejects;
+        int imported;
+        int rejected;
+        int created;
+
+        Applier(Path rejectsFile) {
+            this.rejectsFile = rejectsFile;
+            this.studentsById = new HashMap<>();
+            for (Student student : students) {
+                studentsById.putIfAbsent(student.getStudentID(), student);
+            }
+        }
+
+        // MODIFIES: this, students, courses
+        // EFFECTS: resolves the student of each valid row, creating new students, adds each student's courses of
+        //          the chunk to it at once, and applies the grades of the chunk one course at a time; writes
+        //          rejected rows to the rejects file
+        void apply(List<Row> rows) throws IOException {
+            Map<Student, List<Course>> coursesByStudent = new LinkedHashMap<>();
+            Map<Course, List<Student>> studentsByCourse = new LinkedHashMap<>();
+            Map<Course, List<Double>> gradesByCourse = new HashMap<>();
+            for (Row row : rows) {
+                Student student = row.reason == null ? resolve(row) : null;
+                if (student == null) {
+                    reject(row);
+                    continue;
+                }
+                coursesByStudent.computeIfAbsent(student, s -> new ArrayList<>()).add(row.course);
+                studentsByCourse.computeIfAbsent(row.course, c -> new ArrayList<>()).add(student);
+                gradesByCourse.computeIfAbsent(row.course, c -> new ArrayList<>()).add(row.grade);
+                imported++;
+            }
+            for (Map.Entry<Student, List<Course>> entry : coursesByStudent.entrySet()) {
+                entry.getKey().addCourses(entry.getValue());
+            }
+            for (Map.Entry<Course, List<Student>> entry : studentsByCourse.entrySet()) {
+                entry.getKey().enrollWithGrades(entry.getValue(), gradesByCourse.get(entry.getKey()));
+            }
+        }
+
+        // MODIFIES: this, students
+        // EFFECTS: returns the student of row, creating it if it does not exist and row names it; sets the reason
+        //          row is rejected and returns null if the student does not exist and row has no name, or if the
+        //          student exists under another name
+        private Student resolve(Row row) {
+            Student student = studentsById.get(row.studentId);
+            if (student == null) {
+                if (row.studentName.isEmpty()) {
+                    row.reason = "unknown student " + row.studentId + " without a name";
+                    return null;
+                }
+                student = new Student(row.studentName, row.studentId);
+                students.add(student);
+                studentsById.put(row.studentId, student);
+                created++;
+            } else if (!row.studentName.isEmpty() && !row.studentName.equals(student.getName())) {
+                row.reason = "student " + row.studentId + " is named " + student.getName();
+                return null;
+            }
+            return student;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: writes row and the reason it was rejected to the rejects file, creating it on the first reject
+        private void reject(Row row) throws IOException {
+            if (rejects == null) {
+                rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+                rejects.write("line,reason,row");
+                rejects.newLine();
+            }
+            rejects.write(row.line + "," + quote(row.reason) + "," + quote(row.text));
+            rejects.newLine();
+            rejected++;
+        }
+
+        // EFFECTS: closes the rejects file, if one was written
+        void close() throws IOException {
+            if (rejects != null) {
+                rejects.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.EventType;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Represents a sink that copies the event log to disk on a background thread. Logging an event never waits for
+// it: the sink polls the log at a fixed interval, takes the events logged since its last poll in batches and
+// appends them to the current journal file, which is memory-mapped at a fixed size. A new file is started when
+// the current one is full, and only the newest files are kept. Each batch is forced to disk with one call.
+// Files are named events-<number>.log; each holds a header followed by one length-prefixed record per event, and
+// ends at the first zero length. read() reads them back, oldest first.
+public class EventJournal {
+
+    public static final int DEFAULT_FILE_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 8;
+    public static final long DEFAULT_INTERVAL_MILLIS = 200;
+
+    private static final int MAGIC = 0x47544A45; // "GTJE"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int BATCH = 1024;
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".log";
+    private static final Pattern FILE_NAME = Pattern.compile("events-\\d+\\.log");
+
+    private final Path directory;
+    private final int fileSize;
+    private final int maxFiles;
+    private final EventLog log;
+    private final ScheduledThreadPoolExecutor executor;
+    private long nextSequence;
+    private long stalledAt = -1;
+    private int fileNumber;
+    private MappedByteBuffer current;
+    private volatile long written;
+    private volatile long lost;
+    private volatile IOException failure;
+
+    // EFFECTS: constructs a sink for the application's event log into directory, with the default file size,
+    //          number of files kept and polling interval
+    public EventJournal(String directory) {
+        this(directory, DEFAULT_FILE_SIZE, DEFAULT_MAX_FILES, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    // REQUIRES: fileSize >= 1024, maxFiles > 0, intervalMillis > 0
+    // EFFECTS: constructs a sink for the application's event log into directory that writes files of fileSize
+    //          bytes, keeps the newest maxFiles of them and polls the log every intervalMillis
+    public EventJournal(String directory, int fileSize, int maxFiles, long intervalMillis) {
+        this.directory = Paths.get(directory);
+        this.fileSize = fileSize;
+        this.maxFiles = maxFiles;
+        this.log = EventLog.getInstance();
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "event-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // EFFECTS: returns how many events were written to disk
+    public long getWrittenCount() {
+        return written;
+    }
+
+    // EFFECTS: returns how many events were overwritten in the log before the sink could copy them
+    public long getLostCount() {
+        return lost;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: copies every event logged so far to disk and waits until they are written; throws IOException if
+    //          they could not be written
+    public void flush() throws IOException {
+        await(executor.submit(this::poll));
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: copies every event logged so far to disk and stops the sink; throws IOException if they could not
+    //          be written
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // EFFECTS: calls action with every event in the journal files in directory, oldest first; a file cut short
+    //          by a crash is read up to its last complete record. Throws IOException if a file cannot be read.
+    public static void read(String directory, Consumer<Event> action) throws IOException {
+        for (Path file : journalFiles(Paths.get(directory))) {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (bytes.remaining() < FILE_HEADER || bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+                throw new IOException("Not an event journal file: " + file);
+            }
+            while (bytes.remaining() >= 4) {
+                int length = bytes.getInt();
+                if (length <= 0 || length > bytes.remaining()) {
+                    break;
+                }
+                ByteBuffer record = bytes.slice().limit(length);
+                bytes.position(bytes.position() + length);
+                try {
+                    action.accept(decode(record));
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns every event in the journal files in directory, oldest first
+    public static List<Event> readAll(String directory) throws IOException {
+        List<Event> events = new ArrayList<>();
+        read(directory, events::add);
+        return events;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the events logged since the last poll, in batches, and forces them to disk. An event that
+    //          was claimed but still not published since the previous poll is skipped, as its writer lost it.
+    //          The position in the log moves past each event as it is appended, so if appending one fails, the
+    //          next poll starts at that event rather than writing the ones before it again. Records why the poll
+    //          failed, or clears the failure of an earlier poll once the events it left are written.
+    private void poll() {
+        try {
+            boolean wroteAny = false;
+            List<Event> batch = new ArrayList<>(BATCH);
+            long[] sequences = new long[BATCH];
+            while (true) {
+                batch.clear();
+                long end = log.getNextSequence();
+                long from = Math.max(nextSequence, end - log.getCapacity());
+                long next = log.drain(from, batch, sequences, BATCH, from == stalledAt);
+                lost += from - nextSequence;
+                nextSequence = from;
+                for (int i = 0; i < batch.size(); i++) {
+                    lost += sequences[i] - nextSequence;
+                    append(batch.get(i));
+                    wroteAny = true;
+                    nextSequence = sequences[i] + 1;
+                }
+                lost += next - nextSequence;
+                nextSequence = next;
+                if (batch.size() < BATCH) {
+                    stalledAt = next < end ? next : -1;
+                    break;
+                }
+            }
+            if (wroteAny) {
+                current.force();
+            }
+            failure = null;
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e); // thrown on, the scheduled polls would stop
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends event to the current file, starting a new file first if it does not fit
+    private void append(Event event) throws IOException {
+        byte[] record = encode(event);
+        if (current == null || current.remaining() < 4 + record.length + 4) {
+            rotate(record.length);
+        }
+        current.putInt(record.length).put(record);
+        written++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: maps a new journal file large enough for a record of recordLength bytes and deletes the oldest
+    //          files beyond the number kept
+    private void rotate(int recordLength) throws IOException {
+        if (current != null) {
+            current.force();
+        } else {
+            Files.createDirectories(directory);
+            for (Path file : journalFiles(directory)) {
+                fileNumber = Math.max(fileNumber, number(file));
+            }
+        }
+        fileNumber++;
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, fileNumber, SUFFIX));
+        int size = Math.max(fileSize, FILE_HEADER + 4 + recordLength + 4);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        current.putInt(MAGIC).putInt(VERSION);
+        List<Path> files = journalFiles(directory);
+        for (Path old : files.subList(0, Math.max(0, files.size() - maxFiles))) {
+            try {
+                Files.deleteIfExists(old);
+            } catch (IOException e) {
+                // still mapped on a platform that does not allow deleting it; removed by a later rotation
+            }
+        }
+    }
+
+    // EFFECTS: returns the record of event: its type, time, IDs and count, then the student name, course name
+    //          and message as UTF-8, each preceded by its length or -1 if absent
+    private static byte[] encode(Event event) {
+        byte[] studentName = utf8(event.getStudentName());
+        byte[] courseName = utf8(event.getCourseName());
+        byte[] message = utf8(event.getMessage());
+        ByteBuffer record = ByteBuffer.allocate(1 + 8 + 4 * 3 + 12 + length(studentName) + length(courseName)
+                + length(message));
+        record.put((byte) event.getType().ordinal()).putLong(event.getTimeMillis()).putInt(event.getStudentId())
+                .putInt(event.getCourseId()).putInt(event.getCount());
+        putString(record, studentName);
+        putString(record, courseName);
+        putString(record, message);
+        return record.array();
+    }
+
+    // EFFECTS: returns the event in record
+    private static Event decode(ByteBuffer record) {
+        EventType[] types = EventType.values();
+        int type = record.get();
+        if (type < 0 || type >= types.length) {
+            throw new IllegalArgumentException("Unknown event type " + type);
+        }
+        long time = record.getLong();
+        int studentId = record.getInt();
+        int courseId = record.getInt();
+        int count = record.getInt();
+        String studentName = getString(record);
+        String courseName = getString(record);
+        String message = getString(record);
+        return Event.restore(types[type], time, studentId, studentName, courseId, courseName, count, message);
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer record, byte[] bytes) {
+        record.putInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            record.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: returns the journal files in directory, oldest first
+    private static List<Path> journalFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted((a, b) -> Integer.compare(number(a), number(b)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // EFFECTS: returns the number in the name of a journal file
+    private static int number(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // EFFECTS: waits for task to finish
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the event journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to write the event journal", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Represents a place grade tracker data is kept. The whole data set can be loaded and saved at once; single
+// records can also be read, replaced and removed by ID, and all records visited in turn, without holding the
+// rest of the data in memory when the implementation allows it. Student and course IDs are keys: storing a
+// record under an ID that is already present replaces the stored record.
+public interface GradeStore extends Closeable {
+
+    // EFFECTS: returns a store for the file at path, chosen by its extension: a paged store for
+    //          PagedGradeStore.EXTENSION, a JSON file (compressed if it ends in .gz) otherwise.
+    //          Throws IOException if the file exists but cannot be opened.
+    static GradeStore forFile(String path) throws IOException {
+        if (path.toLowerCase().endsWith(PagedGradeStore.EXTENSION)) {
+            return new PagedGradeStore(path);
+        }
+        return new JsonGradeStore(path);
+    }
+
+    // EFFECTS: reads every student and course, with students linked to their courses the way JsonReader does;
+    //          throws IOException if the data cannot be read
+    JsonReader.Pair<List<Student>, List<Course>> load() throws IOException;
+
+    // MODIFIES: this
+    // EFFECTS: replaces everything stored with students and courses; throws IOException if they cannot be written
+    void save(List<Student> students, List<Course> courses) throws IOException;
+
+    // EFFECTS: returns a copy of the student with id, not linked to any course object, or null if there is none
+    Student getStudent(int id) throws IOException;
+
+    // EFFECTS: returns a copy of the course with id, including its roster and grades, or null if there is none
+    Course getCourse(int id) throws IOException;
+
+    // MODIFIES: this
+    // EFFECTS: stores student under its ID, replacing any student stored with that ID
+    void putStudent(Student student) throws IOException;
+
+    // MODIFIES: this
+    // EFFECTS: stores course under its ID, replacing any course stored with that ID
+    void putCourse(Course course) throws IOException;
+
+    // MODIFIES: this
+    // EFFECTS: removes the student with id and returns true, or returns false if there is none
+    boolean removeStudent(int id) throws IOException;
+
+    // MODIFIES: this
+    // EFFECTS: removes the course with id and returns true, or returns false if there is none
+    boolean removeCourse(int id) throws IOException;
+
+    // EFFECTS: calls action with a copy of every stored student, as getStudent returns them
+    void forEachStudent(Consumer<? super Student> action) throws IOException;
+
+    // EFFECTS: calls action with a copy of every stored course, as getCourse returns them
+    void forEachCourse(Consumer<? super Course> action) throws IOException;
+}
@@ -0,0 +1,579 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents an append-only journal of mutations made to the grade tracker data since the last full snapshot.
+// Mutations are buffered in memory and appended to "<snapshot>.journal" one JSON record per line when flushed,
+// so saving costs O(changes). A checkpoint folds the journal into a new full snapshot and truncates it.
+// Loading replays the snapshot plus every journal record written after it.
+public class Journal {
+
+    public static final int COMPACTION_THRESHOLD = 1000;
+    public static final long PARALLEL_READ_THRESHOLD = 2L * ParallelJsonReader.DEFAULT_CHUNK_SIZE;
+    private static final String SUFFIX = ".journal";
+
+    private final String snapshotPath;
+    private final Path journalPath;
+    private final List<JSONObject> pending;
+    private long lastSeq;
+    private int journalLength;
+    private boolean attached;
+    private boolean checkpointDue;
+    private Listener listener;
+
+    // Is told about what is journaled, such as a ReplicationPrimary shipping the journal to replicas; called on the
+    // thread that records the change
+    public interface Listener {
+        // EFFECTS: called with each record as it is journaled; the record must not be changed
+        void recorded(JSONObject record);
+
+        // EFFECTS: called when the data changed in a way the journal does not describe record by record, such as
+        //          being loaded, imported, or journaled afresh, so a copy kept up to date by records must be
+        //          replaced by a full snapshot whose sequence number is the journal's last sequence number
+        void resynchronize();
+    }
+
+    // EFFECTS: constructs a journal for the snapshot at snapshotPath; the journal is not attached until the
+    //          snapshot is replayed or checkpointed, and mutations recorded before then are ignored
+    public Journal(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Paths.get(snapshotPath + SUFFIX);
+        this.pending = new ArrayList<>();
+    }
+
+    // EFFECTS: returns the path of the snapshot this journal belongs to
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    // EFFECTS: returns true if in-memory data matches snapshot + journal, so a flush is enough to save it
+    public boolean isAttached() {
+        return attached;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the listener told about everything journaled from now on, replacing any other; null removes it
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // EFFECTS: returns the sequence number of the last record journaled, or of the snapshot if none was since
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    // EFFECTS: returns the number of mutations recorded but not yet flushed
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // EFFECTS: returns true once the journal holds enough records that it should be folded into a snapshot
+    public boolean needsCompaction() {
+        return journalLength + pending.size() >= COMPACTION_THRESHOLD;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that student was created, along with the courses it was enrolled in
+    public void recordAddStudent(Student student) {
+        JSONObject record = newRecord("addStudent");
+        record.put("name", student.getName());
+        record.put("student", student.getStudentID());
+        record.put("courses", new JSONArray(student.getEnrolledCourses()));
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that course was created
+    public void recordAddCourse(Course course) {
+        JSONObject record = newRecord("addCourse");
+        record.put("data", course.toJson());
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that student was enrolled into course
+    public void recordEnroll(Student student, Course course) {
+        append(linkRecord("enroll", student, course));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that student dropped course
+    public void recordDrop(Student student, Course course) {
+        append(linkRecord("drop", student, course));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that grade was added for student in course
+    public void recordAddGrade(Student student, Course course, double grade) {
+        JSONObject record = linkRecord("addGrade", student, course);
+        record.put("grade", grade);
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the grade of student in course was set to grade, replacing any grade it had
+    public void recordSetGrade(Student student, Course course, double grade) {
+        JSONObject record = linkRecord("setGrade", student, course);
+        record.put("grade", grade);
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the grade of student in course was removed
+    public void recordRemoveGrade(Student student, Course course) {
+        append(linkRecord("removeGrade", student, course));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the student previously identified by oldId was edited to its current state;
+    //          its course list is replaced by the student's current enrolled courses
+    public void recordEditStudent(int oldId, Student student) {
+        JSONObject record = newRecord("editStudent");
+        record.put("student", oldId);
+        record.put("name", student.getName());
+        record.put("newId", student.getStudentID());
+        record.put("courses", new JSONArray(student.getEnrolledCourses()));
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the course previously identified by oldId was edited to its current details
+    public void recordEditCourse(int oldId, Course course) {
+        JSONObject record = newRecord("editCourse");
+        record.put("course", oldId);
+        record.put("courseName", course.getCourseName());
+        record.put("courseCode", course.getCourseCode());
+        record.put("courseDescription", course.getCourseDescription());
+        record.put("courseID", course.getCourseID());
+        record.put("credits", course.getCredits());
+        record.put("percentageGrade", course.getPercentageGrade());
+        append(record);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that all students and courses were removed
+    public void recordClear() {
+        append(newRecord("clear"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the data changed in bulk (e.g. an import) without journaling each change, so the
+    //          next save writes a full snapshot; the journal stays attached
+    public void recordBulkChange() {
+        if (attached) {
+            pending.clear();
+            checkpointDue = true;
+            resynchronize();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends all pending records to the journal file and returns how many were written;
+    //          throws IOException if the journal cannot be written, leaving the records pending and cutting
+    //          the journal file back to where it ended, so retrying does not write any record twice
+    public int flush() throws IOException {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long before = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+        try (BufferedWriter out = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (JSONObject record : pending) {
+                out.write(record.toString());
+                out.newLine();
+            }
+        } catch (IOException e) {
+            try {
+                truncateJournal(before);
+            } catch (IOException truncation) {
+                e.addSuppressed(truncation);
+            }
+            throw e;
+        }
+        int flushed = pending.size();
+        journalLength += flushed;
+        pending.clear();
+        EventLog.getInstance().logEvent(new Event("Journaled " + flushed + " change(s) to: " + journalPath));
+        return flushed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes students and courses as a full snapshot (via a temporary file and an atomic rename),
+    //          truncates the journal and attaches it; throws IOException if either file cannot be written. The
+    //          snapshot is stamped with a sequence number no lower than any record already in the journal file,
+    //          so if the journal cannot be truncated after the rename, replaying skips its records.
+    public void checkpoint(List<Student> students, List<Course> courses) throws IOException {
+        catchUpWithJournalFile();
+        JsonWriter.writeSnapshot(snapshotPath, students, courses, lastSeq);
+        Files.deleteIfExists(journalPath);
+        pending.clear();
+        journalLength = 0;
+        checkpointDue = false;
+        if (!attached) {
+            attached = true;
+            resynchronize();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves the given data at the lowest cost available: appends pending records if the journal is
+    //          attached and small, otherwise folds everything into a new snapshot
+    public void save(List<Student> students, List<Course> courses) throws IOException {
+        if (!attached || checkpointDue || needsCompaction()) {
+            checkpoint(students, courses);
+        } else {
+            flush();
+        }
+    }
+
+    // REQUIRES: the caller writes a snapshot of the current data stamped with the returned sequence number
+    // MODIFIES: this
+    // EFFECTS: drops the pending records, since they are folded into the snapshot being taken, and returns the
+    //          sequence number of the last record recorded so far. The journal file is left in place: records
+    //          flushed after this call have a higher sequence number and are replayed on top of the snapshot.
+    public long markCheckpoint() {
+        pending.clear();
+        checkpointDue = false;
+        return lastSeq;
+    }
+
+    // EFFECTS: returns true if the next save writes a full snapshot rather than appending to the journal
+    public boolean isSnapshotDue() {
+        return !attached || checkpointDue || needsCompaction();
+    }
+
+    // REQUIRES: called on the thread that records changes; the caller passes a copy of the current data to the
+    //           returned checkpoint's write, and calls finishCheckpoint or detach once it is written or failed
+    // MODIFIES: this
+    // EFFECTS: starts a checkpoint whose snapshot is written on another thread: drops the pending records, since
+    //          they are folded into the snapshot, and attaches the journal, so changes recorded while it is written
+    //          are journaled after it. Returns the checkpoint, stamped as checkpoint() stamps its snapshot; throws
+    //          IOException if the journal file cannot be read.
+    public Checkpoint beginCheckpoint() throws IOException {
+        catchUpWithJournalFile();
+        Checkpoint checkpoint = new Checkpoint(markCheckpoint());
+        if (!attached) {
+            attached = true;
+            resynchronize();
+        }
+        return checkpoint;
+    }
+
+    // REQUIRES: called on the thread that records changes, after checkpoint was written
+    // MODIFIES: this
+    // EFFECTS: finishes checkpoint: the journal file it truncated is empty again
+    public void finishCheckpoint(Checkpoint checkpoint) {
+        journalLength = 0;
+    }
+
+    // A checkpoint started by beginCheckpoint, whose snapshot may be written on any thread
+    public final class Checkpoint {
+        private final long seq;
+
+        private Checkpoint(long seq) {
+            this.seq = seq;
+        }
+
+        // EFFECTS: returns the sequence number the snapshot is stamped with
+        public long getSeq() {
+            return seq;
+        }
+
+        // REQUIRES: nothing is flushed to the journal until the write finishes
+        // EFFECTS: writes students and courses as the snapshot, telling progress how many of the records are
+        //          written, then truncates the journal file, whose records it includes; throws IOException if either
+        //          file cannot be written, or InterruptedIOException, leaving both as they were, if the writing
+        //          thread is interrupted
+        public void write(List<Student> students, List<Course> courses, Progress progress) throws IOException {
+            JsonWriter.writeSnapshot(snapshotPath, students, courses, seq, progress);
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: if the journal is not attached, raises the last sequence number to that of the last record in the
+    //          journal file, which a journal that was never replayed does not know about; a torn final record is
+    //          ignored
+    private void catchUpWithJournalFile() throws IOException {
+        if (attached || !Files.exists(journalPath)) {
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    lastSeq = Math.max(lastSeq, new JSONObject(line).getLong("seq"));
+                } catch (JSONException e) {
+                    break; // torn write at the tail of the journal
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: detaches the journal so the next save writes a full snapshot
+    public void detach() {
+        pending.clear();
+        attached = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the snapshot (an empty data set if it does not exist yet, in parallel if it is large),
+    //          applies every journal record written after it and attaches the journal; a torn final record from
+    //          an interrupted flush is ignored. Throws IOException if either file cannot be read.
+    public JsonReader.Pair<List<Student>, List<Course>> replay() throws IOException {
+        return replay(Progress.NONE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replays the snapshot and journal as replay() does, telling progress how many bytes of the snapshot
+    //          are read; throws InterruptedIOException, leaving the journal as it was, if the reading thread is
+    //          interrupted
+    public JsonReader.Pair<List<Student>, List<Course>> replay(Progress progress) throws IOException {
+        List<Student> students = new ArrayList<>();
+        List<Course> courses = new ArrayList<>();
+        long snapshotSeq = 0;
+        Path snapshot = Paths.get(snapshotPath);
+        if (Files.exists(snapshot) && Files.size(snapshot) >= PARALLEL_READ_THRESHOLD) {
+            ParallelJsonReader reader = new ParallelJsonReader(snapshotPath, progress);
+            JsonReader.Pair<List<Student>, List<Course>> data = reader.read();
+            students.addAll(data.first);
+            courses.addAll(data.second);
+            snapshotSeq = reader.getJournalSeq();
+        } else if (Files.exists(snapshot)) {
+            JsonReader reader = new JsonReader(snapshotPath, progress);
+            JsonReader.Pair<List<Student>, List<Course>> data = reader.read();
+            students.addAll(data.first);
+            courses.addAll(data.second);
+            snapshotSeq = reader.getJournalSeq();
+        }
+        lastSeq = snapshotSeq;
+        journalLength = 0;
+        if (Files.exists(journalPath)) {
+            replayJournal(students, courses, snapshotSeq);
+        }
+        pending.clear();
+        attached = true;
+        resynchronize();
+        return new JsonReader.Pair<>(students, courses);
+    }
+
+    // MODIFIES: this, students, courses
+    // EFFECTS: applies the records of the journal file with a sequence number above snapshotSeq, each once, in
+    //          order: a record whose sequence number is not above the last one applied was written twice and is
+    //          skipped. A torn write at the tail, which has no line ending or cannot be parsed, is cut off the
+    //          file, so records flushed from now on start on a line of their own.
+    private void replayJournal(List<Student> students, List<Course> courses, long snapshotSeq) throws IOException {
+        byte[] bytes = Files.readAllBytes(journalPath);
+        int complete = 0;
+        while (complete < bytes.length) {
+            int end = complete;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            if (end == bytes.length) {
+                break; // torn write at the tail of the journal
+            }
+            JSONObject record;
+            try {
+                record = new JSONObject(new String(bytes, complete, end - complete, StandardCharsets.UTF_8));
+            } catch (JSONException e) {
+                break; // torn write at the tail of the journal
+            }
+            complete = end + 1;
+            journalLength++;
+            long seq = record.getLong("seq");
+            if (seq > lastSeq) {
+                apply(record, students, courses);
+                lastSeq = seq;
+            }
+        }
+        if (complete < bytes.length) {
+            truncateJournal(complete);
+        }
+    }
+
+    // EFFECTS: cuts the journal file down to its first length bytes
+    private void truncateJournal(long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    // MODIFIES: students, courses
+    // EFFECTS: applies a single journal record to students and courses
+    @SuppressWarnings({"checkstyle:MethodLength", "checkstyle:SuppressWarnings"})
+    static void apply(JSONObject record, List<Student> students, List<Course> courses) {
+        switch (record.getString("op")) {
+            case "addStudent":
+                Student created = new Student(record.getString("name"), record.getInt("student"));
+                enrollAll(created, record.getJSONArray("courses"), courses);
+                students.add(created);
+                break;
+            case "addCourse":
+                courses.add(JsonReader.parseCourse(record.getJSONObject("data")));
+                break;
+            case "enroll":
+            case "drop":
+            case "addGrade":
+            case "setGrade":
+            case "removeGrade":
+                applyLink(record, students, courses);
+                break;
+            case "editStudent":
+                applyEditStudent(record, students, courses);
+                break;
+            case "editCourse":
+                applyEditCourse(record, courses);
+                break;
+            case "clear":
+                students.clear();
+                courses.clear();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal operation: " + record.getString("op"));
+        }
+    }
+
+    // MODIFIES: students, courses
+    // EFFECTS: applies an enroll, drop, addGrade, setGrade or removeGrade record; records naming a student or course
+    //          that no longer exists are skipped
+    private static void applyLink(JSONObject record, List<Student> students, List<Course> courses) {
+        Student student = findStudent(record.getInt("student"), students);
+        Course course = findCourse(record.getInt("course"), courses);
+        if (student == null || course == null) {
+            return;
+        }
+        switch (record.getString("op")) {
+            case "enroll":
+                student.addCourse(course);
+                course.enrollStudent(student);
+                break;
+            case "drop":
+                student.dropCourse(course);
+                course.removeStudent(student);
+                break;
+            case "addGrade":
+                course.addGrade(student, record.getDouble("grade"));
+                break;
+            case "setGrade":
+                course.setGrades(new int[]{student.getStudentID()}, new double[]{record.getDouble("grade")});
+                break;
+            default:
+                course.removeGrade(student);
+        }
+    }
+
+    // MODIFIES: students, courses
+    // EFFECTS: applies an editStudent record
+    private static void applyEditStudent(JSONObject record, List<Student> students, List<Course> courses) {
+        Student student = findStudent(record.getInt("student"), students);
+        if (student == null) {
+            return;
+        }
+        student.setName(record.getString("name"));
+        student.setStudentID(record.getInt("newId"));
+        student.clearCourses();
+        enrollAll(student, record.getJSONArray("courses"), courses);
+    }
+
+    // MODIFIES: courses
+    // EFFECTS: applies an editCourse record
+    private static void applyEditCourse(JSONObject record, List<Course> courses) {
+        Course course = findCourse(record.getInt("course"), courses);
+        if (course == null) {
+            return;
+        }
+        course.setCourseName(record.getString("courseName"));
+        course.setCourseCode(record.getString("courseCode"));
+        course.setCourseDescription(record.getString("courseDescription"));
+        course.setCourseID(record.getInt("courseID"));
+        course.setCredits(record.getInt("credits"));
+        course.setPercentageGrade(record.getDouble("percentageGrade"));
+    }
+
+    // MODIFIES: student, courses
+    // EFFECTS: enrolls student into every existing course whose ID is in courseIds
+    private static void enrollAll(Student student, JSONArray courseIds, List<Course> courses) {
+        for (int i = 0; i < courseIds.length(); i++) {
+            Course course = findCourse(courseIds.getInt(i), courses);
+            if (course != null) {
+                student.addCourse(course);
+                course.enrollStudent(student);
+            }
+        }
+    }
+
+    // EFFECTS: finds the student with the given ID, or null
+    private static Student findStudent(int id, List<Student> students) {
+        for (Student student : students) {
+            if (student.getStudentID() == id) {
+                return student;
+            }
+        }
+        return null;
+    }
+
+    // EFFECTS: finds the course with the given ID, or null
+    private static Course findCourse(int id, List<Course> courses) {
+        for (Course course : courses) {
+            if (course.getCourseID() == id) {
+                return course;
+            }
+        }
+        return null;
+    }
+
+    // EFFECTS: returns a new record for op stamped with the next sequence number
+    private JSONObject newRecord(String op) {
+        JSONObject record = new JSONObject();
+        record.put("seq", lastSeq + 1);
+        record.put("op", op);
+        return record;
+    }
+
+    // EFFECTS: returns a new record for op linking student and course
+    private JSONObject linkRecord(String op, Student student, Course course) {
+        JSONObject record = newRecord(op);
+        record.put("student", student.getStudentID());
+        record.put("course", course.getCourseID());
+        return record;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: buffers record until the next flush; records are dropped while the journal is detached, since
+    //          the next save will write a full snapshot anyway
+    private void append(JSONObject record) {
+        if (attached) {
+            lastSeq = record.getLong("seq");
+            pending.add(record);
+            if (listener != null) {
+                listener.recorded(record);
+            }
+        }
+    }
+
+    private void resynchronize() {
+        if (listener != null) {
+            listener.resynchronize();
+        }
+    }
+}
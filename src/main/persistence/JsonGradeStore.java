@@ -0,0 +1,128 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Represents grade tracker data kept in a JSON file, compressed if its name ends in .gz. JSON cannot be updated
+// in place, so the file is read into memory the first time a record is asked for, and every change to a record
+// rewrites the whole file through a temporary file and an atomic rename. Records keep their order in the file.
+// The file is read and written through its Journal, so changes the GUI journaled to "<file>.journal" are read
+// back, and a rewrite folds them into the file rather than leaving them to be replayed on top of it again.
+public class JsonGradeStore implements GradeStore {
+
+    private final String path;
+    private final Journal journal;
+    private Map<Integer, Student> students;
+    private Map<Integer, Course> courses;
+
+    // EFFECTS: constructs a store for the JSON file at path; the file does not need to exist yet
+    public JsonGradeStore(String path) {
+        this.path = path;
+        this.journal = new Journal(path);
+    }
+
+    @Override
+    public JsonReader.Pair<List<Student>, List<Course>> load() throws IOException {
+        return journal.replay();
+    }
+
+    @Override
+    public void save(List<Student> students, List<Course> courses) throws IOException {
+        journal.checkpoint(students, courses);
+        this.students = null;
+        this.courses = null;
+    }
+
+    @Override
+    public Student getStudent(int id) throws IOException {
+        Student student = cached().first.get(id);
+        return student == null ? null : student.copy();
+    }
+
+    @Override
+    public Course getCourse(int id) throws IOException {
+        Course course = cached().second.get(id);
+        return course == null ? null : course.copy();
+    }
+
+    @Override
+    public void putStudent(Student student) throws IOException {
+        cached().first.put(student.getStudentID(), student.copy());
+        rewrite();
+    }
+
+    @Override
+    public void putCourse(Course course) throws IOException {
+        cached().second.put(course.getCourseID(), course.copy());
+        rewrite();
+    }
+
+    @Override
+    public boolean removeStudent(int id) throws IOException {
+        if (cached().first.remove(id) == null) {
+            return false;
+        }
+        rewrite();
+        return true;
+    }
+
+    @Override
+    public boolean removeCourse(int id) throws IOException {
+        if (cached().second.remove(id) == null) {
+            return false;
+        }
+        rewrite();
+        return true;
+    }
+
+    @Override
+    public void forEachStudent(Consumer<? super Student> action) throws IOException {
+        for (Student student : cached().first.values()) {
+            action.accept(student.copy());
+        }
+    }
+
+    @Override
+    public void forEachCourse(Consumer<? super Course> action) throws IOException {
+        for (Course course : cached().second.values()) {
+            action.accept(course.copy());
+        }
+    }
+
+    // EFFECTS: nothing to release; the file is closed after every read and write
+    @Override
+    public void close() {
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the records of the file by ID, reading them the first time; a file that does not
+    //          exist yet holds no records
+    private JsonReader.Pair<Map<Integer, Student>, Map<Integer, Course>> cached() throws IOException {
+        if (students == null) {
+            Map<Integer, Student> studentsById = new LinkedHashMap<>();
+            Map<Integer, Course> coursesById = new LinkedHashMap<>();
+            JsonReader.Pair<List<Student>, List<Course>> data = journal.replay();
+            for (Course course : data.second) {
+                coursesById.put(course.getCourseID(), course);
+            }
+            for (Student student : data.first) {
+                studentsById.put(student.getStudentID(), student);
+            }
+            students = studentsById;
+            courses = coursesById;
+        }
+        return new JsonReader.Pair<>(students, courses);
+    }
+
+    // EFFECTS: writes the cached records back to the file, folding in its journal
+    private void rewrite() throws IOException {
+        journal.checkpoint(new ArrayList<>(students.values()), new ArrayList<>(courses.values()));
+    }
+}
@@ -6,36 +6,83 @@ import model.EventLog;
 import model.Student;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
-// Represents a reader that reads the grade tracker data from JSON data stored in file
+// Represents a reader that reads the grade tracker data from JSON data stored in file; gzip-compressed files
+// are detected by their header and decompressed while they are parsed
 public class JsonReader {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String source;
+    private final Progress progress;
+    private long journalSeq;
 
     // EFFECTS: constructs reader to read from source file
     public JsonReader(String source) {
+        this(source, Progress.NONE);
+    }
+
+    // EFFECTS: constructs reader to read from source file, telling progress how many of its bytes are read
+    public JsonReader(String source, Progress progress) {
         this.source = source;
+        this.progress = progress;
     }
 
     // EFFECTS: reads grade tracker data from file and returns it as a list of students and courses;
     // throws IOException if an error occurs reading data from file
     public Pair<List<Student>, List<Course>> read() throws IOException {
-        String jsonData = readFile(source);
-        JSONObject jsonObject = new JSONObject(jsonData);
+        JSONObject jsonObject;
+        try (Reader reader = new InputStreamReader(openInput(source, progress), StandardCharsets.UTF_8)) {
+            jsonObject = new JSONObject(new JSONTokener(reader));
+        }
+        journalSeq = jsonObject.optLong("journalSeq", 0);
         EventLog.getInstance().logEvent(new Event("Loaded Data From: " + source));
         return parseGradeTracker(jsonObject);
     }
 
-    // EFFECTS: reads source file as string and returns it
-    private String readFile(String source) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(source)), StandardCharsets.UTF_8);
+    // EFFECTS: returns the sequence number of the last journal entry folded into the file read last,
+    //          or 0 if the file was not written as a journal snapshot
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    // EFFECTS: opens source file for buffered streaming, decompressing it if it starts with the gzip header;
+    //          throws IOException if the file cannot be opened
+    static InputStream openInput(String source) throws IOException {
+        return openInput(source, Progress.NONE);
+    }
+
+    // EFFECTS: opens source file as openInput(source) does, telling progress how many of its bytes are read, and
+    //          stopping reads with an InterruptedIOException once the reading thread is interrupted
+    static InputStream openInput(String source, Progress progress) throws IOException {
+        InputStream file = Files.newInputStream(Paths.get(source));
+        if (progress != Progress.NONE) {
+            file = new ProgressInputStream(file, Files.size(Paths.get(source)), progress);
+        }
+        InputStream in = new BufferedInputStream(file, BUFFER_SIZE);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return in;
     }
 
     // EFFECTS: parses workroom from JSON object and returns it
@@ -60,7 +107,7 @@ public class JsonReader {
         return students;
     }
 
-    // EFFECTS: parses student from JSON object and returns it
+    // EFFECTS: parses student from JSON object and returns it, enrolled once in each of its courses that exists
     public Student parseStudent(JSONObject studentJson, List<Course> courses) {
         String name = studentJson.getString("name");
         int studentID = studentJson.getInt("studentID");
@@ -70,7 +117,7 @@ public class JsonReader {
         for (Object courseIdObj : enrolledCoursesJsonArray) {
             int courseId = (Integer) courseIdObj;
             Course course = findCourseById(courseId, courses);
-            if (course != null) {
+            if (course != null && !student.getEnrolledCourses().contains(courseId)) { // a course listed twice is one
                 student.addCourse(course);
                 course.enrollStudent(student);
             }
@@ -78,6 +125,16 @@ public class JsonReader {
         return student;
     }
 
+    // EFFECTS: parses student from JSON object with the IDs of its courses, without linking it to any course,
+    //          and returns it; no event is logged
+    static Student parseUnlinkedStudent(JSONObject studentJson) {
+        Student student = new Student(studentJson.getString("name"), studentJson.getInt("studentID"));
+        for (Object courseIdObj : studentJson.getJSONArray("enrolledCourses")) {
+            student.getEnrolledCourses().add((Integer) courseIdObj);
+        }
+        return student;
+    }
+
     // EFFECTS: parses courses from JSON array and returns it as a list
     private List<Course> parseCourses(JSONArray coursesJsonArray) {
         List<Course> courses = new ArrayList<>();
@@ -99,8 +156,8 @@ public class JsonReader {
         return null;
     }
 
-    // EFFECTS: parses course from JSON object and returns it
-    private Course parseCourse(JSONObject courseJson) {
+    // EFFECTS: parses course, including its roster and grades, from JSON object and returns it
+    static Course parseCourse(JSONObject courseJson) {
         String courseName = courseJson.getString("courseName");
         String courseCode = courseJson.getString("courseCode");
         String courseDescription = courseJson.getString("courseDescription");
@@ -151,6 +208,38 @@ public class JsonReader {
     }
 
 
+    // A stream that counts the bytes read through it
+    private static class ProgressInputStream extends FilterInputStream {
+        private final long total;
+        private final Progress progress;
+        private long done;
+
+        ProgressInputStream(InputStream in, long total, Progress progress) {
+            super(in);
+            this.total = total;
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Reading was cancelled");
+            }
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                done += read;
+                progress.update(done, total);
+            }
+            return read;
+        }
+    }
+
     // A simple Pair class
     public static class Pair<K, V> {
         public final K first;
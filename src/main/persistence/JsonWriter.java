@@ -8,30 +8,187 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
-// Represents a writer that writes JSON representation of grade tracker data to file
+// Represents a writer that writes JSON representation of grade tracker data to file. Destinations ending in
+// ".gz" are gzip-compressed as they are written.
 public class JsonWriter {
 
+    public static final String COMPRESSED_EXTENSION = ".gz";
     private static final int TAB = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1024;
+    private static volatile int defaultCompressionLevel = Deflater.DEFAULT_COMPRESSION;
     private PrintWriter writer;
     private String destination;
+    private final boolean compressed;
+    private final int compressionLevel;
 
-    // EFFECTS: constructs writer to write to destination file
+    // EFFECTS: constructs writer to write to destination file, compressing with the default level if
+    //          destination ends in ".gz"
     public JsonWriter(String destination) {
+        this(destination, defaultCompressionLevel);
+    }
+
+    // REQUIRES: compressionLevel is Deflater.DEFAULT_COMPRESSION or in [0, 9]
+    // EFFECTS: constructs writer to write to destination file, compressing with compressionLevel if
+    //          destination ends in ".gz"
+    public JsonWriter(String destination, int compressionLevel) {
+        this(destination, isCompressed(destination), compressionLevel);
+    }
+
+    // EFFECTS: constructs writer to write to destination file, compressing it if compressed is true
+    JsonWriter(String destination, boolean compressed, int compressionLevel) {
         this.destination = destination;
+        this.compressed = compressed;
+        this.compressionLevel = compressionLevel;
+    }
+
+    // EFFECTS: returns true if files at path are written compressed
+    public static boolean isCompressed(String path) {
+        return path.toLowerCase().endsWith(COMPRESSED_EXTENSION);
+    }
+
+    // EFFECTS: returns the compression level used by writers constructed without one
+    public static int getDefaultCompressionLevel() {
+        return defaultCompressionLevel;
+    }
+
+    // REQUIRES: level is Deflater.DEFAULT_COMPRESSION or in [0, 9]
+    // EFFECTS: sets the compression level used by writers constructed without one
+    public static void setDefaultCompressionLevel(int level) {
+        defaultCompressionLevel = level;
     }
 
     // MODIFIES: this
     // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
     // be opened for writing
     public void open() throws FileNotFoundException {
-        writer = new PrintWriter(new File(destination));
+        OutputStream out = new FileOutputStream(destination);
+        if (compressed) {
+            try {
+                out = new LevelGzipOutputStream(out, compressionLevel);
+            } catch (IOException e) {
+                throw new FileNotFoundException(destination + ": " + e.getMessage());
+            }
+        }
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                BUFFER_SIZE));
     }
 
     // MODIFIES: this
     // EFFECTS: writes JSON representation of grade tracker data to file
     public void write(List<Student> students, List<Course> courses) {
+        JSONObject json = toJson(students, courses);
+        EventLog.getInstance().logEvent(new Event("Saved data to: " + destination));
+        saveToFile(json);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of grade tracker data to file, stamped with the sequence number of the
+    //          last journal entry folded into it
+    public void write(List<Student> students, List<Course> courses, long journalSeq) {
+        JSONObject json = toJson(students, courses);
+        json.put("journalSeq", journalSeq);
+        EventLog.getInstance().logEvent(new Event("Saved snapshot to: " + destination));
+        saveToFile(json);
+    }
+
+    // EFFECTS: writes students and courses as a snapshot stamped with journalSeq to a temporary file next to
+    //          destination and atomically renames it over destination, so readers never see a partial file;
+    //          throws IOException if the file cannot be written
+    static void writeSnapshot(String destination, List<Student> students, List<Course> courses,
+                              long journalSeq) throws IOException {
+        writeSnapshot(destination, students, courses, journalSeq, Progress.NONE);
+    }
+
+    // EFFECTS: writes a snapshot as writeSnapshot(destination, students, courses, journalSeq) does, one record at a
+    //          time, telling progress how many of the records are written; if the writing thread is interrupted,
+    //          deletes the temporary file, leaves destination as it was and throws InterruptedIOException
+    static void writeSnapshot(String destination, List<Student> students, List<Course> courses, long journalSeq,
+                              Progress progress) throws IOException {
+        Path target = Paths.get(destination);
+        Path temp = Paths.get(destination + ".tmp");
+        JsonWriter writer = new JsonWriter(temp.toString(), isCompressed(destination), defaultCompressionLevel);
+        writer.open();
+        try {
+            writer.write(students, courses, journalSeq, progress);
+        } catch (InterruptedIOException e) {
+            writer.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        writer.close();
+        if (writer.writer.checkError()) {
+            throw new IOException("Unable to write to file: " + temp);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of grade tracker data to file one record at a time, in the layout the
+    //          other writes give, stamped with the sequence number of the last journal entry folded into it, and
+    //          tells progress how many of the records are written every PROGRESS_INTERVAL records and at the end;
+    //          throws InterruptedIOException if the writing thread is interrupted
+    public void write(List<Student> students, List<Course> courses, long journalSeq, Progress progress)
+            throws InterruptedIOException {
+        long total = (long) students.size() + courses.size();
+        long done = 0;
+        EventLog.getInstance().logEvent(new Event("Saved snapshot to: " + destination));
+        writer.write("{\n" + indent(1) + "\"students\": [");
+        for (int i = 0; i < students.size(); i++) {
+            writeRecord(students.get(i).toJson(), i);
+            done = reportProgress(done + 1, total, progress);
+        }
+        writer.write("\n" + indent(1) + "],\n" + indent(1) + "\"courses\": [");
+        for (int i = 0; i < courses.size(); i++) {
+            writeRecord(courses.get(i).toJson(), i);
+            done = reportProgress(done + 1, total, progress);
+        }
+        writer.write("\n" + indent(1) + "],\n" + indent(1) + "\"journalSeq\": " + journalSeq + "\n}");
+        progress.update(total, total);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes record as the element at index of an array of records
+    private void writeRecord(JSONObject record, int index) {
+        writer.write(index == 0 ? "\n" : ",\n");
+        writer.write(indent(2));
+        record.write(writer, TAB, 2 * TAB);
+    }
+
+    // EFFECTS: tells progress that done of total records are written if done is a multiple of PROGRESS_INTERVAL,
+    //          and returns done; throws InterruptedIOException if the writing thread is interrupted
+    private static long reportProgress(long done, long total, Progress progress) throws InterruptedIOException {
+        if (done % PROGRESS_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Writing was cancelled");
+            }
+            progress.update(done, total);
+        }
+        return done;
+    }
+
+    // EFFECTS: returns the indentation of the given nesting level
+    private static String indent(int level) {
+        return " ".repeat(level * TAB);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer
+    public void close() {
+        writer.close();
+    }
+
+    // EFFECTS: returns JSON representation of the given students and courses
+    private JSONObject toJson(List<Student> students, List<Course> courses) {
         JSONObject json = new JSONObject();
         JSONArray studentsJsonArray = new JSONArray();
         for (Student student : students) {
@@ -44,20 +201,20 @@ public class JsonWriter {
             coursesJsonArray.put(course.toJson());
         }
         json.put("courses", coursesJsonArray);
-
-        EventLog.getInstance().logEvent(new Event("Saved data to: " + destination));
-        saveToFile(json.toString(TAB));
+        return json;
     }
 
     // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: streams json to file without building it as a single string
+    private void saveToFile(JSONObject json) {
+        json.write(writer, TAB, 0);
     }
 
-    // MODIFIES: this
-    // EFFECTS: writes string to file
-    private void saveToFile(String json) {
-        writer.print(json);
+    // A gzip stream that compresses with a chosen level
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
+        LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Represents a file of fixed-size pages with a small cache of recently used pages. Page 0 is the header; it holds
+// the page size, the number of pages, the head of the list of freed pages and a few root page numbers for the
+// structures kept in the file. Writes go straight to the file, so the cache never holds unsaved pages.
+// Records too large for one page are stored as chains of overflow pages, each starting with the next page number.
+class PageFile implements Closeable {
+
+    static final int DEFAULT_PAGE_SIZE = 4096;
+    static final int ROOTS = 4;
+
+    private static final int MAGIC = 0x47545047; // "GTPG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20 + 4 * ROOTS;
+    private static final int NEXT = 4;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Map<Integer, byte[]> cache;
+    private int pageCount;
+    private int freeHead;
+    private final int[] roots;
+    private long pagesRead;
+
+    // REQUIRES: pageSize >= 128, cachePages > 0
+    // EFFECTS: opens the page file at path, creating it with pages of pageSize bytes if it does not exist; an
+    //          existing file keeps the page size it was created with. Throws IOException if the file cannot be
+    //          opened or is not a page file.
+    PageFile(Path path, int pageSize, int cachePages) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                return size() > cachePages;
+            }
+        };
+        this.roots = new int[ROOTS];
+        try {
+            if (channel.size() == 0) {
+                this.pageSize = pageSize;
+                this.pageCount = 1;
+                writeHeader();
+            } else {
+                this.pageSize = readHeader();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // EFFECTS: returns the size of the pages of this file
+    int getPageSize() {
+        return pageSize;
+    }
+
+    // EFFECTS: returns how many pages were read from disk rather than found in the cache
+    long getPagesRead() {
+        return pagesRead;
+    }
+
+    // EFFECTS: returns the page number stored in root slot, or 0 if none was stored
+    int getRoot(int slot) {
+        return roots[slot];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stores page in root slot
+    void setRoot(int slot, int page) throws IOException {
+        roots[slot] = page;
+        writeHeader();
+    }
+
+    // EFFECTS: returns a copy of the contents of page
+    ByteBuffer read(int page) throws IOException {
+        byte[] bytes = cache.get(page);
+        if (bytes == null) {
+            bytes = new byte[pageSize];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, (long) page * pageSize + buffer.position()) < 0) {
+                    throw new IOException("Truncated page file");
+                }
+            }
+            pagesRead++;
+            cache.put(page, bytes);
+        }
+        return ByteBuffer.wrap(bytes.clone());
+    }
+
+    // REQUIRES: contents holds pageSize bytes
+    // MODIFIES: this
+    // EFFECTS: writes contents to page
+    void write(int page, ByteBuffer contents) throws IOException {
+        byte[] bytes = new byte[pageSize];
+        contents.duplicate().clear().get(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, (long) page * pageSize + buffer.position());
+        }
+        cache.put(page, bytes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the number of an unused page, reusing a freed page if there is one
+    int allocate() throws IOException {
+        int page;
+        if (freeHead != 0) {
+            page = freeHead;
+            freeHead = read(page).getInt(0);
+        } else {
+            page = pageCount++;
+        }
+        writeHeader();
+        return page;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts page on the list of freed pages
+    void free(int page) throws IOException {
+        ByteBuffer contents = ByteBuffer.allocate(pageSize);
+        contents.putInt(0, freeHead);
+        write(page, contents);
+        freeHead = page;
+        writeHeader();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stores record in a chain of overflow pages and returns the number of the first
+    int writeChain(byte[] record) throws IOException {
+        int payload = pageSize - NEXT;
+        int pages = Math.max(1, (record.length + payload - 1) / payload);
+        int first = allocate();
+        int page = first;
+        for (int i = 0; i < pages; i++) {
+            int next = i + 1 < pages ? allocate() : 0;
+            ByteBuffer contents = ByteBuffer.allocate(pageSize);
+            contents.putInt(next);
+            contents.put(record, i * payload, Math.min(payload, record.length - i * payload));
+            write(page, contents);
+            page = next;
+        }
+        return first;
+    }
+
+    // EFFECTS: returns the length bytes stored in the chain of overflow pages starting at first
+    byte[] readChain(int first, int length) throws IOException {
+        byte[] record = new byte[length];
+        int payload = pageSize - NEXT;
+        int page = first;
+        for (int offset = 0; offset < length; offset += payload) {
+            ByteBuffer contents = read(page);
+            page = contents.getInt();
+            contents.get(record, offset, Math.min(payload, length - offset));
+        }
+        return record;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: frees every page of the chain of overflow pages starting at first
+    void freeChain(int first) throws IOException {
+        int page = first;
+        while (page != 0) {
+            int next = read(page).getInt(0);
+            free(page);
+            page = next;
+        }
+    }
+
+    // EFFECTS: forces every write so far to disk and closes the file
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // EFFECTS: writes the header page
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(pageSize).putInt(pageCount).putInt(freeHead);
+        for (int root : roots) {
+            header.putInt(root);
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the header page and returns the page size; throws IOException if it is not a page file header
+    private int readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a paged grade tracker file");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a paged grade tracker file");
+        }
+        int size = header.getInt();
+        pageCount = header.getInt();
+        freeHead = header.getInt();
+        for (int i = 0; i < ROOTS; i++) {
+            roots[i] = header.getInt();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,174 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Represents grade tracker data kept in a single file of 4 KB pages, with one B+tree of students and one of
+// courses, each keyed by ID and holding the record's JSON. Reading, replacing or removing one record touches only
+// the pages on the path from the root to its leaf, so records can be used without loading the whole data set.
+// Only recently used pages are cached. Single record changes are written in place; save rebuilds the file
+// through a temporary file and an atomic rename. Records are visited and loaded in ID order.
+public class PagedGradeStore implements GradeStore {
+
+    public static final String EXTENSION = ".gtp";
+    public static final int DEFAULT_CACHE_PAGES = 256;
+
+    private static final int STUDENTS = 0;
+    private static final int COURSES = 1;
+
+    private final Path path;
+    private final int pageSize;
+    private final int cachePages;
+    private PageFile file;
+    private BPlusTree students;
+    private BPlusTree courses;
+
+    // EFFECTS: opens the paged store at path, creating an empty one if the file does not exist;
+    //          throws IOException if it cannot be opened
+    public PagedGradeStore(String path) throws IOException {
+        this(path, PageFile.DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+    }
+
+    // REQUIRES: pageSize >= 128, cachePages > 0
+    // EFFECTS: opens the paged store at path, creating an empty one with pages of pageSize bytes if the file does
+    //          not exist, and caching at most cachePages pages; throws IOException if it cannot be opened
+    PagedGradeStore(String path, int pageSize, int cachePages) throws IOException {
+        this.path = Paths.get(path);
+        this.pageSize = pageSize;
+        this.cachePages = cachePages;
+        open();
+    }
+
+    // EFFECTS: returns how many pages were read from disk since the store was opened or last saved
+    long getPagesRead() {
+        return file.getPagesRead();
+    }
+
+    @Override
+    public JsonReader.Pair<List<Student>, List<Course>> load() throws IOException {
+        List<Course> courseList = new ArrayList<>();
+        this.courses.forEach((id, value) -> courseList.add(JsonReader.parseCourse(json(value))));
+        List<JSONObject> studentJsons = new ArrayList<>();
+        this.students.forEach((id, value) -> studentJsons.add(json(value)));
+        JsonReader parser = new JsonReader(path.toString());
+        List<Student> studentList = new ArrayList<>();
+        for (JSONObject json : studentJsons) {
+            studentList.add(parser.parseStudent(json, courseList));
+        }
+        EventLog.getInstance().logEvent(new Event("Loaded Data From: " + path));
+        return new JsonReader.Pair<>(studentList, courseList);
+    }
+
+    @Override
+    public void save(List<Student> students, List<Course> courses) throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        Files.deleteIfExists(temp);
+        try (PageFile target = new PageFile(temp, pageSize, cachePages)) {
+            BPlusTree studentTree = new BPlusTree(target, STUDENTS);
+            BPlusTree courseTree = new BPlusTree(target, COURSES);
+            for (Course course : courses) {
+                courseTree.put(course.getCourseID(), bytes(course.toJson()));
+            }
+            for (Student student : students) {
+                studentTree.put(student.getStudentID(), bytes(student.toJson()));
+            }
+        }
+        file.close(); // some platforms cannot replace a file that is open
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                open(); // the old file is still in place, so the store goes on using it
+            } catch (IOException reopen) {
+                e.addSuppressed(reopen);
+            }
+            throw e;
+        }
+        open();
+        EventLog.getInstance().logEvent(new Event("Saved data to: " + path));
+    }
+
+    @Override
+    public Student getStudent(int id) throws IOException {
+        byte[] value = students.get(id);
+        return value == null ? null : JsonReader.parseUnlinkedStudent(json(value));
+    }
+
+    @Override
+    public Course getCourse(int id) throws IOException {
+        byte[] value = courses.get(id);
+        return value == null ? null : JsonReader.parseCourse(json(value));
+    }
+
+    @Override
+    public void putStudent(Student student) throws IOException {
+        students.put(student.getStudentID(), bytes(student.toJson()));
+    }
+
+    @Override
+    public void putCourse(Course course) throws IOException {
+        courses.put(course.getCourseID(), bytes(course.toJson()));
+    }
+
+    @Override
+    public boolean removeStudent(int id) throws IOException {
+        return students.remove(id);
+    }
+
+    @Override
+    public boolean removeCourse(int id) throws IOException {
+        return courses.remove(id);
+    }
+
+    @Override
+    public void forEachStudent(Consumer<? super Student> action) throws IOException {
+        students.forEach((id, value) -> action.accept(JsonReader.parseUnlinkedStudent(json(value))));
+    }
+
+    @Override
+    public void forEachCourse(Consumer<? super Course> action) throws IOException {
+        courses.forEach((id, value) -> action.accept(JsonReader.parseCourse(json(value))));
+    }
+
+    // EFFECTS: forces all changes to disk and closes the file
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the file and its two trees
+    private void open() throws IOException {
+        file = new PageFile(path, pageSize, cachePages);
+        try {
+            students = new BPlusTree(file, STUDENTS);
+            courses = new BPlusTree(file, COURSES);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // EFFECTS: returns json encoded as UTF-8
+    private static byte[] bytes(JSONObject json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: returns the JSON object encoded in value
+    private static JSONObject json(byte[] value) {
+        return new JSONObject(new String(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,375 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+// Represents a reader that parses large grade tracker JSON files on several threads. The file is memory-mapped and
+// scanned once for the boundaries of the records in the "courses" and "students" arrays; the arrays are cut into
+// byte ranges at record boundaries, the ranges are parsed in parallel on a fork-join pool, and a final sequential
+// phase links students to courses in file order, so the result is identical to JsonReader's.
+public class ParallelJsonReader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final String source;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Progress progress;
+    private long journalSeq;
+    private long total;
+    private long parsed;
+
+    // EFFECTS: constructs reader to read from source file on the common fork-join pool
+    public ParallelJsonReader(String source) {
+        this(source, Progress.NONE);
+    }
+
+    // EFFECTS: constructs reader to read from source file on the common fork-join pool, telling progress how many
+    //          of its bytes are parsed
+    public ParallelJsonReader(String source, Progress progress) {
+        this(source, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, progress);
+    }
+
+    // REQUIRES: chunkSize > 0
+    // EFFECTS: constructs reader to read from source file on pool, in chunks of about chunkSize bytes
+    public ParallelJsonReader(String source, ForkJoinPool pool, int chunkSize) {
+        this(source, pool, chunkSize, Progress.NONE);
+    }
+
+    // REQUIRES: chunkSize > 0
+    // EFFECTS: constructs reader to read from source file on pool, in chunks of about chunkSize bytes, telling
+    //          progress how many of its bytes are parsed
+    public ParallelJsonReader(String source, ForkJoinPool pool, int chunkSize, Progress progress) {
+        this.source = source;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.progress = progress;
+    }
+
+    // EFFECTS: returns the sequence number of the last journal entry folded into the file read last,
+    //          or 0 if the file was not written as a journal snapshot
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    // EFFECTS: reads grade tracker data from file and returns it as a list of students and courses. Compressed
+    //          files and files over 2 GB cannot be split and are read sequentially. Throws IOException if an
+    //          error occurs reading data from file, or InterruptedIOException if the reading thread is interrupted.
+    public JsonReader.Pair<List<Student>, List<Course>> read() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || startsWithGzip(channel)) {
+                JsonReader reader = new JsonReader(source, progress);
+                JsonReader.Pair<List<Student>, List<Course>> data = reader.read();
+                journalSeq = reader.getJournalSeq();
+                return data;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            total = channel.size();
+            parsed = 0;
+            Layout layout = new Scanner(bytes, chunkSize).scan();
+            journalSeq = layout.journalSeq;
+            EventLog.getInstance().logEvent(new Event("Loaded Data From: " + source));
+            List<Course> courses = parseAll(bytes, layout.courseChunks, ParallelJsonReader::parseCourses);
+            List<StudentRecord> records = parseAll(bytes, layout.studentChunks, ParallelJsonReader::parseStudents);
+            return new JsonReader.Pair<>(link(records, courses), courses);
+        }
+    }
+
+    // EFFECTS: returns true if the file open in channel starts with the gzip magic number
+    private static boolean startsWithGzip(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2);
+        channel.read(header, 0);
+        return header.position() == 2 && (header.get(0) & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+                && (header.get(1) & 0xFF) == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    // Parses the records of one chunk
+    private interface ChunkParser<T> {
+        List<T> parse(JSONArray records);
+    }
+
+    // EFFECTS: parses every chunk on the pool and returns the records of all chunks in file order, telling progress
+    //          about each chunk as its records are collected
+    private <T> List<T> parseAll(ByteBuffer bytes, List<int[]> chunks, ChunkParser<T> parser) throws IOException {
+        List<Future<List<T>>> results = new ArrayList<>(chunks.size());
+        for (int[] chunk : chunks) {
+            Callable<List<T>> task = () -> parser.parse(toArray(bytes, chunk[0], chunk[1]));
+            results.add(pool.submit(task));
+        }
+        List<T> all = new ArrayList<>();
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                all.addAll(results.get(i).get());
+                parsed += chunks.get(i)[1] - chunks.get(i)[0];
+                progress.update(parsed, total);
+            }
+        } catch (InterruptedException e) {
+            results.forEach(result -> result.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + source);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Unable to parse " + source, e.getCause());
+        }
+        return all;
+    }
+
+    // EFFECTS: returns the comma-separated records in [start, end) as a JSON array
+    private static JSONArray toArray(ByteBuffer bytes, int start, int end) {
+        byte[] chunk = new byte[end - start];
+        bytes.duplicate().position(start).get(chunk);
+        return new JSONArray("[" + new String(chunk, StandardCharsets.UTF_8) + "]");
+    }
+
+    // EFFECTS: parses the courses of one chunk, with their rosters and grades
+    private static List<Course> parseCourses(JSONArray records) {
+        List<Course> courses = new ArrayList<>(records.length());
+        for (int i = 0; i < records.length(); i++) {
+            courses.add(JsonReader.parseCourse(records.getJSONObject(i)));
+        }
+        return courses;
+    }
+
+    // EFFECTS: parses the students of one chunk without linking them to courses
+    private static List<StudentRecord> parseStudents(JSONArray records) {
+        List<StudentRecord> students = new ArrayList<>(records.length());
+        for (int i = 0; i < records.length(); i++) {
+            JSONObject json = records.getJSONObject(i);
+            JSONArray enrolled = json.getJSONArray("enrolledCourses");
+            int[] courseIds = new int[enrolled.length()];
+            for (int j = 0; j < courseIds.length; j++) {
+                courseIds[j] = (Integer) enrolled.get(j);
+            }
+            students.add(new StudentRecord(json.getString("name"), json.getInt("studentID"), courseIds));
+        }
+        return students;
+    }
+
+    // MODIFIES: courses
+    // EFFECTS: creates the students in file order and enrolls each in its existing courses, as
+    //          JsonReader.parseStudent does but with one batch per student and one per course
+    private static List<Student> link(List<StudentRecord> records, List<Course> courses) {
+        Map<Integer, Course> byId = new HashMap<>();
+        for (Course course : courses) {
+            byId.putIfAbsent(course.getCourseID(), course);
+        }
+        Map<Course, List<Student>> rosters = new LinkedHashMap<>();
+        List<Student> students = new ArrayList<>(records.size());
+        for (StudentRecord record : records) {
+            Student student = new Student(record.name, record.id);
+            List<Course> found = new ArrayList<>(record.courseIds.length);
+            for (int courseId : record.courseIds) {
+                Course course = byId.get(courseId);
+                if (course != null) {
+                    found.add(course);
+                    rosters.computeIfAbsent(course, c -> new ArrayList<>()).add(student);
+                }
+            }
+            student.addCourses(found);
+            students.add(student);
+        }
+        rosters.forEach(Course::enrollStudents);
+        return students;
+    }
+
+    // A student as parsed, before it is linked to its courses
+    private static class StudentRecord {
+        final String name;
+        final int id;
+        final int[] courseIds;
+
+        StudentRecord(String name, int id, int[] courseIds) {
+            this.name = name;
+            this.id = id;
+            this.courseIds = courseIds;
+        }
+    }
+
+    // Where the chunks of each array are, as [start, end) byte ranges, and the journal sequence number
+    private static class Layout {
+        final List<int[]> courseChunks = new ArrayList<>();
+        final List<int[]> studentChunks = new ArrayList<>();
+        long journalSeq;
+    }
+
+    // Scans the structure of the top-level object without parsing records
+    private static class Scanner {
+        private final ByteBuffer bytes;
+        private final int size;
+        private final int chunkSize;
+
+        Scanner(ByteBuffer bytes, int chunkSize) {
+            this.bytes = bytes;
+            this.size = bytes.limit();
+            this.chunkSize = chunkSize;
+        }
+
+        // EFFECTS: returns the layout of the file; throws JSONException if it is not a JSON object holding
+        //          "students" and "courses" arrays
+        Layout scan() {
+            Layout layout = new Layout();
+            boolean sawStudents = false;
+            boolean sawCourses = false;
+            int i = expect(skipWhitespace(0), '{');
+            i = skipWhitespace(i);
+            while (i < size && bytes.get(i) != '}') {
+                int keyEnd = endOfString(i);
+                String key = decode(i + 1, keyEnd - 1);
+                i = skipWhitespace(expect(skipWhitespace(keyEnd), ':'));
+                if (key.equals("courses")) {
+                    i = splitArray(i, layout.courseChunks);
+                    sawCourses = true;
+                } else if (key.equals("students")) {
+                    i = splitArray(i, layout.studentChunks);
+                    sawStudents = true;
+                } else {
+                    int end = endOfValue(i);
+                    if (key.equals("journalSeq")) {
+                        layout.journalSeq = Long.parseLong(decode(i, end).trim());
+                    }
+                    i = end;
+                }
+                i = skipWhitespace(i);
+                if (i < size && bytes.get(i) == ',') {
+                    i = skipWhitespace(i + 1);
+                }
+            }
+            if (!sawStudents || !sawCourses) {
+                throw new JSONException("JSONObject[\"" + (sawStudents ? "courses" : "students") + "\"] not found.");
+            }
+            return layout;
+        }
+
+        // MODIFIES: chunks
+        // EFFECTS: splits the array starting at i into ranges of whole records of about chunkSize bytes each and
+        //          returns the index just past the array
+        private int splitArray(int i, List<int[]> chunks) {
+            i = skipWhitespace(expect(i, '['));
+            int chunkStart = -1;
+            while (i < size && bytes.get(i) != ']') {
+                int end = endOfValue(i);
+                if (chunkStart < 0) {
+                    chunkStart = i;
+                }
+                if (end - chunkStart >= chunkSize) {
+                    chunks.add(new int[]{chunkStart, end});
+                    chunkStart = -1;
+                }
+                i = skipWhitespace(end);
+                if (i < size && bytes.get(i) == ',') {
+                    i = skipWhitespace(i + 1);
+                }
+            }
+            if (chunkStart >= 0) {
+                chunks.add(new int[]{chunkStart, lastNonWhitespaceBefore(i)});
+            }
+            return expect(i, ']');
+        }
+
+        // EFFECTS: returns the index just past the JSON value starting at i
+        private int endOfValue(int i) {
+            byte first = bytes.get(i);
+            if (first == '"') {
+                return endOfString(i);
+            }
+            if (first != '{' && first != '[') {
+                while (i < size && ",}] \t\r\n".indexOf(bytes.get(i)) < 0) {
+                    i++;
+                }
+                return i;
+            }
+            int depth = 0;
+            while (i < size) {
+                byte b = bytes.get(i);
+                if (b == '"') {
+                    i = endOfString(i);
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            throw new JSONException("Unterminated value in grade tracker file");
+        }
+
+        // EFFECTS: returns the index just past the string whose opening quote is at i
+        private int endOfString(int i) {
+            expect(i, '"');
+            i++;
+            while (i < size) {
+                byte b = bytes.get(i);
+                if (b == '\\') {
+                    i += 2;
+                } else if (b == '"') {
+                    return i + 1;
+                } else {
+                    i++;
+                }
+            }
+            throw new JSONException("Unterminated string in grade tracker file");
+        }
+
+        // EFFECTS: returns the index just past the last non-whitespace byte before i
+        private int lastNonWhitespaceBefore(int i) {
+            while (i > 0 && Character.isWhitespace(bytes.get(i - 1))) {
+                i--;
+            }
+            return i;
+        }
+
+        // EFFECTS: returns the first index at or after i that is not whitespace
+        private int skipWhitespace(int i) {
+            while (i < size && Character.isWhitespace(bytes.get(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        // EFFECTS: returns i + 1 if the byte at i is expected; throws JSONException otherwise
+        private int expect(int i, char expected) {
+            if (i >= size || bytes.get(i) != expected) {
+                throw new JSONException("Expected '" + expected + "' at byte " + i + " of grade tracker file");
+            }
+            return i + 1;
+        }
+
+        // EFFECTS: returns the bytes in [start, end) decoded as UTF-8
+        private String decode(int start, int end) {
+            byte[] text = new byte[end - start];
+            bytes.duplicate().position(start).get(text);
+            return new String(text, StandardCharsets.UTF_8);
+        }
+    }
+}
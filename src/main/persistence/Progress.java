@@ -0,0 +1,12 @@
+package persistence;
+
+// Is told how far a long read or write has got, so it can be shown; called on the thread doing the work. Reads and
+// writes that report progress also stop with an InterruptedIOException if that thread is interrupted.
+public interface Progress {
+
+    // Ignores progress
+    Progress NONE = (done, total) -> { };
+
+    // EFFECTS: called with how many of total units, such as bytes or records, are done
+    void update(long done, long total);
+}
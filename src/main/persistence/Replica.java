@@ -0,0 +1,226 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+// Represents a read replica of the grade tracker data kept by a ReplicationPrimary: it connects to the primary,
+// replaces its data with each snapshot it is sent, and applies each journal record sent after it as loading the
+// journal would. Queries read the data under a read lock, so they see it between two records and never wait for
+// each other; applying a record takes the write lock. If the connection is lost, the replica keeps answering from
+// the data it has and reconnects, and is sent a new snapshot once it has.
+// How far behind the primary the replica is can be read at any time: in records, from the sequence number of the
+// last record applied and the primary's latest one as last heard; and in milliseconds, as how long after the primary
+// journaled it the last record was applied, or 0 once a heartbeat has confirmed the replica has caught up. Times
+// are taken from each side's clock, so they are only meaningful when both run on the same machine.
+public class Replica implements AutoCloseable {
+
+    static final long RECONNECT_MILLIS = 500;
+
+    private final String host;
+    private final int port;
+    private final ReadWriteLock lock;
+    private final List<Student> students;
+    private final List<Course> courses;
+    private final Thread receiver;
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile long appliedSeq;
+    private volatile long primarySeq;
+    private volatile long lagMillis;
+    private long snapshotCount;
+
+    // EFFECTS: constructs a replica of the primary listening at host and port, with no data until it is sent a
+    //          snapshot, and starts connecting to it
+    public Replica(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.lock = new ReentrantReadWriteLock();
+        this.students = new ArrayList<>();
+        this.courses = new ArrayList<>();
+        this.receiver = new Thread(this::receive, "replica-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    // EFFECTS: returns what query computes from the replica's students and courses, which it must only read and
+    //          must not keep, since they change once it returns
+    public <T> T read(BiFunction<List<Student>, List<Course>, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(students, courses);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: returns true if the replica is connected to the primary
+    public boolean isConnected() {
+        return connected;
+    }
+
+    // EFFECTS: returns the sequence number of the last record applied, or of the last snapshot if none was since
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    // EFFECTS: returns the sequence number of the primary's latest record, as last heard from it
+    public long getPrimarySeq() {
+        return primarySeq;
+    }
+
+    // EFFECTS: returns how many records the replica is behind the primary, as last heard from it
+    public long getLagRecords() {
+        return Math.max(0, primarySeq - appliedSeq);
+    }
+
+    // EFFECTS: returns how long after the primary journaled it the last record was applied, or 0 if the replica
+    //          has caught up since
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    // EFFECTS: returns how many snapshots the replica has been sent
+    public synchronized long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    // EFFECTS: waits until the replica has been sent a snapshot and has caught up with the primary as last heard,
+    //          and has applied at least the record with sequence number seq, or until timeoutMillis pass; returns
+    //          true if it caught up
+    public boolean awaitCaughtUp(long seq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getSnapshotCount() == 0 || appliedSeq < seq || getLagRecords() > 0) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return false;
+            }
+            synchronized (this) {
+                wait(Math.min(left, ReplicationPrimary.HEARTBEAT_MILLIS));
+            }
+        }
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: disconnects from the primary and stops reconnecting; the data stays readable
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        receiver.interrupt();
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies what the primary sends, reconnecting whenever the connection is lost, until closed. A message
+    //          that cannot be read or applied drops the connection too, so the primary sends a new snapshot.
+    private void receive() {
+        while (!closed) {
+            try (Socket current = new Socket(host, port);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(current.getInputStream(),
+                         StandardCharsets.UTF_8))) {
+                socket = current;
+                connected = true;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    handle(new JSONObject(line));
+                }
+            } catch (IOException | RuntimeException e) {
+                // not connected, the connection was lost, or a message could not be applied; try again below
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies one message from the primary
+    private void handle(JSONObject message) {
+        switch (message.getString("type")) {
+            case "snapshot":
+                applySnapshot(message);
+                break;
+            case "record":
+                applyRecord(message);
+                break;
+            default:
+                primarySeq = message.getLong("primarySeq");
+                if (appliedSeq >= primarySeq) {
+                    lagMillis = 0;
+                }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the data with the snapshot in message
+    private void applySnapshot(JSONObject message) {
+        List<Student> newStudents = new ArrayList<>();
+        JSONArray studentArray = message.getJSONArray("students");
+        for (int i = 0; i < studentArray.length(); i++) {
+            newStudents.add(JsonReader.parseUnlinkedStudent(studentArray.getJSONObject(i)));
+        }
+        List<Course> newCourses = new ArrayList<>();
+        JSONArray courseArray = message.getJSONArray("courses");
+        for (int i = 0; i < courseArray.length(); i++) {
+            newCourses.add(JsonReader.parseCourse(courseArray.getJSONObject(i)));
+        }
+        lock.writeLock().lock();
+        try {
+            students.clear();
+            students.addAll(newStudents);
+            courses.clear();
+            courses.addAll(newCourses);
+            appliedSeq = message.getLong("seq");
+            primarySeq = appliedSeq;
+            lagMillis = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        synchronized (this) {
+            snapshotCount++;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies the record in message unless the last snapshot already included it
+    private void applyRecord(JSONObject message) {
+        JSONObject record = message.getJSONObject("record");
+        long seq = record.getLong("seq");
+        primarySeq = message.getLong("primarySeq");
+        if (seq <= appliedSeq) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Journal.apply(record, students, courses);
+            appliedSeq = seq;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lagMillis = Math.max(0, System.currentTimeMillis() - message.getLong("recordedAt"));
+    }
+}
@@ -0,0 +1,189 @@
+package persistence;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Represents the primary of a set of read replicas: it listens on a loopback socket and streams the journal to every
+// Replica that connects. A replica is first sent a full snapshot of the data, then every record journaled after it,
+// each as a JSON object on one line:
+//   {"type":"snapshot","seq":S,"students":[...],"courses":[...],"sentAt":T}
+//   {"type":"record","record":{...},"primarySeq":S,"recordedAt":T}
+//   {"type":"heartbeat","primarySeq":S,"sentAt":T}
+// Heartbeats are sent when there is nothing else to send, so a replica can tell it has caught up. Each replica has
+// its own queue and sender thread, so a slow replica never holds up the primary or the other replicas; a replica
+// that falls more than MAX_QUEUED records behind is sent a new snapshot instead of the records it missed.
+// The primary is a Journal.Listener: records are only shipped while the journal is attached, and anything the
+// journal does not describe record by record, such as loading or importing, sends every replica a new snapshot.
+public class ReplicationPrimary implements Journal.Listener, AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7070;
+    public static final int MAX_QUEUED = 10_000;
+    static final long HEARTBEAT_MILLIS = 200;
+    private static final Object SNAPSHOT = new Object();
+
+    private final Supplier<JSONObject> snapshotSource;
+    private final ServerSocket server;
+    private final List<Connection> connections;
+    private volatile long lastSeq;
+
+    // EFFECTS: constructs a primary listening on the given loopback port, or on any free port if port is 0, that
+    //          takes snapshots from snapshotSource, which must return the students and courses in "students" and
+    //          "courses" as their toJson gives them, and the journal's last sequence number in "seq"; the snapshot
+    //          source is called on a sender thread. Throws IOException if the port cannot be bound.
+    public ReplicationPrimary(int port, Supplier<JSONObject> snapshotSource) throws IOException {
+        this.snapshotSource = snapshotSource;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connections = new CopyOnWriteArrayList<>();
+        Thread acceptor = new Thread(this::accept, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // EFFECTS: returns the port the primary listens on
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // EFFECTS: returns the number of replicas connected
+    public int getReplicaCount() {
+        return connections.size();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: queues record to be sent to every replica
+    @Override
+    public void recorded(JSONObject record) {
+        lastSeq = record.getLong("seq");
+        if (connections.isEmpty()) {
+            return;
+        }
+        String message = new JSONObject().put("type", "record").put("record", record).put("primarySeq", lastSeq)
+                .put("recordedAt", System.currentTimeMillis()).toString();
+        for (Connection connection : connections) {
+            connection.offer(message);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: queues a new snapshot to be sent to every replica
+    @Override
+    public void resynchronize() {
+        for (Connection connection : connections) {
+            connection.offer(SNAPSHOT);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops accepting replicas and disconnects those connected
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    // EFFECTS: accepts replicas and starts a sender for each, until the primary is closed
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Connection connection = new Connection(server.accept());
+                connections.add(connection);
+                connection.start();
+            } catch (SocketException e) {
+                return; // closed
+            } catch (IOException e) {
+                // the replica went away while connecting; keep accepting others
+            }
+        }
+    }
+
+    // A connected replica, with the messages waiting to be sent to it
+    private class Connection {
+        private final Socket socket;
+        private final BlockingQueue<Object> queue;
+        private final Thread sender;
+
+        // EFFECTS: constructs a connection to the replica on socket whose first message is a snapshot
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.queue = new LinkedBlockingQueue<>();
+            this.sender = new Thread(this::send, "replication-sender");
+            sender.setDaemon(true);
+            queue.add(SNAPSHOT);
+        }
+
+        void start() {
+            sender.start();
+        }
+
+        // MODIFIES: this
+        // EFFECTS: queues message, or replaces everything queued with a snapshot if the replica is too far behind
+        void offer(Object message) {
+            if (queue.size() >= MAX_QUEUED) {
+                queue.clear();
+                message = SNAPSHOT;
+            }
+            queue.add(message);
+        }
+
+        // EFFECTS: sends queued messages to the replica, and a heartbeat whenever none has been queued for a while,
+        //          until the replica or the primary goes away, or a snapshot cannot be taken; the replica then
+        //          reconnects and is sent a new snapshot
+        private void send() {
+            try (socket;
+                 Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                         StandardCharsets.UTF_8))) {
+                while (true) {
+                    Object message = queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (message == null) {
+                        message = new JSONObject().put("type", "heartbeat").put("primarySeq", lastSeq)
+                                .put("sentAt", System.currentTimeMillis()).toString();
+                    } else if (message == SNAPSHOT) {
+                        message = snapshot();
+                    }
+                    out.write((String) message);
+                    out.write('\n');
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                // the replica or the primary went away, or the snapshot source failed
+            } finally {
+                connections.remove(this);
+            }
+        }
+
+        // MODIFIES: ReplicationPrimary.this
+        // EFFECTS: returns the snapshot message for the data as it is now; records queued before it was taken that
+        //          it already includes have a sequence number no higher than its own and are skipped by the replica
+        private String snapshot() {
+            JSONObject snapshot = snapshotSource.get();
+            lastSeq = snapshot.getLong("seq");
+            return snapshot.put("type", "snapshot").put("sentAt", System.currentTimeMillis()).toString();
+        }
+
+        // MODIFIES: this
+        // EFFECTS: disconnects the replica
+        void close() throws IOException {
+            sender.interrupt();
+            socket.close();
+        }
+    }
+}
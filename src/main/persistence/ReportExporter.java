@@ -0,0 +1,194 @@
+package persistence;
+
+import model.Change;
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+import model.StudentReport;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Represents an exporter of the reports of every student, generated on a bounded pool of threads. Reports can be
+// written to one file per student, in which case each thread streams the reports of its share of the students
+// straight to their files, or to a single file in student order, in which case batches of reports are generated
+// in parallel and written in order with only a few batches held in memory at a time. The students and courses
+// must not be changed while an export is running.
+public class ReportExporter {
+
+    public static final int BATCH_SIZE = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<Student> students;
+    private final List<Course> courses;
+    private final int threads;
+
+    // EFFECTS: constructs an exporter of the reports of students that uses one thread per processor
+    public ReportExporter(List<Student> students, List<Course> courses) {
+        this(students, courses, Runtime.getRuntime().availableProcessors());
+    }
+
+    // REQUIRES: threads > 0
+    // EFFECTS: constructs an exporter of the reports of students that uses at most threads threads
+    public ReportExporter(List<Student> students, List<Course> courses, int threads) {
+        this.students = students;
+        this.courses = courses;
+        this.threads = threads;
+    }
+
+    // EFFECTS: returns the name of the file the report of student is written to by exportToDirectory
+    public static String fileName(Student student) {
+        return fileName(student.getStudentID());
+    }
+
+    private static String fileName(int studentID) {
+        return "report-" + studentID + ".txt";
+    }
+
+    // EFFECTS: writes the report of every student to its own file in directory, creating the directory if needed,
+    //          and returns how many reports were written; throws IOException if any report cannot be written
+    public int exportToDirectory(String directory) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(directory));
+        StudentReport report = new StudentReport(courses); // one per export, as it indexes the courses as they are
+        int shares = Math.max(1, Math.min(threads, students.size()));
+        List<Future<Void>> results = new ArrayList<>(shares);
+        ExecutorService pool = Executors.newFixedThreadPool(shares);
+        try {
+            for (int share = 0; share < shares; share++) {
+                int from = (int) ((long) students.size() * share / shares);
+                int to = (int) ((long) students.size() * (share + 1) / shares);
+                results.add(pool.submit(() -> {
+                    for (Student student : students.subList(from, to)) {
+                        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve(fileName(student)),
+                                StandardCharsets.UTF_8)) {
+                            report.write(student, out);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                await(result);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        EventLog.getInstance().logEvent(new Event("Exported " + students.size() + " reports to: " + dir));
+        return students.size();
+    }
+
+    // EFFECTS: brings the reports in directory, as written by exportToDirectory, up to date with changes, a batch
+    //          from the ChangeFeed: rewrites the reports of the students the changes are about and of the students
+    //          of the courses they are about, including every student of a course whose grades or roster changed,
+    //          since each student's GPA in it depends on the whole course's grades; deletes the reports of removed students, and returns how many
+    //          reports were written. Rewrites every report if the batch is a RESET or removes a course. Throws
+    //          IOException if any report cannot be written or deleted.
+    public int exportChangedToDirectory(String directory, List<Change> changes) throws IOException {
+        Set<Integer> changedStudents = new HashSet<>();
+        Set<Integer> changedCourses = new HashSet<>();
+        Path dir = Files.createDirectories(Paths.get(directory));
+        for (Change change : changes) {
+            switch (change.getKind()) {
+                case RESET:
+                case COURSE_REMOVED:
+                    return exportToDirectory(directory);
+                case COURSE_ADDED:
+                case COURSE_CHANGED:
+                    changedCourses.add(change.getCourseID());
+                    break;
+                case STUDENT_REMOVED:
+                    Files.deleteIfExists(dir.resolve(fileName(change.getStudentID())));
+                    break;
+                case ENROLLED:
+                case DROPPED:
+                case GRADE_CHANGED:
+                    changedCourses.add(change.getCourseID());
+                    changedStudents.add(change.getStudentID());
+                    break;
+                default:
+                    changedStudents.add(change.getStudentID());
+            }
+        }
+        StudentReport report = new StudentReport(courses);
+        int written = 0;
+        for (Student student : students) {
+            if (changedStudents.contains(student.getStudentID())
+                    || student.getEnrolledCourses().stream().anyMatch(changedCourses::contains)) {
+                try (BufferedWriter out = Files.newBufferedWriter(dir.resolve(fileName(student)),
+                        StandardCharsets.UTF_8)) {
+                    report.write(student, out);
+                }
+                written++;
+            }
+        }
+        EventLog.getInstance().logEvent(new Event("Updated " + written + " reports in: " + dir));
+        return written;
+    }
+
+    // EFFECTS: writes the reports of every student, in order and separated by blank lines, to file, and returns
+    //          how many reports were written; throws IOException if the file cannot be written
+    public int exportToFile(String file) throws IOException {
+        StudentReport report = new StudentReport(courses);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(file)),
+                StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            for (int from = 0; from < students.size(); from += BATCH_SIZE) {
+                List<Student> batch = students.subList(from, Math.min(students.size(), from + BATCH_SIZE));
+                if (inFlight.size() > threads) {
+                    out.write(await(inFlight.poll()));
+                }
+                inFlight.add(pool.submit(() -> generate(report, batch)));
+            }
+            while (!inFlight.isEmpty()) {
+                out.write(await(inFlight.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        EventLog.getInstance().logEvent(new Event("Exported " + students.size() + " reports to: " + file));
+        return students.size();
+    }
+
+    // EFFECTS: returns the reports of batch written by report, each followed by a blank line
+    private static String generate(StudentReport report, List<Student> batch) throws IOException {
+        StringWriter text = new StringWriter();
+        for (Student student : batch) {
+            report.write(student, text);
+            text.write("\n");
+        }
+        return text.toString();
+    }
+
+    // EFFECTS: returns the result of a task, rethrowing what made it fail
+    private static <T> T await(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting reports", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to generate reports", e.getCause());
+        }
+    }
+}
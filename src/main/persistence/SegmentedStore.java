@@ -0,0 +1,302 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.Student;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Represents grade tracker data stored as a file of independent segments, one per course or student.
+// Each segment is a 9 byte header (kind, ID, length) followed by the record's JSON. When saving, records that
+// are not dirty and whose segment is known from the last read or write are carried over from the old file by
+// byte copy, with adjacent segments copied in a single transfer; only dirty records are re-serialized.
+// Larger record bodies are deflated individually, so compressed segments can still be copied as they are.
+public class SegmentedStore {
+
+    private static final int MAGIC = 0x47545347; // "GTSG"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int SEGMENT_HEADER = 9;
+    private static final byte COURSE = 0;
+    private static final byte STUDENT = 1;
+    private static final byte DEFLATED = (byte) 0x80;
+    private static final int MIN_DEFLATED_BODY = 128;
+
+    private final Path path;
+    private final int compressionLevel;
+    private Map<Long, long[]> segments;
+    private long indexedSize;
+    private long indexedModified;
+    private int lastCopied;
+
+    // EFFECTS: constructs a store for the file at path that deflates record bodies with the default level
+    public SegmentedStore(String path) {
+        this(path, JsonWriter.getDefaultCompressionLevel());
+    }
+
+    // REQUIRES: compressionLevel is Deflater.DEFAULT_COMPRESSION or in [0, 9]
+    // EFFECTS: constructs a store for the file at path that deflates record bodies with compressionLevel;
+    //          level 0 stores them uncompressed
+    public SegmentedStore(String path, int compressionLevel) {
+        this.path = Paths.get(path);
+        this.compressionLevel = compressionLevel;
+        this.segments = new HashMap<>();
+    }
+
+    // EFFECTS: returns the file this store reads and writes
+    public File getFile() {
+        return path.toFile();
+    }
+
+    // EFFECTS: returns how many records the last write carried over by byte copy
+    public int getLastCopied() {
+        return lastCopied;
+    }
+
+    // MODIFIES: this, students, courses
+    // EFFECTS: writes students and courses to the file through a temporary file and an atomic rename, copying the
+    //          segments of records unchanged since the last read or write, and marks every record clean;
+    //          throws IOException if the file cannot be written
+    public void write(List<Student> students, List<Course> courses) throws IOException {
+        Map<Long, long[]> written = new HashMap<>();
+        Path temp = Paths.get(path + ".tmp");
+        boolean reuse = isIndexCurrent();
+        lastCopied = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel in = reuse ? FileChannel.open(path, StandardOpenOption.READ) : null) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION);
+            writeFully(out, header.flip());
+            CopyRun run = new CopyRun(in, out);
+            for (Course course : courses) {
+                writeRecord(run, written, COURSE, course.getCourseID(), course.isDirty(), course::toJson);
+            }
+            for (Student student : students) {
+                writeRecord(run, written, STUDENT, student.getStudentID(), student.isDirty(), student::toJson);
+            }
+            run.flush();
+            out.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        courses.forEach(Course::markClean);
+        students.forEach(Student::markClean);
+        remember(written);
+        EventLog.getInstance().logEvent(new Event("Saved data to: " + path + " (" + lastCopied + " of "
+                + written.size() + " records unchanged)"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads students and courses from the file, links students to their courses and marks every record
+    //          clean; throws IOException if the file cannot be read or is not a segmented store
+    public JsonReader.Pair<List<Student>, List<Course>> read() throws IOException {
+        Map<Long, long[]> found = new HashMap<>();
+        List<Course> courses = new ArrayList<>();
+        List<JSONObject> studentJsons = new ArrayList<>();
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(in, 0, FILE_HEADER);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a segmented grade tracker file: " + path);
+            }
+            long position = FILE_HEADER;
+            long size = in.size();
+            while (position < size) {
+                ByteBuffer segmentHeader = readFully(in, position, SEGMENT_HEADER);
+                byte flags = segmentHeader.get();
+                byte kind = (byte) (flags & ~DEFLATED);
+                int id = segmentHeader.getInt();
+                int length = segmentHeader.getInt();
+                byte[] body = readFully(in, position + SEGMENT_HEADER, length).array();
+                if ((flags & DEFLATED) != 0) {
+                    body = inflate(body);
+                }
+                JSONObject json = new JSONObject(new String(body, StandardCharsets.UTF_8));
+                if (kind == COURSE) {
+                    courses.add(JsonReader.parseCourse(json));
+                } else {
+                    studentJsons.add(json);
+                }
+                track(found, key(kind, id), new long[]{position, SEGMENT_HEADER + length});
+                position += SEGMENT_HEADER + length;
+            }
+        }
+        JsonReader parser = new JsonReader(path.toString());
+        List<Student> students = new ArrayList<>();
+        for (JSONObject json : studentJsons) {
+            students.add(parser.parseStudent(json, courses));
+        }
+        courses.forEach(Course::markClean);
+        students.forEach(Student::markClean);
+        remember(found);
+        EventLog.getInstance().logEvent(new Event("Loaded Data From: " + path));
+        return new JsonReader.Pair<>(students, courses);
+    }
+
+    // MODIFIES: this, run, written
+    // EFFECTS: appends the segment for the record of the given kind and ID, copying it from the old file when it
+    //          is clean and known, and serializing it otherwise
+    private void writeRecord(CopyRun run, Map<Long, long[]> written, byte kind, int id, boolean dirty,
+                             Supplier<JSONObject> toJson) throws IOException {
+        long key = key(kind, id);
+        long[] old = segments.get(key);
+        long position = run.position();
+        if (!dirty && old != null && run.canCopy() && !written.containsKey(key)) {
+            run.copy(old[0], old[1]);
+            written.put(key, new long[]{position, old[1]});
+            lastCopied++;
+            return;
+        }
+        byte[] body = toJson.get().toString().getBytes(StandardCharsets.UTF_8);
+        byte flags = kind;
+        if (compressionLevel != Deflater.NO_COMPRESSION && body.length >= MIN_DEFLATED_BODY) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                body = deflated;
+                flags |= DEFLATED;
+            }
+        }
+        ByteBuffer segment = ByteBuffer.allocate(SEGMENT_HEADER + body.length);
+        segment.put(flags).putInt(id).putInt(body.length).put(body);
+        run.write(segment.flip());
+        track(written, key, new long[]{position, segment.limit()});
+    }
+
+    // EFFECTS: returns body deflated with this store's compression level
+    private byte[] deflate(byte[] body) throws IOException {
+        Deflater deflater = new Deflater(compressionLevel);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 2);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(body);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    // EFFECTS: returns the inflated contents of a deflated record body
+    private static byte[] inflate(byte[] body) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // MODIFIES: index
+    // EFFECTS: records the segment of key; a key seen twice (two records sharing an ID) is marked ambiguous
+    //          with a null location, so neither record is ever carried over by copy
+    private static void track(Map<Long, long[]> index, long key, long[] segment) {
+        index.put(key, index.containsKey(key) ? null : segment);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: remembers where each record's segment is in the file as it is now
+    private void remember(Map<Long, long[]> index) throws IOException {
+        segments = index;
+        indexedSize = Files.size(path);
+        indexedModified = Files.getLastModifiedTime(path).toMillis();
+    }
+
+    // EFFECTS: returns true if the file is still the one the segment index was built from
+    private boolean isIndexCurrent() throws IOException {
+        return !segments.isEmpty() && Files.exists(path) && Files.size(path) == indexedSize
+                && Files.getLastModifiedTime(path).toMillis() == indexedModified;
+    }
+
+    // EFFECTS: returns the index key of the record of the given kind and ID
+    private static long key(byte kind, int id) {
+        return ((long) kind << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // EFFECTS: reads length bytes at position from in; throws IOException if the file ends first
+    private static ByteBuffer readFully(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated segmented grade tracker file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes all remaining bytes of buffer to out
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // Accumulates adjacent segments to copy from the old file so they are moved with one transferTo call
+    private static class CopyRun {
+        private final FileChannel in;
+        private final FileChannel out;
+        private long start = -1;
+        private long end = -1;
+
+        CopyRun(FileChannel in, FileChannel out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        // EFFECTS: returns true if there is an old file to copy from
+        boolean canCopy() {
+            return in != null;
+        }
+
+        // EFFECTS: returns the position in the output file at which the next segment will start
+        long position() throws IOException {
+            return out.position() + (start < 0 ? 0 : end - start);
+        }
+
+        // MODIFIES: this, out
+        // EFFECTS: adds the old segment at [from, from + length) to the run, flushing the run first if the
+        //          segment does not directly follow it
+        void copy(long from, long length) throws IOException {
+            if (start >= 0 && from != end) {
+                flush();
+            }
+            if (start < 0) {
+                start = from;
+                end = from;
+            }
+            end += length;
+        }
+
+        // MODIFIES: this, out
+        // EFFECTS: flushes the run, then writes segment
+        void write(ByteBuffer segment) throws IOException {
+            flush();
+            writeFully(out, segment);
+        }
+
+        // MODIFIES: this, out
+        // EFFECTS: copies the accumulated old segments to out
+        void flush() throws IOException {
+            long position = start;
+            while (position < end) {
+                position += in.transferTo(position, end - position, out);
+            }
+            start = -1;
+            end = -1;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package ui;
 
 import model.Course;
+import model.EventLog;
+import model.EventType;
 import model.Grade;
 import model.Student;
+import model.StudentReport;
+import persistence.CsvImporter;
 import persistence.JsonReader;
-import persistence.JsonWriter;
+import persistence.ReportExporter;
+import persistence.Journal;
 
 // import javax.swing.*;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,15 +25,13 @@ public class GradeTrackerApp {
     private final List<Course> courses; // Assuming you have a list of courses
     private Grade grade;
     static final String JSON_STORE = "gradeTracker.json"; // File path for the JSON data
-    private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
+    private Journal journal;
 
     public GradeTrackerApp() {
         students = new ArrayList<>();
         courses = new ArrayList<>();
         grade = new Grade();
-        jsonWriter = new JsonWriter(JSON_STORE);
-        jsonReader = new JsonReader(JSON_STORE);
+        journal = new Journal(JSON_STORE);
 
         runGradeTracker();
     }
@@ -63,9 +65,12 @@ public class GradeTrackerApp {
         System.out.println("\te -> Enter grades");
         System.out.println("\tg -> Calculate GPA");
         System.out.println("\tr -> Generate report");
+        System.out.println("\texp -> Export all reports");
         System.out.println("\ts -> Summary view");
         System.out.println("\tsv -> Save data");
         System.out.println("\tld -> Load data");
+        System.out.println("\timp -> Import grades from CSV");
+        System.out.println("\tlg -> Event logging settings");
         System.out.println("\tclr -> Clear save");
         System.out.println("\tq -> Quit");
     }
@@ -92,6 +97,9 @@ public class GradeTrackerApp {
             case "r":
                 doGenerateReport();
                 break;
+            case "exp":
+                doExportReports();
+                break;
             case "s":
                 doSummaryView();
                 break;
@@ -101,6 +109,12 @@ public class GradeTrackerApp {
             case "ld":
                 loadData();
                 break;
+            case "imp":
+                doImportGrades();
+                break;
+            case "lg":
+                doEventLogging();
+                break;
             case "clr":
                 clearSaveData();
                 break;
@@ -133,11 +147,10 @@ public class GradeTrackerApp {
         String inputString = input.nextLine().trim().toLowerCase();
         if (inputString.equals("y")) {
             try {
-                jsonWriter.open();
-                jsonWriter.write(new ArrayList<>(), new ArrayList<>()); // Writing empty lists to the file
-                jsonWriter.close();
+                journal.checkpoint(new ArrayList<>(), new ArrayList<>()); // Writing empty lists to the file
+                journal.detach();
                 System.out.println("All saved data has been cleared.");
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 System.out.println("Unable to access the file: " + JSON_STORE);
             }
         } else {
@@ -147,10 +160,79 @@ public class GradeTrackerApp {
 
 
     // MODIFIES: this
-    // EFFECTS: loads students and courses from file
+    // EFFECTS: imports students, enrollments and grades from a CSV file of studentID,studentName,course,grade
+    //          rows; rejected rows are written next to it. The next save writes a full snapshot.
+    private void doImportGrades() {
+        System.out.println("Enter the path of the CSV file to import:");
+        String source = input.nextLine().trim();
+        String rejects = source + CsvImporter.REJECTS_SUFFIX;
+        try {
+            CsvImporter.Result result = new CsvImporter(students, courses).importFile(source, rejects);
+            System.out.println("Imported " + result.imported + " grades (" + result.createdStudents
+                    + " new students).");
+            if (result.rejected > 0) {
+                System.out.println(result.rejected + " rows were rejected, see " + rejects);
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to import from file: " + source);
+        } finally {
+            journal.recordBulkChange();
+        }
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: shows which events of each type are logged and lets the user turn types off, sample them or turn
+    //          them back on, turn the measurement of logging on or off, and print what logging has cost
+    private void doEventLogging() {
+        EventLog log = EventLog.getInstance();
+        for (EventType type : EventType.values()) {
+            int oneIn = log.getSampling(type);
+            String setting = oneIn == EventLog.OFF ? "off" : oneIn == EventLog.ALL ? "all" : "1 in " + oneIn;
+            System.out.println("\t" + type + ": " + setting);
+        }
+        System.out.println("Measuring the cost of logging is " + (log.isMeasuring() ? "on" : "off") + ".");
+        while (true) {
+            System.out.println("Enter a type and 0 (off), 1 (all) or n (1 in n); m to turn measuring on or off;"
+                    + " cost to print the measured cost; or nothing to go back:");
+            String line = input.nextLine().trim();
+            if (line.isEmpty()) {
+                return;
+            } else if (line.equalsIgnoreCase("m")) {
+                log.setMeasuring(!log.isMeasuring());
+                System.out.println("Measuring is now " + (log.isMeasuring() ? "on" : "off") + ".");
+            } else if (line.equalsIgnoreCase("cost")) {
+                List<EventLog.Cost> costs = log.getCosts();
+                if (costs.isEmpty()) {
+                    System.out.println("Nothing has been measured.");
+                }
+                costs.forEach(System.out::println);
+            } else {
+                setSampling(log, line);
+            }
+        }
+    }
+
+    // MODIFIES: EventLog
+    // EFFECTS: sets the sampling of the type named in a line of the form "<type> <n>", or explains why it cannot
+    private static void setSampling(EventLog log, String line) {
+        String[] parts = line.split("\\s+");
+        try {
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            EventType type = EventType.valueOf(parts[0].toUpperCase());
+            log.setSampling(type, Integer.parseInt(parts[1]));
+            System.out.println(type + " set to " + parts[1] + ".");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Enter one of the types above followed by a number of 0 or more.");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: loads students and courses from the snapshot file and replays the changes journaled since
     public void loadData() {
         try {
-            JsonReader.Pair<List<Student>, List<Course>> data = jsonReader.read();
+            JsonReader.Pair<List<Student>, List<Course>> data = journal.replay();
             students.clear();
             courses.clear();
             students.addAll(data.first);
@@ -163,20 +245,13 @@ public class GradeTrackerApp {
 
 
     // MODIFIES: this
-    // EFFECTS: saves the current state to the JSON file
+    // EFFECTS: saves the current state, appending only the changes made since the last save to the journal
+    //          when possible and folding the journal into a full JSON snapshot otherwise
     public void saveData() {
         try {
-            for (Course course : courses) {
-                System.out.println("Saving course: " + course.getCourseName());
-                System.out.println("Enrolled students IDs: " + course.getEnrolledStudentsID());
-                System.out.println("Student grades: " + course.getStudentGrades());
-            }
-
-            jsonWriter.open();
-            jsonWriter.write(students, courses);
-            jsonWriter.close();
+            journal.save(students, courses);
             System.out.println("Data saved successfully to " + JSON_STORE);
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             System.out.println("Unable to write to file: " + JSON_STORE);
         } catch (Exception e) {
             e.printStackTrace();
@@ -211,6 +286,7 @@ public class GradeTrackerApp {
         }
 
         students.add(newStudent);
+        journal.recordAddStudent(newStudent);
         System.out.println("New student added: " + name + " with ID " + id);
     }
 
@@ -275,6 +351,7 @@ public class GradeTrackerApp {
 
         Course newCourse = new Course(name, code, description, courseID, credits, percentageGrade);
         courses.add(newCourse);
+        journal.recordAddCourse(newCourse);
         System.out.println("New course added: " + name + " (" + code + ")");
     }
 
@@ -348,6 +425,7 @@ public class GradeTrackerApp {
             System.out.println("Enter grade:");
             double grade = Double.parseDouble(input.nextLine());
             course.addGrade(student, grade);
+            journal.recordAddGrade(student, course, grade);
         } catch (NumberFormatException e) {
             System.out.println("Invalid input. PLease enter a valid number.");
         }
@@ -397,6 +475,22 @@ public class GradeTrackerApp {
     }
 
 
+    // Effects: exports the report of every student, to one file if the given path ends in .txt and to a file per
+    //          student in the given directory otherwise
+    private void doExportReports() {
+        System.out.println("Enter a .txt file for a single report file, or a directory for one file per student:");
+        String target = input.nextLine().trim();
+        ReportExporter exporter = new ReportExporter(students, courses);
+        try {
+            int count = target.toLowerCase().endsWith(".txt") ? exporter.exportToFile(target)
+                    : exporter.exportToDirectory(target);
+            System.out.println("Exported " + count + " reports to " + target);
+        } catch (IOException e) {
+            System.out.println("Unable to export reports to: " + target);
+        }
+    }
+
+
     // Requires: there should be a student and a course.
     // Modifies: this
     // Effects: Shows the summary view of grade distributions for a all courses
@@ -458,55 +552,7 @@ public class GradeTrackerApp {
 
     // Effects: Generates a collective report on the given student.
     private String generateReport(Student student) {
-        StringBuilder reportBuilder = new StringBuilder();
-        reportBuilder.append("Report for Student ID: ").append(student.getStudentID()).append("\n");
-        reportBuilder.append("Name: ").append(student.getName()).append("\n\n");
-        reportBuilder.append("Courses Enrolled:\n");
-
-        for (Integer courseId : student.getEnrolledCourses()) {
-            Course currentCourse = findCourseById(courseId);
-            Double courseGrade = currentCourse.getGrade(student);
-            if (currentCourse != null) {
-                if (courseGrade != null) {
-                    getInformation(reportBuilder, currentCourse, courseGrade);
-                } else {
-                    reportBuilder.append(currentCourse.getCourseName())
-                            .append(" (")
-                            .append(currentCourse.getCourseCode())
-                            .append(") - Grade: Not available\n");
-                }
-
-            }
-        }
-
-        double gpa = grade.calculateGPA(getStudentCourses(student));
-        reportBuilder.append("\nCumulative GPA: ").append(String.format("%.2f", gpa)).append("\n");
-
-        return reportBuilder.toString();
-    }
-
-    // Modifies: reportBuilder
-    // Effects: appends course information and letter grade to reportBuilder
-    private void getInformation(StringBuilder reportBuilder, Course course, double grade) {
-        String letterGrade = this.grade.percentageToLetterGrade(grade);
-        reportBuilder.append(course.getCourseName())
-                .append(" (")
-                .append(course.getCourseCode())
-                .append(") - Grade: ")
-                .append(letterGrade)
-                .append("\n");
-    }
-
-    // Effects: get the List of Course objects from a student's enrolled courses IDs
-    private List<Course> getStudentCourses(Student student) {
-        List<Course> studentCourses = new ArrayList<>();
-        for (Integer courseId : student.getEnrolledCourses()) {
-            Course course = findCourseById(courseId);
-            if (course != null) {
-                studentCourses.add(course);
-            }
-        }
-        return studentCourses;
+        return new StudentReport(courses).generate(student);
     }
 
 }
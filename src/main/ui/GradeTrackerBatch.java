@@ -0,0 +1,389 @@
+package ui;
+
+import model.Course;
+import model.Student;
+import model.StudentReport;
+import persistence.JsonReader;
+import persistence.Journal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Represents the non-interactive batch mode of the console app: it runs a script of commands, one per line, without
+// prompting, and writes everything through the one writer it is given, which should be buffered. Students and
+// courses are found through hash indexes, and grades are set through each course's index of its roster, so adding,
+// enrolling and grading take the same time however many students there are. Reports and GPAs share one report
+// generator, which indexes each course's grades the first time they are needed and is discarded when a command
+// changes data, so only the first report or GPA after a change reads the rosters of the student's courses. Blank
+// lines and lines starting with # are skipped. The commands are:
+//   student <id> <name>                     adds a student
+//   course <id> <code> <credits> <name>     adds a course out of 100%
+//   enroll <studentID> <courseCode>         enrolls a student in a course
+//   grade <studentID> <courseCode> <grade>  enters a student's grade in a course they are enrolled in
+//   report <studentID>                      writes a student's report
+//   gpa <studentID>                         writes a student's GPA
+//   summary                                 writes the summary view of every course
+//   save [file]                             saves, journaling only what changed since the file was last saved
+//   load [file]                             loads the data saved in a file
+//   verbosity quiet|normal|verbose          sets what the commands after it write
+// Changes are journaled as the console app journals them. A command that cannot be run writes why, with its line
+// number, and the script carries on.
+public class GradeTrackerBatch {
+
+    // What commands write: QUIET writes only what reports, GPAs and summaries ask for, and errors; NORMAL also
+    // confirms each change; VERBOSE also echoes each command with its line number
+    public enum Verbosity { QUIET, NORMAL, VERBOSE }
+
+    public static final String QUIET_FLAG = "--quiet";
+    public static final String VERBOSE_FLAG = "--verbose";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<Student> students;
+    private final List<Course> courses;
+    private final Map<Integer, Student> studentsById;
+    private final Map<Integer, Course> coursesById;
+    private final Map<String, Course> coursesByCode;
+    private Journal journal;
+    private StudentReport report;
+    private Verbosity verbosity;
+    private Writer out;
+    private int lineNumber;
+    private int errors;
+
+    // EFFECTS: constructs a batch run with no students or courses that saves to and loads from file by default and
+    //          starts at the given verbosity
+    public GradeTrackerBatch(String file, Verbosity verbosity) {
+        this.students = new ArrayList<>();
+        this.courses = new ArrayList<>();
+        this.studentsById = new HashMap<>();
+        this.coursesById = new HashMap<>();
+        this.coursesByCode = new HashMap<>();
+        this.journal = new Journal(file);
+        this.verbosity = verbosity;
+    }
+
+    // EFFECTS: runs the script named by the first argument that is not a flag, or standard input if there is none,
+    //          at the verbosity --quiet or --verbose give, or NORMAL, writing to standard output; exits with status 1
+    //          if a command could not be run
+    public static void main(String[] args) throws IOException {
+        Verbosity verbosity = Verbosity.NORMAL;
+        String script = null;
+        for (String arg : args) {
+            if (arg.equals(QUIET_FLAG)) {
+                verbosity = Verbosity.QUIET;
+            } else if (arg.equals(VERBOSE_FLAG)) {
+                verbosity = Verbosity.VERBOSE;
+            } else {
+                script = arg;
+            }
+        }
+        GradeTrackerBatch batch = new GradeTrackerBatch(GradeTrackerApp.JSON_STORE, verbosity);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        int failed;
+        try (InputStream in = script == null ? System.in : new FileInputStream(script)) {
+            failed = batch.run(new InputStreamReader(in, StandardCharsets.UTF_8), out);
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // EFFECTS: returns the students, in the order they were added or loaded
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    // EFFECTS: returns the courses, in the order they were added or loaded
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: runs every command of script, writing to out, which is flushed at the end, and returns how many
+    //          commands could not be run; throws IOException if script cannot be read or out cannot be written
+    public int run(Reader script, Writer out) throws IOException {
+        this.out = out;
+        int failed = errors;
+        int commands = 0;
+        BufferedReader in = script instanceof BufferedReader ? (BufferedReader) script
+                : new BufferedReader(script, BUFFER_SIZE);
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (verbosity == Verbosity.VERBOSE) {
+                out.write(lineNumber + "> " + line + "\n");
+            }
+            commands++;
+            try {
+                runCommand(line);
+            } catch (NumberFormatException e) {
+                error("expected a number: " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                error(e.getMessage());
+            }
+        }
+        failed = errors - failed;
+        if (verbosity != Verbosity.QUIET) {
+            out.write("Ran " + commands + " commands, " + failed + " failed.\n");
+        }
+        out.flush();
+        return failed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: runs one command; throws IllegalArgumentException if it is unknown or malformed
+    @SuppressWarnings({"checkstyle:MethodLength", "checkstyle:SuppressWarnings"})
+    private void runCommand(String line) throws IOException {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String rest = space < 0 ? "" : line.substring(space + 1).trim();
+        switch (command.toLowerCase()) {
+            case "student":
+                addStudent(fields(rest, 2, "student <id> <name>"));
+                break;
+            case "course":
+                addCourse(fields(rest, 4, "course <id> <code> <credits> <name>"));
+                break;
+            case "enroll":
+                enroll(fields(rest, 2, "enroll <studentID> <courseCode>"));
+                break;
+            case "grade":
+                enterGrade(fields(rest, 3, "grade <studentID> <courseCode> <grade>"));
+                break;
+            case "report":
+                report().write(student(fields(rest, 1, "report <studentID>")[0]), out);
+                out.write('\n');
+                break;
+            case "gpa":
+                writeGpa(student(fields(rest, 1, "gpa <studentID>")[0]));
+                break;
+            case "summary":
+                writeSummary();
+                break;
+            case "save":
+                save(rest);
+                break;
+            case "load":
+                load(rest);
+                break;
+            case "verbosity":
+                verbosity = Verbosity.valueOf(fields(rest, 1, "verbosity quiet|normal|verbose")[0].toUpperCase());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command: " + command);
+        }
+    }
+
+    // EFFECTS: returns the count fields of text, separated by whitespace, with the last one holding the rest of
+    //          text; throws IllegalArgumentException showing usage if there are fewer
+    private static String[] fields(String text, int count, String usage) {
+        String[] fields = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; i++) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("usage: " + usage);
+            }
+            fields[i] = text.substring(start, end);
+            start = end + 1;
+            while (start < text.length() && text.charAt(start) == ' ') {
+                start++;
+            }
+        }
+        fields[count - 1] = text.substring(start);
+        if (fields[count - 1].isEmpty()) {
+            throw new IllegalArgumentException("usage: " + usage);
+        }
+        return fields;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the student with the ID and name in fields
+    private void addStudent(String[] fields) throws IOException {
+        int id = Integer.parseInt(fields[0]);
+        if (studentsById.containsKey(id)) {
+            throw new IllegalArgumentException("a student with ID " + id + " already exists");
+        }
+        Student student = new Student(fields[1], id);
+        students.add(student);
+        studentsById.put(id, student);
+        report = null;
+        journal.recordAddStudent(student);
+        confirm("New student added: " + student.getName() + " with ID " + id);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the course with the ID, code, credits and name in fields
+    private void addCourse(String[] fields) throws IOException {
+        int id = Integer.parseInt(fields[0]);
+        int credits = Integer.parseInt(fields[2]);
+        if (coursesById.containsKey(id)) {
+            throw new IllegalArgumentException("a course with ID " + id + " already exists");
+        } else if (coursesByCode.containsKey(fields[1])) {
+            throw new IllegalArgumentException("a course with code " + fields[1] + " already exists");
+        }
+        Course course = new Course(fields[3], fields[1], "", id, credits, 100.0);
+        courses.add(course);
+        index(course);
+        report = null;
+        journal.recordAddCourse(course);
+        confirm("New course added: " + course.getCourseName() + " (" + course.getCourseCode() + ")");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enrolls the student in fields in the course in fields
+    private void enroll(String[] fields) throws IOException {
+        Student student = student(fields[0]);
+        Course course = course(fields[1]);
+        if (student.getEnrolledCourses().contains(course.getCourseID())) {
+            throw new IllegalArgumentException("student " + student.getStudentID() + " is already enrolled in "
+                    + course.getCourseCode());
+        }
+        student.addCourse(course);
+        course.enrollStudent(student);
+        report = null;
+        journal.recordEnroll(student, course);
+        confirm("Student " + student.getStudentID() + " enrolled in course: " + course.getCourseName());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enters the grade in fields for the student in fields in the course in fields
+    private void enterGrade(String[] fields) throws IOException {
+        Student student = student(fields[0]);
+        Course course = course(fields[1]);
+        double value = Double.parseDouble(fields[2]);
+        if (!student.getEnrolledCourses().contains(course.getCourseID())) {
+            throw new IllegalArgumentException("student " + student.getStudentID() + " is not enrolled in "
+                    + course.getCourseCode());
+        }
+        course.setGrades(new int[]{student.getStudentID()}, new double[]{value});
+        report = null;
+        journal.recordSetGrade(student, course, value);
+        confirm("Grade " + value + " entered for student " + student.getStudentID() + " in "
+                + course.getCourseCode());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the GPA of student over the courses it is enrolled in, as the console app shows it
+    private void writeGpa(Student student) throws IOException {
+        out.write(String.format("The GPA for student ID %d is: %.2f%n", student.getStudentID(),
+                report().gpa(student)));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the report generator for the current students and courses, making one if a command changed
+    //          them since the last was made
+    private StudentReport report() {
+        if (report == null) {
+            report = new StudentReport(courses);
+        }
+        return report;
+    }
+
+    // EFFECTS: writes the summary view of every course, as the console app shows it
+    private void writeSummary() throws IOException {
+        out.write("Summary of Courses:\n");
+        out.write(String.format("%-10s %-30s %-10s %-15s %-15s %-15s%n", "Course ID", "Course Name", "Credits",
+                "Average Grade", "Median Grade", "Std Deviation"));
+        for (Course course : courses) {
+            out.write(String.format("%-10d %-30s %-10d %-15.2f %-15.2f %-15.2f%n", course.getCourseID(),
+                    course.getCourseName(), course.getCredits(), course.calculateAverageGrade(),
+                    course.calculateMedianGrade(), course.calculateStandardDeviation()));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves to file, or to the file last saved or loaded if file is empty
+    private void save(String file) throws IOException {
+        if (!file.isEmpty() && !file.equals(journal.getSnapshotPath())) {
+            journal = new Journal(file);
+        }
+        try {
+            journal.save(students, courses);
+            confirm("Data saved successfully to " + journal.getSnapshotPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("unable to write to file: " + journal.getSnapshotPath());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the students and courses with those saved in file, or in the file last saved or loaded if
+    //          file is empty
+    private void load(String file) throws IOException {
+        Journal loading = file.isEmpty() ? new Journal(journal.getSnapshotPath()) : new Journal(file);
+        JsonReader.Pair<List<Student>, List<Course>> data;
+        try {
+            data = loading.replay();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("unable to read from file: " + loading.getSnapshotPath());
+        }
+        journal = loading;
+        students.clear();
+        students.addAll(data.first);
+        courses.clear();
+        courses.addAll(data.second);
+        studentsById.clear();
+        students.forEach(student -> studentsById.put(student.getStudentID(), student));
+        coursesById.clear();
+        coursesByCode.clear();
+        courses.forEach(this::index);
+        report = null;
+        confirm("Data loaded successfully from " + journal.getSnapshotPath());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes course by its ID and code
+    private void index(Course course) {
+        coursesById.put(course.getCourseID(), course);
+        coursesByCode.put(course.getCourseCode(), course);
+    }
+
+    // EFFECTS: returns the student with the ID in text; throws IllegalArgumentException if there is none
+    private Student student(String text) {
+        Student student = studentsById.get(Integer.parseInt(text));
+        if (student == null) {
+            throw new IllegalArgumentException("no student with ID " + text);
+        }
+        return student;
+    }
+
+    // EFFECTS: returns the course with code; throws IllegalArgumentException if there is none
+    private Course course(String code) {
+        Course course = coursesByCode.get(code);
+        if (course == null) {
+            throw new IllegalArgumentException("no course with code " + code);
+        }
+        return course;
+    }
+
+    // EFFECTS: writes message unless the verbosity is QUIET
+    private void confirm(String message) throws IOException {
+        if (verbosity != Verbosity.QUIET) {
+            out.write(message);
+            out.write('\n');
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes why the command on the current line could not be run
+    private void error(String message) throws IOException {
+        errors++;
+        out.write("Line " + lineNumber + ": " + message + "\n");
+    }
+}
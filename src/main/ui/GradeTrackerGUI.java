@@ -2,8 +2,20 @@ package ui;
 
 import model.Event;
 import model.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.AutoSaver;
+import persistence.CsvImporter;
+import persistence.EventJournal;
+import persistence.GradeStore;
 import persistence.JsonReader;
+import persistence.Journal;
 import persistence.JsonWriter;
+import persistence.PagedGradeStore;
+import persistence.Progress;
+import persistence.ReplicationPrimary;
+import persistence.ReportExporter;
+import persistence.SegmentedStore;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -11,10 +23,22 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 public class GradeTrackerGUI {
@@ -26,23 +50,40 @@ public class GradeTrackerGUI {
     private final List<Course> courses;
     private Grade grade;
     static final String JSON_STORE = "gradeTracker.json";
-    private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
-    private JTextArea displayArea;
+    static final String SEGMENTED_EXTENSION = ".gts";
+    static final String COMPRESSED_JSON_EXTENSION = ".json" + JsonWriter.COMPRESSED_EXTENSION;
+    static final String EVENT_JOURNAL_DIRECTORY = "gradeTrackerEvents";
+    static final String EVENT_TIME_FORMAT = "yyyy-MM-dd HH:mm";
+    static final int EVENT_PAGE_SIZE = 50;
+    private Journal journal;
+    private ReplicationPrimary replicationPrimary;
+    private FileWorker<?> fileWorker;
+    private final Semaphore fileLock = new Semaphore(1);
+    private SegmentedStore segmentedStore;
+    private AutoSaver autoSaver;
+    private EventJournal eventJournal;
+    private JLabel statusLabel;
+    private StudentTableModel studentTableModel;
     private JTextArea courseSummaryDisplayArea;
+    private final Map<Integer, Integer> enrollmentCounts;
 
 
     // GradeTrackerApp GUI constructor and Initializes the application with the provided lists of students and courses.
     public GradeTrackerGUI() {
         this.students = new ArrayList<>();
         this.courses = new ArrayList<>();
+        this.enrollmentCounts = new HashMap<>();
         grade = new Grade();
-        jsonWriter = new JsonWriter(JSON_STORE);
-        jsonReader = new JsonReader(JSON_STORE);
+        journal = openJournal(JSON_STORE);
+        autoSaver = new AutoSaver(AutoSaver.DEFAULT_INTERVAL_MILLIS, this::takeAutosaveSnapshot,
+                new AutoSaveStatus());
+        eventJournal = new EventJournal(EVENT_JOURNAL_DIRECTORY);
 
         setupStartupImage();
         initFrame();
         createAndShowGUI();
+        ChangeFeed.getInstance().subscribe(new DisplayUpdater(), SwingUtilities::invokeLater,
+                ChangeFeed.DEFAULT_CAPACITY);
     }
 
 
@@ -55,6 +96,9 @@ public class GradeTrackerGUI {
         frame.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent event) {
+                autoSaver.shutdown();
+                stopReplication();
+                closeEventJournal();
                 printLoggedEvents();
                 frame.dispose();
                 System.exit(0);
@@ -62,7 +106,16 @@ public class GradeTrackerGUI {
         });
     }
 
-    // Effects: prints all the logged events.
+    // Effects: writes the events not yet on disk to the event journal and stops it.
+    private void closeEventJournal() {
+        try {
+            eventJournal.close();
+        } catch (IOException e) {
+            System.out.println("Unable to write the event journal: " + e.getMessage());
+        }
+    }
+
+    // Effects: prints the logged events still held in the event log.
     private void printLoggedEvents() {
         System.out.println("---- Application Event Log Start ----");
         EventLog eventLog = EventLog.getInstance();
@@ -81,15 +134,18 @@ public class GradeTrackerGUI {
         createSidebar();
         createMenuBar();
 
-        displayArea = new JTextArea(15, 30);
-        displayArea.setEditable(false);
-        displayArea.setFont(new Font("Consolas", Font.PLAIN, 12));
+        studentTableModel = new StudentTableModel(students, courses);
+        JTable studentTable = new JTable(studentTableModel);
+        studentTable.setAutoCreateRowSorter(true);
+        studentTable.setFillsViewportHeight(true);
+        studentTable.setFont(new Font("Consolas", Font.PLAIN, 12));
+        studentTable.getColumnModel().getColumn(StudentTableModel.COURSES_COLUMN).setPreferredWidth(400);
 
         courseSummaryDisplayArea = new JTextArea(5, 30);
         courseSummaryDisplayArea.setEditable(false);
         courseSummaryDisplayArea.setFont(new Font("Consolas", Font.PLAIN, 12));
 
-        JScrollPane scrollPane = new JScrollPane(displayArea);
+        JScrollPane scrollPane = new JScrollPane(studentTable);
         JScrollPane summaryScrollPane = new JScrollPane(courseSummaryDisplayArea);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, scrollPane, summaryScrollPane);
@@ -100,8 +156,12 @@ public class GradeTrackerGUI {
         // Set up a border for spacing
         contentArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
+        statusLabel = new JLabel("Autosave starts once data is loaded or saved to a file.");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 10, 2, 10));
+
         frame.add(sidebar, BorderLayout.WEST);
         frame.add(contentArea, BorderLayout.CENTER);
+        frame.add(statusLabel, BorderLayout.SOUTH);
         frame.setJMenuBar(menuBar);
 
         frame.setMinimumSize(new Dimension(800, 600));
@@ -113,25 +173,44 @@ public class GradeTrackerGUI {
     }
 
     /**
-     * Updates the display area with the current data.
+     * Updates the display with the current data.
      * Modifies: this
-     * Effects: Updates the display area to show the current list of students and their enrolled courses.
+     * Effects: Refreshes the table of students and recounts the students enrolled in each course.
      */
     private void updateDisplay() {
-        StringBuilder sb = new StringBuilder("Students and Enrolled Courses:\n");
-
-        if (!students.isEmpty()) {
-            for (Student student : students) {
-                sb.append(student.getName()).append(" (ID: ").append(student.getStudentID()).append(")\n");
-                List<Course> enrolledCourses = getCoursesForStudent(student);
-                for (Course course : enrolledCourses) {
-                    Double grade = course.getGrade(student);
-                    sb.append("  - ").append(course.getCourseName()).append(": ").append(grade).append("\n");
-                }
-                sb.append("\n");
+        enrollmentCounts.clear();
+        for (Student student : students) {
+            for (int courseID : new HashSet<>(student.getEnrolledCourses())) {
+                enrollmentCounts.merge(courseID, 1, Integer::sum);
             }
         }
-        displayArea.setText(sb.toString());
+        studentTableModel.refresh();
+        updateCourseEnrollmentSummary();
+    }
+
+    /**
+     * Updates the display with a batch of changes from the ChangeFeed.
+     * Modifies: this
+     * Effects: Updates only the rows of the table the changes touch and counts again only the courses they are
+     *          about; rebuilds the whole display if students or courses were added, removed or renamed.
+     */
+    private void updateDisplay(List<Change> changes) {
+        Set<Integer> changedCourses = new HashSet<>();
+        for (Change change : changes) {
+            if (change.getKind().isStructural()) {
+                updateDisplay();
+                return;
+            }
+            if (change.getKind() != Change.Kind.GRADE_CHANGED) {
+                changedCourses.add(change.getCourseID());
+            }
+        }
+        studentTableModel.update(changes);
+        for (int courseID : changedCourses) {
+            enrollmentCounts.put(courseID, (int) students.stream()
+                    .filter(s -> s.getEnrolledCourses().contains(courseID))
+                    .count());
+        }
         updateCourseEnrollmentSummary();
     }
 
@@ -145,15 +224,40 @@ public class GradeTrackerGUI {
         summaryBuilder.append("Total number of Enrolled Students:\n");
 
         for (Course course : courses) {
-            long count = students.stream()
-                    .filter(s -> s.getEnrolledCourses().contains(course.getCourseID()))
-                    .count();
+            int count = enrollmentCounts.getOrDefault(course.getCourseID(), 0);
             summaryBuilder.append(String.format("Total Students in %s: %d%n", course.getCourseName(), count));
         }
 
         courseSummaryDisplayArea.setText(summaryBuilder.toString());
     }
 
+    // Receives the changes to students and courses on the event dispatch thread and updates the display with them,
+    // one coalesced batch at a time
+    private class DisplayUpdater implements Flow.Subscriber<List<Change>> {
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<Change> changes) {
+            updateDisplay(changes);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            updateDisplay();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
 
     // Effects: sets up the startup image of the app.
     private void setupStartupImage() {
@@ -305,6 +409,26 @@ public class GradeTrackerGUI {
         saveItem.addActionListener(e -> doSaveData());
         fileMenu.add(saveItem);
 
+        // Import Grades MenuItem
+        JMenuItem importItem = new JMenuItem("Import Grades (CSV)...");
+        importItem.addActionListener(e -> doImportGrades());
+        fileMenu.add(importItem);
+
+        // Export Reports MenuItem
+        JMenuItem exportItem = new JMenuItem("Export All Reports...");
+        exportItem.addActionListener(e -> doExportReports());
+        fileMenu.add(exportItem);
+
+        // Autosave Interval MenuItem
+        JMenuItem autosaveItem = new JMenuItem("Autosave Interval...");
+        autosaveItem.addActionListener(e -> doSetAutosaveInterval());
+        fileMenu.add(autosaveItem);
+
+        // Replication MenuItem
+        JMenuItem replicationItem = new JMenuItem("Start Replication...");
+        replicationItem.addActionListener(e -> doStartReplication());
+        fileMenu.add(replicationItem);
+
         // Clear Data MenuItem
         JMenuItem clearItem = new JMenuItem("Clear Data");
         clearItem.addActionListener(e -> doClearData());
@@ -329,26 +453,175 @@ public class GradeTrackerGUI {
         JMenuItem clearLogItem = new JMenuItem("Clear Log");
         clearLogItem.addActionListener(e -> doClearEventLog());
         eventLogMenu.add(clearLogItem);
+
+        // Logging Settings MenuItem
+        JMenuItem loggingSettingsItem = new JMenuItem("Logging Settings...");
+        loggingSettingsItem.addActionListener(e -> doEventLoggingSettings());
+        eventLogMenu.add(loggingSettingsItem);
+
+        // Logging Cost MenuItem
+        JMenuItem loggingCostItem = new JMenuItem("Logging Cost");
+        loggingCostItem.addActionListener(e -> doShowLoggingCost());
+        eventLogMenu.add(loggingCostItem);
     }
 
 
     /**
-     * Displays the event log.
-     * Effects: Shows the event log in a dialog or the display area.
+     * Displays the event log a page at a time.
+     * Effects: Shows a dialog where the events can be filtered by student ID, course ID, type and time range, and
+     *          shows the first page of matching events; Next Page shows the following page.
      */
     private void doViewEventLog() {
-        EventLog eventLog = EventLog.getInstance();
-        StringBuilder logBuilder = new StringBuilder();
-        for (Event each : eventLog) {
-            logBuilder.append(each.toString()).append("\n\n");
+        JTextField studentIdField = new JTextField(6);
+        JTextField courseIdField = new JTextField(6);
+        JComboBox<Object> typeBox = new JComboBox<>();
+        typeBox.addItem("All");
+        for (EventType type : EventType.values()) {
+            typeBox.addItem(type);
         }
-
-        // display in a pop-up dialog
+        JTextField fromField = new JTextField(12);
+        JTextField toField = new JTextField(12);
         JTextArea logTextArea = new JTextArea(25, 40);
-        logTextArea.setText(logBuilder.toString());
         logTextArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(logTextArea);
-        JOptionPane.showMessageDialog(frame, scrollPane, "Event Log", JOptionPane.INFORMATION_MESSAGE);
+        JButton searchButton = new JButton("Search");
+        JButton nextButton = new JButton("Next Page");
+        JLabel pageLabel = new JLabel();
+
+        JPanel filters = new JPanel(new GridLayout(0, 4, 5, 5));
+        filters.add(new JLabel("Student ID:"));
+        filters.add(studentIdField);
+        filters.add(new JLabel("Course ID:"));
+        filters.add(courseIdField);
+        filters.add(new JLabel("From (" + EVENT_TIME_FORMAT + "):"));
+        filters.add(fromField);
+        filters.add(new JLabel("To (" + EVENT_TIME_FORMAT + "):"));
+        filters.add(toField);
+        filters.add(new JLabel("Type:"));
+        filters.add(typeBox);
+        filters.add(searchButton);
+        filters.add(nextButton);
+
+        EventQuery[] query = new EventQuery[1];
+        long[] cursor = new long[1];
+        int[] pageNumber = new int[1];
+        Runnable showPage = () -> {
+            EventLog.Page page = EventLog.getInstance().query(query[0], cursor[0], EVENT_PAGE_SIZE);
+            StringBuilder text = new StringBuilder();
+            for (Event each : page.getEvents()) {
+                text.append(each.toString()).append("\n\n");
+            }
+            logTextArea.setText(text.toString());
+            logTextArea.setCaretPosition(0);
+            pageNumber[0]++;
+            pageLabel.setText("Page " + pageNumber[0] + (page.hasMore() ? "" : " (last)"));
+            cursor[0] = page.getNextCursor();
+            nextButton.setEnabled(page.hasMore());
+        };
+        searchButton.addActionListener(e -> {
+            try {
+                query[0] = buildEventQuery(studentIdField.getText(), courseIdField.getText(),
+                        typeBox.getSelectedItem(), fromField.getText(), toField.getText());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(frame, ex.getMessage(), "Invalid Filter", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            cursor[0] = 0;
+            pageNumber[0] = 0;
+            showPage.run();
+        });
+        nextButton.addActionListener(e -> showPage.run());
+        query[0] = new EventQuery();
+        showPage.run();
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(filters, BorderLayout.NORTH);
+        panel.add(new JScrollPane(logTextArea), BorderLayout.CENTER);
+        panel.add(pageLabel, BorderLayout.SOUTH);
+        JOptionPane.showMessageDialog(frame, panel, "Event Log", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Builds an event query from the filters in the event log dialog; blank filters match every event.
+     * Effects: returns the query, or throws IllegalArgumentException if an ID or time cannot be read.
+     */
+    private static EventQuery buildEventQuery(String studentId, String courseId, Object type, String from,
+                                              String to) {
+        EventQuery query = new EventQuery();
+        try {
+            if (!studentId.isBlank()) {
+                query.forStudent(Integer.parseInt(studentId.trim()));
+            }
+            if (!courseId.isBlank()) {
+                query.forCourse(Integer.parseInt(courseId.trim()));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("IDs must be whole numbers.");
+        }
+        if (type instanceof EventType) {
+            query.ofTypes((EventType) type);
+        }
+        SimpleDateFormat format = new SimpleDateFormat(EVENT_TIME_FORMAT);
+        format.setLenient(false);
+        try {
+            long fromMillis = from.isBlank() ? Long.MIN_VALUE : format.parse(from.trim()).getTime();
+            // the end of the minute given, so a range of one minute is inclusive
+            long toMillis = to.isBlank() ? Long.MAX_VALUE : format.parse(to.trim()).getTime() + 59_999;
+            query.between(fromMillis, toMillis);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Times must look like " + EVENT_TIME_FORMAT + ".");
+        }
+        return query;
+    }
+
+    /**
+     * Changes which events are logged.
+     * Modifies: EventLog
+     * Effects: Shows, for each type of event, whether none, all or one in n of its events are logged, and whether
+     *          the cost of logging is measured, and applies the changes if the user confirms them.
+     */
+    private void doEventLoggingSettings() {
+        EventLog eventLog = EventLog.getInstance();
+        JPanel panel = new JPanel(new GridLayout(0, 2, 10, 5));
+        panel.add(new JLabel("Log one in n events (0 = off, 1 = all)"));
+        panel.add(new JLabel());
+        List<JSpinner> spinners = new ArrayList<>();
+        for (EventType type : EventType.values()) {
+            JSpinner spinner = new JSpinner(new SpinnerNumberModel(eventLog.getSampling(type), 0, 1_000_000, 1));
+            spinners.add(spinner);
+            panel.add(new JLabel(type.toString()));
+            panel.add(spinner);
+        }
+        JCheckBox measuringBox = new JCheckBox("Measure the cost of logging", eventLog.isMeasuring());
+        panel.add(measuringBox);
+
+        int result = JOptionPane.showConfirmDialog(frame, panel, "Logging Settings", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            for (EventType type : EventType.values()) {
+                eventLog.setSampling(type, (Integer) spinners.get(type.ordinal()).getValue());
+            }
+            if (measuringBox.isSelected() != eventLog.isMeasuring()) {
+                eventLog.setMeasuring(measuringBox.isSelected());
+            }
+        }
+    }
+
+    /**
+     * Shows what logging has cost.
+     * Effects: Shows the time and memory taken logging each type of event since measuring was turned on.
+     */
+    private void doShowLoggingCost() {
+        EventLog eventLog = EventLog.getInstance();
+        StringBuilder text = new StringBuilder();
+        if (!eventLog.isMeasuring()) {
+            text.append("Measuring is off; turn it on in Logging Settings.\n");
+        }
+        for (EventLog.Cost cost : eventLog.getCosts()) {
+            text.append(cost).append("\n");
+        }
+        JTextArea costArea = new JTextArea(text.toString(), 12, 60);
+        costArea.setEditable(false);
+        JOptionPane.showMessageDialog(frame, new JScrollPane(costArea), "Logging Cost",
+                JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -424,6 +697,7 @@ public class GradeTrackerGUI {
 
         Course selectedCourse = (Course) courseComboBox.getSelectedItem();
         if (selectedCourse == null) return;
+        long version = selectedCourse.getVersion();
 
         JTextField courseNameField = new JTextField(selectedCourse.getCourseName());
         JTextField courseCodeField = new JTextField(selectedCourse.getCourseCode());
@@ -438,17 +712,26 @@ public class GradeTrackerGUI {
         int result = JOptionPane.showConfirmDialog(frame, panel, "Edit Course Details", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
             // Update course details
+            int oldId = selectedCourse.getCourseID();
             try {
+                // parse every field before changing anything, so a bad one leaves the course as it was
+                int courseID = Integer.parseInt(courseIDField.getText().trim());
+                int credits = Integer.parseInt(creditsField.getText().trim());
+                double percentageGrade = Double.parseDouble(percentageGradeField.getText().trim());
+                selectedCourse.checkVersion(version);
                 selectedCourse.setCourseName(courseNameField.getText().trim());
                 selectedCourse.setCourseCode(courseCodeField.getText().trim());
                 selectedCourse.setCourseDescription(courseDescriptionField.getText().trim());
-                selectedCourse.setCourseID(Integer.parseInt(courseIDField.getText().trim()));
-                selectedCourse.setCredits(Integer.parseInt(creditsField.getText().trim()));
-                selectedCourse.setPercentageGrade(Double.parseDouble(percentageGradeField.getText().trim()));
+                selectedCourse.setCourseID(courseID);
+                selectedCourse.setCredits(credits);
+                selectedCourse.setPercentageGrade(percentageGrade);
+                journal.recordEditCourse(oldId, selectedCourse);
+                autoSaver.markDirty();
                 JOptionPane.showMessageDialog(frame, "Course details updated!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                updateDisplay();
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(frame, "Invalid input for numeric fields.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            } catch (VersionConflictException e) {
+                showEditConflict("course");
             }
         }
 
@@ -460,6 +743,7 @@ public class GradeTrackerGUI {
 
         Student selectedStudent = (Student) studentComboBox.getSelectedItem();
         if (selectedStudent == null) return;
+        long version = selectedStudent.getVersion();
 
         JTextField nameField = new JTextField(selectedStudent.getName());
         JTextField idField = new JTextField(String.valueOf(selectedStudent.getStudentID()));
@@ -475,29 +759,60 @@ public class GradeTrackerGUI {
 
         int result = JOptionPane.showConfirmDialog(frame, studentPanel, "Edit Student Details", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
+            int oldId = selectedStudent.getStudentID();
             try {
+                // ask for and parse every input before changing anything, so a bad or cancelled one leaves the
+                // student as it was
                 int newId = Integer.parseInt(idField.getText().trim());
+                List<Course> selectedCourses = courseList.getSelectedValuesList();
+                List<Double> grades = new ArrayList<>();
+                for (Course course : selectedCourses) {
+                    // Allow editing grades
+                    String gradeStr = JOptionPane.showInputDialog(frame, "Enter grade for " + course.getCourseName(),
+                            "Grade Entry", JOptionPane.QUESTION_MESSAGE);
+                    if (gradeStr == null) {
+                        return;
+                    }
+                    grades.add(Double.parseDouble(gradeStr.trim()));
+                }
+                selectedStudent.checkVersion(version);
                 selectedStudent.setName(nameField.getText().trim());
                 selectedStudent.setStudentID(newId);
 
                 selectedStudent.clearCourses();
-                for (Course course : courseList.getSelectedValuesList()) {
+                for (int i = 0; i < selectedCourses.size(); i++) {
+                    Course course = selectedCourses.get(i);
                     selectedStudent.addCourse(course);
                     course.enrollStudent(selectedStudent);
-                    // Allow editing grades
-                    String gradeStr = JOptionPane.showInputDialog(frame, "Enter grade for " + course.getCourseName(),
-                            "Grade Entry", JOptionPane.QUESTION_MESSAGE);
-                    double grade = Double.parseDouble(gradeStr);
-                    course.addGrade(selectedStudent, grade);
+                    course.addGrade(selectedStudent, grades.get(i));
                 }
+                journalStudentEdit(oldId, selectedStudent, selectedCourses, grades);
+                autoSaver.markDirty();
                 JOptionPane.showMessageDialog(frame, "Student details updated!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                updateDisplay();
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(frame, "Invalid input for ID or grade.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            } catch (VersionConflictException e) {
+                showEditConflict("student");
             }
         }
     }
 
+    // Effects: tells the user their edit of a record was not applied because the record changed while they were
+    //          editing it
+    private void showEditConflict(String record) {
+        JOptionPane.showMessageDialog(frame, "This " + record + " was changed while you were editing it, so your "
+                + "edit was not applied. Please edit it again.", "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+    }
+
+    // Modifies: journal
+    // Effects: journals an edit of the student formerly identified by oldId, followed by its new grades
+    private void journalStudentEdit(int oldId, Student student, List<Course> enrolled, List<Double> grades) {
+        journal.recordEditStudent(oldId, student);
+        for (int i = 0; i < enrolled.size(); i++) {
+            journal.recordAddGrade(student, enrolled.get(i), grades.get(i));
+        }
+    }
+
     private int findCourseIndexById(Integer courseId) {
         for (int i = 0; i < courses.size(); i++) {
             if (courses.get(i).getCourseID() == courseId) {
@@ -663,11 +978,11 @@ public class GradeTrackerGUI {
                 }
 
                 students.add(newStudent);
+                ChangeFeed.getInstance().publish(Change.Kind.STUDENT_ADDED, id, 0);
+                journal.recordAddStudent(newStudent);
+                autoSaver.markDirty();
                 JOptionPane.showMessageDialog(frame, "Student added successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
-
-                SwingUtilities.invokeLater(this::updateDisplay);
-
             }
             
         } catch (NumberFormatException e) {
@@ -747,7 +1062,6 @@ public class GradeTrackerGUI {
                 return;
             }
         }
-        updateDisplay();
     }
 
     // helper method
@@ -772,6 +1086,9 @@ public class GradeTrackerGUI {
             Course newCourse = new Course(courseName, courseCode, courseDescription, courseID,
                     credits, percentageGrade);
             courses.add(newCourse);
+            ChangeFeed.getInstance().publish(Change.Kind.COURSE_ADDED, 0, courseID);
+            journal.recordAddCourse(newCourse);
+            autoSaver.markDirty();
             JOptionPane.showMessageDialog(frame, "Course added successfully!", "Success",
                     JOptionPane.INFORMATION_MESSAGE);
         } catch (NumberFormatException e) {
@@ -837,9 +1154,10 @@ public class GradeTrackerGUI {
                 grade = Double.parseDouble(gradeText);
                 // Here, add the grade to the selected course for the selected student
                 selectedCourse.addGrade(selectedStudent, grade);
+                journal.recordAddGrade(selectedStudent, selectedCourse, grade);
+                autoSaver.markDirty();
                 JOptionPane.showMessageDialog(frame, "Grade entered successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
-                updateDisplay();
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(frame, "Invalid grade format. Please enter a numeric value.",
                         "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -940,7 +1258,7 @@ public class GradeTrackerGUI {
                 .map(course -> "  - " + course.getCourseName() + " (" + course.getCourseCode() + ")")
                 .collect(Collectors.joining("\n"));
         double gpa = grade.calculateGPA(getCoursesForStudent(student));
-        EventLog.getInstance().logEvent(new Event("Calculated GPA for Student: " + student.getName()));
+        EventLog.getInstance().log(EventType.GPA_CALCULATED, student);
         String gpaInfo = String.format("GPA: %.2f", gpa);
 
         // Combine all info into one message
@@ -1023,8 +1341,7 @@ public class GradeTrackerGUI {
                     .append("\n");
         }
 
-        EventLog.getInstance().logEvent(new Event("Generated report for Student: " + student.getName()
-                + " (ID: " + student.getStudentID() + ")"));
+        EventLog.getInstance().log(EventType.REPORT_GENERATED, student);
         return report;
     }
 
@@ -1069,31 +1386,60 @@ public class GradeTrackerGUI {
         fileChooser.setApproveButtonText("Save");
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         fileChooser.setAcceptAllFileFilterUsed(false);
-        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("JSON Files", "json"));
+        FileNameExtensionFilter jsonFilter = new FileNameExtensionFilter("JSON Files", "json");
+        FileNameExtensionFilter compressedFilter = new FileNameExtensionFilter("Compressed JSON Files (.json.gz)",
+                "gz");
+        fileChooser.addChoosableFileFilter(jsonFilter);
+        fileChooser.addChoosableFileFilter(compressedFilter);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Segmented Grade Tracker Files", "gts"));
+        FileNameExtensionFilter pagedFilter = new FileNameExtensionFilter("Paged Grade Tracker Files", "gtp");
+        fileChooser.addChoosableFileFilter(pagedFilter);
+        fileChooser.setFileFilter(jsonFilter);
         int userSelection = fileChooser.showSaveDialog(frame);
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToSave = fileChooser.getSelectedFile();
-            // Ensure it has the .json extension
-            if (!fileToSave.getName().toLowerCase().endsWith(".json")) {
-                fileToSave = new File(fileToSave.getParentFile(), fileToSave.getName() + ".json");
+            // Ensure it has the extension of the selected format
+            String extension = SEGMENTED_EXTENSION;
+            if (fileChooser.getFileFilter() == jsonFilter) {
+                extension = ".json";
+            } else if (fileChooser.getFileFilter() == compressedFilter) {
+                extension = COMPRESSED_JSON_EXTENSION;
+            } else if (fileChooser.getFileFilter() == pagedFilter) {
+                extension = PagedGradeStore.EXTENSION;
+            }
+            if (!fileToSave.getName().toLowerCase().endsWith(extension)) {
+                fileToSave = new File(fileToSave.getParentFile(), fileToSave.getName() + extension);
             }
 
             tryForSaveData(fileToSave);
         }
-        updateDisplay();
     }
 
-    // helper method
+    // helper method: saves segmented stores incrementally and paged stores through their GradeStore; for JSON
+    // files, appends the changes since the last save to the journal of fileToSave when it is the file currently
+    // being edited, otherwise writes a full snapshot and starts a new journal for it
     private void tryForSaveData(File fileToSave) {
         try {
-            jsonWriter = new JsonWriter(fileToSave.getAbsolutePath());
-            jsonWriter.open();
-            jsonWriter.write(students, courses);
-            jsonWriter.close();
-            JOptionPane.showMessageDialog(frame, "Data saved successfully to "
-                            + fileToSave.getAbsolutePath(),"Save Successful", JOptionPane.INFORMATION_MESSAGE);
-        } catch (FileNotFoundException e) {
+            if (isSegmented(fileToSave.getAbsolutePath())) {
+                saveSegmented(fileToSave.getAbsolutePath());
+            } else if (isPaged(fileToSave.getAbsolutePath())) {
+                try (GradeStore store = GradeStore.forFile(fileToSave.getAbsolutePath())) {
+                    store.save(students, courses);
+                }
+                journal = openJournal(JSON_STORE);
+            } else {
+                if (!fileToSave.getAbsolutePath().equals(journal.getSnapshotPath())) {
+                    journal = openJournal(fileToSave.getAbsolutePath());
+                }
+                if (journal.isSnapshotDue()) {
+                    saveSnapshotInBackground(fileToSave.getAbsolutePath());
+                    return;
+                }
+                journal.save(students, courses);
+            }
+            showSaved(fileToSave.getAbsolutePath());
+        } catch (IOException e) {
             JOptionPane.showMessageDialog(frame, "Unable to write to file: " + fileToSave.getAbsolutePath(),
                     "File Error", JOptionPane.ERROR_MESSAGE);
         } catch (Exception e) {
@@ -1102,6 +1448,50 @@ public class GradeTrackerGUI {
         }
     }
 
+    // Effects: tells the user the data was saved to filePath.
+    private void showSaved(String filePath) {
+        JOptionPane.showMessageDialog(frame, "Data saved successfully to " + filePath, "Save Successful",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // Modifies: this
+    // Effects: writes a full snapshot of a copy of the data to the journal's file in the background, showing its
+    //          progress; changes made meanwhile are journaled after it. If the save fails or is cancelled, the file
+    //          is left as it was and the next save writes a full snapshot again. Throws IOException if the journal
+    //          file cannot be read.
+    private void saveSnapshotInBackground(String filePath) throws IOException {
+        List<Student> studentsCopy = new ArrayList<>(students.size());
+        students.forEach(student -> studentsCopy.add(student.copy()));
+        List<Course> coursesCopy = new ArrayList<>(courses.size());
+        courses.forEach(course -> coursesCopy.add(course.copy()));
+        Journal saving = journal;
+        Journal.Checkpoint checkpoint = saving.beginCheckpoint();
+        new FileWorker<Void>("Saving " + filePath) {
+            @Override
+            protected Void work() throws IOException {
+                checkpoint.write(studentsCopy, coursesCopy, this);
+                return null;
+            }
+
+            @Override
+            void succeeded(Void result) {
+                saving.finishCheckpoint(checkpoint);
+                showSaved(filePath);
+            }
+
+            @Override
+            void failed(Exception cause) {
+                saving.detach();
+                if (isCancelled() || cause instanceof InterruptedIOException) {
+                    statusLabel.setText("Saving to " + filePath + " was cancelled.");
+                } else {
+                    JOptionPane.showMessageDialog(frame, "Unable to write to file: " + filePath, "File Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.start();
+    }
+
     /**
      * Loads data from a file.
      * Modifies: students, courses
@@ -1112,7 +1502,8 @@ public class GradeTrackerGUI {
         fileChooser.setDialogTitle("Choose a file to load data from");
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         fileChooser.setAcceptAllFileFilterUsed(false);
-        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("JSON Files", "json"));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter(
+                "Grade Tracker Files (.json, .json.gz, .gts, .gtp)", "json", "gz", "gts", "gtp"));
 
         int userSelection = fileChooser.showOpenDialog(frame);
 
@@ -1121,27 +1512,139 @@ public class GradeTrackerGUI {
             String filePath = fileToLoad.getAbsolutePath();
             loadDataFromFile(filePath);
         }
-        updateDisplay();
     }
 
-    // helper method
+    // helper method: reads the file in the background, showing its progress, and swaps the data read in for the
+    // current data all at once when it is done; if reading fails or is cancelled, the current data is kept
     private void loadDataFromFile(String filePath) {
-        try {
-            jsonReader = new JsonReader(filePath);
-            JsonReader.Pair<List<Student>, List<Course>> data = jsonReader.read();
-            students.clear();
-            students.addAll(data.first);
-            courses.clear();
-            courses.addAll(data.second);
-            JOptionPane.showMessageDialog(frame, "Data loaded successfully from " + filePath,
-                    "Load Successful", JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(frame, "Unable to read from file: " + filePath, "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(frame, "An error occurred while loading the data.", "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace(); // For debugging
+        new FileWorker<JsonReader.Pair<List<Student>, List<Course>>>("Loading " + filePath) {
+            private SegmentedStore loadedStore;
+            private Journal loadedJournal;
+
+            @Override
+            protected JsonReader.Pair<List<Student>, List<Course>> work() throws IOException {
+                if (isSegmented(filePath)) {
+                    loadedStore = new SegmentedStore(filePath);
+                    return loadedStore.read();
+                } else if (isPaged(filePath)) {
+                    try (GradeStore store = GradeStore.forFile(filePath)) {
+                        return store.load();
+                    }
+                }
+                loadedJournal = new Journal(filePath);
+                return loadedJournal.replay(this);
+            }
+
+            @Override
+            void succeeded(JsonReader.Pair<List<Student>, List<Course>> data) {
+                if (loadedStore != null) {
+                    segmentedStore = loadedStore;
+                }
+                journal = loadedJournal == null ? openJournal(JSON_STORE) : replicated(loadedJournal);
+                students.clear();
+                students.addAll(data.first);
+                courses.clear();
+                courses.addAll(data.second);
+                ChangeFeed.getInstance().publish(Change.reset());
+                JOptionPane.showMessageDialog(frame, "Data loaded successfully from " + filePath,
+                        "Load Successful", JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            @Override
+            void failed(Exception cause) {
+                if (isCancelled() || cause instanceof InterruptedIOException) {
+                    statusLabel.setText("Loading " + filePath + " was cancelled.");
+                } else if (cause instanceof IOException) {
+                    JOptionPane.showMessageDialog(frame, "Unable to read from file: " + filePath, "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(frame, "An error occurred while loading the data.", "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace(); // For debugging
+                }
+            }
+        }.start();
+    }
+
+    // Effects: returns true if filePath names a segmented store rather than a JSON snapshot
+    private static boolean isSegmented(String filePath) {
+        return filePath.toLowerCase().endsWith(SEGMENTED_EXTENSION);
+    }
+
+    // Effects: returns true if filePath names a paged store
+    private static boolean isPaged(String filePath) {
+        return filePath.toLowerCase().endsWith(PagedGradeStore.EXTENSION);
+    }
+
+    // helper method: saves to a segmented store, re-serializing only the students and courses changed since the
+    // file was last loaded or saved. Journaling and autosave only apply to JSON files, so the journal is detached.
+    private void saveSegmented(String filePath) throws IOException {
+        if (segmentedStore == null || !new File(filePath).equals(segmentedStore.getFile())) {
+            segmentedStore = new SegmentedStore(filePath);
+        }
+        segmentedStore.write(students, courses);
+        journal = openJournal(JSON_STORE);
+    }
+
+    /**
+     * Imports students, enrollments and grades from a CSV file.
+     * Modifies: students, courses
+     * Effects: Prompts the user to select a CSV file of studentID,studentName,course,grade rows and applies it;
+     *          rows that cannot be applied are written to a rejects file next to it.
+     */
+    private void doImportGrades() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Choose a CSV file to import grades from");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
+
+        if (fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            String source = fileChooser.getSelectedFile().getAbsolutePath();
+            String rejects = source + CsvImporter.REJECTS_SUFFIX;
+            try {
+                CsvImporter.Result result = new CsvImporter(students, courses).importFile(source, rejects);
+                String message = "Imported " + result.imported + " grades (" + result.createdStudents
+                        + " new students).";
+                if (result.rejected > 0) {
+                    message += "\n" + result.rejected + " rows were rejected, see " + rejects;
+                }
+                JOptionPane.showMessageDialog(frame, message, "Import Finished", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(frame, "Unable to import from file: " + source, "Import Error",
+                        JOptionPane.ERROR_MESSAGE);
+            } finally {
+                ChangeFeed.getInstance().publish(Change.reset());
+                journal.recordBulkChange();
+                autoSaver.markDirty();
+            }
+        }
+    }
+
+    /**
+     * Exports the report of every student.
+     * Effects: Prompts the user for a folder, to write one report file per student, or a .txt file, to write all
+     *          reports to one file, and exports the reports there.
+     */
+    private void doExportReports() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Choose a folder, or a .txt file, to export all reports to");
+        fileChooser.setApproveButtonText("Export");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+
+        if (fileChooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            File target = fileChooser.getSelectedFile();
+            ReportExporter exporter = new ReportExporter(students, courses);
+            try {
+                int count = target.getName().toLowerCase().endsWith(".txt")
+                        ? exporter.exportToFile(target.getAbsolutePath())
+                        : exporter.exportToDirectory(target.getAbsolutePath());
+                JOptionPane.showMessageDialog(frame, "Exported " + count + " reports to "
+                        + target.getAbsolutePath(), "Export Finished", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(frame, "Unable to export reports to: " + target.getAbsolutePath(),
+                        "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
         }
     }
 
@@ -1158,11 +1661,13 @@ public class GradeTrackerGUI {
             // Clear the lists
             students.clear();
             courses.clear();
+            ChangeFeed.getInstance().publish(Change.reset());
+            journal.recordClear();
+            autoSaver.markDirty();
             // Optionally, refresh the GUI or show a message
             JOptionPane.showMessageDialog(frame, "All data has been cleared.", "Data Cleared",
                     JOptionPane.INFORMATION_MESSAGE);
         }
-        updateDisplay();
     }
 
     /**
@@ -1173,6 +1678,9 @@ public class GradeTrackerGUI {
         int confirm = JOptionPane.showConfirmDialog(frame, "Are you sure you want to quit without saving?",
                 "Quit Confirmation", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
+            autoSaver.shutdown();
+            stopReplication();
+            closeEventJournal();
             printLoggedEvents(); // Print the event log before exiting
             frame.dispose();
             System.exit(0);
@@ -1180,5 +1688,252 @@ public class GradeTrackerGUI {
             System.out.println("User canceled quit. Remaining open.");
         }
     }
-}
 
+    /**
+     * Sets the autosave interval.
+     * Modifies: autoSaver
+     * Effects: Prompts for the number of seconds between the first unsaved edit and the autosave that saves it.
+     */
+    private void doSetAutosaveInterval() {
+        String secondsStr = JOptionPane.showInputDialog(frame, "Autosave interval in seconds:",
+                String.valueOf(autoSaver.getIntervalMillis() / 1000));
+        if (secondsStr == null) {
+            return;
+        }
+        try {
+            long seconds = Long.parseLong(secondsStr.trim());
+            if (seconds <= 0) {
+                throw new NumberFormatException();
+            }
+            autoSaver.setIntervalMillis(seconds * 1000);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(frame, "Interval must be a positive whole number of seconds.",
+                    "Input Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Modifies: this
+    // Effects: returns a new journal for the snapshot at snapshotPath that ships what it journals to the replicas,
+    //          if replication was started, and sends them the data as it is now, which the journal may not describe.
+    private Journal openJournal(String snapshotPath) {
+        return replicated(new Journal(snapshotPath));
+    }
+
+    // Modifies: this
+    // Effects: returns opened, made to ship what it journals to the replicas, if replication was started, after
+    //          sending them the data as it is now.
+    private Journal replicated(Journal opened) {
+        if (replicationPrimary != null) {
+            opened.setListener(replicationPrimary);
+            replicationPrimary.resynchronize();
+        }
+        return opened;
+    }
+
+    /**
+     * Starts streaming the journal to read replicas.
+     * Modifies: this
+     * Effects: Prompts for the local port that replicas connect to, and starts listening on it; if replication
+     *          was already started, shows its port and how many replicas are connected.
+     */
+    private void doStartReplication() {
+        if (replicationPrimary != null) {
+            JOptionPane.showMessageDialog(frame, "Replicas connect to port " + replicationPrimary.getPort() + "; "
+                    + replicationPrimary.getReplicaCount() + " connected.", "Replication",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String portStr = JOptionPane.showInputDialog(frame, "Port for replicas to connect to:",
+                String.valueOf(ReplicationPrimary.DEFAULT_PORT));
+        if (portStr == null) {
+            return;
+        }
+        try {
+            replicationPrimary = new ReplicationPrimary(Integer.parseInt(portStr.trim()), this::takeReplicaSnapshot);
+            journal.setListener(replicationPrimary);
+            statusLabel.setText("Replicas connect to port " + replicationPrimary.getPort());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(frame, "Port must be a whole number.", "Input Error",
+                    JOptionPane.ERROR_MESSAGE);
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, "Unable to listen on port " + portStr.trim() + ": "
+                    + e.getMessage(), "Replication Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Modifies: this
+    // Effects: disconnects the replicas, if replication was started.
+    private void stopReplication() {
+        if (replicationPrimary != null) {
+            try {
+                replicationPrimary.close();
+            } catch (IOException e) {
+                System.out.println("Unable to stop replication: " + e.getMessage());
+            }
+        }
+    }
+
+    // Effects: called on a replication thread; returns the data, converted on the event dispatch thread, where all
+    //          edits happen, with the sequence number of the last record journaled.
+    private JSONObject takeReplicaSnapshot() {
+        JSONObject[] snapshot = new JSONObject[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                JSONArray studentArray = new JSONArray();
+                students.forEach(student -> studentArray.put(student.toJson()));
+                JSONArray courseArray = new JSONArray();
+                courses.forEach(course -> courseArray.put(course.toJson()));
+                snapshot[0] = new JSONObject().put("seq", journal.getLastSeq()).put("students", studentArray)
+                        .put("courses", courseArray);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while taking a snapshot for the replicas", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return snapshot[0];
+    }
+
+    // Effects: called on the autosave thread; copies the data on the event dispatch thread, where all edits
+    //          happen, and returns the copy, or null if no file is associated with the data yet.
+    private AutoSaver.Snapshot takeAutosaveSnapshot() {
+        AutoSaver.Snapshot[] snapshot = new AutoSaver.Snapshot[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                if (fileWorker != null) {
+                    autoSaver.markDirty(); // try again once the load or save in progress is done
+                    return;
+                }
+                if (!journal.isAttached()) {
+                    return;
+                }
+                List<Student> studentsCopy = new ArrayList<>(students.size());
+                students.forEach(student -> studentsCopy.add(student.copy()));
+                List<Course> coursesCopy = new ArrayList<>(courses.size());
+                courses.forEach(course -> coursesCopy.add(course.copy()));
+                snapshot[0] = new AutoSaver.Snapshot(studentsCopy, coursesCopy, journal.getSnapshotPath(),
+                        journal.markCheckpoint());
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+        return snapshot[0];
+    }
+
+    // Runs a long load or save off the event dispatch thread, after any other and any autosave in progress, showing
+    // its progress in a dialog with a Cancel button that interrupts it. The dialog is modal, so the data is not
+    // changed while it is open, but the window keeps repainting. Only one runs at a time.
+    private abstract class FileWorker<T> extends SwingWorker<T, Void> implements Progress {
+        private final String title;
+        private JDialog dialog;
+
+        FileWorker(String title) {
+            this.title = title;
+        }
+
+        // Effects: does the work on a background thread and returns its result.
+        protected abstract T work() throws IOException;
+
+        // Effects: called on the event dispatch thread with the result of work.
+        abstract void succeeded(T result);
+
+        // Effects: called on the event dispatch thread with why work failed, or with a CancellationException if it
+        //          was cancelled.
+        abstract void failed(Exception cause);
+
+        // Effects: tells the dialog how far the work has got.
+        @Override
+        public void update(long done, long total) {
+            if (total > 0) {
+                setProgress((int) Math.min(100, done * 100 / total));
+            }
+        }
+
+        @Override
+        protected final T doInBackground() throws Exception {
+            fileLock.acquire();
+            try {
+                autoSaver.awaitIdle();
+                return work();
+            } finally {
+                fileLock.release();
+            }
+        }
+
+        // Modifies: GradeTrackerGUI.this
+        // Effects: starts the work and shows the dialog until it is done.
+        void start() {
+            JProgressBar progressBar = new JProgressBar(0, 100);
+            progressBar.setIndeterminate(true);
+            progressBar.setStringPainted(true);
+            JButton cancelButton = new JButton("Cancel");
+            cancelButton.addActionListener(e -> cancel(true));
+            addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName())) {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setValue((Integer) event.getNewValue());
+                }
+            });
+
+            JPanel panel = new JPanel(new BorderLayout(10, 10));
+            panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            panel.add(new JLabel(title), BorderLayout.NORTH);
+            panel.add(progressBar, BorderLayout.CENTER);
+            panel.add(cancelButton, BorderLayout.SOUTH);
+            dialog = new JDialog(frame, title, true);
+            dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+            dialog.add(panel);
+            dialog.pack();
+            dialog.setLocationRelativeTo(frame);
+
+            fileWorker = this;
+            execute();
+            dialog.setVisible(true); // returns once done closes it
+        }
+
+        @Override
+        protected final void done() {
+            fileWorker = null;
+            dialog.dispose();
+            try {
+                succeeded(get());
+            } catch (CancellationException e) {
+                failed(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                failed(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            }
+        }
+    }
+
+    // Shows autosave progress in the status bar
+    private class AutoSaveStatus implements AutoSaver.Listener {
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+        @Override
+        public void saveStarted(String destination) {
+            SwingUtilities.invokeLater(() -> statusLabel.setText("Autosaving to " + destination + "..."));
+        }
+
+        @Override
+        public void saveFinished(String destination, long timeMillis) {
+            String time = timeFormat.format(new Date(timeMillis));
+            SwingUtilities.invokeLater(() -> statusLabel.setText("Last autosaved to " + destination + " at " + time));
+        }
+
+        @Override
+        public void saveFailed(String destination, IOException e) {
+            SwingUtilities.invokeLater(() -> {
+                // the changes in the failed snapshot are no longer pending in the journal
+                if (destination.equals(journal.getSnapshotPath())) {
+                    journal.detach();
+                }
+                statusLabel.setText("Autosave to " + destination + " failed: " + e.getMessage());
+            });
+        }
+    }
+}
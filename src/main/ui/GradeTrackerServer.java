@@ -0,0 +1,295 @@
+package ui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.Course;
+import model.Grade;
+import model.GradeBook;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.JsonReader;
+import persistence.Journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Represents a headless server that answers HTTP GET requests on the loopback interface with JSON describing the
+// students, courses, grades, GPAs and course summaries of a grade book:
+//   /students                  every student, streamed
+//   /students/{id}             a student with its courses, grades and GPA
+//   /students/{id}/gpa         a student's GPA
+//   /courses                   every course without its roster, streamed
+//   /courses/{id}              a course with its roster and grades
+//   /courses/{id}/grades       the grades of a course, streamed
+//   /courses/{id}/summary      the count, average, median, standard deviation and letter grade distribution
+// Each request reads the latest snapshot of the grade book, so requests never wait for each other or for writers.
+// Each request runs on its own virtual thread when the JVM has them, and otherwise on a fixed pool of threads.
+// Connections are kept alive between requests: small responses have a length and listings are sent in chunks.
+public class GradeTrackerServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096;
+    private static final int FALLBACK_THREADS = 256;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final GradeBook book;
+    private final Grade grade;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // EFFECTS: constructs a server for book on the given loopback port, or on any free port if port is 0; throws
+    //          IOException if the port cannot be bound
+    public GradeTrackerServer(GradeBook book, int port) throws IOException {
+        this.book = book;
+        this.grade = new Grade();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/students", exchange -> handle(exchange, this::routeStudents));
+        server.createContext("/courses", exchange -> handle(exchange, this::routeCourses));
+    }
+
+    // EFFECTS: starts a server on the port given as the first argument, or DEFAULT_PORT, for the grade book saved in
+    //          the file given as the second argument, or in GradeTrackerGUI's file, and runs it until the JVM stops
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String file = args.length > 1 ? args[1] : GradeTrackerGUI.JSON_STORE;
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(file).replay();
+        GradeTrackerServer server = new GradeTrackerServer(new GradeBook(data.first, data.second), port);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Serving " + data.first.size() + " students and " + data.second.size()
+                + " courses from " + file + " at http://localhost:" + server.getPort() + "/");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts answering requests
+    public void start() {
+        server.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops answering requests, waiting at most a second for those in progress
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // EFFECTS: returns the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // EFFECTS: returns an executor that runs each task on a new virtual thread if the JVM has them, or else a fixed
+    //          pool of daemon threads
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "grade-tracker-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // A response to a request, written once the status is known
+    interface Response {
+        void send(HttpExchange exchange) throws IOException;
+    }
+
+    // EFFECTS: answers exchange with the response router gives for the path below the context, or with an error
+    static void handle(HttpExchange exchange, Function<String[], Response> router) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+            String[] parts = path.isEmpty() || path.equals("/") ? new String[0] : path.substring(1).split("/");
+            Response response;
+            try {
+                response = router.apply(parts);
+            } catch (NumberFormatException e) {
+                response = error(400, "IDs must be whole numbers");
+            }
+            response.send(exchange);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // EFFECTS: returns the response to a request below /students
+    private Response routeStudents(String[] parts) {
+        GradeBook.Snapshot snapshot = book.snapshot();
+        if (parts.length == 0) {
+            return stream(snapshot.getStudents(), this::studentSummary);
+        }
+        Student student = snapshot.getStudent(Integer.parseInt(parts[0]));
+        if (student == null) {
+            return error(404, "No student with ID " + parts[0]);
+        } else if (parts.length == 1) {
+            return json(200, studentDetail(snapshot, student));
+        } else if (parts.length == 2 && parts[1].equals("gpa")) {
+            return json(200, new JSONObject().put("studentID", student.getStudentID())
+                    .put("gpa", gpa(coursesOf(snapshot, student))));
+        }
+        return error(404, "Not found");
+    }
+
+    // EFFECTS: returns the response to a request below /courses
+    private Response routeCourses(String[] parts) {
+        GradeBook.Snapshot snapshot = book.snapshot();
+        if (parts.length == 0) {
+            return stream(snapshot.getCourses(), this::courseSummary);
+        }
+        Course course = snapshot.getCourse(Integer.parseInt(parts[0]));
+        if (course == null) {
+            return error(404, "No course with ID " + parts[0]);
+        } else if (parts.length == 1) {
+            return json(200, course.toJson());
+        } else if (parts.length == 2 && parts[1].equals("grades")) {
+            List<Integer> ids = course.getEnrolledStudentsID();
+            List<Double> grades = course.getStudentGrades();
+            List<Integer> positions = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                positions.add(i);
+            }
+            return stream(positions, i -> new JSONObject().put("studentID", ids.get(i))
+                    .put("grade", i < grades.size() ? grades.get(i) : JSONObject.NULL));
+        } else if (parts.length == 2 && parts[1].equals("summary")) {
+            return json(200, courseStatistics(course));
+        }
+        return error(404, "Not found");
+    }
+
+    // EFFECTS: returns the fields of student shown in listings
+    private JSONObject studentSummary(Student student) {
+        return new JSONObject().put("studentID", student.getStudentID()).put("name", student.getName())
+                .put("enrolledCourses", new JSONArray(student.getEnrolledCourses()));
+    }
+
+    // EFFECTS: returns student with each of its courses, its grade in it, and its GPA
+    private JSONObject studentDetail(GradeBook.Snapshot snapshot, Student student) {
+        List<Course> courses = coursesOf(snapshot, student);
+        JSONArray enrolled = new JSONArray();
+        for (Course course : courses) {
+            Double courseGrade = course.getGrade(student);
+            enrolled.put(new JSONObject().put("courseID", course.getCourseID())
+                    .put("courseCode", course.getCourseCode()).put("courseName", course.getCourseName())
+                    .put("grade", courseGrade == null ? JSONObject.NULL : courseGrade)
+                    .put("letterGrade", courseGrade == null ? JSONObject.NULL
+                            : grade.percentageToLetterGrade(courseGrade)));
+        }
+        return new JSONObject().put("studentID", student.getStudentID()).put("name", student.getName())
+                .put("courses", enrolled).put("gpa", gpa(courses));
+    }
+
+    // EFFECTS: returns the fields of course shown in listings
+    private JSONObject courseSummary(Course course) {
+        return new JSONObject().put("courseID", course.getCourseID()).put("courseCode", course.getCourseCode())
+                .put("courseName", course.getCourseName()).put("credits", course.getCredits())
+                .put("enrolled", course.getEnrolledStudentsID().size());
+    }
+
+    // EFFECTS: returns the grade statistics and letter grade distribution of course
+    static JSONObject courseStatistics(Course course) {
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (String letter : course.calculateGradeDistribution(course.getStudentGrades())) {
+            distribution.merge(letter, 1, Integer::sum);
+        }
+        return new JSONObject().put("courseID", course.getCourseID())
+                .put("count", course.getStudentGrades().size())
+                .put("average", finite(course.calculateAverageGrade()))
+                .put("median", finite(course.calculateMedianGrade()))
+                .put("standardDeviation", finite(course.calculateStandardDeviation()))
+                .put("distribution", new JSONObject(distribution));
+    }
+
+    // EFFECTS: returns the courses of student that exist in snapshot
+    private static List<Course> coursesOf(GradeBook.Snapshot snapshot, Student student) {
+        List<Course> courses = new ArrayList<>();
+        for (int courseID : student.getEnrolledCourses()) {
+            Course course = snapshot.getCourse(courseID);
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        return courses;
+    }
+
+    // EFFECTS: returns the GPA over courses, as the reports compute it, or JSON null if there are no credits
+    private Object gpa(List<Course> courses) {
+        return finite(grade.calculateGPA(courses));
+    }
+
+    // EFFECTS: returns value, or JSON null if it is not a finite number, which JSON cannot represent
+    static Object finite(double value) {
+        return Double.isFinite(value) ? value : JSONObject.NULL;
+    }
+
+    // EFFECTS: returns a response with status and body
+    static Response json(int status, JSONObject body) {
+        return exchange -> {
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        };
+    }
+
+    // EFFECTS: returns an error response with status and message
+    static Response error(int status, String message) {
+        return json(status, new JSONObject().put("error", message));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        error(status, message).send(exchange);
+    }
+
+    // EFFECTS: returns a response that streams a JSON array of the elements of items in chunks, converting each just
+    //          before it is written, so a large listing is never held in memory as a whole
+    private static <T> Response stream(List<T> items, Function<T, JSONObject> toJson) {
+        return exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+            out.write('[');
+            Iterator<T> it = items.iterator();
+            while (it.hasNext()) {
+                toJson.apply(it.next()).write(out);
+                if (it.hasNext()) {
+                    out.write(',');
+                }
+            }
+            out.write(']');
+            out.flush();
+        };
+    }
+}
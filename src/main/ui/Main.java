@@ -1,7 +1,32 @@
 package ui;
 
+import cluster.ShardCoordinator;
+
+import java.io.IOException;
+import java.util.Arrays;
+
 public class Main {
-    public static void main(String[] args) {
+    // Effects: starts the Swing application, or with --server [port] [file], the headless HTTP server, or with
+    //          --shards [count] [file], a grade book sharded across worker processes, printing its course summaries,
+    //          or with --replica [primaryPort] [port], a read replica of the application started with replication,
+    //          or with --batch [script] [--quiet|--verbose], the console app running a script of commands.
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            GradeTrackerServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--shards")) {
+            ShardCoordinator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--replica")) {
+            ReplicaServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            GradeTrackerBatch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
 //        new GradeTrackerApp();
         new GradeTrackerGUI();
     }
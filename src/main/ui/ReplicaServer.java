@@ -0,0 +1,163 @@
+package ui;
+
+import com.sun.net.httpserver.HttpServer;
+import model.Course;
+import model.Grade;
+import model.Student;
+import model.StudentReport;
+import org.json.JSONObject;
+import persistence.Replica;
+import persistence.ReplicationPrimary;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Represents a headless server that answers read-only HTTP GET requests on the loopback interface from a Replica of
+// a grade book whose journal is streamed from a ReplicationPrimary, so report and summary traffic is served without
+// touching the primary:
+//   /students/{id}/report      a student's report, as plain text
+//   /students/{id}/gpa         a student's GPA
+//   /courses/{id}/summary      the count, average, median, standard deviation and letter grade distribution
+//   /replication               whether the replica is connected, and how far behind the primary it is
+// Requests are answered as GradeTrackerServer answers them, each from the replica's data between two records.
+public class ReplicaServer {
+
+    public static final String READY = "REPLICA-SERVING ";
+    private static final int BACKLOG = 1024;
+    private static final int THREADS = 16;
+
+    private final Replica replica;
+    private final Grade grade;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // EFFECTS: constructs a server for replica on the given loopback port, or on any free port if port is 0; throws
+    //          IOException if the port cannot be bound
+    public ReplicaServer(Replica replica, int port) throws IOException {
+        this.replica = replica;
+        this.grade = new Grade();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "replica-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/students", exchange -> GradeTrackerServer.handle(exchange, this::routeStudents));
+        server.createContext("/courses", exchange -> GradeTrackerServer.handle(exchange, this::routeCourses));
+        server.createContext("/replication", exchange -> GradeTrackerServer.handle(exchange, parts ->
+                GradeTrackerServer.json(200, replicationStatus())));
+    }
+
+    // EFFECTS: starts a replica of the primary on the loopback port given as the first argument, or
+    //          ReplicationPrimary.DEFAULT_PORT, and a server for it on the port given as the second argument, or any
+    //          free port, prints READY and the server's port, and runs until the JVM stops
+    public static void main(String[] args) throws IOException {
+        int primaryPort = args.length > 0 ? Integer.parseInt(args[0]) : ReplicationPrimary.DEFAULT_PORT;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        Replica replica = new Replica(InetAddress.getLoopbackAddress().getHostAddress(), primaryPort);
+        ReplicaServer server = new ReplicaServer(replica, port);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println(READY + server.getPort());
+        System.out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts answering requests
+    public void start() {
+        server.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops answering requests, waiting at most a second for those in progress
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // EFFECTS: returns the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // EFFECTS: returns the response to a request below /students
+    private GradeTrackerServer.Response routeStudents(String[] parts) {
+        if (parts.length != 2) {
+            return GradeTrackerServer.error(404, "Not found");
+        }
+        int studentID = Integer.parseInt(parts[0]);
+        return replica.read((students, courses) -> {
+            Student student = findStudent(studentID, students);
+            if (student == null) {
+                return GradeTrackerServer.error(404, "No student with ID " + parts[0]);
+            } else if (parts[1].equals("report")) {
+                return text(new StudentReport(courses).generate(student));
+            } else if (parts[1].equals("gpa")) {
+                return GradeTrackerServer.json(200, new JSONObject().put("studentID", studentID)
+                        .put("gpa", GradeTrackerServer.finite(grade.calculateGPA(coursesOf(student, courses)))));
+            }
+            return GradeTrackerServer.error(404, "Not found");
+        });
+    }
+
+    // EFFECTS: returns the response to a request below /courses
+    private GradeTrackerServer.Response routeCourses(String[] parts) {
+        if (parts.length != 2 || !parts[1].equals("summary")) {
+            return GradeTrackerServer.error(404, "Not found");
+        }
+        int courseID = Integer.parseInt(parts[0]);
+        return replica.read((students, courses) -> {
+            for (Course course : courses) {
+                if (course.getCourseID() == courseID) {
+                    return GradeTrackerServer.json(200, GradeTrackerServer.courseStatistics(course));
+                }
+            }
+            return GradeTrackerServer.error(404, "No course with ID " + parts[0]);
+        });
+    }
+
+    // EFFECTS: returns whether the replica is connected and how far behind the primary it is
+    private JSONObject replicationStatus() {
+        return new JSONObject().put("connected", replica.isConnected())
+                .put("appliedSeq", replica.getAppliedSeq()).put("primarySeq", replica.getPrimarySeq())
+                .put("lagRecords", replica.getLagRecords()).put("lagMillis", replica.getLagMillis());
+    }
+
+    // EFFECTS: finds the student with the given ID, or null
+    private static Student findStudent(int id, List<Student> students) {
+        for (Student student : students) {
+            if (student.getStudentID() == id) {
+                return student;
+            }
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the courses of student that exist in courses
+    private static List<Course> coursesOf(Student student, List<Course> courses) {
+        List<Course> enrolled = new ArrayList<>();
+        for (Course course : courses) {
+            if (student.getEnrolledCourses().contains(course.getCourseID())) {
+                enrolled.add(course);
+            }
+        }
+        return enrolled;
+    }
+
+    // EFFECTS: returns a plain text response with body
+    private static GradeTrackerServer.Response text(String body) {
+        return exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package ui;
+
+import model.Change;
+import model.Course;
+import model.Grade;
+import model.Student;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Represents the table of students shown in the main view of the GUI: one row per student, in the order of the
+// students list, with its ID, name, courses with grades, and GPA. Cells are worked out when the table asks for
+// them, which a JTable only does for the rows it shows, and GPAs are kept until a change makes them stale, so
+// sorting by GPA does not compute them again. Rows are found by student ID and courses by course ID through hash
+// indexes. A batch of changes from the ChangeFeed fires one update for the rows it touches; only additions,
+// removals and edits of students or courses rebuild the indexes and fire a change of the whole table.
+// The model reads the students and courses it is given, so it must only be used on the thread that changes them.
+public class StudentTableModel extends AbstractTableModel {
+
+    public static final int ID_COLUMN = 0;
+    public static final int NAME_COLUMN = 1;
+    public static final int COURSES_COLUMN = 2;
+    public static final int GPA_COLUMN = 3;
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"ID", "Name", "Courses and Grades", "GPA"};
+    private static final Class<?>[] COLUMN_CLASSES = {Integer.class, String.class, String.class, Double.class};
+
+    private final List<Student> students;
+    private final List<Course> courses;
+    private final Grade grade;
+    private final Map<Integer, Integer> rowsById;
+    private final Map<Integer, Course> coursesById;
+    private final Map<Integer, Double> gpas;
+
+    // EFFECTS: constructs a table of students, whose courses are found in courses
+    public StudentTableModel(List<Student> students, List<Course> courses) {
+        this.students = students;
+        this.courses = courses;
+        this.grade = new Grade();
+        this.rowsById = new HashMap<>();
+        this.coursesById = new HashMap<>();
+        this.gpas = new HashMap<>();
+        index();
+    }
+
+    @Override
+    public int getRowCount() {
+        return students.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    // EFFECTS: returns the value shown in the given cell; the GPA is null if the student has no credits
+    @Override
+    public Object getValueAt(int row, int column) {
+        Student student = students.get(row);
+        switch (column) {
+            case ID_COLUMN:
+                return student.getStudentID();
+            case NAME_COLUMN:
+                return student.getName();
+            case COURSES_COLUMN:
+                return describeCourses(student);
+            default:
+                return gpas.computeIfAbsent(student.getStudentID(), id -> gpa(student));
+        }
+    }
+
+    // EFFECTS: returns the row of the student with the given ID, or -1 if it is not in the table
+    public int rowOf(int studentID) {
+        return rowsById.getOrDefault(studentID, -1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: rebuilds the indexes and tells the table that all of it changed
+    public void refresh() {
+        index();
+        fireTableDataChanged();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: tells the table which rows a batch of changes touched: those of the students enrolled, dropped or
+    //          graded, and those of every student in a course whose grades changed, since their GPA depends on
+    //          them; refreshes the whole table if students or courses were added, removed or edited, or the
+    //          changes are about a student not in the table
+    public void update(List<Change> changes) {
+        Set<Integer> changedStudents = new HashSet<>();
+        Set<Integer> gradedCourses = new HashSet<>();
+        for (Change change : changes) {
+            if (change.getKind().isStructural()) {
+                refresh();
+                return;
+            }
+            changedStudents.add(change.getStudentID());
+            if (change.getKind() == Change.Kind.GRADE_CHANGED) {
+                gradedCourses.add(change.getCourseID());
+            }
+        }
+        for (int courseID : gradedCourses) {
+            Course course = coursesById.get(courseID);
+            if (course != null) {
+                changedStudents.addAll(course.getEnrolledStudentsID());
+            }
+        }
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (int studentID : changedStudents) {
+            Integer row = rowsById.get(studentID);
+            if (row == null) {
+                refresh();
+                return;
+            }
+            gpas.remove(studentID);
+            first = Math.min(first, row);
+            last = Math.max(last, row);
+        }
+        if (last >= 0) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes the students by ID and the courses by ID, and forgets every GPA
+    private void index() {
+        rowsById.clear();
+        for (int row = 0; row < students.size(); row++) {
+            rowsById.putIfAbsent(students.get(row).getStudentID(), row);
+        }
+        coursesById.clear();
+        for (Course course : courses) {
+            coursesById.putIfAbsent(course.getCourseID(), course);
+        }
+        gpas.clear();
+    }
+
+    // EFFECTS: returns each course of student with its grade, as the display listed them
+    private String describeCourses(Student student) {
+        StringBuilder sb = new StringBuilder();
+        for (int courseID : student.getEnrolledCourses()) {
+            Course course = coursesById.get(courseID);
+            if (course != null) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(course.getCourseName()).append(": ").append(course.getGrade(student));
+            }
+        }
+        return sb.toString();
+    }
+
+    // EFFECTS: returns the GPA of student over its courses, as the reports compute it, or null if it has no credits
+    private Double gpa(Student student) {
+        List<Course> enrolled = new ArrayList<>();
+        for (int courseID : student.getEnrolledCourses()) {
+            Course course = coursesById.get(courseID);
+            if (course != null) {
+                enrolled.add(course);
+            }
+        }
+        double gpa = grade.calculateGPA(enrolled);
+        return Double.isFinite(gpa) ? gpa : null;
+    }
+}
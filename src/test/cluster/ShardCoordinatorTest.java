@@ -0,0 +1,181 @@
+package cluster;
+
+import model.Course;
+import model.Grade;
+import model.Student;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests a grade book sharded across three worker processes started by the test, against the same data held in
+ * single courses. Each test uses its own courses and students, as the workers are shared by the whole class.
+ */
+class ShardCoordinatorTest {
+    private static final int SHARDS = 3;
+
+    private static ShardCoordinator coordinator;
+
+    @BeforeAll
+    static void launch() throws IOException {
+        coordinator = ShardCoordinator.launch(SHARDS);
+    }
+
+    @AfterAll
+    static void close() throws IOException {
+        coordinator.close();
+    }
+
+    @Test
+    void testPointOperationsAreRoutedToOneShard() throws IOException {
+        coordinator.addCourse(new Course("Math", "MATH100", "Calculus", 1, 3, 0));
+        for (int id = 1; id <= 30; id++) {
+            assertTrue(coordinator.addStudent(new Student("Student " + id, id)));
+        }
+        assertFalse(coordinator.addStudent(new Student("Duplicate", 7)));
+        assertTrue(coordinator.enroll(7, 1));
+        assertFalse(coordinator.enroll(7, 1));
+        assertFalse(coordinator.enroll(7, 999));
+        assertTrue(coordinator.setGrade(7, 1, 88.5));
+        assertFalse(coordinator.setGrade(8, 1, 50));
+        assertEquals(88.5, coordinator.getGrade(7, 1));
+        assertNull(coordinator.getGrade(8, 1));
+
+        Student student = coordinator.getStudent(7);
+        assertEquals("Student 7", student.getName());
+        assertEquals(List.of(1), student.getEnrolledCourses());
+        assertNull(coordinator.getStudent(12345));
+
+        assertTrue(coordinator.drop(7, 1));
+        assertNull(coordinator.getGrade(7, 1));
+        assertEquals(0, coordinator.getCourseSummary(1).getCount());
+        assertNull(coordinator.getCourseSummary(999));
+    }
+
+    @Test
+    void testStudentsAreSpreadOverShards() {
+        Set<Integer> used = new HashSet<>();
+        for (int id = 0; id < 100; id++) {
+            int shard = coordinator.shardOf(id);
+            assertTrue(shard >= 0 && shard < SHARDS);
+            assertEquals(shard, coordinator.shardOf(id));
+            used.add(shard);
+        }
+        assertEquals(SHARDS, used.size());
+    }
+
+    @Test
+    void testScatterGatherSummaryMatchesSingleCourse() throws IOException {
+        Random random = new Random(7);
+        List<Student> students = new ArrayList<>();
+        List<Course> courses = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            courses.add(new Course("Course " + c, "C" + c, "Sharded", 100 + c, 3, 0));
+        }
+        for (int id = 1000; id < 1600; id++) {
+            Student student = new Student("Student " + id, id);
+            students.add(student);
+            for (Course course : courses) {
+                if (random.nextInt(3) > 0) {
+                    student.addCourse(course);
+                    course.enrollStudent(student);
+                    course.addGrade(student, random.nextInt(1001) / 10.0);
+                }
+            }
+        }
+        Course small = new Course("Small", "S1", "One student", 110, 3, 0);
+        small.enrollStudent(students.get(0));
+        small.addGrade(students.get(0), 75.0);
+        courses.add(small);
+
+        int before = coordinator.studentCount();
+        coordinator.load(students, courses);
+        assertEquals(before + students.size(), coordinator.studentCount());
+
+        Grade grade = new Grade();
+        for (Course course : courses) {
+            ShardCoordinator.CourseSummary summary = coordinator.getCourseSummary(course.getCourseID());
+            assertEquals(course.getStudentGrades().size(), summary.getCount());
+            assertEquals(course.calculateAverageGrade(), summary.getAverage(), 1e-9);
+            assertEquals(course.calculateMedianGrade(), summary.getMedian(), 1e-12);
+            assertEquals(course.calculateStandardDeviation(), summary.getStandardDeviation(), 1e-9);
+            Map<String, Long> expected = new HashMap<>();
+            for (double g : course.getStudentGrades()) {
+                expected.merge(grade.percentageToLetterGrade(g), 1L, Long::sum);
+            }
+            assertEquals(expected, new HashMap<>(summary.getDistribution()));
+        }
+        List<Integer> expectedCourses = new ArrayList<>(students.get(0).getEnrolledCourses());
+        expectedCourses.add(110);
+        assertEquals(expectedCourses, coordinator.getStudent(1000).getEnrolledCourses());
+    }
+
+    @Test
+    void testCoordinatorOfRunningWorker() throws Exception {
+        ShardWorker worker = new ShardWorker(0);
+        Thread serving = new Thread(() -> {
+            try {
+                worker.serve();
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+        serving.start();
+        try (ShardCoordinator single = new ShardCoordinator(List.of(worker.getPort()))) {
+            assertEquals(1, single.shardCount());
+            single.addCourse(new Course("Art", "ART1", "Drawing", 5, 2, 0));
+            single.addStudent(new Student("Ann", 1));
+            single.enroll(1, 5);
+            single.setGrade(1, 5, 91);
+            assertEquals(91.0, single.getCourseSummary(5).getMedian());
+        }
+        serving.join(5000);
+        assertFalse(serving.isAlive());
+    }
+
+    @Test
+    void testFailedShardLeavesOtherShardsInStep() throws Exception {
+        List<ShardWorker> workers = List.of(new ShardWorker(0), new ShardWorker(0));
+        List<Thread> servings = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        for (ShardWorker worker : workers) {
+            Thread serving = new Thread(() -> {
+                try {
+                    worker.serve();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+            serving.start();
+            servings.add(serving);
+            ports.add(worker.getPort());
+        }
+        try (ShardCoordinator pair = new ShardCoordinator(ports)) {
+            int id = 1;
+            while (pair.shardOf(id) != 1) {
+                id++;
+            }
+            Student nameless = new Student(null, id);
+            Course course = new Course("Art", "ART2", "Painting", 6, 2, 0);
+            assertThrows(IOException.class,
+                    () -> pair.load(List.of(nameless), List.of(course)));
+            assertEquals(0, pair.studentCount());
+            assertEquals(0, pair.getCourseSummary(6).getCount());
+        }
+        for (Thread serving : servings) {
+            serving.join(5000);
+            assertFalse(serving.isAlive());
+        }
+    }
+}
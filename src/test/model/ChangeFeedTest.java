@@ -0,0 +1,227 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ChangeFeed class. Batches are delivered through a queue that the tests run by hand, as the
+ * Swing event thread would run them, so that changes made before it runs are seen to coalesce.
+ */
+public class ChangeFeedTest {
+    private ChangeFeed feed;
+    private Queue<Runnable> pending;
+    private Recorder recorder;
+    private Student alice;
+    private Student bob;
+    private Course course;
+
+    @BeforeEach
+    public void setUp() {
+        feed = ChangeFeed.getInstance();
+        pending = new ArrayDeque<>();
+        recorder = new Recorder(1);
+        alice = new Student("Alice", 1);
+        bob = new Student("Bob", 2);
+        course = new Course("Math", "MATH100", "Calculus", 10, 3, 0);
+    }
+
+    @AfterEach
+    public void cancel() {
+        if (recorder.subscription != null) {
+            recorder.subscription.cancel();
+        }
+    }
+
+    @Test
+    public void testNoSubscribers() {
+        assertFalse(feed.isActive());
+        course.enrollStudent(alice);
+        feed.subscribe(recorder, pending::add, 10);
+        assertTrue(feed.isActive());
+        assertEquals(1, feed.getSubscriberCount());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void testModelPublishesChanges() {
+        feed.subscribe(recorder, pending::add, 10);
+        course.enrollStudent(alice);
+        course.addGrade(alice, 90);
+        course.removeStudent(alice);
+        course.setCourseName("Calculus I");
+        runPending();
+
+        assertEquals(1, recorder.batches.size());
+        assertEquals(Arrays.asList(
+                new Change(Change.Kind.DROPPED, 1, 10),
+                new Change(Change.Kind.GRADE_CHANGED, 1, 10),
+                new Change(Change.Kind.COURSE_CHANGED, 0, 10)), recorder.batches.get(0));
+    }
+
+    @Test
+    public void testCoalescing() {
+        feed.subscribe(recorder, pending::add, 10);
+        course.enrollStudents(Arrays.asList(alice, bob));
+        for (int i = 0; i < 1000; i++) {
+            course.setGrades(new int[]{1, 2}, new double[]{i, i + 1});
+        }
+        runPending();
+
+        assertEquals(1, recorder.batches.size());
+        assertEquals(Arrays.asList(
+                new Change(Change.Kind.ENROLLED, 1, 10),
+                new Change(Change.Kind.ENROLLED, 2, 10),
+                new Change(Change.Kind.GRADE_CHANGED, 1, 10),
+                new Change(Change.Kind.GRADE_CHANGED, 2, 10)), recorder.batches.get(0));
+    }
+
+    @Test
+    public void testOverflowBecomesReset() {
+        feed.subscribe(recorder, pending::add, 3);
+        for (int id = 1; id <= 4; id++) {
+            course.enrollStudent(new Student("S" + id, id));
+        }
+        course.enrollStudent(new Student("S5", 5));
+        runPending();
+
+        assertEquals(Collections.singletonList(Collections.singletonList(Change.reset())), recorder.batches);
+
+        course.enrollStudent(new Student("S6", 6));
+        runPending();
+        assertEquals(Collections.singletonList(new Change(Change.Kind.ENROLLED, 6, 10)), recorder.batches.get(1));
+    }
+
+    @Test
+    public void testBackpressure() {
+        recorder = new Recorder(0);
+        feed.subscribe(recorder, pending::add, 10);
+        course.enrollStudent(alice);
+        runPending();
+        assertTrue(recorder.batches.isEmpty());
+
+        course.enrollStudent(bob);
+        recorder.subscription.request(1);
+        runPending();
+        assertEquals(1, recorder.batches.size());
+        assertEquals(2, recorder.batches.get(0).size());
+
+        course.removeStudent(bob);
+        runPending();
+        assertEquals(1, recorder.batches.size());
+        recorder.subscription.request(2);
+        runPending();
+        assertEquals(Collections.singletonList(new Change(Change.Kind.DROPPED, 2, 10)), recorder.batches.get(1));
+    }
+
+    @Test
+    public void testOneBatchAtATime() {
+        feed.subscribe(recorder, pending::add, 10);
+        recorder.subscription.request(5);
+        course.enrollStudent(alice);
+        course.enrollStudent(bob);
+        assertEquals(1, pending.size());
+        runPending();
+        assertEquals(1, recorder.batches.size());
+    }
+
+    @Test
+    public void testCancel() {
+        feed.subscribe(recorder, pending::add, 10);
+        course.enrollStudent(alice);
+        recorder.subscription.cancel();
+        runPending();
+
+        assertTrue(recorder.batches.isEmpty());
+        assertFalse(feed.isActive());
+    }
+
+    @Test
+    public void testRequestNonPositive() {
+        feed.subscribe(recorder, pending::add, 10);
+        recorder.subscription.request(0);
+        runPending();
+
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        assertFalse(feed.isActive());
+    }
+
+    @Test
+    public void testDropCoursesPublishesOnlyCoursesDropped() {
+        Course other = new Course("Art", "ART100", "Drawing", 20, 3, 0);
+        alice.addCourse(course);
+        feed.subscribe(recorder, pending::add, 10);
+        alice.dropCourses(Arrays.asList(course, other));
+        runPending();
+
+        assertEquals(Collections.singletonList(Collections.singletonList(new Change(Change.Kind.DROPPED, 1, 10))),
+                recorder.batches);
+    }
+
+    @Test
+    public void testGradeBookPublishesAdditionsAndRemovals() {
+        GradeBook book = new GradeBook();
+        feed.subscribe(recorder, pending::add, 10);
+        book.addStudent(alice);
+        book.addCourse(course);
+        book.removeStudent(1);
+        runPending();
+
+        assertEquals(Arrays.asList(
+                new Change(Change.Kind.STUDENT_REMOVED, 1, 0),
+                new Change(Change.Kind.COURSE_ADDED, 0, 10)), recorder.batches.get(0));
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+    }
+
+    // Records the batches it receives; if it asked for some when it subscribed, it asks for one more after each
+    private static class Recorder implements Flow.Subscriber<List<Change>> {
+        private final int initialRequest;
+        private final List<List<Change>> batches = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+
+        Recorder(int initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(List<Change> batch) {
+            batches.add(batch);
+            if (initialRequest > 0) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -294,4 +294,133 @@ class CourseTest {
         assertEquals(80.0, studentGradesJsonArray.getDouble(1), 0.01);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCopy() {
+        course.enrollStudent(student1);
+        course.addGrade(student1, 90.0);
+
+        Course copy = course.copy();
+        assertEquals(course.getCourseName(), copy.getCourseName());
+        assertEquals(course.getCourseID(), copy.getCourseID());
+        assertEquals(List.of(1), copy.getEnrolledStudentsID());
+        assertEquals(90.0, copy.getGrade(student1));
+
+        course.enrollStudent(student2);
+        copy.setCourseName("Changed");
+        assertEquals(1, copy.getEnrolledStudentsID().size());
+        assertEquals("JAVA", course.getCourseName());
+    }
+
+    @Test
+    public void testDirtyTracking() {
+        assertTrue(course.isDirty());
+        course.markClean();
+        assertFalse(course.isDirty());
+        course.enrollStudent(student1);
+        assertTrue(course.isDirty());
+
+        course.markClean();
+        course.enrollStudent(student1);
+        assertFalse(course.isDirty());
+        course.addGrade(student1, 70.0);
+        assertTrue(course.isDirty());
+
+        course.markClean();
+        course.setCredits(3);
+        assertTrue(course.isDirty());
+    }
+
+    @Test
+    public void testEnrollWithGrades() {
+        course.enrollStudent(student1);
+        course.enrollStudent(student2);
+        course.addGrade(student1, 60.0);
+        course.markClean();
+        course.enrollWithGrades(Arrays.asList(student2, student3, student1), Arrays.asList(75.0, 80.0, 90.0));
+        assertTrue(course.isDirty());
+        assertEquals(Arrays.asList(1, 2, 3), course.getEnrolledStudentsID());
+        assertEquals(90.0, course.getGrade(student1));
+        assertEquals(75.0, course.getGrade(student2));
+        assertEquals(80.0, course.getGrade(student3));
+
+        course.markClean();
+        course.enrollWithGrades(new ArrayList<>(), new ArrayList<>());
+        assertFalse(course.isDirty());
+    }
+
+    @Test
+    public void testEnrollWithGradesFillsMissingGrades() {
+        course.enrollStudent(student1);
+        course.enrollStudent(student2);
+        course.enrollWithGrades(Arrays.asList(student2), Arrays.asList(55.0));
+        assertEquals(Arrays.asList(0.0, 55.0), course.getStudentGrades());
+    }
+
+    @Test
+    public void testEnrollStudents() {
+        course.enrollStudent(student2);
+        course.markClean();
+        long before = EventLog.getInstance().getNextSequence();
+        assertEquals(2, course.enrollStudents(Arrays.asList(student1, student2, student3, student1)));
+        assertEquals(Arrays.asList(2, 1, 3), course.getEnrolledStudentsID());
+        assertTrue(course.isDirty());
+        assertEquals(before + 1, EventLog.getInstance().getNextSequence());
+
+        course.markClean();
+        assertEquals(0, course.enrollStudents(Arrays.asList(student1, student3)));
+        assertFalse(course.isDirty());
+    }
+
+    @Test
+    public void testEnrollManyStudentsIsFast() {
+        List<Student> many = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            many.add(new Student("Student " + i, 100_000 + i));
+        }
+        long start = System.nanoTime();
+        assertEquals(5000, course.enrollStudents(many));
+        assertEquals(0, course.enrollStudents(many));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertEquals(5000, course.getEnrolledStudentsID().size());
+    }
+
+    @Test
+    public void testSetGrades() {
+        course.enrollStudents(Arrays.asList(student1, student2, student3));
+        assertEquals(2, course.setGrades(new int[]{3, 99, 1}, new double[]{70.0, 60.0, 85.0}));
+        assertEquals(Arrays.asList(85.0, 0.0, 70.0), course.getStudentGrades());
+        course.markClean();
+        assertEquals(0, course.setGrades(new int[]{99}, new double[]{50.0}));
+        assertFalse(course.isDirty());
+    }
+
+    @Test
+    public void testRemoveStudents() {
+        course.enrollWithGrades(Arrays.asList(student1, student2, student3, student4),
+                Arrays.asList(10.0, 20.0, 30.0, 40.0));
+        assertEquals(2, course.removeStudents(Arrays.asList(student2, student4, student5)));
+        assertEquals(Arrays.asList(1, 3), course.getEnrolledStudentsID());
+        assertEquals(Arrays.asList(10.0, 30.0), course.getStudentGrades());
+        course.markClean();
+        assertEquals(0, course.removeStudents(Arrays.asList(student2)));
+        assertFalse(course.isDirty());
+    }
+
+    @Test
+    public void testVersion() {
+        assertEquals(0, course.getVersion());
+        course.enrollStudent(student1);
+        course.addGrade(student1, 80.0);
+        course.setCourseName("Java");
+        assertEquals(3, course.getVersion());
+        assertEquals(3, course.copy().getVersion());
+        course.enrollStudent(student1); // already enrolled, so nothing changes
+        assertEquals(3, course.getVersion());
+
+        course.checkVersion(3);
+        VersionConflictException e = assertThrows(VersionConflictException.class, () -> course.checkVersion(2));
+        assertEquals(210_01, e.getRecordID());
+        assertEquals(2, e.getExpectedVersion());
+        assertEquals(3, e.getActualVersion());
+    }
+}
@@ -1,11 +1,15 @@
 package model;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,4 +55,274 @@ public class EventLogTest {
         assertEquals("Event log cleared.", itr.next().getDescription());
         assertFalse(itr.hasNext());
     }
+
+    @AfterEach
+    public void restoreCapacity() {
+        EventLog.getInstance().configure(EventLog.DEFAULT_CAPACITY, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        for (EventType type : EventType.values()) {
+            EventLog.getInstance().setEnabled(type, true);
+        }
+        EventLog.getInstance().setMeasuring(false);
+    }
+
+    @Test
+    public void testOverwriteOldest() {
+        EventLog el = EventLog.getInstance();
+        el.configure(3, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        assertEquals(3, el.getCapacity());
+        Event e4 = new Event("A4");
+        el.logEvent(e4);
+        List<Event> events = el.snapshot();
+        assertEquals(3, events.size());
+        assertSame(e2, events.get(0));
+        assertSame(e3, events.get(1));
+        assertSame(e4, events.get(2));
+    }
+
+    @Test
+    public void testDropNewest() {
+        EventLog el = EventLog.getInstance();
+        el.clear();
+        el.configure(2, EventLog.OverflowPolicy.DROP_NEWEST);
+        assertEquals(EventLog.OverflowPolicy.DROP_NEWEST, el.getPolicy());
+        long dropped = el.getDroppedCount();
+        el.logEvent(e1);
+        el.logEvent(e2);
+        List<Event> events = el.snapshot();
+        assertEquals(2, events.size());
+        assertEquals("Event log cleared.", events.get(0).getDescription());
+        assertSame(e1, events.get(1));
+        assertEquals(dropped + 1, el.getDroppedCount());
+
+        el.clear();
+        assertEquals(1, el.snapshot().size());
+    }
+
+    @Test
+    public void testSnapshotNotAffectedByLaterEvents() {
+        EventLog el = EventLog.getInstance();
+        Iterator<Event> itr = el.iterator();
+        List<Event> before = el.snapshot();
+        el.logEvent(new Event("A4"));
+        int count = 0;
+        while (itr.hasNext()) {
+            itr.next();
+            count++;
+        }
+        assertEquals(before.size(), count);
+        assertThrows(UnsupportedOperationException.class, () -> before.add(e1));
+    }
+
+    @Test
+    public void testConcurrentLogging() throws InterruptedException {
+        EventLog el = EventLog.getInstance();
+        el.configure(100_000, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        el.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    el.logEvent(new Event("T" + thread + " " + i));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(20_001, el.snapshot().size());
+
+        el.configure(10, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        assertEquals(10, el.snapshot().size());
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EventLog.getInstance().configure(0, EventLog.OverflowPolicy.DROP_NEWEST));
+    }
+
+    @Test
+    public void testDrainFromSequence() {
+        EventLog el = EventLog.getInstance();
+        long start = el.getNextSequence() - 3;
+        el.clear();
+        List<Event> drained = new ArrayList<>();
+        long next = el.drain(start, drained, 2, false);
+        assertEquals(start + 2, next);
+        assertEquals(List.of(e1, e2), drained);
+        next = el.drain(next, drained, 10, false);
+        assertEquals(el.getNextSequence(), next);
+        assertEquals(4, drained.size());
+        assertEquals("Event log cleared.", drained.get(3).getDescription());
+    }
+
+    @Test
+    public void testDrainSkipsOverwrittenEvents() {
+        EventLog el = EventLog.getInstance();
+        el.configure(2, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        long start = el.getNextSequence() - 2;
+        el.logEvent(new Event("A4"));
+        List<Event> drained = new ArrayList<>();
+        assertEquals(el.getNextSequence(), el.drain(start, drained, 10, false));
+        assertEquals(2, drained.size());
+        assertEquals(e3, drained.get(0));
+        assertEquals("A4", drained.get(1).getDescription());
+    }
+
+    @Test
+    public void testQueryByStudentIsPaged() {
+        EventLog el = EventLog.getInstance();
+        Student student = new Student("Paged", 900001);
+        Student other = new Student("Other", 900002);
+        Course course = new Course("Paging", "PAGE 101", "Pages", 900101, 3, 100.0);
+        for (int i = 0; i < 120; i++) {
+            el.logEvent(Event.of(EventType.GRADE_ADDED, student, course));
+            el.logEvent(Event.of(EventType.GRADE_ADDED, other, course));
+        }
+        EventQuery query = new EventQuery().forStudent(900001);
+        EventLog.Page page = el.query(query, 0, 50);
+        assertEquals(50, page.getEvents().size());
+        assertTrue(page.hasMore());
+        page = el.query(query, page.getNextCursor(), 50);
+        assertEquals(50, page.getEvents().size());
+        page = el.query(query, page.getNextCursor(), 50);
+        assertEquals(20, page.getEvents().size());
+        assertFalse(page.hasMore());
+        for (Event e : page.getEvents()) {
+            assertEquals(900001, e.getStudentId());
+        }
+        assertEquals(240, el.query(new EventQuery().forCourse(900101), 0, 1000).getEvents().size());
+        assertTrue(el.query(new EventQuery().forStudent(900003), 0, 10).getEvents().isEmpty());
+    }
+
+    @Test
+    public void testQueryIndexesEventsLoggedConcurrentlySinceTheLastQuery() throws InterruptedException {
+        EventLog el = EventLog.getInstance();
+        el.configure(100_000, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        Course course = new Course("Indexed", "IDX 101", "Index", 900201, 3, 100.0);
+        EventQuery query = new EventQuery().forCourse(900201);
+        assertTrue(el.query(query, 0, 10).getEvents().isEmpty());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            Student student = new Student("Logger " + t, 900210 + t);
+            pool.execute(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    el.log(EventType.GRADE_ADDED, student, course);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Event> events = el.query(query, 0, 10_000).getEvents();
+        assertEquals(8000, events.size());
+        assertEquals(2000, el.query(new EventQuery().forStudent(900212), 0, 10_000).getEvents().size());
+        el.log(EventType.GRADE_ADDED, new Student("Late", 900212), course);
+        assertEquals(2001, el.query(new EventQuery().forStudent(900212), 0, 10_000).getEvents().size());
+    }
+
+    @Test
+    public void testQueryByTimeAndType() {
+        EventLog el = EventLog.getInstance();
+        el.clear();
+        long base = System.currentTimeMillis() + 1_000_000;
+        for (int i = 0; i < 100; i++) {
+            EventType type = i % 2 == 0 ? EventType.GRADE_ADDED : EventType.GRADE_REMOVED;
+            el.logEvent(Event.restore(type, base + i * 1000L, 900011, "Timed", 900111, "Clock", 0, null));
+        }
+        EventQuery query = new EventQuery().between(base + 10_000, base + 19_999).ofTypes(EventType.GRADE_ADDED);
+        List<Event> events = el.query(query, 0, 100).getEvents();
+        assertEquals(5, events.size());
+        assertEquals(base + 10_000, events.get(0).getTimeMillis());
+        assertEquals(base + 18_000, events.get(4).getTimeMillis());
+        assertEquals(10, el.query(new EventQuery().forStudent(900011).between(base + 90_000, base + 200_000),
+                0, 100).getEvents().size());
+    }
+
+    @Test
+    public void testEventCreatedBeforeOneLoggedAheadOfItIsNotEarlier() {
+        EventLog el = EventLog.getInstance();
+        el.clear();
+        Event ahead = Event.of(EventType.GPA_CALCULATED, new Student("Ahead", 900031));
+        el.logEvent(ahead);
+        Event behind = Event.restore(EventType.GPA_CALCULATED, ahead.getTimeMillis() - 60_000, 900031, "Behind",
+                0, null, 0, null);
+        el.logEvent(behind);
+        assertEquals(ahead.getTimeMillis(), behind.getTimeMillis());
+        assertEquals(2, el.query(new EventQuery().forStudent(900031).between(ahead.getTimeMillis(),
+                ahead.getTimeMillis()), 0, 10).getEvents().size());
+    }
+
+    @Test
+    public void testQueryDropsEventsNoLongerInLog() {
+        EventLog el = EventLog.getInstance();
+        el.configure(8, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        Student gone = new Student("Gone", 900021);
+        Student kept = new Student("Kept", 900022);
+        el.logEvent(Event.of(EventType.GPA_CALCULATED, gone));
+        for (int i = 0; i < 20; i++) {
+            el.logEvent(Event.of(EventType.GPA_CALCULATED, kept));
+        }
+        assertTrue(el.query(new EventQuery().forStudent(900021), 0, 10).getEvents().isEmpty());
+        assertEquals(8, el.query(new EventQuery().forStudent(900022), 0, 10).getEvents().size());
+        assertThrows(IllegalArgumentException.class, () -> el.query(new EventQuery(), 0, 0));
+    }
+
+    @Test
+    public void testDisabledTypeIsNotLogged() {
+        EventLog el = EventLog.getInstance();
+        Student student = new Student("Quiet", 900031);
+        Course course = new Course("Silence", "QUIET 101", "Shh", 900131, 3, 100.0);
+        el.setEnabled(EventType.STUDENT_ENROLLED, false);
+        assertFalse(el.isEnabled(EventType.STUDENT_ENROLLED));
+        long before = el.getNextSequence();
+        course.enrollStudent(student);
+        assertEquals(before, el.getNextSequence());
+        student.addCourse(course);
+        assertEquals(before + 1, el.getNextSequence());
+        el.setEnabled(EventType.MESSAGE, false);
+        el.logEvent(new Event("Not logged"));
+        assertEquals(before + 1, el.getNextSequence());
+    }
+
+    @Test
+    public void testSampling() {
+        EventLog el = EventLog.getInstance();
+        Student student = new Student("Sampled", 900041);
+        el.setSampling(EventType.GPA_CALCULATED, 10);
+        assertEquals(10, el.getSampling(EventType.GPA_CALCULATED));
+        for (int i = 0; i < 100; i++) {
+            el.log(EventType.GPA_CALCULATED, student);
+        }
+        assertEquals(10, el.query(new EventQuery().forStudent(900041), 0, 1000).getEvents().size());
+        assertThrows(IllegalArgumentException.class, () -> el.setSampling(EventType.GPA_CALCULATED, -1));
+    }
+
+    @Test
+    public void testMeasuring() {
+        EventLog el = EventLog.getInstance();
+        Student student = new Student("Measured", 900051);
+        el.setMeasuring(true);
+        assertTrue(el.getCosts().isEmpty());
+        el.setEnabled(EventType.REPORT_GENERATED, false);
+        for (int i = 0; i < 50; i++) {
+            el.log(EventType.GPA_CALCULATED, student);
+            el.log(EventType.REPORT_GENERATED, student);
+        }
+        List<EventLog.Cost> costs = el.getCosts();
+        assertEquals(2, costs.size());
+        EventLog.Cost gpa = costs.get(0);
+        assertEquals(EventType.GPA_CALCULATED, gpa.getType());
+        assertEquals(50, gpa.getLogged());
+        assertEquals(0, gpa.getSkipped());
+        assertTrue(gpa.getNanos() > 0);
+        EventLog.Cost report = costs.get(1);
+        assertEquals(0, report.getLogged());
+        assertEquals(50, report.getSkipped());
+        assertTrue(report.getAllocatedBytes() <= gpa.getAllocatedBytes());
+        el.setMeasuring(false);
+        el.log(EventType.GPA_CALCULATED, student);
+        assertEquals(50, el.getCosts().get(0).getLogged());
+    }
 }
@@ -79,4 +79,24 @@ public class EventTest {
     public void testToString() {
         assertEquals(testdate.toString() + "\n" + "Test Event", event.toString());
     }
+
+    @Test
+    public void testStructuredEvent() {
+        Student student = new Student("Jack", 7);
+        Course course = new Course("JAVA", "CS210", "Intro to Java", 210, 4, 100.0);
+        Event enrolled = Event.of(EventType.STUDENT_ENROLLED, student, course);
+        student.setName("Jackson");
+        assertEquals(EventType.STUDENT_ENROLLED, enrolled.getType());
+        assertEquals(7, enrolled.getStudentId());
+        assertEquals(210, enrolled.getCourseId());
+        assertEquals("Student Name: Jack\nEnrolled in course: JAVA", enrolled.getDescription());
+        assertTrue(isSameTime(enrolled.getDate(), testdate));
+        assertEquals(enrolled.getTimeMillis(), enrolled.getDate().getTime());
+
+        assertEquals("Added 3 grades\nFor course: JAVA", Event.of(EventType.GRADES_ADDED, course, 3).getDescription());
+        assertEquals("Generated report for Student: Jackson (ID: 7)",
+                Event.of(EventType.REPORT_GENERATED, student).getDescription());
+        assertEquals(EventType.MESSAGE, event.getType());
+        assertEquals(0, event.getStudentId());
+    }
 }
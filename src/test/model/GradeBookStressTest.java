@@ -0,0 +1,266 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for concurrent enrollment, dropping, grading and removal through a GradeBook. Every thread runs a
+ * random mix of operations on students and courses shared by all threads, so threads contend on the same students
+ * as well as the same courses. A few of the students and courses are doomed: they are removed while the others
+ * work on them, each time being replaced by a new one under an ID never used before, so IDs are removed at most
+ * once. Each thread records what its operations returned, and the outcome is checked against what every
+ * interleaving of those operations allows: for each (student, course) pair the successful enrolls and drops
+ * alternate, so they differ by at most one and that difference is whether the pair is enrolled at the end, unless
+ * either was removed; a final grade is one that was written, and the last one written by its thread; each ID is
+ * removed at most once, and once removed it is gone from every roster, course list and snapshot. Rosters must also
+ * be aligned with their grades and linked both ways with their students. The throughput of each run is printed for
+ * 1, 2, 4, ... threads, up to twice the number of processors.
+ */
+class GradeBookStressTest {
+    private static final int COURSES = 16;
+    private static final int STUDENTS = 64;
+    private static final int DOOMED_COURSES = 2;
+    private static final int DOOMED_STUDENTS = 4;
+    private static final int OPERATIONS = 200_000;
+    private static final int FIRST_REPLACEMENT_ID = 1_000_000;
+
+    @Test
+    public void testConcurrentWorkloadsKeepInvariants() throws Exception {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        StringBuilder report = new StringBuilder("GradeBook throughput:");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double opsPerSecond = run(threads, 42 + threads);
+            report.append(String.format("%n  %2d threads: %,12.0f ops/s", threads, opsPerSecond));
+        }
+        System.out.println(report);
+    }
+
+    // runs OPERATIONS random operations split across threads, checks the result and returns operations per second
+    private double run(int threads, long seed) throws Exception {
+        EventLog log = EventLog.getInstance();
+        GradeBook book = new GradeBook();
+        for (int c = 1; c <= COURSES + DOOMED_COURSES; c++) {
+            book.addCourse(new Course("Course " + c, "C" + c, "Stress", c, 3, 100.0));
+        }
+        for (int s = 1; s <= STUDENTS + DOOMED_STUDENTS; s++) {
+            book.addStudent(new Student("Student " + s, s));
+        }
+
+        int perThread = OPERATIONS / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Doomed doomed = new Doomed();
+        List<Future<History>> histories = new ArrayList<>();
+        boolean[] enabled = disableModelEvents(log);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                histories.add(pool.submit(() -> {
+                    start.await();
+                    return work(book, doomed, thread, perThread, new Random(seed * 31 + thread));
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            List<History> results = new ArrayList<>();
+            for (Future<History> history : histories) {
+                results.add(history.get());
+            }
+            long elapsed = System.nanoTime() - began;
+            checkOutcome(book, results);
+            return (double) perThread * threads / (elapsed / 1e9);
+        } finally {
+            pool.shutdown();
+            restoreModelEvents(log, enabled);
+        }
+    }
+
+    // What one thread's operations returned
+    private static final class History {
+        final Map<Long, Integer> enrolls = new HashMap<>();
+        final Map<Long, Integer> drops = new HashMap<>();
+        final Map<Long, Double> lastGrades = new HashMap<>();
+        final Map<Double, Long> gradesWritten = new HashMap<>();
+        final Set<Integer> removedStudents = new HashSet<>();
+        final Set<Integer> removedCourses = new HashSet<>();
+    }
+
+    // The current IDs of the doomed students and courses, which are last in the grade book
+    private static final class Doomed {
+        final AtomicIntegerArray students = new AtomicIntegerArray(DOOMED_STUDENTS);
+        final AtomicIntegerArray courses = new AtomicIntegerArray(DOOMED_COURSES);
+        final AtomicInteger nextID = new AtomicInteger(FIRST_REPLACEMENT_ID);
+
+        Doomed() {
+            for (int i = 0; i < DOOMED_STUDENTS; i++) {
+                students.set(i, STUDENTS + i + 1);
+            }
+            for (int i = 0; i < DOOMED_COURSES; i++) {
+                courses.set(i, COURSES + i + 1);
+            }
+        }
+    }
+
+    // performs operations on students and courses shared with every other thread and returns what they returned;
+    // every grade written is unique, so the writer of a final grade is known
+    private static History work(GradeBook book, Doomed doomed, int thread, int operations, Random random) {
+        History history = new History();
+        for (int i = 0; i < operations; i++) {
+            int s = random.nextInt(STUDENTS + DOOMED_STUDENTS);
+            int c = random.nextInt(COURSES + DOOMED_COURSES);
+            int student = s < STUDENTS ? s + 1 : doomed.students.get(s - STUDENTS);
+            int course = c < COURSES ? c + 1 : doomed.courses.get(c - COURSES);
+            long pair = pair(student, course);
+            int choice = random.nextInt(100);
+            if (choice < 40) {
+                if (book.enroll(student, course)) {
+                    history.enrolls.merge(pair, 1, Integer::sum);
+                }
+            } else if (choice < 60) {
+                if (book.drop(student, course)) {
+                    history.drops.merge(pair, 1, Integer::sum);
+                }
+            } else if (choice < 95) {
+                double grade = (double) thread * OPERATIONS + i + 1;
+                if (book.setGrade(student, course, grade)) {
+                    history.lastGrades.put(pair, grade);
+                    history.gradesWritten.put(grade, pair);
+                }
+            } else if (random.nextBoolean()) {
+                int slot = random.nextInt(DOOMED_STUDENTS);
+                int id = doomed.students.get(slot);
+                if (book.removeStudent(id)) {
+                    history.removedStudents.add(id);
+                    int replacement = doomed.nextID.getAndIncrement();
+                    book.addStudent(new Student("Student " + replacement, replacement));
+                    doomed.students.compareAndSet(slot, id, replacement);
+                }
+            } else {
+                int slot = random.nextInt(DOOMED_COURSES);
+                int id = doomed.courses.get(slot);
+                if (book.removeCourse(id)) {
+                    history.removedCourses.add(id);
+                    int replacement = doomed.nextID.getAndIncrement();
+                    book.addCourse(new Course("Course " + replacement, "C" + replacement, "Stress", replacement, 3,
+                            100.0));
+                    doomed.courses.compareAndSet(slot, id, replacement);
+                }
+            }
+        }
+        return history;
+    }
+
+    // checks the grade book against what any interleaving of the threads' operations allows
+    private static void checkOutcome(GradeBook book, List<History> histories) {
+        Set<Integer> removedStudents = new HashSet<>();
+        Set<Integer> removedCourses = new HashSet<>();
+        Map<Long, Integer> balance = new HashMap<>();
+        for (History history : histories) {
+            for (int id : history.removedStudents) {
+                assertTrue(removedStudents.add(id), "student " + id + " removed twice");
+            }
+            for (int id : history.removedCourses) {
+                assertTrue(removedCourses.add(id), "course " + id + " removed twice");
+            }
+            history.enrolls.forEach((pair, count) -> balance.merge(pair, count, Integer::sum));
+            history.drops.forEach((pair, count) -> balance.merge(pair, -count, Integer::sum));
+        }
+
+        GradeBook.Snapshot snapshot = book.snapshot();
+        Set<Long> fromCourses = new HashSet<>();
+        for (Course course : snapshot.getCourses()) {
+            assertFalse(removedCourses.contains(course.getCourseID()), "removed course " + course.getCourseID());
+            List<Integer> roster = course.getEnrolledStudentsID();
+            List<Double> grades = course.getStudentGrades();
+            assertTrue(grades.size() <= roster.size(), "more grades than students in " + course.getCourseID());
+            assertEquals(roster.size(), new HashSet<>(roster).size(), "duplicate in " + course.getCourseID());
+            for (int i = 0; i < roster.size(); i++) {
+                assertFalse(removedStudents.contains(roster.get(i)), "removed student " + roster.get(i));
+                long pair = pair(roster.get(i), course.getCourseID());
+                fromCourses.add(pair);
+                if (i < grades.size() && grades.get(i) != 0.0) {
+                    checkGrade(histories, pair, grades.get(i));
+                }
+            }
+        }
+        for (int id : removedCourses) {
+            assertNull(snapshot.getCourse(id));
+        }
+        for (int id : removedStudents) {
+            assertNull(snapshot.getStudent(id));
+        }
+        assertEquals(COURSES + DOOMED_COURSES, snapshot.courseCount());
+        assertEquals(STUDENTS + DOOMED_STUDENTS, snapshot.studentCount());
+
+        balance.forEach((pair, difference) -> {
+            assertTrue(difference == 0 || difference == 1, "enrolls and drops of " + pair + " do not alternate");
+            int student = (int) (pair >>> 32);
+            int course = (int) (long) pair;
+            if (!removedStudents.contains(student) && !removedCourses.contains(course)) {
+                assertEquals(difference == 1, fromCourses.contains(pair), "enrollment of " + pair);
+            }
+        });
+        for (long pair : fromCourses) {
+            assertEquals(1, (int) balance.getOrDefault(pair, 0), "enrolled without a successful enroll: " + pair);
+        }
+
+        Set<Long> fromStudents = new HashSet<>();
+        for (Student student : snapshot.getStudents()) {
+            for (int courseID : student.getEnrolledCourses()) {
+                assertTrue(fromStudents.add(pair(student.getStudentID(), courseID)), "duplicate course link");
+            }
+        }
+        assertEquals(fromCourses, fromStudents);
+    }
+
+    // checks that grade of pair was written to pair, and is the last grade its writer wrote to pair
+    private static void checkGrade(List<History> histories, long pair, double grade) {
+        for (History history : histories) {
+            Long writtenTo = history.gradesWritten.get(grade);
+            if (writtenTo != null) {
+                assertEquals(pair, (long) writtenTo, "grade " + grade + " belongs to another enrollment");
+                assertEquals(grade, history.lastGrades.get(pair), "grade " + grade + " was overwritten by its thread");
+                return;
+            }
+        }
+        fail("grade " + grade + " of " + pair + " was never written");
+    }
+
+    private static long pair(int student, int course) {
+        return ((long) student << 32) | course;
+    }
+
+    // turns off the per-change event types so the event log does not dominate the measurement
+    private static boolean[] disableModelEvents(EventLog log) {
+        EventType[] types = EventType.values();
+        boolean[] enabled = new boolean[types.length];
+        for (EventType type : types) {
+            enabled[type.ordinal()] = log.isEnabled(type);
+            if (type != EventType.MESSAGE) {
+                log.setEnabled(type, false);
+            }
+        }
+        return enabled;
+    }
+
+    private static void restoreModelEvents(EventLog log, boolean[] enabled) {
+        for (EventType type : EventType.values()) {
+            log.setEnabled(type, enabled[type.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeBookTest {
+    private static final int COURSES = 8;
+    private static final int STUDENTS = 200;
+
+    private GradeBook book;
+
+    @BeforeEach
+    public void setUp() {
+        List<Student> students = new ArrayList<>();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course("Course " + i, "C" + i, "Description", 1000 + i, 3, 100.0));
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student("Student " + i, i));
+        }
+        book = new GradeBook(students, courses);
+    }
+
+    @Test
+    public void testEnrollAndGrade() {
+        assertTrue(book.enroll(1, 1000));
+        assertFalse(book.enroll(1, 1000));
+        assertFalse(book.enroll(1, 9999));
+        assertFalse(book.addStudent(new Student("Duplicate", 1)));
+        assertTrue(book.setGrade(1, 1000, 88.0));
+        assertFalse(book.setGrade(2, 1000, 50.0));
+        assertEquals(88.0, book.getGrade(1, 1000));
+        assertNull(book.getGrade(2, 1000));
+        assertEquals(List.of(1000), book.readStudent(1, s -> new ArrayList<>(s.getEnrolledCourses())));
+
+        assertTrue(book.drop(1, 1000));
+        assertFalse(book.drop(1, 1000));
+        assertNull(book.getGrade(1, 1000));
+        assertEquals(Integer.valueOf(0), book.readStudent(1, s -> s.getEnrolledCourses().size()));
+    }
+
+    @Test
+    public void testEnrollAll() {
+        assertTrue(book.enroll(3, 1000));
+        assertEquals(3, book.enrollAll(1000, new int[]{1, 2, 9999, 3, 4}, new double[]{71.0, 72.0, 0.0, 73.0}));
+        assertEquals(0, book.enrollAll(9999, new int[]{1}, new double[0]));
+
+        GradeBook.Snapshot snapshot = book.snapshot();
+        assertEquals(List.of(3, 1, 2, 4), snapshot.getCourse(1000).getEnrolledStudentsID());
+        assertEquals(71.0, book.getGrade(1, 1000));
+        assertEquals(73.0, book.getGrade(3, 1000));
+        assertNull(book.getGrade(4, 1000));
+        for (int studentID : new int[]{1, 2, 3, 4}) {
+            assertEquals(List.of(1000), snapshot.getStudent(studentID).getEnrolledCourses());
+        }
+        assertEquals(0, book.enrollAll(1000, new int[]{1}, new double[]{90.0}));
+        assertEquals(90.0, book.getGrade(1, 1000));
+    }
+
+    @Test
+    public void testStats() {
+        for (int i = 0; i < 4; i++) {
+            book.enroll(i, 1001);
+        }
+        book.setGrades(1001, new int[]{0, 1, 2, 3}, new double[]{60.0, 70.0, 80.0, 90.0});
+        GradeBook.CourseStats stats = book.getStats(1001);
+        assertEquals(4, stats.getCount());
+        assertEquals(75.0, stats.getAverage(), 1e-9);
+        assertEquals(75.0, stats.getMedian(), 1e-9);
+        assertEquals(Math.sqrt(500.0 / 3), stats.getStandardDeviation(), 1e-9);
+        assertNull(book.getStats(9999));
+    }
+
+    @Test
+    public void testRemoveStudentAndCourse() {
+        book.enroll(5, 1002);
+        book.enroll(5, 1003);
+        book.enroll(6, 1003);
+        assertTrue(book.removeStudent(5));
+        assertFalse(book.removeStudent(5));
+        assertEquals(List.of(6), book.readCourse(1003, c -> new ArrayList<>(c.getEnrolledStudentsID())));
+        assertEquals(Integer.valueOf(0), book.readCourse(1002, c -> c.getEnrolledStudentsID().size()));
+        assertFalse(book.enroll(5, 1002));
+
+        assertTrue(book.removeCourse(1003));
+        assertEquals(Integer.valueOf(0), book.readStudent(6, s -> s.getEnrolledCourses().size()));
+        assertEquals(COURSES - 1, book.courseCount());
+        assertEquals(STUDENTS - 1, book.studentCount());
+    }
+
+    @Test
+    public void testDropRacingRemovalDoesNotBringItBack() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int run = 0; run < 2000; run++) {
+                book = new GradeBook();
+                book.addCourse(new Course("Course", "C", "Description", 7, 3, 100.0));
+                book.addStudent(new Student("Student", 1));
+                book.enroll(1, 7);
+                race(pool, () -> book.drop(1, 7), () -> book.removeCourse(7));
+                assertNull(book.snapshot().getCourse(7), "removed course is back after run " + run);
+                assertFalse(book.snapshot().getStudent(1).getEnrolledCourses().contains(7));
+
+                book.addCourse(new Course("Course", "C", "Description", 7, 3, 100.0));
+                book.enroll(1, 7);
+                race(pool, () -> book.drop(1, 7), () -> book.removeStudent(1));
+                assertNull(book.snapshot().getStudent(1), "removed student is back after run " + run);
+                assertTrue(book.snapshot().getCourse(7).getEnrolledStudentsID().isEmpty());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // runs first and second on two threads at once and waits for both
+    private static void race(ExecutorService pool, Runnable first, Runnable second) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> one = pool.submit(() -> {
+            start.await();
+            first.run();
+            return null;
+        });
+        Future<?> two = pool.submit(() -> {
+            start.await();
+            second.run();
+            return null;
+        });
+        start.countDown();
+        one.get();
+        two.get();
+    }
+
+    @Test
+    public void testConcurrentEnrollmentAndGrading() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(COURSES * 2);
+        List<Future<?>> results = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            int courseID = 1000 + c;
+            results.add(pool.submit(() -> {
+                for (int s = 0; s < STUDENTS; s++) {
+                    assertTrue(book.enroll(s, courseID));
+                    assertTrue(book.setGrade(s, courseID, s % 100));
+                }
+            }));
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < STUDENTS; i++) {
+                    GradeBook.CourseStats stats = book.getStats(courseID);
+                    assertTrue(stats.getCount() <= STUDENTS);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int c = 0; c < COURSES; c++) {
+            assertEquals(STUDENTS, book.getStats(1000 + c).getCount());
+            assertEquals(99.0, book.getGrade(99, 1000 + c));
+        }
+        for (Student student : book.copyStudents()) {
+            assertEquals(COURSES, student.getEnrolledCourses().size());
+        }
+        assertEquals(COURSES, book.copyCourses().size());
+    }
+
+    @Test
+    public void testSnapshotIsUnaffectedByLaterChanges() {
+        book.enroll(1, 1000);
+        book.setGrade(1, 1000, 70.0);
+        GradeBook.Snapshot before = book.snapshot();
+        book.setGrade(1, 1000, 95.0);
+        book.enroll(2, 1000);
+        book.removeCourse(1001);
+
+        assertEquals(List.of(1), before.getCourse(1000).getEnrolledStudentsID());
+        assertEquals(70.0, before.getCourse(1000).getGrade(before.getStudent(1)));
+        assertNotNull(before.getCourse(1001));
+        assertEquals(COURSES, before.courseCount());
+        assertEquals(95.0, book.snapshot().getCourse(1000).getGrade(before.getStudent(1)));
+        assertEquals(List.of(1, 2), book.snapshot().getCourse(1000).getEnrolledStudentsID());
+        assertNull(book.snapshot().getCourse(1001));
+        assertEquals(COURSES - 1, book.snapshot().getCourses().size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> before.getCourse(1000).enrollStudent(new Student("Late", 500)));
+    }
+
+    @Test
+    public void testSnapshotListsAreInIdOrder() {
+        GradeBook.Snapshot snapshot = book.snapshot();
+        List<Student> students = snapshot.getStudents();
+        assertEquals(STUDENTS, students.size());
+        for (int i = 0; i < STUDENTS; i++) {
+            assertEquals(i, students.get(i).getStudentID());
+        }
+        assertEquals(1000, snapshot.getCourses().get(0).getCourseID());
+    }
+
+    @Test
+    public void testUpdateWithExpectedVersion() {
+        long courseVersion = book.snapshot().getCourse(1000).getVersion();
+        assertEquals("Renamed", book.updateCourse(1000, courseVersion, course -> {
+            course.setCourseName("Renamed");
+            return course.getCourseName();
+        }));
+        assertEquals(courseVersion + 1, book.snapshot().getCourse(1000).getVersion());
+        assertThrows(VersionConflictException.class,
+                () -> book.updateCourse(1000, courseVersion, course -> course.getCourseName()));
+        assertNull(book.updateCourse(9999, 0, course -> course.getCourseName()));
+
+        long studentVersion = book.snapshot().getStudent(1).getVersion();
+        book.enroll(1, 1000);
+        assertThrows(VersionConflictException.class, () -> book.updateStudent(1, studentVersion, student -> {
+            student.setName("Lost update");
+            return null;
+        }));
+        assertEquals("Student 1", book.snapshot().getStudent(1).getName());
+        long current = book.snapshot().getStudent(1).getVersion();
+        book.updateStudent(1, current, student -> {
+            student.setName("Saved");
+            return null;
+        });
+        assertEquals("Saved", book.snapshot().getStudent(1).getName());
+    }
+
+    @Test
+    public void testConcurrentUpdatesOfOneVersionOnlyOneWins() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger won = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        long version = book.snapshot().getCourse(1001).getVersion();
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String name = "Writer " + t;
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    book.updateCourse(1001, version, course -> {
+                        course.setCourseName(name);
+                        return null;
+                    });
+                    won.incrementAndGet();
+                } catch (VersionConflictException e) {
+                    conflicted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, won.get());
+        assertEquals(threads - 1, conflicted.get());
+        assertEquals(version + 1, book.snapshot().getCourse(1001).getVersion());
+    }
+}
@@ -0,0 +1,114 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentMapTest {
+
+    // a key whose hash is chosen, to force collisions
+    private static final class Key {
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PersistentMap<Integer, String> empty = PersistentMap.empty();
+        PersistentMap<Integer, String> one = empty.put(1, "one");
+        PersistentMap<Integer, String> two = one.put(2, "two");
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals("one", two.get(1));
+        assertNull(one.get(2));
+        assertSame(two, two.put(2, two.get(2)));
+        assertSame(two, two.remove(3));
+
+        PersistentMap<Integer, String> replaced = two.put(1, "uno");
+        assertEquals("uno", replaced.get(1));
+        assertEquals("one", two.get(1));
+        assertEquals(2, replaced.size());
+
+        PersistentMap<Integer, String> removed = two.remove(1);
+        assertFalse(removed.containsKey(1));
+        assertTrue(two.containsKey(1));
+        assertEquals(1, removed.size());
+        assertTrue(removed.remove(2).isEmpty());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentMap<Integer, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000) - 1000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -1000; key < 4000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    @Test
+    public void testKeysInTheFirstAndLastChildOfANode() {
+        int last = 31 << 5; // shares the first child of the root with 0, and is the last child below it
+        PersistentMap<Integer, String> map = PersistentMap.<Integer, String>empty().put(last, "last").put(0, "first");
+        assertEquals("first", map.get(0));
+        assertEquals("last", map.get(last));
+        map = PersistentMap.<Integer, String>empty().put(0, "first").put(last, "last");
+        assertEquals("first", map.get(0));
+        assertEquals("last", map.get(last));
+        assertEquals("first", map.remove(last).get(0));
+    }
+
+    @Test
+    public void testCollisions() {
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.put(new Key(i, i % 2 == 0 ? 7 : 7 + 32), i);
+        }
+        assertEquals(10, map.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, map.get(new Key(i, i % 2 == 0 ? 7 : 7 + 32)));
+        }
+        assertNull(map.get(new Key(99, 7)));
+        for (int i = 0; i < 10; i += 2) {
+            map = map.remove(new Key(i, 7));
+        }
+        assertEquals(5, map.size());
+        assertEquals(3, map.get(new Key(3, 39)));
+        assertNull(map.get(new Key(4, 7)));
+    }
+}
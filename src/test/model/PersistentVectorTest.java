@@ -0,0 +1,79 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentVectorTest {
+
+    @Test
+    public void testBehavesLikeArrayList() {
+        Random random = new Random(7);
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        for (int i = 0; i < 5000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 6 || expected.isEmpty()) {
+                expected.add(i);
+                vector.add(i);
+            } else if (choice < 7) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, i);
+                vector.add(index, i);
+            } else if (choice < 8) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), vector.remove(index));
+            } else if (choice < 9) {
+                assertEquals(expected.remove(expected.size() - 1), vector.remove(vector.size() - 1));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, -i), vector.set(index, -i));
+            }
+        }
+        assertEquals(expected, vector);
+        assertEquals(expected.indexOf(-4999), vector.indexOf(-4999));
+        assertArrayEquals(expected.toArray(), vector.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(vector.size()));
+
+        vector.clear();
+        assertTrue(vector.isEmpty());
+        vector.add(1);
+        assertEquals(List.of(1), vector);
+    }
+
+    @Test
+    public void testCopiesDoNotAffectEachOther() {
+        PersistentVector<Integer> original = new PersistentVector<>();
+        for (int i = 0; i < 2000; i++) {
+            original.add(i);
+        }
+        PersistentVector<Integer> copy = original.copy();
+        PersistentVector<Integer> frozen = original.frozenCopy();
+        original.set(5, -5);
+        original.add(2000);
+        copy.set(1500, -1500);
+        copy.remove(0);
+
+        assertEquals(-5, original.get(5));
+        assertEquals(1500, original.get(1500));
+        assertEquals(2001, original.size());
+        assertEquals(1, copy.get(0));
+        assertEquals(-1500, copy.get(1499));
+        assertEquals(1999, copy.size());
+        assertEquals(5, frozen.get(5));
+        assertEquals(1500, frozen.get(1500));
+        assertEquals(2000, frozen.size());
+
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add(1));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.set(0, 1));
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+        PersistentVector<Integer> thawed = frozen.copy();
+        thawed.add(2000);
+        assertEquals(2000, frozen.size());
+        assertEquals(2001, thawed.size());
+    }
+}
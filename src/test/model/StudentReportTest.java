@@ -0,0 +1,71 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentReportTest {
+    private List<Course> courses;
+    private Student student;
+
+    @BeforeEach
+    public void setUp() {
+        courses = new ArrayList<>();
+        Course java = new Course("JAVA", "CS210", "Intro to Java", 210, 4, 100.0);
+        Course math = new Course("Calculus", "MATH100", "Limits", 100, 3, 100.0);
+        courses.add(java);
+        courses.add(math);
+        student = new Student("Jack", 1);
+        student.addCourse(java);
+        student.addCourse(math);
+        student.getEnrolledCourses().add(999);
+        java.enrollStudent(student);
+        java.addGrade(student, 92.0);
+        math.enrollStudent(student);
+    }
+
+    @Test
+    public void testGenerate() {
+        String report = new StudentReport(courses).generate(student);
+        assertEquals("Report for Student ID: 1\n"
+                + "Name: Jack\n\n"
+                + "Courses Enrolled:\n"
+                + "JAVA (CS210) - Grade: A+\n"
+                + "Calculus (MATH100) - Grade: Not available\n"
+                + "\nCumulative GPA: " + String.format("%.2f", 16.0 / 7) + "\n", report);
+    }
+
+    @Test
+    public void testGpaMatchesGrade() {
+        List<Course> enrolled = new ArrayList<>(courses);
+        assertEquals(new Grade().calculateGPA(enrolled), new StudentReport(courses).gpa(student));
+        assertEquals(16.0 / 7, new StudentReport(courses).gpa(student), 1e-9);
+    }
+
+    @Test
+    public void testStudentsOfTheSameCourse() {
+        Course java = courses.get(0);
+        Student jill = new Student("Jill", 2);
+        Student joe = new Student("Joe", 3);
+        for (Student other : new Student[]{jill, joe}) {
+            other.addCourse(java);
+            java.enrollStudent(other);
+        }
+        java.addGrade(jill, 55.0);
+        StudentReport report = new StudentReport(courses);
+        assertTrue(report.generate(student).contains("JAVA (CS210) - Grade: A+\n"));
+        assertTrue(report.generate(jill).contains("JAVA (CS210) - Grade: D\n"));
+        assertTrue(report.generate(joe).contains("JAVA (CS210) - Grade: Not available\n"));
+    }
+
+    @Test
+    public void testWriteAppends() throws Exception {
+        StringBuilder out = new StringBuilder("before\n");
+        new StudentReport(courses).write(student, out);
+        assertTrue(out.toString().startsWith("before\nReport for Student ID: 1\n"));
+    }
+}
@@ -5,6 +5,8 @@ import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class StudentTest {
@@ -81,4 +83,65 @@ public class StudentTest {
         assertTrue(enrolledCoursesJsonArray.toList().contains(englishCourse.getCourseID()));
         assertTrue(enrolledCoursesJsonArray.toList().contains(philosophyCourse.getCourseID()));
     }
+
+    @Test
+    public void testCopy() {
+        student.addCourse(mathCourse);
+        Student copy = student.copy();
+        assertEquals("John", copy.getName());
+        assertEquals(123, copy.getStudentID());
+        assertTrue(copy.getEnrolledCourses().contains(mathCourse.getCourseID()));
+
+        student.addCourse(englishCourse);
+        assertEquals(1, copy.getEnrolledCourses().size());
+    }
+
+    @Test
+    public void testDirtyTracking() {
+        assertTrue(student.isDirty());
+        student.markClean();
+        assertFalse(student.isDirty());
+        student.addCourse(mathCourse);
+        assertTrue(student.isDirty());
+
+        student.markClean();
+        student.dropCourse(englishCourse);
+        assertFalse(student.isDirty());
+        student.dropCourse(mathCourse);
+        assertTrue(student.isDirty());
+    }
+
+    @Test
+    public void testAddCourses() {
+        student.addCourse(englishCourse);
+        student.markClean();
+        assertEquals(2, student.addCourses(Arrays.asList(mathCourse, englishCourse, philosophyCourse, mathCourse)));
+        assertEquals(Arrays.asList(102, 101, 103), student.getEnrolledCourses());
+        assertTrue(student.isDirty());
+        student.markClean();
+        assertEquals(0, student.addCourses(Arrays.asList(mathCourse)));
+        assertFalse(student.isDirty());
+    }
+
+    @Test
+    public void testDropCourses() {
+        student.addCourses(Arrays.asList(mathCourse, englishCourse, philosophyCourse));
+        assertEquals(2, student.dropCourses(Arrays.asList(philosophyCourse, mathCourse)));
+        assertEquals(Arrays.asList(102), student.getEnrolledCourses());
+        student.markClean();
+        assertEquals(0, student.dropCourses(Arrays.asList(mathCourse)));
+        assertFalse(student.isDirty());
+    }
+
+    @Test
+    public void testVersion() {
+        assertEquals(0, student.getVersion());
+        student.addCourse(mathCourse);
+        student.dropCourse(englishCourse); // not enrolled, so nothing changes
+        student.setName("Jon");
+        assertEquals(2, student.getVersion());
+        assertEquals(2, student.copy().getVersion());
+        student.checkVersion(2);
+        assertThrows(VersionConflictException.class, () -> student.checkVersion(0));
+    }
 }
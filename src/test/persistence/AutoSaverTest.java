@@ -0,0 +1,114 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoSaverTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Counts notifications and lets the test wait for the first finished or failed save
+    private static class RecordingListener implements AutoSaver.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger();
+        volatile IOException failure;
+
+        @Override
+        public void saveStarted(String destination) {
+            started.incrementAndGet();
+        }
+
+        @Override
+        public void saveFinished(String destination, long timeMillis) {
+            done.countDown();
+        }
+
+        @Override
+        public void saveFailed(String destination, IOException e) {
+            failure = e;
+            done.countDown();
+        }
+    }
+
+    @Test
+    void testBurstOfEditsCoalescedIntoOneWrite() throws Exception {
+        String destination = tempDir.resolve("autosave.json").toString();
+        AtomicInteger snapshots = new AtomicInteger();
+        List<Student> students = new ArrayList<>();
+        students.add(new Student("Alice", 123));
+        List<Course> courses = new ArrayList<>();
+        courses.add(new Course("Intro to Java", "210", "An introductory course.", 101, 4, 100.0));
+        RecordingListener listener = new RecordingListener();
+
+        AutoSaver autoSaver = new AutoSaver(200, () -> {
+            snapshots.incrementAndGet();
+            return new AutoSaver.Snapshot(students, courses, destination, 7);
+        }, listener);
+        for (int i = 0; i < 100; i++) {
+            autoSaver.markDirty();
+        }
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        autoSaver.shutdown();
+
+        assertEquals(1, snapshots.get());
+        assertEquals(1, listener.started.get());
+        assertNull(listener.failure);
+        assertFalse(Files.exists(Path.of(destination + ".tmp")));
+        JsonReader reader = new JsonReader(destination);
+        JsonReader.Pair<List<Student>, List<Course>> data = reader.read();
+        assertEquals("Alice", data.first.get(0).getName());
+        assertEquals(101, data.second.get(0).getCourseID());
+        assertEquals(7, reader.getJournalSeq());
+    }
+
+    @Test
+    void testNullSnapshotSkipsSave() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        CountDownLatch asked = new CountDownLatch(1);
+        AutoSaver autoSaver = new AutoSaver(10, () -> {
+            asked.countDown();
+            return null;
+        }, listener);
+        autoSaver.markDirty();
+        assertTrue(asked.await(5, TimeUnit.SECONDS));
+        autoSaver.shutdown();
+        assertEquals(0, listener.started.get());
+    }
+
+    @Test
+    void testFailureReported() throws Exception {
+        String destination = tempDir.resolve("missing/dir/autosave.json").toString();
+        RecordingListener listener = new RecordingListener();
+        AutoSaver autoSaver = new AutoSaver(10, () -> new AutoSaver.Snapshot(new ArrayList<>(), new ArrayList<>(),
+                destination, 0), listener);
+        autoSaver.markDirty();
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        autoSaver.shutdown();
+        assertNotNull(listener.failure);
+    }
+
+    @Test
+    void testIntervalAndShutdown() {
+        AutoSaver autoSaver = new AutoSaver(AutoSaver.DEFAULT_INTERVAL_MILLIS, () -> null, new RecordingListener());
+        assertEquals(AutoSaver.DEFAULT_INTERVAL_MILLIS, autoSaver.getIntervalMillis());
+        autoSaver.setIntervalMillis(5000);
+        assertEquals(5000, autoSaver.getIntervalMillis());
+        autoSaver.markDirty();
+        autoSaver.shutdown();
+        autoSaver.markDirty(); // ignored after shutdown
+    }
+}
@@ -0,0 +1,163 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.EventType;
+import model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<Student> students;
+    private List<Course> courses;
+    private Path source;
+    private Path rejects;
+
+    @BeforeEach
+    void setUp() {
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        courses.add(new Course("Math", "MATH100", "Calculus", 100, 3, 100.0));
+        courses.add(new Course("Physics", "PHYS101", "Mechanics", 101, 3, 100.0));
+        Student alice = new Student("Alice", 1);
+        alice.addCourse(courses.get(0));
+        courses.get(0).enrollStudent(alice);
+        courses.get(0).addGrade(alice, 50.0);
+        students.add(alice);
+        source = tempDir.resolve("grades.csv");
+        rejects = tempDir.resolve("grades.csv" + CsvImporter.REJECTS_SUFFIX);
+    }
+
+    @Test
+    void testImportWithHeaderAndRejects() throws IOException {
+        Files.write(source, Arrays.asList(
+                "studentID,studentName,course,grade",
+                "1,Alice,100,91.5",
+                "2,\"Smith, Bob\",MATH100,70",
+                "2,,phys101,65",
+                "3,,100,80",
+                "4,Dan,999,80",
+                "5,Eve,100,101",
+                "6,Frank,100",
+                "x,Gus,100,50",
+                "1,Alicia,101,40",
+                "7,\"Quote \"\"Q\"\"\",101,abc",
+                "8,\"Unclosed,101,50"));
+        CsvImporter.Result result = new CsvImporter(students, courses).importFile(source.toString(),
+                rejects.toString());
+        assertEquals(3, result.imported);
+        assertEquals(8, result.rejected);
+        assertEquals(1, result.createdStudents);
+
+        assertEquals(2, students.size());
+        Student bob = students.get(1);
+        assertEquals("Smith, Bob", bob.getName());
+        assertEquals(Arrays.asList(100, 101), bob.getEnrolledCourses());
+        assertEquals(91.5, courses.get(0).getGrade(students.get(0)));
+        assertEquals(70.0, courses.get(0).getGrade(bob));
+        assertEquals(65.0, courses.get(1).getGrade(bob));
+
+        List<String> rejected = Files.readAllLines(rejects);
+        assertEquals(9, rejected.size());
+        assertEquals("line,reason,row", rejected.get(0));
+        assertEquals("5,\"unknown student 3 without a name\",\"3,,100,80\"", rejected.get(1));
+        assertTrue(rejected.get(2).startsWith("6,\"unknown course 999\""));
+        assertTrue(rejected.get(3).startsWith("7,\"grade out of range\""));
+        assertTrue(rejected.get(4).startsWith("8,\"expected 4 fields but found 3\""));
+        assertTrue(rejected.get(5).startsWith("9,\"invalid student ID\""));
+        assertTrue(rejected.get(6).startsWith("10,\"student 1 is named Alice\""));
+        assertEquals("11,\"invalid grade\",\"7,\"\"Quote \"\"\"\"Q\"\"\"\"\"\",101,abc\"", rejected.get(7));
+        assertTrue(rejected.get(8).startsWith("12,\"unterminated quoted field\""));
+    }
+
+    @Test
+    void testStudentCoursesOfAChunkAddedAtOnce() throws IOException {
+        Files.write(source, Arrays.asList("900321,Hana,100,60", "900321,Hana,101,70", "900321,Hana,100,80"));
+        long from = EventLog.getInstance().getNextSequence();
+        CsvImporter.Result result = new CsvImporter(students, courses).importFile(source.toString(),
+                rejects.toString());
+        assertEquals(3, result.imported);
+
+        Student hana = students.get(1);
+        assertEquals(Arrays.asList(100, 101), hana.getEnrolledCourses());
+        assertEquals(80.0, courses.get(0).getGrade(hana));
+        assertEquals(70.0, courses.get(1).getGrade(hana));
+        List<Event> events = new ArrayList<>();
+        EventLog.getInstance().drain(from, events, 1000, true);
+        List<EventType> types = new ArrayList<>();
+        for (Event event : events) {
+            if (event.getStudentId() == 900321) {
+                types.add(event.getType());
+            }
+        }
+        assertEquals(List.of(EventType.COURSES_ADDED), types);
+    }
+
+    @Test
+    void testManyChunksInFileOrder() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int id = 1000 + i % 1200;
+            lines.add(id + ",Student " + id + "," + (100 + i % 2) + "," + (i % 100));
+        }
+        Files.write(source, lines);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            CsvImporter.Result result = new CsvImporter(students, courses, pool, 64).importFile(source.toString(),
+                    rejects.toString());
+            assertEquals(5000, result.imported);
+            assertEquals(0, result.rejected);
+            assertEquals(1200, result.createdStudents);
+        } finally {
+            pool.shutdown();
+        }
+        assertFalse(Files.exists(rejects));
+        assertEquals(1201, students.size());
+        assertEquals(1000, students.get(1).getStudentID());
+        // the last row for each student and course wins
+        for (int i = 5000 - 2400; i < 5000; i++) {
+            int id = 1000 + i % 1200;
+            Student student = students.get(id - 1000 + 1);
+            assertEquals((double) (i % 100), courses.get(i % 2).getGrade(student));
+        }
+        assertEquals(courses.get(0).getEnrolledStudentsID().size(), courses.get(0).getStudentGrades().size());
+    }
+
+    @Test
+    void testStaleRejectsRemoved() throws IOException {
+        Files.writeString(rejects, "old");
+        Files.write(source, Arrays.asList("1,Alice,100,60"));
+        new CsvImporter(students, courses).importFile(source.toString(), rejects.toString());
+        assertFalse(Files.exists(rejects));
+        assertEquals(60.0, courses.get(0).getGrade(students.get(0)));
+    }
+
+    @Test
+    void testMissingSource() {
+        assertThrows(IOException.class, () -> new CsvImporter(students, courses).importFile(
+                tempDir.resolve("missing.csv").toString(), rejects.toString()));
+    }
+
+    @Test
+    void testSplit() {
+        assertEquals(Arrays.asList("a", "", "b,c", "d\"e"), CsvImporter.split("a,,\"b,c\",\"d\"\"e\""));
+        assertNull(CsvImporter.split("\"open"));
+    }
+}
@@ -0,0 +1,126 @@
+package persistence;
+
+import model.Course;
+import model.Event;
+import model.EventLog;
+import model.EventType;
+import model.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        String dir = tempDir.resolve("events").toString();
+        Student student = new Student("Ren\u00e9e", 7);
+        Course course = new Course("Physics", "PHYS 101", "Mechanics", 12, 3, 100.0);
+        EventJournal journal = new EventJournal(dir);
+        Event message = new Event("Journal round trip");
+        Event enrolled = Event.of(EventType.STUDENT_ENROLLED, student, course);
+        Event batch = Event.of(EventType.GRADES_ADDED, course, 40);
+        EventLog.getInstance().logEvent(message);
+        EventLog.getInstance().logEvent(enrolled);
+        EventLog.getInstance().logEvent(batch);
+        journal.close();
+
+        List<Event> read = EventJournal.readAll(dir);
+        assertTrue(read.size() >= 3);
+        assertEquals(List.of(message, enrolled, batch), read.subList(read.size() - 3, read.size()));
+        Event restored = read.get(read.size() - 2);
+        assertEquals(EventType.STUDENT_ENROLLED, restored.getType());
+        assertEquals(7, restored.getStudentId());
+        assertEquals("Ren\u00e9e", restored.getStudentName());
+        assertEquals(12, restored.getCourseId());
+        assertNull(restored.getMessage());
+        assertEquals(40, read.get(read.size() - 1).getCount());
+        assertEquals("Journal round trip", read.get(read.size() - 3).getMessage());
+    }
+
+    @Test
+    void testRotationAndRetention() throws IOException {
+        String dir = tempDir.resolve("events").toString();
+        EventJournal journal = new EventJournal(dir, 1024, 3, 50);
+        for (int i = 0; i < 200; i++) {
+            EventLog.getInstance().logEvent(new Event("Rotated event " + i));
+        }
+        journal.flush();
+        try (var files = Files.list(tempDir.resolve("events"))) {
+            assertEquals(3, files.count());
+        }
+        List<Event> read = EventJournal.readAll(dir);
+        assertTrue(read.size() < 200);
+        assertEquals("Rotated event 199", read.get(read.size() - 1).getDescription());
+        journal.close();
+        assertTrue(journal.getWrittenCount() >= 200);
+    }
+
+    @Test
+    void testNewSessionStartsNewFile() throws IOException {
+        String dir = tempDir.resolve("events").toString();
+        EventLog.getInstance().logEvent(new Event("First session"));
+        new EventJournal(dir).close();
+        EventJournal second = new EventJournal(dir);
+        EventLog.getInstance().logEvent(new Event("Second session"));
+        second.close();
+        try (var files = Files.list(tempDir.resolve("events"))) {
+            assertEquals(2, files.count());
+        }
+        List<Event> read = EventJournal.readAll(dir);
+        assertEquals("Second session", read.get(read.size() - 1).getDescription());
+    }
+
+    @Test
+    void testEventsWrittenBeforeAFailedRotationAreNotWrittenAgain() throws IOException {
+        Path events = tempDir.resolve("events");
+        EventJournal journal = new EventJournal(events.toString(), 1024, 100, 60_000);
+        EventLog.getInstance().logEvent(new Event("Before the failure"));
+        journal.flush();
+        int newest;
+        try (var files = Files.list(events)) {
+            newest = files.mapToInt(file -> Integer.parseInt(file.getFileName().toString().replaceAll("\\D", "")))
+                    .max().orElseThrow();
+        }
+        Path blocker = Files.createDirectory(events.resolve(String.format("events-%08d.log", newest + 1)));
+        for (int i = 0; i < 100; i++) {
+            EventLog.getInstance().logEvent(new Event("Retried event " + i));
+        }
+        assertThrows(IOException.class, journal::flush);
+        Files.delete(blocker);
+        journal.flush();
+        journal.close();
+
+        List<String> retried = new ArrayList<>();
+        for (Event event : EventJournal.readAll(events.toString())) {
+            if (event.getDescription().startsWith("Retried event ")) {
+                retried.add(event.getDescription());
+            }
+        }
+        assertEquals(100, retried.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Retried event " + i, retried.get(i));
+        }
+    }
+
+    @Test
+    void testReadEmptyDirectory() throws IOException {
+        assertTrue(EventJournal.readAll(tempDir.resolve("missing").toString()).isEmpty());
+    }
+
+    @Test
+    void testReadBadFile() throws IOException {
+        Files.write(tempDir.resolve("events-00000001.log"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> EventJournal.readAll(tempDir.toString()));
+    }
+}
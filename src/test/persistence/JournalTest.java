@@ -0,0 +1,377 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String snapshot;
+    private List<Student> students;
+    private List<Course> courses;
+    private Course java;
+    private Student alice;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = tempDir.resolve("gradeTracker.json").toString();
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        java = new Course("Intro to Java", "210", "An introductory course.", 101, 4, 100.0);
+        alice = new Student("Alice", 123);
+        courses.add(java);
+        students.add(alice);
+    }
+
+    @Test
+    void testReplayMissingSnapshotIsEmpty() throws IOException {
+        Journal journal = new Journal(snapshot);
+        JsonReader.Pair<List<Student>, List<Course>> data = journal.replay();
+        assertTrue(data.first.isEmpty());
+        assertTrue(data.second.isEmpty());
+        assertTrue(journal.isAttached());
+    }
+
+    @Test
+    void testRecordsIgnoredWhileDetached() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.recordAddCourse(java);
+        assertEquals(0, journal.pendingCount());
+
+        journal.save(students, courses);
+        assertTrue(journal.isAttached());
+        assertFalse(Files.exists(tempDir.resolve("gradeTracker.json.journal")));
+    }
+
+    @Test
+    void testFlushAppendsOnlyChanges() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        String snapshotBefore = Files.readString(Path.of(snapshot));
+
+        alice.addCourse(java);
+        java.enrollStudent(alice);
+        journal.recordEnroll(alice, java);
+        java.addGrade(alice, 88.0);
+        journal.recordAddGrade(alice, java, 88.0);
+        Student bob = new Student("Bob", 456);
+        students.add(bob);
+        journal.recordAddStudent(bob);
+
+        journal.save(students, courses);
+        assertEquals(0, journal.pendingCount());
+        assertEquals(snapshotBefore, Files.readString(Path.of(snapshot)));
+        assertEquals(3, Files.readAllLines(tempDir.resolve("gradeTracker.json.journal")).size());
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals(2, data.first.size());
+        Student replayedAlice = data.first.get(0);
+        Course replayedJava = data.second.get(0);
+        assertEquals(List.of(101), replayedAlice.getEnrolledCourses());
+        assertEquals(88.0, replayedJava.getGrade(replayedAlice));
+        assertEquals("Bob", data.first.get(1).getName());
+    }
+
+    @Test
+    void testCheckpointFoldsJournal() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        java.setCourseName("Java");
+        journal.recordEditCourse(101, java);
+        journal.flush();
+
+        journal.checkpoint(students, courses);
+        assertFalse(Files.exists(tempDir.resolve("gradeTracker.json.journal")));
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals("Java", data.second.get(0).getCourseName());
+    }
+
+    @Test
+    void testReplaySkipsRecordsAlreadyInSnapshot() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        Course math = new Course("Math", "MATH101", "Algebra", 102, 3, 100.0);
+        courses.add(math);
+        journal.recordAddCourse(math);
+        journal.flush();
+        String staleJournal = Files.readString(tempDir.resolve("gradeTracker.json.journal"));
+
+        // Simulate a crash after the snapshot was replaced but before the journal was removed
+        journal.checkpoint(students, courses);
+        Files.writeString(tempDir.resolve("gradeTracker.json.journal"), staleJournal);
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals(2, data.second.size());
+    }
+
+    @Test
+    void testFreshJournalCheckpointOutranksStaleJournal() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        Course math = new Course("Math", "MATH101", "Algebra", 102, 3, 100.0);
+        journal.recordAddCourse(math);
+        journal.flush();
+        Path journalFile = tempDir.resolve("gradeTracker.json.journal");
+        String staleJournal = Files.readString(journalFile);
+
+        // A journal that never replayed the file overwrites it, then crashes before removing the journal
+        Journal fresh = new Journal(snapshot);
+        fresh.checkpoint(new ArrayList<>(), new ArrayList<>());
+        Files.writeString(journalFile, staleJournal);
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertTrue(data.second.isEmpty());
+        assertTrue(data.first.isEmpty());
+
+        Files.writeString(journalFile, staleJournal);
+        Journal background = new Journal(snapshot);
+        Journal.Checkpoint checkpoint = background.beginCheckpoint();
+        assertEquals(journal.getLastSeq(), checkpoint.getSeq());
+    }
+
+    @Test
+    void testReplayIgnoresTornTail() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        journal.recordEditStudent(123, new Student("Alicia", 124));
+        journal.flush();
+        Files.write(tempDir.resolve("gradeTracker.json.journal"), "{\"seq\":2,\"op\":\"cl".getBytes(
+                StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals(1, data.first.size());
+        assertEquals("Alicia", data.first.get(0).getName());
+        assertEquals(124, data.first.get(0).getStudentID());
+        assertEquals(1, data.second.size());
+    }
+
+    @Test
+    void testRecordsFlushedAfterATornTailAreReplayed() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(new ArrayList<>(), new ArrayList<>());
+        journal.recordAddStudent(new Student("One", 1));
+        journal.flush();
+        Path journalFile = tempDir.resolve("gradeTracker.json.journal");
+        Files.write(journalFile, "{\"seq\":2,\"op\":\"addSt".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Journal restarted = new Journal(snapshot);
+        assertEquals(1, restarted.replay().first.size());
+        restarted.recordAddStudent(new Student("Two", 2));
+        restarted.flush();
+
+        List<Student> replayed = new Journal(snapshot).replay().first;
+        assertEquals(2, replayed.size());
+        assertEquals("Two", replayed.get(1).getName());
+    }
+
+    @Test
+    void testRecordWrittenTwiceIsAppliedOnce() throws IOException {
+        Journal journal = new Journal(snapshot);
+        alice.addCourse(java);
+        java.enrollStudent(alice);
+        journal.checkpoint(students, courses);
+        journal.recordAddGrade(alice, java, 88.0);
+        journal.flush();
+        Path journalFile = tempDir.resolve("gradeTracker.json.journal");
+        Files.writeString(journalFile, Files.readString(journalFile), StandardOpenOption.APPEND);
+
+        List<Course> replayed = new Journal(snapshot).replay().second;
+        assertEquals(List.of(88.0), replayed.get(0).getStudentGrades());
+    }
+
+    @Test
+    void testSetGradeReplacesGrade() throws IOException {
+        Journal journal = new Journal(snapshot);
+        alice.addCourse(java);
+        java.enrollStudent(alice);
+        java.addGrade(alice, 70.0);
+        journal.checkpoint(students, courses);
+
+        journal.recordSetGrade(alice, java, 85.0);
+        journal.flush();
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals(85.0, data.second.get(0).getGrade(data.first.get(0)));
+        assertEquals(List.of(85.0), data.second.get(0).getStudentGrades());
+    }
+
+    @Test
+    void testDropRemoveGradeAndClear() throws IOException {
+        Journal journal = new Journal(snapshot);
+        alice.addCourse(java);
+        java.enrollStudent(alice);
+        java.addGrade(alice, 70.0);
+        journal.checkpoint(students, courses);
+
+        journal.recordRemoveGrade(alice, java);
+        journal.flush();
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals(0.0, data.second.get(0).getGrade(data.first.get(0)));
+
+        journal.recordDrop(alice, java);
+        journal.flush();
+        data = new Journal(snapshot).replay();
+        assertTrue(data.first.get(0).getEnrolledCourses().isEmpty());
+        assertFalse(data.second.get(0).getEnrolledStudentsID().contains(123));
+
+        journal.recordClear();
+        journal.flush();
+        data = new Journal(snapshot).replay();
+        assertTrue(data.first.isEmpty());
+        assertTrue(data.second.isEmpty());
+    }
+
+    @Test
+    void testNeedsCompaction() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        for (int i = 0; i < Journal.COMPACTION_THRESHOLD; i++) {
+            journal.recordRemoveGrade(alice, java);
+        }
+        assertTrue(journal.needsCompaction());
+        journal.save(students, courses);
+        assertFalse(journal.needsCompaction());
+        assertFalse(Files.exists(tempDir.resolve("gradeTracker.json.journal")));
+    }
+
+    @Test
+    void testBulkChangeForcesSnapshot() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        journal.recordEnroll(alice, java);
+        journal.flush();
+        alice.setName("Alicia");
+        journal.recordBulkChange();
+        assertEquals(0, journal.pendingCount());
+        journal.save(students, courses);
+        assertTrue(journal.isAttached());
+        assertFalse(Files.exists(tempDir.resolve("gradeTracker.json.journal")));
+        assertEquals("Alicia", new Journal(snapshot).replay().first.get(0).getName());
+    }
+
+    @Test
+    void testListenerSeesRecordsAndResynchronizations() throws IOException {
+        Journal journal = new Journal(snapshot);
+        List<String> heard = new ArrayList<>();
+        journal.setListener(new Journal.Listener() {
+            @Override
+            public void recorded(JSONObject record) {
+                heard.add(record.getString("op") + " " + record.getLong("seq"));
+            }
+
+            @Override
+            public void resynchronize() {
+                heard.add("resynchronize");
+            }
+        });
+        journal.recordAddCourse(java);
+        journal.checkpoint(students, courses);
+        journal.recordEnroll(alice, java);
+        journal.checkpoint(students, courses);
+        journal.recordBulkChange();
+
+        assertEquals(List.of("resynchronize", "enroll " + journal.getLastSeq(), "resynchronize"), heard);
+    }
+
+    @Test
+    void testCheckpointWrittenOnAnotherThread() throws Exception {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        journal.recordEnroll(alice, java);
+        journal.flush();
+
+        assertFalse(journal.isSnapshotDue());
+        journal.recordBulkChange();
+        assertTrue(journal.isSnapshotDue());
+        Journal.Checkpoint checkpoint = journal.beginCheckpoint();
+        assertTrue(journal.isAttached());
+        assertFalse(journal.isSnapshotDue());
+
+        List<long[]> reported = new ArrayList<>();
+        Thread writer = new Thread(() -> {
+            try {
+                checkpoint.write(students, courses, (done, total) -> reported.add(new long[]{done, total}));
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+        writer.start();
+        // Changes recorded while the snapshot is written are journaled after it
+        java.setCourseName("Java");
+        journal.recordEditCourse(101, java);
+        writer.join();
+        journal.finishCheckpoint(checkpoint);
+        journal.flush();
+
+        long[] last = reported.get(reported.size() - 1);
+        assertEquals(2, last[0]);
+        assertEquals(2, last[1]);
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(snapshot).replay();
+        assertEquals("Java", data.second.get(0).getCourseName());
+        assertEquals(1, data.first.size());
+    }
+
+    @Test
+    void testInterruptedCheckpointLeavesFilesAsTheyWere() throws IOException {
+        Journal journal = new Journal(snapshot);
+        journal.checkpoint(students, courses);
+        for (int id = 0; id < 5000; id++) {
+            students.add(new Student("Student " + id, id));
+        }
+        String before = Files.readString(Path.of(snapshot));
+
+        journal.recordBulkChange();
+        Journal.Checkpoint checkpoint = journal.beginCheckpoint();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> checkpoint.write(students, courses, Progress.NONE));
+        } finally {
+            Thread.interrupted();
+        }
+        journal.detach();
+
+        assertEquals(before, Files.readString(Path.of(snapshot)));
+        assertFalse(Files.exists(Path.of(snapshot + ".tmp")));
+        assertTrue(journal.isSnapshotDue());
+    }
+
+    @Test
+    void testReplayReportsProgressAndStopsWhenInterrupted() throws IOException {
+        new Journal(snapshot).checkpoint(students, courses);
+        long size = Files.size(Path.of(snapshot));
+        List<Long> reported = new ArrayList<>();
+        Journal journal = new Journal(snapshot);
+        journal.replay((done, total) -> {
+            assertEquals(size, total);
+            reported.add(done);
+        });
+        assertEquals(size, (long) reported.get(reported.size() - 1));
+
+        Journal interrupted = new Journal(snapshot);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> interrupted.replay((done, total) -> { }));
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(interrupted.isAttached());
+    }
+}
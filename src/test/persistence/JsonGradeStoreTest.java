@@ -0,0 +1,99 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonGradeStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GradeStore store;
+    private List<Student> students;
+    private List<Course> courses;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = GradeStore.forFile(tempDir.resolve("gradeTracker.json").toString());
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        courses.add(new Course("Math", "MATH100", "Calculus", 100, 3, 100.0));
+        students.add(new Student("Alice", 2));
+        students.add(new Student("Bob", 1));
+        students.get(0).addCourse(courses.get(0));
+        courses.get(0).enrollStudent(students.get(0));
+        courses.get(0).addGrade(students.get(0), 88.0);
+    }
+
+    @Test
+    void testForFile() {
+        assertTrue(store instanceof JsonGradeStore);
+    }
+
+    @Test
+    void testMissingFileIsEmpty() throws IOException {
+        assertNull(store.getStudent(1));
+        assertFalse(store.removeCourse(100));
+    }
+
+    @Test
+    void testSaveLoadAndGet() throws IOException {
+        store.save(students, courses);
+        JsonReader.Pair<List<Student>, List<Course>> data = store.load();
+        assertEquals("Alice", data.first.get(0).getName());
+        assertEquals("Bob", data.first.get(1).getName());
+        assertEquals(List.of(100), store.getStudent(2).getEnrolledCourses());
+        assertEquals(88.0, store.getCourse(100).getStudentGrades().get(0));
+    }
+
+    @Test
+    void testPutAndRemoveRewriteFile() throws IOException {
+        store.save(students, courses);
+        store.putStudent(new Student("Carol", 3));
+        store.putStudent(new Student("Robert", 1));
+        assertTrue(store.removeStudent(2));
+        JsonReader.Pair<List<Student>, List<Course>> data = new JsonGradeStore(
+                tempDir.resolve("gradeTracker.json").toString()).load();
+        assertEquals(2, data.first.size());
+        assertEquals("Robert", data.first.get(0).getName());
+        assertEquals("Carol", data.first.get(1).getName());
+        List<String> names = new ArrayList<>();
+        store.forEachStudent(student -> names.add(student.getName()));
+        assertEquals(List.of("Robert", "Carol"), names);
+        List<Course> stored = new ArrayList<>();
+        store.forEachCourse(stored::add);
+        stored.get(0).setCourseName("Changed");
+        assertEquals("Math", store.getCourse(100).getCourseName());
+    }
+
+    @Test
+    void testReadsAndFoldsInTheJournal() throws IOException {
+        String file = tempDir.resolve("gradeTracker.json").toString();
+        Journal journal = new Journal(file);
+        journal.checkpoint(students, courses);
+        Student carol = new Student("Carol", 3);
+        journal.recordAddStudent(carol);
+        journal.flush();
+
+        JsonGradeStore journaled = new JsonGradeStore(file);
+        assertEquals(3, journaled.load().first.size());
+        assertEquals("Carol", journaled.getStudent(3).getName());
+
+        journaled.putCourse(new Course("Art", "ART100", "Drawing", 101, 3, 100.0));
+        assertFalse(Files.exists(Path.of(file + ".journal")));
+        JsonReader.Pair<List<Student>, List<Course>> data = new Journal(file).replay();
+        assertEquals(3, data.first.size());
+        assertEquals(2, data.second.size());
+    }
+}
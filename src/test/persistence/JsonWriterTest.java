@@ -1,6 +1,7 @@
 package persistence;
 
 import model.Course;
+import model.GradeBook;
 import model.Student;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +14,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,6 +80,74 @@ class JsonWriterTest {
         }
     }
 
+    @Test
+    void testWriterCompressedGradeTracker(@TempDir Path tempDir) throws IOException {
+        String compressedFile = tempDir.resolve("gradeTracker.json.gz").toString();
+        JsonWriter compressedWriter = new JsonWriter(compressedFile, Deflater.BEST_COMPRESSION);
+        compressedWriter.open();
+        compressedWriter.write(students, courses);
+        compressedWriter.close();
+
+        byte[] bytes = Files.readAllBytes(Path.of(compressedFile));
+        assertEquals((byte) 0x1f, bytes[0]);
+        assertEquals((byte) 0x8b, bytes[1]);
+
+        var result = new JsonReader(compressedFile).read();
+        assertEquals("Alice", result.first.get(0).getName());
+        assertEquals("Intro to Java", result.second.get(0).getCourseName());
+    }
+
+    @Test
+    void testCompressionSmallerForLargeData(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 500; i++) {
+            students.add(new Student("Student " + i, 1000 + i));
+        }
+        String plainFile = tempDir.resolve("plain.json").toString();
+        String compressedFile = tempDir.resolve("plain.json.gz").toString();
+        for (String file : new String[]{plainFile, compressedFile}) {
+            JsonWriter each = new JsonWriter(file);
+            each.open();
+            each.write(students, courses);
+            each.close();
+        }
+        assertTrue(Files.size(Path.of(compressedFile)) * 4 < Files.size(Path.of(plainFile)));
+        assertEquals(501, new JsonReader(compressedFile).read().first.size());
+    }
+
+    @Test
+    void testDefaultCompressionLevel() {
+        int level = JsonWriter.getDefaultCompressionLevel();
+        JsonWriter.setDefaultCompressionLevel(Deflater.BEST_SPEED);
+        assertEquals(Deflater.BEST_SPEED, JsonWriter.getDefaultCompressionLevel());
+        JsonWriter.setDefaultCompressionLevel(level);
+        assertTrue(JsonWriter.isCompressed("data.json.GZ"));
+        assertFalse(JsonWriter.isCompressed("data.json"));
+    }
+
+    @Test
+    void testWriteGradeBookSnapshotWhileGrading(@TempDir Path tempDir) throws Exception {
+        GradeBook book = new GradeBook(students, courses);
+        book.enroll(123, 101);
+        book.setGrade(123, 101, 60.0);
+        GradeBook.Snapshot snapshot = book.snapshot();
+        Thread grader = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                book.setGrade(123, 101, i % 100);
+            }
+        });
+        grader.start();
+        String file = tempDir.resolve("snapshot.json").toString();
+        JsonWriter snapshotWriter = new JsonWriter(file);
+        snapshotWriter.open();
+        snapshotWriter.write(snapshot.getStudents(), snapshot.getCourses());
+        snapshotWriter.close();
+        grader.join();
+
+        JsonReader.Pair<List<Student>, List<Course>> read = new JsonReader(file).read();
+        assertEquals(List.of(60.0), read.second.get(0).getStudentGrades());
+        assertEquals(99.0, book.getGrade(123, 101));
+    }
+
     @AfterEach
     void tearDown(@TempDir Path tempDir) {
         // Use the @TempDir annotation to create temporary directories for each test,
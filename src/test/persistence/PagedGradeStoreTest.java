@@ -0,0 +1,151 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedGradeStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String file;
+    private PagedGradeStore store;
+    private List<Student> students;
+    private List<Course> courses;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("gradeTracker" + PagedGradeStore.EXTENSION).toString();
+        store = new PagedGradeStore(file, 256, 16);
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            courses.add(new Course("Course " + i, "C" + i, "Description " + i, 100 + i, 3, 100.0));
+        }
+        for (int i = 0; i < 500; i++) {
+            Student student = new Student("Student " + i, (i * 37) % 500);
+            Course course = courses.get(i % courses.size());
+            student.addCourse(course);
+            course.enrollStudent(student);
+            course.addGrade(student, i % 100);
+            students.add(student);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void testEmptyStore() throws IOException {
+        assertNull(store.getStudent(1));
+        assertNull(store.getCourse(100));
+        assertFalse(store.removeStudent(1));
+        JsonReader.Pair<List<Student>, List<Course>> data = store.load();
+        assertTrue(data.first.isEmpty());
+        assertTrue(data.second.isEmpty());
+    }
+
+    @Test
+    void testSaveAndLoadInIdOrder() throws IOException {
+        store.save(students, courses);
+        JsonReader.Pair<List<Student>, List<Course>> data = store.load();
+        assertEquals(500, data.first.size());
+        assertEquals(5, data.second.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, data.first.get(i).getStudentID());
+        }
+        Student student = data.first.get(37);
+        assertEquals("Student 1", student.getName());
+        assertEquals(List.of(101), student.getEnrolledCourses());
+        Course course = data.second.get(1);
+        assertEquals(100, course.getEnrolledStudentsID().size());
+        assertEquals(1.0, course.getGrade(student));
+    }
+
+    @Test
+    void testPointReadsAfterReopen() throws IOException {
+        store.save(students, courses);
+        store.close();
+        store = new PagedGradeStore(file, 256, 16);
+        long before = store.getPagesRead();
+        Student student = store.getStudent(74);
+        assertEquals("Student 2", student.getName());
+        assertEquals(List.of(102), student.getEnrolledCourses());
+        assertTrue(store.getPagesRead() - before <= 4);
+        Course course = store.getCourse(103);
+        assertEquals("C3", course.getCourseCode());
+        assertEquals(100, course.getStudentGrades().size());
+    }
+
+    @Test
+    void testPutReplaceAndRemove() throws IOException {
+        for (Student student : students) {
+            store.putStudent(student);
+        }
+        store.putCourse(courses.get(0));
+        Student renamed = new Student("Renamed", 5);
+        store.putStudent(renamed);
+        assertEquals("Renamed", store.getStudent(5).getName());
+        for (int id = 0; id < 500; id += 2) {
+            assertTrue(store.removeStudent(id));
+        }
+        assertFalse(store.removeStudent(0));
+        List<Integer> ids = new ArrayList<>();
+        store.forEachStudent(student -> ids.add(student.getStudentID()));
+        assertEquals(250, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(2 * i + 1, ids.get(i));
+        }
+        assertTrue(store.removeCourse(100));
+        assertNull(store.getCourse(100));
+    }
+
+    @Test
+    void testRemovedPagesAreReused() throws IOException {
+        Course large = courses.get(0);
+        store.putCourse(large);
+        store.putCourse(large);
+        store.close();
+        long size = Files.size(tempDir.resolve("gradeTracker" + PagedGradeStore.EXTENSION));
+        store = new PagedGradeStore(file, 256, 16);
+        for (int i = 0; i < 10; i++) {
+            store.putCourse(large);
+        }
+        assertEquals(size, Files.size(tempDir.resolve("gradeTracker" + PagedGradeStore.EXTENSION)));
+        List<Course> stored = new ArrayList<>();
+        store.forEachCourse(stored::add);
+        assertEquals(1, stored.size());
+        assertEquals(large.getStudentGrades(), stored.get(0).getStudentGrades());
+    }
+
+    @Test
+    void testDefaultPageSize() throws IOException {
+        String other = tempDir.resolve("other" + PagedGradeStore.EXTENSION).toString();
+        try (GradeStore defaults = GradeStore.forFile(other)) {
+            assertTrue(defaults instanceof PagedGradeStore);
+            defaults.save(students, courses);
+            assertEquals(500, defaults.load().first.size());
+        }
+    }
+
+    @Test
+    void testNotAPagedStore() throws IOException {
+        Path bad = tempDir.resolve("bad" + PagedGradeStore.EXTENSION);
+        Files.writeString(bad, "{\"students\": [], \"courses\": []}");
+        assertThrows(IOException.class, () -> new PagedGradeStore(bad.toString()));
+    }
+}
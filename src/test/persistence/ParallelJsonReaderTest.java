@@ -0,0 +1,132 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.json.JSONException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelJsonReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private List<Student> students;
+    private List<Course> courses;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            courses.add(new Course("Course {" + i + "}", "C\"" + i, "Tricky [\\ description] " + i, 100 + i,
+                    3, 100.0));
+        }
+        for (int i = 0; i < 300; i++) {
+            Student student = new Student("Student \u00e9 \"" + i + "\"", i);
+            for (int c = 0; c < 3; c++) {
+                Course course = courses.get((i + c * 5) % courses.size());
+                student.addCourse(course);
+                course.enrollStudent(student);
+                course.addGrade(student, (i * 7 + c) % 100);
+            }
+            students.add(student);
+        }
+        students.add(new Student("Unknown course", 999));
+        students.get(300).getEnrolledCourses().add(12345);
+    }
+
+    private String write(String name) throws IOException {
+        String file = tempDir.resolve(name).toString();
+        JsonWriter writer = new JsonWriter(file);
+        writer.open();
+        writer.write(students, courses);
+        writer.close();
+        return file;
+    }
+
+    private static void assertSameData(JsonReader.Pair<List<Student>, List<Course>> expected,
+                                       JsonReader.Pair<List<Student>, List<Course>> actual) {
+        assertEquals(expected.first.size(), actual.first.size());
+        assertEquals(expected.second.size(), actual.second.size());
+        for (int i = 0; i < expected.first.size(); i++) {
+            assertEquals(expected.first.get(i).toJson().toString(), actual.first.get(i).toJson().toString());
+        }
+        for (int i = 0; i < expected.second.size(); i++) {
+            assertEquals(expected.second.get(i).toJson().toString(), actual.second.get(i).toJson().toString());
+        }
+    }
+
+    @Test
+    void testSameModelAsSequentialReader() throws IOException {
+        String file = write("gradeTracker.json");
+        ParallelJsonReader reader = new ParallelJsonReader(file, pool, 256);
+        assertSameData(new JsonReader(file).read(), reader.read());
+        assertEquals(0, reader.getJournalSeq());
+    }
+
+    @Test
+    void testSingleChunkAndDefaultPool() throws IOException {
+        String file = write("gradeTracker.json");
+        assertSameData(new JsonReader(file).read(), new ParallelJsonReader(file).read());
+    }
+
+    @Test
+    void testEmptyArraysAndJournalSeq() throws IOException {
+        String file = tempDir.resolve("empty.json").toString();
+        JsonWriter.writeSnapshot(file, new ArrayList<>(), new ArrayList<>(), 42);
+        ParallelJsonReader reader = new ParallelJsonReader(file, pool, 16);
+        JsonReader.Pair<List<Student>, List<Course>> data = reader.read();
+        assertTrue(data.first.isEmpty());
+        assertTrue(data.second.isEmpty());
+        assertEquals(42, reader.getJournalSeq());
+    }
+
+    @Test
+    void testCompactJsonWithoutWhitespace() throws IOException {
+        Path file = tempDir.resolve("compact.json");
+        Files.writeString(file, "{\"courses\":[" + courses.get(0).toJson() + "," + courses.get(1).toJson()
+                + "],\"students\":[" + students.get(0).toJson() + "]}");
+        assertSameData(new JsonReader(file.toString()).read(),
+                new ParallelJsonReader(file.toString(), pool, 1).read());
+    }
+
+    @Test
+    void testCompressedFileFallsBackToSequential() throws IOException {
+        String file = write("gradeTracker.json.gz");
+        assertSameData(new JsonReader(file).read(), new ParallelJsonReader(file, pool, 256).read());
+    }
+
+    @Test
+    void testCourseListedTwice() throws IOException {
+        students.get(0).getEnrolledCourses().add(students.get(0).getEnrolledCourses().get(0));
+        String file = write("gradeTracker.json");
+        JsonReader.Pair<List<Student>, List<Course>> expected = new JsonReader(file).read();
+        assertSameData(expected, new ParallelJsonReader(file, pool, 256).read());
+        assertEquals(3, expected.first.get(0).getEnrolledCourses().size());
+    }
+
+    @Test
+    void testMissingArray() throws IOException {
+        Path file = tempDir.resolve("bad.json");
+        Files.writeString(file, "{\"students\": []}");
+        assertThrows(JSONException.class, () -> new ParallelJsonReader(file.toString(), pool, 16).read());
+    }
+
+    @Test
+    void testNonExistentFile() {
+        assertThrows(IOException.class, () -> new ParallelJsonReader("nonexistent.json").read());
+    }
+}
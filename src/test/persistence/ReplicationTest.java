@@ -0,0 +1,180 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests a replica streaming the journal from a primary over a loopback socket. The data is only changed once the
+ * replica has caught up, so the primary never takes a snapshot while the test changes it.
+ */
+class ReplicationTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    private List<Student> students;
+    private List<Course> courses;
+    private Journal journal;
+    private ReplicationPrimary primary;
+    private Replica replica;
+    private Course java;
+    private volatile int failingSnapshots;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        java = new Course("Intro to Java", "210", "An introductory course.", 101, 4, 100.0);
+        Student alice = new Student("Alice", 123);
+        courses.add(java);
+        students.add(alice);
+        java.enrollStudent(alice);
+        alice.addCourse(java);
+        java.addGrade(alice, 90.0);
+
+        journal = new Journal(tempDir.resolve("gradeTracker.json").toString());
+        journal.save(students, courses);
+        primary = new ReplicationPrimary(0, this::snapshot);
+        journal.setListener(primary);
+        replica = new Replica(InetAddress.getLoopbackAddress().getHostAddress(), primary.getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        replica.close();
+        primary.close();
+    }
+
+    private JSONObject snapshot() {
+        if (failingSnapshots > 0) {
+            failingSnapshots--;
+            throw new IllegalStateException("Interrupted while taking a snapshot for the replicas");
+        }
+        JSONArray studentArray = new JSONArray();
+        students.forEach(student -> studentArray.put(student.toJson()));
+        JSONArray courseArray = new JSONArray();
+        courses.forEach(course -> courseArray.put(course.toJson()));
+        return new JSONObject().put("seq", journal.getLastSeq()).put("students", studentArray)
+                .put("courses", courseArray);
+    }
+
+    private Double replicaGrade(int studentID, int courseID) {
+        return replica.read((students, courses) -> {
+            for (Course course : courses) {
+                for (Student student : students) {
+                    if (course.getCourseID() == courseID && student.getStudentID() == studentID) {
+                        return course.getGrade(student);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void testReplicaStartsFromSnapshot() throws InterruptedException {
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        assertTrue(replica.isConnected());
+        assertEquals(1, primary.getReplicaCount());
+        assertEquals(1, replica.getSnapshotCount());
+        assertEquals(90.0, replicaGrade(123, 101));
+        assertEquals(Integer.valueOf(1), replica.read((students, courses) -> students.size()));
+    }
+
+    @Test
+    void testRecordsAreAppliedAndLagIsMeasured() throws InterruptedException {
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        for (int id = 1; id <= 100; id++) {
+            Student student = new Student("Student " + id, id);
+            students.add(student);
+            journal.recordAddStudent(student);
+            java.enrollStudent(student);
+            student.addCourse(java);
+            journal.recordEnroll(student, java);
+            java.addGrade(student, id);
+            journal.recordAddGrade(student, java, id);
+        }
+
+        assertTrue(replica.awaitCaughtUp(journal.getLastSeq(), TIMEOUT_MILLIS));
+        assertEquals(journal.getLastSeq(), replica.getAppliedSeq());
+        assertEquals(0, replica.getLagRecords());
+        assertEquals(42.0, replicaGrade(42, 101));
+        assertEquals(Integer.valueOf(101), replica.read((students, courses) -> students.size()));
+        assertEquals(1, replica.getSnapshotCount());
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (replica.getLagMillis() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(ReplicationPrimary.HEARTBEAT_MILLIS);
+        }
+        assertEquals(0, replica.getLagMillis());
+    }
+
+    @Test
+    void testBulkChangeSendsNewSnapshot() throws InterruptedException {
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        java.addGrade(students.get(0), 55.0);
+        journal.recordBulkChange();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (replica.getSnapshotCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, replica.getSnapshotCount());
+        assertEquals(55.0, replicaGrade(123, 101));
+    }
+
+    @Test
+    void testRecordsWhileDetachedAreNotShipped() throws InterruptedException {
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        long seq = replica.getAppliedSeq();
+        journal.detach();
+        journal.recordRemoveGrade(students.get(0), java);
+        Thread.sleep(3 * ReplicationPrimary.HEARTBEAT_MILLIS);
+
+        assertEquals(seq, replica.getAppliedSeq());
+        assertEquals(90.0, replicaGrade(123, 101));
+    }
+
+    @Test
+    void testRecordThatCannotBeAppliedReconnects() throws InterruptedException {
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        primary.recorded(new JSONObject().put("op", "unknown").put("seq", journal.getLastSeq() + 1));
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (replica.getSnapshotCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, replica.getSnapshotCount());
+        assertEquals(90.0, replicaGrade(123, 101));
+    }
+
+    @Test
+    void testFailedSnapshotReconnects() throws IOException, InterruptedException {
+        replica.close();
+        primary.close();
+        failingSnapshots = 1;
+        primary = new ReplicationPrimary(0, this::snapshot);
+        journal.setListener(primary);
+        replica = new Replica(InetAddress.getLoopbackAddress().getHostAddress(), primary.getPort());
+
+        assertTrue(replica.awaitCaughtUp(0, TIMEOUT_MILLIS));
+        assertEquals(0, failingSnapshots);
+        assertEquals(1, replica.getSnapshotCount());
+        assertEquals(90.0, replicaGrade(123, 101));
+    }
+}
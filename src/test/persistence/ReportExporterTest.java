@@ -0,0 +1,137 @@
+package persistence;
+
+import model.Change;
+import model.Course;
+import model.Student;
+import model.StudentReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<Student> students;
+    private List<Course> courses;
+
+    @BeforeEach
+    void setUp() {
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            courses.add(new Course("Course " + i, "C" + i, "Description " + i, 100 + i, 3, 100.0));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Student student = new Student("Student " + i, i);
+            Course course = courses.get(i % courses.size());
+            student.addCourse(course);
+            course.enrollStudent(student);
+            course.addGrade(student, i % 100);
+            students.add(student);
+        }
+    }
+
+    @Test
+    void testExportToDirectory() throws IOException {
+        Path dir = tempDir.resolve("reports");
+        assertEquals(1000, new ReportExporter(students, courses, 3).exportToDirectory(dir.toString()));
+        StudentReport report = new StudentReport(courses);
+        try (var files = Files.list(dir)) {
+            assertEquals(1000, files.count());
+        }
+        for (int i : new int[]{0, 1, 499, 999}) {
+            Student student = students.get(i);
+            assertEquals(report.generate(student),
+                    Files.readString(dir.resolve(ReportExporter.fileName(student)), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testExportToFileInOrder() throws IOException {
+        Path file = tempDir.resolve("reports.txt");
+        assertEquals(1000, new ReportExporter(students, courses, 2).exportToFile(file.toString()));
+        StudentReport report = new StudentReport(courses);
+        StringBuilder expected = new StringBuilder();
+        for (Student student : students) {
+            expected.append(report.generate(student)).append("\n");
+        }
+        assertEquals(expected.toString(), Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportChangedToDirectory() throws IOException {
+        Path dir = tempDir.resolve("reports");
+        ReportExporter exporter = new ReportExporter(students, courses, 2);
+        exporter.exportToDirectory(dir.toString());
+        Student graded = students.get(5);
+        courses.get(1).setGrades(new int[]{5}, new double[]{42.0});
+        courses.get(2).setCourseName("Renamed");
+        students.remove(7);
+
+        List<Change> changes = Arrays.asList(new Change(Change.Kind.GRADE_CHANGED, 5, 101),
+                new Change(Change.Kind.COURSE_CHANGED, 0, 102), new Change(Change.Kind.STUDENT_REMOVED, 7, 0));
+        assertEquals(250 + 250, exporter.exportChangedToDirectory(dir.toString(), changes));
+        StudentReport report = new StudentReport(courses);
+        assertEquals(report.generate(graded),
+                Files.readString(dir.resolve(ReportExporter.fileName(graded)), StandardCharsets.UTF_8));
+        assertEquals(report.generate(students.get(2)),
+                Files.readString(dir.resolve("report-2.txt"), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(dir.resolve("report-7.txt")));
+
+        assertEquals(999, exporter.exportChangedToDirectory(dir.toString(),
+                Collections.singletonList(Change.reset())));
+    }
+
+    @Test
+    void testGradeChangeRewritesClassmatesReports() throws IOException {
+        Path dir = tempDir.resolve("classmates");
+        Course course = new Course("Maths", "M1", "Algebra", 200, 3, 100.0);
+        Student first = new Student("First", 1);
+        Student second = new Student("Second", 2);
+        for (Student student : Arrays.asList(first, second)) {
+            student.addCourse(course);
+            course.enrollStudent(student);
+        }
+        course.setGrades(new int[]{1, 2}, new double[]{95, 40});
+        ReportExporter exporter = new ReportExporter(Arrays.asList(first, second), Collections.singletonList(course));
+        exporter.exportToDirectory(dir.toString());
+
+        course.setGrades(new int[]{2}, new double[]{95});
+        assertEquals(2, exporter.exportChangedToDirectory(dir.toString(),
+                Collections.singletonList(new Change(Change.Kind.GRADE_CHANGED, 2, 200))));
+        StudentReport report = new StudentReport(Collections.singletonList(course));
+        String firstReport = Files.readString(dir.resolve(ReportExporter.fileName(first)), StandardCharsets.UTF_8);
+        assertEquals(report.generate(first), firstReport);
+        assertTrue(firstReport.contains("Cumulative GPA: 4.00"));
+    }
+
+    @Test
+    void testExportNoStudents() throws IOException {
+        Path file = tempDir.resolve("empty.txt");
+        assertEquals(0, new ReportExporter(new ArrayList<>(), courses).exportToFile(file.toString()));
+        assertEquals("", Files.readString(file));
+        assertEquals(0, new ReportExporter(new ArrayList<>(), courses).exportToDirectory(
+                tempDir.resolve("none").toString()));
+    }
+
+    @Test
+    void testUnwritableDirectory() throws IOException {
+        Path blocker = tempDir.resolve("blocker");
+        Files.writeString(blocker, "not a directory");
+        assertThrows(IOException.class, () -> new ReportExporter(students, courses).exportToDirectory(
+                blocker.toString()));
+    }
+}
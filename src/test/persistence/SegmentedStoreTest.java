@@ -0,0 +1,141 @@
+package persistence;
+
+import model.Course;
+import model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SegmentedStore store;
+    private List<Student> students;
+    private List<Course> courses;
+
+    @BeforeEach
+    void setUp() {
+        store = new SegmentedStore(tempDir.resolve("gradeTracker.gts").toString());
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            courses.add(new Course("Course " + i, "C" + i, "Description " + i, 100 + i, 3, 100.0));
+        }
+        for (int i = 0; i < 20; i++) {
+            Student student = new Student("Student " + i, i);
+            Course course = courses.get(i % courses.size());
+            student.addCourse(course);
+            course.enrollStudent(student);
+            course.addGrade(student, 50 + i);
+            students.add(student);
+        }
+    }
+
+    @Test
+    void testWriteMarksRecordsClean() throws IOException {
+        store.write(students, courses);
+        assertEquals(0, store.getLastCopied());
+        assertTrue(students.stream().noneMatch(Student::isDirty));
+        assertTrue(courses.stream().noneMatch(Course::isDirty));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        store.write(students, courses);
+        JsonReader.Pair<List<Student>, List<Course>> data = new SegmentedStore(store.getFile().getPath()).read();
+        assertEquals(20, data.first.size());
+        assertEquals(5, data.second.size());
+        Student student = data.first.get(7);
+        assertEquals("Student 7", student.getName());
+        assertEquals(List.of(102), student.getEnrolledCourses());
+        assertEquals(57.0, data.second.get(2).getGrade(student));
+        assertFalse(student.isDirty());
+        assertFalse(data.second.get(2).isDirty());
+    }
+
+    @Test
+    void testOnlyDirtyRecordsReserialized() throws IOException {
+        store.write(students, courses);
+        students.get(3).setName("Renamed");
+        courses.get(1).setCourseName("Renamed Course");
+        Student added = new Student("New", 99);
+        students.add(added);
+
+        store.write(students, courses);
+        assertEquals(23, store.getLastCopied());
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new SegmentedStore(store.getFile().getPath()).read();
+        assertEquals("Renamed", data.first.get(3).getName());
+        assertEquals("Student 4", data.first.get(4).getName());
+        assertEquals("Renamed Course", data.second.get(1).getCourseName());
+        assertEquals("New", data.first.get(20).getName());
+    }
+
+    @Test
+    void testReadThenWriteCopiesEverything() throws IOException {
+        store.write(students, courses);
+        SegmentedStore reopened = new SegmentedStore(store.getFile().getPath());
+        JsonReader.Pair<List<Student>, List<Course>> data = reopened.read();
+        reopened.write(data.first, data.second);
+        assertEquals(25, reopened.getLastCopied());
+    }
+
+    @Test
+    void testExternalChangeForcesFullRewrite() throws IOException {
+        store.write(students, courses);
+        new SegmentedStore(store.getFile().getPath()).write(students.subList(0, 2), courses);
+        store.write(students, courses);
+        assertEquals(0, store.getLastCopied());
+    }
+
+    @Test
+    void testDuplicateIdsNeverCopied() throws IOException {
+        students.add(new Student("Twin", 0));
+        store.write(students, courses);
+        store.write(students, courses);
+        assertEquals(24, store.getLastCopied());
+        JsonReader.Pair<List<Student>, List<Course>> data = new SegmentedStore(store.getFile().getPath()).read();
+        assertEquals("Student 0", data.first.get(0).getName());
+        assertEquals("Twin", data.first.get(20).getName());
+    }
+
+    @Test
+    void testReadRejectsOtherFiles() throws IOException {
+        Path json = tempDir.resolve("other.gts");
+        Files.writeString(json, "{\"students\":[],\"courses\":[]}");
+        assertThrows(IOException.class, () -> new SegmentedStore(json.toString()).read());
+    }
+
+    @Test
+    void testCompressedSegmentsSmallerAndCopied() throws IOException {
+        Course big = courses.get(0);
+        for (int i = 100; i < 400; i++) {
+            Student student = new Student("Extra " + i, i);
+            big.enrollStudent(student);
+            big.addGrade(student, 75.0);
+        }
+        SegmentedStore plain = new SegmentedStore(tempDir.resolve("plain.gts").toString(), Deflater.NO_COMPRESSION);
+        plain.write(students, courses);
+        store.write(students, courses);
+        assertTrue(Files.size(store.getFile().toPath()) < Files.size(plain.getFile().toPath()));
+
+        students.get(0).setName("Changed");
+        store.write(students, courses);
+        assertEquals(24, store.getLastCopied());
+
+        JsonReader.Pair<List<Student>, List<Course>> data = new SegmentedStore(store.getFile().getPath()).read();
+        assertEquals(304, data.second.get(0).getEnrolledStudentsID().size());
+        assertEquals("Changed", data.first.get(0).getName());
+    }
+}
@@ -0,0 +1,160 @@
+package ui;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeTrackerBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String file;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("gradeTracker.json").toString();
+    }
+
+    private String run(GradeTrackerBatch batch, String script) throws IOException {
+        StringWriter out = new StringWriter();
+        batch.run(new StringReader(script), out);
+        return out.toString();
+    }
+
+    @Test
+    void testCommands() throws IOException {
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.NORMAL);
+        String out = run(batch, "# a comment\n"
+                + "course 101 CPSC210 4 Software Construction\n"
+                + "student 1 Alice Smith\n"
+                + "\n"
+                + "enroll 1 CPSC210\n"
+                + "grade 1 CPSC210 91.5\n"
+                + "gpa 1\n"
+                + "report 1\n"
+                + "summary\n");
+
+        assertTrue(out.contains("New course added: Software Construction (CPSC210)"), out);
+        assertTrue(out.contains("New student added: Alice Smith with ID 1"), out);
+        assertTrue(out.contains("The GPA for student ID 1 is: 4.00"), out);
+        assertTrue(out.contains("Report for Student ID: 1"), out);
+        assertTrue(out.contains("Summary of Courses:"), out);
+        assertTrue(out.endsWith("Ran 7 commands, 0 failed.\n"), out);
+        assertEquals(91.5, batch.getCourses().get(0).getGrade(batch.getStudents().get(0)));
+    }
+
+    @Test
+    void testErrorsAreReportedAndTheScriptCarriesOn() throws IOException {
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.QUIET);
+        StringWriter out = new StringWriter();
+        int failed = batch.run(new StringReader("student 1 Alice\n"
+                + "student 1 Bob\n"
+                + "enroll 1 NOPE\n"
+                + "course x CODE 3 Name\n"
+                + "course 2 CODE\n"
+                + "fly\n"
+                + "course 2 CODE 3 Name\n"
+                + "grade 1 CODE 80\n"
+                + "gpa 1\n"), out);
+
+        assertEquals(6, failed);
+        assertEquals("Line 2: a student with ID 1 already exists\n"
+                + "Line 3: no course with code NOPE\n"
+                + "Line 4: expected a number: For input string: \"x\"\n"
+                + "Line 5: usage: course <id> <code> <credits> <name>\n"
+                + "Line 6: unknown command: fly\n"
+                + "Line 8: student 1 is not enrolled in CODE\n"
+                + "The GPA for student ID 1 is: NaN\n", out.toString());
+    }
+
+    @Test
+    void testVerbosity() throws IOException {
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.VERBOSE);
+        String out = run(batch, "student 1 Alice\n"
+                + "verbosity quiet\n"
+                + "student 2 Bob\n"
+                + "verbosity normal\n"
+                + "student 3 Carol\n");
+
+        assertEquals("1> student 1 Alice\n"
+                + "New student added: Alice with ID 1\n"
+                + "2> verbosity quiet\n"
+                + "New student added: Carol with ID 3\n"
+                + "Ran 5 commands, 0 failed.\n", out);
+    }
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.QUIET);
+        run(batch, "course 101 CPSC210 4 Software Construction\n"
+                + "student 1 Alice\n"
+                + "save\n"
+                + "enroll 1 CPSC210\n"
+                + "grade 1 CPSC210 75\n"
+                + "save\n");
+
+        GradeTrackerBatch loaded = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.QUIET);
+        assertEquals("", run(loaded, "load\nstudent 2 Bob\nenroll 2 CPSC210\n"));
+        assertEquals(2, loaded.getStudents().size());
+        assertEquals(75.0, loaded.getCourses().get(0).getGrade(loaded.getStudents().get(0)));
+    }
+
+    @Test
+    void testRegradeReplacesGradeAndUpdatesClassmates() throws IOException {
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.QUIET);
+        String out = run(batch, "course 101 CPSC210 4 Software Construction\n"
+                + "student 1 Alice\n"
+                + "student 2 Bob\n"
+                + "enroll 1 CPSC210\n"
+                + "enroll 2 CPSC210\n"
+                + "grade 1 CPSC210 95\n"
+                + "grade 2 CPSC210 40\n"
+                + "gpa 1\n"
+                + "grade 2 CPSC210 95\n"
+                + "gpa 1\n"
+                + "report 1\n"
+                + "save\n");
+
+        String[] lines = out.split("\n");
+        assertNotEquals("The GPA for student ID 1 is: 4.00", lines[0], out);
+        assertEquals("The GPA for student ID 1 is: 4.00", lines[1], out);
+        assertTrue(out.endsWith("Cumulative GPA: 4.00\n\n"), out);
+        assertEquals(List.of(95.0, 95.0), batch.getCourses().get(0).getStudentGrades());
+
+        GradeTrackerBatch loaded = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.QUIET);
+        run(loaded, "load\n");
+        assertEquals(List.of(95.0, 95.0), loaded.getCourses().get(0).getStudentGrades());
+    }
+
+    @Test
+    void testLargeScript() throws IOException {
+        StringBuilder script = new StringBuilder();
+        for (int c = 0; c < 20; c++) {
+            script.append("course ").append(c).append(" C").append(c).append(" 3 Course ").append(c).append('\n');
+        }
+        for (int id = 0; id < 33_000; id++) {
+            script.append("student ").append(id).append(" Student ").append(id).append('\n');
+            script.append("enroll ").append(id).append(" C").append(id % 20).append('\n');
+            script.append("grade ").append(id).append(" C").append(id % 20).append(' ').append(id % 100).append('\n');
+        }
+        script.append("summary\nsave\n");
+
+        GradeTrackerBatch batch = new GradeTrackerBatch(file, GradeTrackerBatch.Verbosity.NORMAL);
+        long start = System.nanoTime();
+        String out = run(batch, script.toString());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(out.endsWith("Ran 99022 commands, 0 failed.\n"), out.substring(out.length() - 100));
+        assertEquals(33_000, batch.getStudents().size());
+        assertTrue(millis < 20_000, "took " + millis + " ms");
+    }
+}
@@ -0,0 +1,122 @@
+package ui;
+
+import model.Course;
+import model.GradeBook;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeTrackerServerTest {
+
+    private GradeBook book;
+    private GradeTrackerServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        book = new GradeBook();
+        book.addCourse(new Course("Physics", "PHYS 101", "Mechanics", 101, 3, 100.0));
+        book.addCourse(new Course("Calculus", "MATH 100", "Limits", 102, 4, 100.0));
+        for (int i = 1; i <= 500; i++) {
+            book.addStudent(new Student("Student " + i, i));
+            book.enroll(i, 101);
+            book.setGrade(i, 101, 50 + i % 50);
+        }
+        book.enroll(1, 102);
+        book.setGrade(1, 102, 91.0);
+        server = new GradeTrackerServer(book, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(request(path), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build();
+    }
+
+    @Test
+    void testListings() throws Exception {
+        JSONArray students = new JSONArray(get("/students").body());
+        assertEquals(500, students.length());
+        assertEquals(1, students.getJSONObject(0).getInt("studentID"));
+        assertEquals("Student 1", students.getJSONObject(0).getString("name"));
+
+        JSONArray courses = new JSONArray(get("/courses").body());
+        assertEquals(2, courses.length());
+        assertEquals(500, courses.getJSONObject(0).getInt("enrolled"));
+
+        JSONArray grades = new JSONArray(get("/courses/101/grades").body());
+        assertEquals(500, grades.length());
+        assertEquals(51.0, grades.getJSONObject(0).getDouble("grade"));
+    }
+
+    @Test
+    void testStudentAndCourseDetails() throws Exception {
+        JSONObject student = new JSONObject(get("/students/1").body());
+        assertEquals(2, student.getJSONArray("courses").length());
+        assertEquals("A+", student.getJSONArray("courses").getJSONObject(1).getString("letterGrade"));
+        assertTrue(student.has("gpa"));
+        assertEquals(student.get("gpa").toString(),
+                new JSONObject(get("/students/1/gpa").body()).get("gpa").toString());
+
+        JSONObject course = new JSONObject(get("/courses/102").body());
+        assertEquals("Calculus", course.getString("courseName"));
+
+        JSONObject summary = new JSONObject(get("/courses/101/summary").body());
+        assertEquals(500, summary.getInt("count"));
+        assertEquals(74.5, summary.getDouble("average"), 1e-9);
+        assertEquals(100, summary.getJSONObject("distribution").getInt("A+"));
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        assertEquals(404, get("/students/9999").statusCode());
+        assertEquals(404, get("/courses/101/roster").statusCode());
+        assertEquals(400, get("/students/abc").statusCode());
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(request("/students").uri())
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+        assertTrue(new JSONObject(post.body()).has("error"));
+    }
+
+    @Test
+    void testSeesLaterChanges() throws Exception {
+        book.setGrade(2, 101, 12.5);
+        JSONArray grades = new JSONArray(get("/courses/101/grades").body());
+        assertEquals(12.5, grades.getJSONObject(1).getDouble("grade"));
+    }
+
+    @Test
+    void testManyConcurrentClients() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            responses.add(client.sendAsync(request("/students/" + (i % 500 + 1) + "/gpa"),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ui;
+
+import model.Course;
+import model.Student;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.Journal;
+import persistence.ReplicationPrimary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests a replica server run in its own process, as Main --replica runs it, against a primary in the test.
+ */
+class ReplicaServerTest {
+    private static final long TIMEOUT_MILLIS = 15_000;
+
+    @TempDir
+    Path tempDir;
+
+    private List<Student> students;
+    private List<Course> courses;
+    private Journal journal;
+    private ReplicationPrimary primary;
+    private Process process;
+    private int port;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        courses.add(new Course("Physics", "PHYS 101", "Mechanics", 101, 3, 100.0));
+        journal = new Journal(tempDir.resolve("gradeTracker.json").toString());
+        journal.save(students, courses);
+        primary = new ReplicationPrimary(0, this::snapshot);
+        journal.setListener(primary);
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ReplicaServer.class.getName(),
+                String.valueOf(primary.getPort())).redirectErrorStream(true).start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8));
+        String line = out.readLine();
+        assertNotNull(line);
+        assertTrue(line.startsWith(ReplicaServer.READY), line);
+        port = Integer.parseInt(line.substring(ReplicaServer.READY.length()).trim());
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        process.destroy();
+        process.waitFor();
+        primary.close();
+    }
+
+    private synchronized JSONObject snapshot() {
+        JSONArray studentArray = new JSONArray();
+        students.forEach(student -> studentArray.put(student.toJson()));
+        JSONArray courseArray = new JSONArray();
+        courses.forEach(course -> courseArray.put(course.toJson()));
+        return new JSONObject().put("seq", journal.getLastSeq()).put("students", studentArray)
+                .put("courses", courseArray);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    // EFFECTS: waits until the replica reports it has applied the journal's last record
+    private JSONObject awaitReplication() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        JSONObject status = new JSONObject(get("/replication").body());
+        while (!(status.getBoolean("connected") && status.getLong("appliedSeq") == journal.getLastSeq()
+                && status.getLong("lagRecords") == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = new JSONObject(get("/replication").body());
+        }
+        return status;
+    }
+
+    @Test
+    void testServesReadsFromReplicatedJournal() throws Exception {
+        JSONObject status = awaitReplication();
+        assertTrue(status.getBoolean("connected"));
+        assertEquals(404, get("/students/1/gpa").statusCode());
+
+        synchronized (this) {
+            Course physics = courses.get(0);
+            for (int id = 1; id <= 10; id++) {
+                Student student = new Student("Student " + id, id);
+                students.add(student);
+                journal.recordAddStudent(student);
+                physics.enrollStudent(student);
+                student.addCourse(physics);
+                journal.recordEnroll(student, physics);
+                physics.addGrade(student, 80 + id);
+                journal.recordAddGrade(student, physics, 80 + id);
+            }
+        }
+
+        status = awaitReplication();
+        assertEquals(journal.getLastSeq(), status.getLong("appliedSeq"));
+        assertEquals(0, status.getLong("lagRecords"));
+
+        JSONObject summary = new JSONObject(get("/courses/101/summary").body());
+        assertEquals(10, summary.getInt("count"));
+        assertEquals(85.5, summary.getDouble("average"), 1e-9);
+        assertTrue(new JSONObject(get("/students/3/gpa").body()).has("gpa"));
+        String report = get("/students/3/report").body();
+        assertTrue(report.contains("Student 3"), report);
+        assertTrue(report.contains("PHYS 101"), report);
+        assertEquals(404, get("/courses/999/summary").statusCode());
+    }
+}
@@ -0,0 +1,114 @@
+package ui;
+
+import model.Change;
+import model.Course;
+import model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentTableModelTest {
+
+    private List<Student> students;
+    private List<Course> courses;
+    private StudentTableModel model;
+    private List<TableModelEvent> events;
+    private Course java;
+    private Course math;
+
+    @BeforeEach
+    void setUp() {
+        students = new ArrayList<>();
+        courses = new ArrayList<>();
+        java = new Course("Intro to Java", "210", "An introductory course.", 101, 4, 100.0);
+        math = new Course("Calculus", "100", "Limits.", 102, 3, 100.0);
+        courses.add(java);
+        courses.add(math);
+        for (int id = 1; id <= 5; id++) {
+            Student student = new Student("Student " + id, id);
+            students.add(student);
+            student.addCourse(java);
+            java.enrollStudent(student);
+            java.addGrade(student, 60 + id);
+        }
+        model = new StudentTableModel(students, courses);
+        events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+    }
+
+    @Test
+    void testCells() {
+        assertEquals(5, model.getRowCount());
+        assertEquals(4, model.getColumnCount());
+        assertEquals("GPA", model.getColumnName(StudentTableModel.GPA_COLUMN));
+        assertEquals(Double.class, model.getColumnClass(StudentTableModel.GPA_COLUMN));
+        assertEquals(3, model.getValueAt(2, StudentTableModel.ID_COLUMN));
+        assertEquals("Student 3", model.getValueAt(2, StudentTableModel.NAME_COLUMN));
+        assertEquals("Intro to Java: 63.0", model.getValueAt(2, StudentTableModel.COURSES_COLUMN));
+        assertNotNull(model.getValueAt(2, StudentTableModel.GPA_COLUMN));
+        assertEquals(2, model.rowOf(3));
+        assertEquals(-1, model.rowOf(99));
+    }
+
+    @Test
+    void testStudentWithoutCreditsHasNoGpa() {
+        students.add(new Student("New", 6));
+        model.refresh();
+        assertNull(model.getValueAt(5, StudentTableModel.GPA_COLUMN));
+        assertEquals("", model.getValueAt(5, StudentTableModel.COURSES_COLUMN));
+    }
+
+    @Test
+    void testEnrollmentUpdatesOnlyItsRow() {
+        Student third = students.get(2);
+        third.addCourse(math);
+        math.enrollStudent(third);
+        model.update(Collections.singletonList(new Change(Change.Kind.ENROLLED, 3, 102)));
+
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getFirstRow());
+        assertEquals(2, events.get(0).getLastRow());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals("Intro to Java: 63.0, Calculus: null", model.getValueAt(2, StudentTableModel.COURSES_COLUMN));
+    }
+
+    @Test
+    void testGradeChangeUpdatesTheCourseRowsInOneEvent() {
+        java.addGrade(students.get(4), 95.0);
+        model.update(Collections.singletonList(new Change(Change.Kind.GRADE_CHANGED, 5, 101)));
+
+        assertEquals(1, events.size());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(4, events.get(0).getLastRow());
+    }
+
+    @Test
+    void testStructuralChangeRefreshesTheTable() {
+        students.remove(0);
+        model.update(Arrays.asList(new Change(Change.Kind.ENROLLED, 2, 101),
+                new Change(Change.Kind.STUDENT_REMOVED, 1, 0)));
+
+        assertEquals(1, events.size());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+        assertEquals(4, model.getRowCount());
+        assertEquals(0, model.rowOf(2));
+    }
+
+    @Test
+    void testChangeAboutUnknownStudentRefreshesTheTable() {
+        Student added = new Student("Late", 7);
+        students.add(added);
+        model.update(Collections.singletonList(new Change(Change.Kind.ENROLLED, 7, 101)));
+
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+        assertEquals(5, model.rowOf(7));
+    }
+}